@@ -1,4 +1,50 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 
-public class Main {
+import processor.Processor;
+import scales.*;
 
+/**
+ * Command-line front end for the scale library, for use in scripts. See Processor for the commands.
+ * @author Joel Gibson
+ */
+public class Main {
+	
+	public static void main(String[] args) {
+		if (args.length == 0 || "help".equals(args[0]) || "--help".equals(args[0])) {
+			Processor.printUsage(System.out);
+			return;
+		}
+		
+		// load the library from the scale files in the working directory
+		VersionedLibrary library = new VersionedLibrary();
+		ScaleLibrary.loadAllScales(library);
+		CustomScales customScales = ScaleLibrary.openCustomScales();
+		
+		// buffer the output, since a batch can print a lot of results
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+				false, StandardCharsets.UTF_8);
+		UsageStats usage = UsageStats.load(ScaleLibrary.USAGE_FILE);
+		Processor processor = new Processor(library, customScales, usage, out);
+		
+		boolean successful;
+		if ("batch".equals(args[0])) {
+			// prepare the scales and queries used most in earlier runs while the batch is read
+			ScaleLibrary.warmUsage(usage, library, customScales);
+			try {
+				BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+				successful = processor.runBatch(in) == 0;
+			} catch (IOException e) {
+				e.printStackTrace();
+				successful = false;
+			}
+		} else {
+			successful = processor.execute(args);
+		}
+		
+		out.flush();
+		usage.save(ScaleLibrary.USAGE_FILE, ScaleLibrary.getUsageSections(library, customScales));
+		customScales.close();
+		System.exit(successful ? 0 : 1);
+	}
 }
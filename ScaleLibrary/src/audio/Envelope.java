@@ -0,0 +1,122 @@
+package audio;
+
+/**
+ * Represents an attack-decay-sustain-release envelope that shapes the loudness of each note.
+ * @author Joel Gibson
+ */
+public class Envelope {
+	
+	/**
+	 * An envelope with short attack and release times, suitable for most scales.
+	 */
+	public static final Envelope DEFAULT = new Envelope(0.01, 0.1, 0.7, 0.05);
+	
+	/**
+	 * The time taken to rise from silence to full level, in seconds.
+	 */
+	private double attack;
+	
+	/**
+	 * The time taken to fall from full level to the sustain level, in seconds.
+	 */
+	private double decay;
+	
+	/**
+	 * The level held while the note sounds, between 0 and 1.
+	 */
+	private double sustain;
+	
+	/**
+	 * The time taken to fall to silence once the note is released, in seconds.
+	 */
+	private double release;
+	
+	/**
+	 * Creates an envelope from the given times and sustain level.
+	 * @param attack the attack time in seconds
+	 * @param decay the decay time in seconds
+	 * @param sustain the sustain level between 0 and 1
+	 * @param release the release time in seconds
+	 */
+	public Envelope(double attack, double decay, double sustain, double release) {
+		if (attack < 0 || decay < 0 || release < 0 || sustain < 0 || sustain > 1) {
+			throw new IllegalArgumentException("Invalid envelope");
+		}
+		
+		this.attack = attack;
+		this.decay = decay;
+		this.sustain = sustain;
+		this.release = release;
+	}
+	
+	/**
+	 * Gets the attack time.
+	 * @return the attack time in seconds
+	 */
+	public double getAttack() {
+		return attack;
+	}
+	
+	/**
+	 * Gets the decay time.
+	 * @return the decay time in seconds
+	 */
+	public double getDecay() {
+		return decay;
+	}
+	
+	/**
+	 * Gets the sustain level.
+	 * @return the sustain level
+	 */
+	public double getSustain() {
+		return sustain;
+	}
+	
+	/**
+	 * Gets the release time.
+	 * @return the release time in seconds
+	 */
+	public double getRelease() {
+		return release;
+	}
+	
+	/**
+	 * Calculates the envelope level at the given time for a note held for the given duration. The release
+	 * happens at the end of the duration, so the note is silent by the time the next one starts.
+	 * @param time the time since the start of the note in seconds
+	 * @param duration the total length of the note in seconds
+	 * @return the level between 0 and 1
+	 */
+	double level(double time, double duration) {
+		// release the note early enough that it finishes within its duration
+		double gate = Math.max(0, duration - release);
+		if (time < gate) {
+			return held(time);
+		}
+		
+		// fade out from the level reached when the note was released
+		if (time >= duration || release == 0) {
+			return 0;
+		}
+		
+		return held(gate) * (1 - (time - gate) / release);
+	}
+	
+	/**
+	 * Calculates the envelope level while the note is held.
+	 * @param time the time since the start of the note in seconds
+	 * @return the level between 0 and 1
+	 */
+	private double held(double time) {
+		if (time < attack) {
+			return time / attack;
+		}
+		
+		if (time < attack + decay) {
+			return 1 - (1 - sustain) * (time - attack) / decay;
+		}
+		
+		return sustain;
+	}
+}
@@ -0,0 +1,168 @@
+package audio;
+
+import scales.Direction;
+import tuning.Tuning;
+
+/**
+ * Represents the settings used when synthesising scales to audio.
+ * @author Joel Gibson
+ */
+public class SynthOptions {
+	
+	/**
+	 * The number of samples per second.
+	 */
+	private int sampleRate;
+	
+	/**
+	 * The tempo in beats per minute.
+	 */
+	private int tempo;
+	
+	/**
+	 * The octave of the root note (e.g. 4 for middle C).
+	 */
+	private int octave;
+	
+	/**
+	 * The order in which the notes are played.
+	 */
+	private Direction direction;
+	
+	/**
+	 * The length of each note in beats.
+	 */
+	private double noteLength;
+	
+	/**
+	 * The tone colour of each note.
+	 */
+	private Timbre timbre;
+	
+	/**
+	 * The loudness envelope of each note.
+	 */
+	private Envelope envelope;
+	
+	/**
+	 * The tuning system used to find the frequency of each note.
+	 */
+	private Tuning tuning;
+	
+	/**
+	 * Whether sample buffers should be allocated off-heap.
+	 */
+	private boolean direct;
+	
+	/**
+	 * Creates the default options: ascending sine-wave quarter notes at 120 bpm from the 4th octave,
+	 * sampled at 44.1 kHz in equal temperament with A4 at 440 Hz.
+	 */
+	public SynthOptions() {
+		this(44100, 120, 4, Direction.ASCENDING, 1.0, Timbre.SINE, Envelope.DEFAULT,
+				Tuning.equalTemperament(440), false);
+	}
+	
+	/**
+	 * Creates options using the given settings.
+	 * @param sampleRate the number of samples per second
+	 * @param tempo the tempo in beats per minute
+	 * @param octave the octave of the root note
+	 * @param direction the order in which the notes are played
+	 * @param noteLength the length of each note in beats
+	 * @param timbre the tone colour of each note
+	 * @param envelope the loudness envelope of each note
+	 * @param tuning the tuning system used to find the frequency of each note
+	 * @param direct whether sample buffers should be allocated off-heap
+	 */
+	public SynthOptions(int sampleRate, int tempo, int octave, Direction direction, double noteLength,
+			Timbre timbre, Envelope envelope, Tuning tuning, boolean direct) {
+		if (sampleRate <= 0 || tempo <= 0 || noteLength <= 0 || direction == null || timbre == null
+				|| envelope == null || tuning == null || octave < Tuning.LOWEST_OCTAVE
+				|| octave > Tuning.HIGHEST_OCTAVE) {
+			throw new IllegalArgumentException("Invalid synthesis options");
+		}
+		
+		this.sampleRate = sampleRate;
+		this.tempo = tempo;
+		this.octave = octave;
+		this.direction = direction;
+		this.noteLength = noteLength;
+		this.timbre = timbre;
+		this.envelope = envelope;
+		this.tuning = tuning;
+		this.direct = direct;
+	}
+	
+	/**
+	 * Gets the sample rate.
+	 * @return the number of samples per second
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+	
+	/**
+	 * Gets the tempo.
+	 * @return the tempo in beats per minute
+	 */
+	public int getTempo() {
+		return tempo;
+	}
+	
+	/**
+	 * Gets the octave of the root note.
+	 * @return the octave
+	 */
+	public int getOctave() {
+		return octave;
+	}
+	
+	/**
+	 * Gets the playback direction.
+	 * @return the direction
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+	
+	/**
+	 * Gets the length of each note.
+	 * @return the note length in beats
+	 */
+	public double getNoteLength() {
+		return noteLength;
+	}
+	
+	/**
+	 * Gets the timbre.
+	 * @return the timbre
+	 */
+	public Timbre getTimbre() {
+		return timbre;
+	}
+	
+	/**
+	 * Gets the envelope.
+	 * @return the envelope
+	 */
+	public Envelope getEnvelope() {
+		return envelope;
+	}
+	
+	/**
+	 * Gets the tuning system.
+	 * @return the tuning
+	 */
+	public Tuning getTuning() {
+		return tuning;
+	}
+	
+	/**
+	 * Gets whether sample buffers are allocated off-heap.
+	 * @return true if buffers are direct
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+}
@@ -0,0 +1,216 @@
+package audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import files.BatchWriter;
+import scales.*;
+
+/**
+ * Renders scales offline to 16-bit mono PCM audio in WAV format. All tables (frequencies from the tuning,
+ * the envelope shape and the waveform) are precomputed, so rendering a scale only reads primitive arrays
+ * and writes into a reusable sample buffer.
+ * @author Joel Gibson
+ */
+public class Synthesiser {
+	
+	/**
+	 * The size of the WAV file header in bytes.
+	 */
+	static final int HEADER_SIZE = 44;
+	
+	/**
+	 * The peak amplitude of the rendered samples, leaving some headroom below full scale.
+	 */
+	private static final float PEAK = 0.8f * Short.MAX_VALUE;
+	
+	/**
+	 * The synthesis settings.
+	 */
+	private SynthOptions options;
+	
+	/**
+	 * The envelope level at every sample of a note, which is the same for each note.
+	 */
+	private float[] envelopeLevels;
+	
+	/**
+	 * A sample buffer for each rendering thread, so that buffers are reused between files.
+	 */
+	private ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>();
+	
+	/**
+	 * Creates a synthesiser using the given settings.
+	 * @param options the synthesis settings
+	 */
+	public Synthesiser(SynthOptions options) {
+		this.options = options;
+		
+		// calculate the envelope level at each sample of a note
+		double duration = 60.0 / options.getTempo() * options.getNoteLength();
+		int samplesPerNote = (int) Math.round(duration * options.getSampleRate());
+		envelopeLevels = new float[samplesPerNote];
+		for (int i = 0; i < samplesPerNote; i++) {
+			double time = (double) i / options.getSampleRate();
+			envelopeLevels[i] = (float) options.getEnvelope().level(time, duration);
+		}
+	}
+	
+	/**
+	 * Gets the synthesis settings.
+	 * @return the options
+	 */
+	public SynthOptions getOptions() {
+		return options;
+	}
+	
+	/**
+	 * Gets the number of samples rendered for each note.
+	 * @return the number of samples per note
+	 */
+	public int getSamplesPerNote() {
+		return envelopeLevels.length;
+	}
+	
+	/**
+	 * Renders the given scale as a complete WAV file into the buffer. If the buffer is too small, a larger
+	 * one is allocated and returned instead.
+	 * @param scale the scale to render
+	 * @param buffer the buffer to write to, or null to allocate a new one
+	 * @return the buffer holding the WAV file, positioned at the start and limited to its end
+	 */
+	public ByteBuffer render(Scale scale, ByteBuffer buffer) {
+		double[] frequencies = options.getTuning().getFrequencies(scale, options.getOctave());
+		int[] order = options.getDirection().getOrder(frequencies.length);
+		int dataSize = order.length * envelopeLevels.length * 2;
+		
+		// make sure the buffer can hold the full file
+		if (buffer == null || buffer.capacity() < HEADER_SIZE + dataSize) {
+			int capacity = HEADER_SIZE + dataSize;
+			buffer = options.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+		}
+		
+		buffer.clear();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		writeHeader(buffer, dataSize);
+		
+		// render each note, continuing the phase between notes to avoid clicks
+		Timbre timbre = options.getTimbre();
+		double sampleRate = options.getSampleRate();
+		double phase = 0;
+		for (int index : order) {
+			double increment = frequencies[index] / sampleRate;
+			for (int i = 0; i < envelopeLevels.length; i++) {
+				buffer.putShort((short) (PEAK * envelopeLevels[i] * timbre.sample(phase)));
+				phase += increment;
+				if (phase >= 1) {
+					phase -= (int) phase;
+				}
+			}
+		}
+		
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Renders the given scale and writes it to a WAV file.
+	 * @param scale the scale to render
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeScale(Scale scale, File file) throws IOException {
+		ByteBuffer buffer = render(scale, buffers.get());
+		buffers.set(buffer);
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+	
+	/**
+	 * Renders every scale in the collection into the given directory.
+	 * @param scales the scale collection to render
+	 * @param directory the directory to write to
+	 * @return the number of files written
+	 */
+	public int writeCollection(ScaleCollection scales, File directory) {
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		addTasks(scales, directory, tasks);
+		return BatchWriter.runAll(tasks);
+	}
+	
+	/**
+	 * Renders every scale in the library, writing each library section (e.g. scales, modes) into its own
+	 * subdirectory of the given directory.
+	 * @param library the map of section names to the scale collections in each section
+	 * @param directory the directory to write to
+	 * @return the number of files written
+	 */
+	public int writeLibrary(Map<String, ? extends List<ScaleCollection>> library, File directory) {
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (Map.Entry<String, ? extends List<ScaleCollection>> section : library.entrySet()) {
+			File sectionDirectory = new File(directory, BatchWriter.toFileName(section.getKey()));
+			for (ScaleCollection scales : section.getValue()) {
+				addTasks(scales, sectionDirectory, tasks);
+			}
+		}
+		
+		return BatchWriter.runAll(tasks);
+	}
+	
+	/**
+	 * Adds a rendering task for each scale in the collection.
+	 * @param scales the scale collection to render
+	 * @param directory the directory to write to
+	 * @param tasks the list of tasks to add to
+	 */
+	private void addTasks(ScaleCollection scales, File directory, List<Callable<Boolean>> tasks) {
+		directory.mkdirs();
+		for (Scale scale : scales.getAllScales().values()) {
+			File file = new File(directory, BatchWriter.toFileName(scale.toString()) + ".wav");
+			tasks.add(() -> {
+				writeScale(scale, file);
+				return true;
+			});
+		}
+	}
+	
+	/**
+	 * Writes the RIFF/WAVE header for 16-bit mono PCM data.
+	 * @param buffer the little-endian buffer to write to
+	 * @param dataSize the number of bytes of sample data that follow
+	 */
+	private void writeHeader(ByteBuffer buffer, int dataSize) {
+		int sampleRate = options.getSampleRate();
+		
+		buffer.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+		buffer.putInt(36 + dataSize);
+		buffer.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+		
+		// format chunk: PCM, 1 channel, 16 bits per sample
+		buffer.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+		buffer.putInt(16);
+		buffer.putShort((short) 1);
+		buffer.putShort((short) 1);
+		buffer.putInt(sampleRate);
+		buffer.putInt(sampleRate * 2);
+		buffer.putShort((short) 2);
+		buffer.putShort((short) 16);
+		
+		// data chunk
+		buffer.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+		buffer.putInt(dataSize);
+	}
+}
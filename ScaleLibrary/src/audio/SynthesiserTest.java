@@ -0,0 +1,114 @@
+package audio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+import tuning.Tuning;
+
+class SynthesiserTest {
+	
+	// test scale of a single A note
+	Scale scale;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		String[] intervals = {"1"};
+		this.scale = new Scale(Note.getNote("A"), "scale", "test", intervals);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+	}
+
+	@Test
+	void testEnvelope() {
+		Envelope envelope = new Envelope(0.1, 0.1, 0.5, 0.2);
+		
+		// test each stage of a one-second note
+		assertEquals(0, envelope.level(0, 1), 1e-9);
+		assertEquals(0.5, envelope.level(0.05, 1), 1e-9, "Halfway through the attack");
+		assertEquals(1, envelope.level(0.1, 1), 1e-9, "End of the attack");
+		assertEquals(0.5, envelope.level(0.5, 1), 1e-9, "Sustain");
+		assertEquals(0.25, envelope.level(0.9, 1), 1e-9, "Halfway through the release");
+		assertEquals(0, envelope.level(1, 1), 1e-9);
+	}
+
+	@Test
+	void testTimbre() {
+		// test a sine wave at key points in the cycle
+		assertEquals(0, Timbre.SINE.sample(0), 1e-6);
+		assertEquals(1, Timbre.SINE.sample(0.25), 1e-6);
+		assertEquals(-1, Timbre.SINE.sample(0.75), 1e-6);
+		
+		// test that additive timbres are normalised
+		for (double phase = 0; phase < 1; phase += 0.01) {
+			assertTrue(Math.abs(Timbre.BRIGHT.sample(phase)) <= 1.0001);
+		}
+	}
+
+	@Test
+	void testRender() {
+		// render one second of A4 with no envelope shaping
+		Envelope flat = new Envelope(0, 0, 1, 0);
+		SynthOptions options = new SynthOptions(8000, 60, 4, Direction.ASCENDING, 1.0, Timbre.SINE, flat,
+				Tuning.equalTemperament(440), true);
+		Synthesiser synthesiser = new Synthesiser(options);
+		ByteBuffer buffer = synthesiser.render(this.scale, null);
+		assertTrue(buffer.isDirect());
+		
+		// test the header
+		assertEquals(Synthesiser.HEADER_SIZE + 16000, buffer.remaining());
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals('R', buffer.get(0));
+		assertEquals(8000, buffer.getInt(24));
+		assertEquals(16000, buffer.getInt(40));
+		
+		// test the frequency by counting rising zero crossings
+		int crossings = 0;
+		short previous = buffer.getShort(Synthesiser.HEADER_SIZE);
+		for (int i = Synthesiser.HEADER_SIZE + 2; i < buffer.limit(); i += 2) {
+			short sample = buffer.getShort(i);
+			if (previous < 0 && sample >= 0) {
+				crossings++;
+			}
+			previous = sample;
+		}
+		assertEquals(440, crossings, 1);
+		
+		// test that a buffer large enough is reused
+		assertSame(buffer, synthesiser.render(this.scale, buffer));
+		
+		// test that an octave outside the tuning's range is rejected
+		assertThrows(IllegalArgumentException.class, () -> new SynthOptions(8000, 60, Tuning.HIGHEST_OCTAVE + 1,
+				Direction.ASCENDING, 1.0, Timbre.SINE, flat, Tuning.equalTemperament(440), false));
+	}
+
+	@Test
+	void testWriteScale() throws Exception {
+		Synthesiser synthesiser = new Synthesiser(new SynthOptions());
+		File file = File.createTempFile("synthesiser-test", ".wav");
+		synthesiser.writeScale(this.scale, file);
+		
+		// test that the file holds a header and one note
+		assertEquals(Synthesiser.HEADER_SIZE + 2 * synthesiser.getSamplesPerNote(), file.length());
+		file.delete();
+	}
+}
@@ -0,0 +1,115 @@
+package audio;
+
+/**
+ * Represents the tone colour of a synthesised note as the relative amplitudes of its harmonics. The
+ * waveform is precomputed into a single-cycle wavetable so that rendering only requires table lookups.
+ * @author Joel Gibson
+ */
+public class Timbre {
+	
+	/**
+	 * The number of samples in one cycle of the wavetable.
+	 */
+	static final int TABLE_SIZE = 4096;
+	
+	/**
+	 * A pure sine wave.
+	 */
+	public static final Timbre SINE = new Timbre("sine", new double[] {1});
+	
+	/**
+	 * A soft organ-like tone using the first four harmonics.
+	 */
+	public static final Timbre ORGAN = new Timbre("organ", new double[] {1, 0.5, 0.25, 0.125});
+	
+	/**
+	 * A bright, approximately sawtooth tone using the first eight harmonics.
+	 */
+	public static final Timbre BRIGHT = new Timbre("bright", new double[] {1, 1 / 2.0, 1 / 3.0, 1 / 4.0,
+			1 / 5.0, 1 / 6.0, 1 / 7.0, 1 / 8.0});
+	
+	/**
+	 * The name of the timbre.
+	 */
+	private String name;
+	
+	/**
+	 * The amplitude of each harmonic, starting from the fundamental.
+	 */
+	private double[] harmonics;
+	
+	/**
+	 * One cycle of the waveform, normalised to a peak of 1. The table holds one extra sample (equal to
+	 * the first) so that interpolation never needs to wrap around.
+	 */
+	private float[] wavetable;
+	
+	/**
+	 * Creates an additive timbre from the given harmonic amplitudes.
+	 * @param name the name of the timbre
+	 * @param harmonics the amplitude of each harmonic, starting from the fundamental
+	 */
+	public Timbre(String name, double[] harmonics) {
+		if (harmonics.length == 0) {
+			throw new IllegalArgumentException("A timbre needs at least one harmonic");
+		}
+		
+		this.name = name;
+		this.harmonics = harmonics.clone();
+		
+		// sum the harmonics over one cycle
+		double[] samples = new double[TABLE_SIZE];
+		double peak = 0;
+		for (int i = 0; i < TABLE_SIZE; i++) {
+			double angle = 2 * Math.PI * i / TABLE_SIZE;
+			for (int h = 0; h < harmonics.length; h++) {
+				samples[i] += harmonics[h] * Math.sin((h + 1) * angle);
+			}
+			
+			peak = Math.max(peak, Math.abs(samples[i]));
+		}
+		
+		// normalise the waveform so that it never clips
+		wavetable = new float[TABLE_SIZE + 1];
+		for (int i = 0; i < TABLE_SIZE; i++) {
+			wavetable[i] = (float) (peak == 0 ? 0 : samples[i] / peak);
+		}
+		wavetable[TABLE_SIZE] = wavetable[0];
+	}
+	
+	/**
+	 * Gets the name of the timbre.
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the amplitude of each harmonic.
+	 * @return a copy of the harmonic amplitudes
+	 */
+	public double[] getHarmonics() {
+		return harmonics.clone();
+	}
+	
+	/**
+	 * Gets the value of the waveform at the given phase using linear interpolation.
+	 * @param phase the position within the cycle, between 0 (inclusive) and 1 (exclusive)
+	 * @return the sample value between -1 and 1
+	 */
+	float sample(double phase) {
+		double position = phase * TABLE_SIZE;
+		int index = (int) position;
+		float fraction = (float) (position - index);
+		return wavetable[index] + fraction * (wavetable[index + 1] - wavetable[index]);
+	}
+	
+	/**
+	 * Returns the name of the timbre for printing.
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
@@ -0,0 +1,67 @@
+package datamanagement;
+
+import java.util.ArrayList;
+
+import scales.ScaleCollection;
+
+/**
+ * Represents an ordered group of changes to be applied to a Reader in a single write.
+ * @author Joel Gibson
+ */
+public class Batch {
+	
+	/**
+	 * The storage key changed by each change.
+	 */
+	private ArrayList<String> keys = new ArrayList<String>();
+	
+	/**
+	 * The definition stored by each change, or null if the change is a removal.
+	 */
+	private ArrayList<ScaleCollection> values = new ArrayList<ScaleCollection>();
+	
+	/**
+	 * Adds a change that stores the given definition.
+	 * @param scales the scale collection to store
+	 * @return this batch
+	 */
+	public Batch put(ScaleCollection scales) {
+		keys.add(Reader.getKey(scales));
+		values.add(scales);
+		return this;
+	}
+	
+	/**
+	 * Adds a change that removes the given definition.
+	 * @param format the format of the scales
+	 * @param type the type/name of the scales
+	 * @return this batch
+	 */
+	public Batch delete(String format, String type) {
+		keys.add(Reader.getKey(format, type));
+		values.add(null);
+		return this;
+	}
+	
+	/**
+	 * Gets the number of changes in the batch.
+	 * @return the number of changes
+	 */
+	public int size() {
+		return keys.size();
+	}
+	
+	/**
+	 * Gets the storage key of the given change.
+	 */
+	String getKey(int index) {
+		return keys.get(index);
+	}
+	
+	/**
+	 * Gets the definition stored by the given change, or null if it is a removal.
+	 */
+	ScaleCollection getScales(int index) {
+		return values.get(index);
+	}
+}
@@ -0,0 +1,131 @@
+package datamanagement;
+
+import scales.ScaleCollection;
+
+/**
+ * Represents a flyweight view of a single entry in a MappedCatalog. Fields are decoded from the mapped
+ * file each time they are requested, and the view can be moved to another entry to avoid allocating a
+ * new view for every entry during a scan.
+ * @author Joel Gibson
+ */
+public class CatalogEntry {
+	
+	/**
+	 * The catalog holding the entry.
+	 */
+	private MappedCatalog catalog;
+	
+	/**
+	 * The index of the entry in the catalog.
+	 */
+	private int index;
+	
+	/**
+	 * Creates a view of the given entry.
+	 * @param catalog the catalog holding the entry
+	 * @param index the index of the entry
+	 */
+	CatalogEntry(MappedCatalog catalog, int index) {
+		this.catalog = catalog;
+		this.index = index;
+	}
+	
+	/**
+	 * Moves the view to another entry in the same catalog.
+	 * @param index the index of the entry
+	 * @return this view
+	 */
+	public CatalogEntry moveTo(int index) {
+		catalog.checkIndex(index);
+		this.index = index;
+		return this;
+	}
+	
+	/**
+	 * Gets the index of the entry.
+	 * @return the index
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Gets the format of the scales.
+	 * @return the format
+	 */
+	public String getFormat() {
+		return catalog.readFormat(index);
+	}
+	
+	/**
+	 * Gets the type of the scales.
+	 * @return the type
+	 */
+	public String getType() {
+		return catalog.readType(index);
+	}
+	
+	/**
+	 * Gets whether notes should be simplified.
+	 * @return the boolean value to simplify notes
+	 */
+	public boolean getSimplify() {
+		return catalog.readSimplify(index);
+	}
+	
+	/**
+	 * Gets the number of intervals in the pattern.
+	 * @return the number of intervals
+	 */
+	public int getIntervalCount() {
+		return catalog.readIntervalCount(index);
+	}
+	
+	/**
+	 * Gets the interval name at the given position in the pattern.
+	 * @param position the position in the pattern
+	 * @return the interval name
+	 */
+	public String getInterval(int position) {
+		return catalog.readInterval(index, position);
+	}
+	
+	/**
+	 * Gets the full interval pattern.
+	 * @return the array of interval names
+	 */
+	public String[] getIntervals() {
+		String[] intervals = new String[getIntervalCount()];
+		for (int i = 0; i < intervals.length; i++) {
+			intervals[i] = getInterval(i);
+		}
+		
+		return intervals;
+	}
+	
+	/**
+	 * Gets the pitch classes used by the pattern.
+	 * @return the pitch-class mask
+	 */
+	public int getPitchClassMask() {
+		return catalog.getPitchClassMask(index);
+	}
+	
+	/**
+	 * Decodes the entry into a scale collection and creates all of its scales.
+	 * @return the scale collection
+	 */
+	public ScaleCollection toScaleCollection() {
+		ScaleCollection scales = new ScaleCollection(getFormat(), getType(), getIntervals(), getSimplify());
+		scales.createAllScales();
+		return scales;
+	}
+	
+	/**
+	 * Creates a string representation of the entry name for printing.
+	 */
+	@Override
+	public String toString() {
+		return getType() + " " + getFormat();
+	}
+}
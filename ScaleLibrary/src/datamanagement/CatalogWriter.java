@@ -0,0 +1,230 @@
+package datamanagement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import notes.Interval;
+import scales.ScaleCollection;
+
+/**
+ * Writes scale collection definitions to an indexed binary catalog that can be opened with
+ * MappedCatalog. Definitions are streamed to disk as they are added, so catalogs with millions of
+ * entries can be written without holding them in memory.
+ * <p>
+ * The file holds a header, a table of fixed-width records (one per definition, pointing into the
+ * string heap), a column of pitch-class masks, and a string heap holding the formats and types.
+ * @author Joel Gibson
+ */
+public class CatalogWriter implements Closeable {
+	
+	/**
+	 * The number identifying a catalog file ("SCAT").
+	 */
+	static final int MAGIC = 0x53434154;
+	
+	/**
+	 * The version of the file format.
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * The size of the file header in bytes.
+	 */
+	static final int HEADER_SIZE = 40;
+	
+	/**
+	 * The size of each record in bytes.
+	 */
+	static final int RECORD_SIZE = 64;
+	
+	/**
+	 * The largest number of intervals that a record can hold.
+	 */
+	public static final int MAX_INTERVALS = 26;
+	
+	/**
+	 * The catalog file being written.
+	 */
+	private File file;
+	
+	/**
+	 * The stream of records, written directly after the header.
+	 */
+	private DataOutputStream records;
+	
+	/**
+	 * The temporary file holding the mask column.
+	 */
+	private File masksFile;
+	
+	/**
+	 * The stream of pitch-class masks.
+	 */
+	private DataOutputStream masks;
+	
+	/**
+	 * The temporary file holding the string heap.
+	 */
+	private File stringsFile;
+	
+	/**
+	 * The stream of format and type strings.
+	 */
+	private DataOutputStream strings;
+	
+	/**
+	 * The number of definitions written.
+	 */
+	private int count;
+	
+	/**
+	 * The number of bytes written to the string heap.
+	 */
+	private int stringsSize;
+	
+	/**
+	 * Creates a writer for a new catalog file, replacing any existing file.
+	 * @param file the catalog file to write
+	 * @throws IOException if the file cannot be created
+	 */
+	public CatalogWriter(File file) throws IOException {
+		this.file = file;
+		
+		// reserve space for the header, which is filled in when the writer is closed
+		records = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		records.write(new byte[HEADER_SIZE]);
+		
+		masksFile = File.createTempFile("catalog-masks", ".tmp");
+		masks = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(masksFile), 1 << 16));
+		stringsFile = File.createTempFile("catalog-strings", ".tmp");
+		strings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stringsFile), 1 << 16));
+	}
+	
+	/**
+	 * Writes every scale collection in the list to a new catalog file.
+	 * @param file the catalog file to write
+	 * @param scalesList the scale collections to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(File file, List<ScaleCollection> scalesList) throws IOException {
+		try (CatalogWriter writer = new CatalogWriter(file)) {
+			for (ScaleCollection scales : scalesList) {
+				writer.add(scales.getFormat(), scales.getType(), scales.getIntervals(), scales.getSimplify());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of definitions written so far.
+	 * @return the number of definitions
+	 */
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * Adds a scale collection definition to the catalog.
+	 * @param format the format of the scales (e.g. scale, arpeggio)
+	 * @param type the type/name of the scales (e.g. major, minor)
+	 * @param intervals the sequence of intervals used to construct each note in the scales
+	 * @param simplify whether the notes should be simplified using a fewer number of accidentals
+	 * @throws IOException if the definition cannot be written
+	 * @throws IllegalArgumentException if an interval is invalid or there are too many intervals
+	 */
+	public void add(String format, String type, String[] intervals, boolean simplify) throws IOException {
+		if (intervals.length > MAX_INTERVALS) {
+			throw new IllegalArgumentException("Too many intervals: " + intervals.length);
+		}
+		
+		// write the format and type to the string heap
+		byte[] formatBytes = format.getBytes(StandardCharsets.UTF_8);
+		byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+		if (formatBytes.length > Short.MAX_VALUE || typeBytes.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Name too long");
+		}
+		
+		strings.write(formatBytes);
+		strings.write(typeBytes);
+		
+		// write the fixed-width record
+		records.writeInt(stringsSize);
+		records.writeShort(formatBytes.length);
+		records.writeShort(typeBytes.length);
+		records.writeByte(simplify ? 1 : 0);
+		records.writeByte(intervals.length);
+		for (int i = 0; i < MAX_INTERVALS; i++) {
+			records.writeShort(i < intervals.length ? encodeInterval(intervals[i]) : 0);
+		}
+		records.writeShort(0);
+		
+		masks.writeShort(ScaleCollection.toPitchClassMask(intervals));
+		
+		stringsSize += formatBytes.length + typeBytes.length;
+		count++;
+	}
+	
+	/**
+	 * Appends the mask column and string heap, writes the header and closes the file.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		masks.close();
+		strings.close();
+		
+		try {
+			// append the mask column and the string heap after the records
+			appendFile(masksFile);
+			appendFile(stringsFile);
+			records.close();
+			
+			// fill in the header
+			long masksOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+			long stringsOffset = masksOffset + 2L * count;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(RECORD_SIZE);
+			header.putLong(HEADER_SIZE).putLong(masksOffset).putLong(stringsOffset);
+			header.flip();
+			
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				channel.write(header, 0);
+			}
+			
+		} finally {
+			masksFile.delete();
+			stringsFile.delete();
+		}
+	}
+	
+	/**
+	 * Copies a temporary file onto the end of the catalog.
+	 * @param source the file to copy
+	 * @throws IOException if the file cannot be copied
+	 */
+	private void appendFile(File source) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(source))) {
+			in.transferTo(records);
+		}
+	}
+	
+	/**
+	 * Encodes an interval into 16 bits: the number in bits 0-3, the semitones (+3) in bits 4-6 and the
+	 * ups (+2) in bits 7-9. Zero is reserved for unused slots.
+	 * @param name the interval name
+	 * @return the encoded interval
+	 */
+	static int encodeInterval(String name) {
+		Interval interval = Interval.getInterval(name);
+		if (interval == null) {
+			throw new IllegalArgumentException("Invalid interval: " + name);
+		}
+		
+		int semitones = interval.getQuality().getSemitones() + 3;
+		int ups = interval.getQuality().getUps() + 2;
+		return interval.getNumber() | (semitones << 4) | (ups << 7);
+	}
+}
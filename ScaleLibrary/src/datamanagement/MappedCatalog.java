@@ -0,0 +1,257 @@
+package datamanagement;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import notes.Accidental;
+
+/**
+ * Represents a binary catalog written by CatalogWriter, memory-mapped and queried in place. Entries
+ * are returned as flyweight views that decode their fields on access, so heap use does not depend on
+ * the size of the catalog. All reads use absolute positions, so a catalog can be queried from several
+ * threads at once.
+ * @author Joel Gibson
+ */
+public class MappedCatalog implements Closeable {
+	
+	/**
+	 * The channel of the open catalog file.
+	 */
+	private FileChannel channel;
+	
+	/**
+	 * The memory-mapped contents of the catalog file.
+	 */
+	private MappedByteBuffer buffer;
+	
+	/**
+	 * The number of entries in the catalog.
+	 */
+	private int size;
+	
+	/**
+	 * The position of the first record.
+	 */
+	private int recordsOffset;
+	
+	/**
+	 * The position of the mask column.
+	 */
+	private int masksOffset;
+	
+	/**
+	 * The position of the string heap.
+	 */
+	private int stringsOffset;
+	
+	/**
+	 * Opens the given catalog file.
+	 * @param file the catalog file
+	 * @throws IOException if the file cannot be read, is not a catalog, or is too large to map
+	 */
+	public MappedCatalog(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		try {
+			if (channel.size() > Integer.MAX_VALUE || channel.size() < CatalogWriter.HEADER_SIZE) {
+				throw new IOException("Unsupported catalog size: " + channel.size());
+			}
+			
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			
+			// check and read the header
+			if (buffer.getInt(0) != CatalogWriter.MAGIC || buffer.getInt(4) != CatalogWriter.VERSION
+					|| buffer.getInt(12) != CatalogWriter.RECORD_SIZE) {
+				throw new IOException("Not a scale catalog: " + file);
+			}
+			
+			size = buffer.getInt(8);
+			recordsOffset = (int) buffer.getLong(16);
+			masksOffset = (int) buffer.getLong(24);
+			stringsOffset = (int) buffer.getLong(32);
+			
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Gets the number of entries in the catalog.
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets a view of the entry at the given index.
+	 * @param index the index of the entry
+	 * @return the entry view
+	 */
+	public CatalogEntry get(int index) {
+		checkIndex(index);
+		return new CatalogEntry(this, index);
+	}
+	
+	/**
+	 * Gets the pitch-class mask of the entry at the given index from the mask column.
+	 * @param index the index of the entry
+	 * @return the pitch-class mask
+	 */
+	public int getPitchClassMask(int index) {
+		checkIndex(index);
+		return buffer.getShort(masksOffset + 2 * index) & 0xFFF;
+	}
+	
+	/**
+	 * Finds the next entry whose pitch classes include all of the required pitch classes.
+	 * @param from the index to start searching from
+	 * @param requiredMask the pitch classes that must be present
+	 * @return the index of the next matching entry, or -1 if there are none
+	 */
+	public int nextContaining(int from, int requiredMask) {
+		for (int i = Math.max(from, 0); i < size; i++) {
+			if ((buffer.getShort(masksOffset + 2 * i) & requiredMask) == requiredMask) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Finds the next entry whose pitch classes are exactly the given pitch classes.
+	 * @param from the index to start searching from
+	 * @param mask the pitch classes to match
+	 * @return the index of the next matching entry, or -1 if there are none
+	 */
+	public int nextWithMask(int from, int mask) {
+		for (int i = Math.max(from, 0); i < size; i++) {
+			if ((buffer.getShort(masksOffset + 2 * i) & 0xFFF) == mask) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Finds the first entry with the given format and type by comparing the stored bytes in place.
+	 * @param format the format of the scales (e.g. scale)
+	 * @param type the type of the scales (e.g. major)
+	 * @return the index of the entry, or -1 if it was not found
+	 */
+	public int indexOf(String format, String type) {
+		byte[] formatBytes = format.getBytes(StandardCharsets.UTF_8);
+		byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+		
+		for (int i = 0; i < size; i++) {
+			int record = recordPosition(i);
+			int start = stringsOffset + buffer.getInt(record);
+			int formatLength = buffer.getShort(record + 4);
+			int typeLength = buffer.getShort(record + 6);
+			
+			if (formatLength == formatBytes.length && typeLength == typeBytes.length
+					&& matches(start, formatBytes) && matches(start + formatLength, typeBytes)) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Closes the catalog file. Entry views must not be used afterwards.
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Reads the format of the entry at the given index.
+	 */
+	String readFormat(int index) {
+		int record = recordPosition(index);
+		return readString(stringsOffset + buffer.getInt(record), buffer.getShort(record + 4));
+	}
+	
+	/**
+	 * Reads the type of the entry at the given index.
+	 */
+	String readType(int index) {
+		int record = recordPosition(index);
+		return readString(stringsOffset + buffer.getInt(record) + buffer.getShort(record + 4), buffer.getShort(record + 6));
+	}
+	
+	/**
+	 * Reads whether the entry at the given index should be simplified.
+	 */
+	boolean readSimplify(int index) {
+		return buffer.get(recordPosition(index) + 8) != 0;
+	}
+	
+	/**
+	 * Reads the number of intervals of the entry at the given index.
+	 */
+	int readIntervalCount(int index) {
+		return buffer.get(recordPosition(index) + 9);
+	}
+	
+	/**
+	 * Reads and decodes one interval of the entry at the given index.
+	 */
+	String readInterval(int index, int position) {
+		int code = buffer.getShort(recordPosition(index) + 10 + 2 * position);
+		int number = code & 0xF;
+		int semitones = ((code >> 4) & 0x7) - 3;
+		int ups = ((code >> 7) & 0x7) - 2;
+		return Accidental.convertSemitones(semitones, ups).getSymbol() + number;
+	}
+	
+	/**
+	 * Checks that the index refers to an entry.
+	 * @param index the index to check
+	 */
+	void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+	}
+	
+	/**
+	 * Gets the position of the record at the given index.
+	 */
+	private int recordPosition(int index) {
+		return recordsOffset + index * CatalogWriter.RECORD_SIZE;
+	}
+	
+	/**
+	 * Decodes a UTF-8 string from the buffer.
+	 */
+	private String readString(int position, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(position, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Compares the bytes in the buffer at the given position with the given bytes.
+	 */
+	private boolean matches(int position, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			if (buffer.get(position + i) != bytes[i]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
@@ -0,0 +1,110 @@
+package datamanagement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class MappedCatalogTest {
+	
+	// the temporary catalog file
+	File file;
+	
+	// the catalog under test
+	MappedCatalog catalog;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Accidental.createMicrotonalAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		// write a small catalog
+		List<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
+		scalesList.add(new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false));
+		scalesList.add(new ScaleCollection("scale", "blues", new String[] {"1", "b3", "4", "b5", "5", "b7", "8"}, true));
+		scalesList.add(new ScaleCollection("arpeggio", "major", new String[] {"1", "3", "5", "8"}, false));
+		scalesList.add(new ScaleCollection("scale", "neutral", new String[] {"1", "2", "^3", "4", "5", "6", "v7"}, false));
+		
+		file = File.createTempFile("mapped-catalog-test", ".cat");
+		CatalogWriter.write(file, scalesList);
+		catalog = new MappedCatalog(file);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		catalog.close();
+		file.delete();
+		
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+	}
+
+	@Test
+	void testEntries() {
+		assertEquals(4, catalog.size());
+		
+		CatalogEntry entry = catalog.get(1);
+		assertEquals("scale", entry.getFormat());
+		assertEquals("blues", entry.getType());
+		assertTrue(entry.getSimplify());
+		assertArrayEquals(new String[] {"1", "b3", "4", "b5", "5", "b7", "8"}, entry.getIntervals());
+		
+		// the view can be moved to another entry
+		entry.moveTo(3);
+		assertEquals("neutral", entry.getType());
+		assertEquals("^3", entry.getInterval(2));
+		assertEquals("v7", entry.getInterval(6));
+		
+		assertThrows(IndexOutOfBoundsException.class, () -> catalog.get(4));
+	}
+
+	@Test
+	void testQueries() {
+		// major scale and major arpeggio
+		assertEquals(0b101010110101, catalog.getPitchClassMask(0));
+		assertEquals(0b000010010001, catalog.getPitchClassMask(2));
+		
+		// every entry except the blues scale contains a major third (an up third is on the same pitch class)
+		int majorThird = 1 << 4;
+		assertEquals(0, catalog.nextContaining(0, majorThird));
+		assertEquals(2, catalog.nextContaining(1, majorThird));
+		assertEquals(3, catalog.nextContaining(3, majorThird));
+		assertEquals(-1, catalog.nextContaining(4, majorThird));
+		
+		assertEquals(2, catalog.nextWithMask(0, 0b000010010001));
+		assertEquals(-1, catalog.nextWithMask(3, 0b000010010001));
+		
+		assertEquals(2, catalog.indexOf("arpeggio", "major"));
+		assertEquals(-1, catalog.indexOf("arpeggio", "minor"));
+	}
+
+	@Test
+	void testToScaleCollection() {
+		ScaleCollection scales = catalog.get(0).toScaleCollection();
+		assertEquals("major scale", scales.toString());
+		assertEquals("1, 2, 3, 4, 5, 6, 7, 8", String.join(", ", scales.getIntervals()));
+	}
+	
+	@Test
+	void testInvalidFile() throws Exception {
+		File invalid = File.createTempFile("mapped-catalog-test", ".txt");
+		try {
+			assertThrows(java.io.IOException.class, () -> new MappedCatalog(invalid));
+		} finally {
+			invalid.delete();
+		}
+	}
+}
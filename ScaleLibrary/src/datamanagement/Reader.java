@@ -1,5 +1,84 @@
 package datamanagement;
 
-public class Reader {
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 
+import scales.ScaleCollection;
+
+/**
+ * Represents a storage backend for scale collection definitions. Each definition is identified by its
+ * format and type, so storing a definition replaces any existing definition with the same name.
+ * @author Joel Gibson
+ */
+public interface Reader extends Closeable {
+	
+	/**
+	 * Loads every stored definition and creates all of its scales.
+	 * @return the list of scale collections, in storage order
+	 * @throws IOException if the definitions cannot be read
+	 */
+	ArrayList<ScaleCollection> load() throws IOException;
+	
+	/**
+	 * Passes each stored definition to the given action without holding them all in memory. The scales
+	 * in each collection are not created.
+	 * @param action the action to apply to each definition
+	 * @throws IOException if the definitions cannot be read
+	 */
+	void stream(Consumer<ScaleCollection> action) throws IOException;
+	
+	/**
+	 * Looks up a single definition. The scales in the collection are not created.
+	 * @param format the format of the scales (e.g. scale, arpeggio)
+	 * @param type the type/name of the scales (e.g. major, minor)
+	 * @return the scale collection, or null if it is not stored
+	 * @throws IOException if the definitions cannot be read
+	 */
+	ScaleCollection get(String format, String type) throws IOException;
+	
+	/**
+	 * Stores a definition, replacing any definition with the same format and type.
+	 * @param scales the scale collection to store
+	 * @throws IOException if the definition cannot be written
+	 */
+	default void put(ScaleCollection scales) throws IOException {
+		apply(new Batch().put(scales));
+	}
+	
+	/**
+	 * Removes a definition.
+	 * @param format the format of the scales
+	 * @param type the type/name of the scales
+	 * @return true if a definition was removed, otherwise false
+	 * @throws IOException if the change cannot be written
+	 */
+	boolean delete(String format, String type) throws IOException;
+	
+	/**
+	 * Applies every change in the batch, in order, with a single write to storage.
+	 * @param batch the changes to apply
+	 * @throws IOException if the changes cannot be written
+	 */
+	void apply(Batch batch) throws IOException;
+	
+	/**
+	 * Gets the key identifying a definition in storage.
+	 * @param format the format of the scales
+	 * @param type the type/name of the scales
+	 * @return the storage key
+	 */
+	static String getKey(String format, String type) {
+		return format + "; " + type;
+	}
+	
+	/**
+	 * Gets the key identifying a scale collection in storage.
+	 * @param scales the scale collection
+	 * @return the storage key
+	 */
+	static String getKey(ScaleCollection scales) {
+		return getKey(scales.getFormat(), scales.getType());
+	}
 }
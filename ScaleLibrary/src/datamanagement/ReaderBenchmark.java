@@ -0,0 +1,107 @@
+package datamanagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import scales.ScaleCollection;
+
+/**
+ * Compares the storage backends on a large generated library of custom scales. Run with the number of
+ * definitions as an optional argument (default 100000).
+ * @author Joel Gibson
+ */
+public class ReaderBenchmark {
+	
+	/**
+	 * The number of single lookups, changes and removals timed for each backend.
+	 */
+	private static final int OPERATIONS = 50;
+	
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		
+		File directory = Files.createTempDirectory("reader-benchmark").toFile();
+		try {
+			System.out.println(count + " definitions, " + OPERATIONS + " single operations\n");
+			run("text", new TextReader(new File(directory, "custom.txt")), count);
+			run("store", new StoreReader(new File(directory, "custom.store")), count);
+			
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+	
+	/**
+	 * Times each operation of the given backend and prints the results.
+	 * @param name the name of the backend
+	 * @param reader the backend to time
+	 * @param count the number of definitions to store
+	 * @throws IOException if the backend fails
+	 */
+	private static void run(String name, Reader reader, int count) throws IOException {
+		try (reader) {
+			// write every definition in a single batch
+			Batch batch = new Batch();
+			for (int i = 0; i < count; i++) {
+				batch.put(createScales(i));
+			}
+			long start = System.nanoTime();
+			reader.apply(batch);
+			print(name, "batch put", start, count);
+			
+			// read every definition without creating the scales
+			int[] streamed = new int[1];
+			start = System.nanoTime();
+			reader.stream(scales -> streamed[0]++);
+			print(name, "stream", start, streamed[0]);
+			
+			// look up random definitions
+			Random random = new Random(1);
+			start = System.nanoTime();
+			for (int i = 0; i < OPERATIONS; i++) {
+				reader.get("scale", "custom " + random.nextInt(count));
+			}
+			print(name, "get", start, OPERATIONS);
+			
+			// replace random definitions one at a time
+			start = System.nanoTime();
+			for (int i = 0; i < OPERATIONS; i++) {
+				reader.put(createScales(random.nextInt(count)));
+			}
+			print(name, "put", start, OPERATIONS);
+			
+			// remove definitions one at a time
+			start = System.nanoTime();
+			for (int i = 0; i < OPERATIONS; i++) {
+				reader.delete("scale", "custom " + i);
+			}
+			print(name, "delete", start, OPERATIONS);
+		}
+		
+		System.out.println();
+	}
+	
+	/**
+	 * Creates a generated definition.
+	 * @param i the number of the definition
+	 * @return the scale collection
+	 */
+	private static ScaleCollection createScales(int i) {
+		String[] intervals = {"1", (i & 1) == 0 ? "2" : "b2", (i & 2) == 0 ? "3" : "b3", "4", "5",
+				(i & 4) == 0 ? "6" : "b6", (i & 8) == 0 ? "7" : "b7", "8"};
+		return new ScaleCollection("scale", "custom " + i, intervals, false);
+	}
+	
+	/**
+	 * Prints the total and average time of an operation.
+	 */
+	private static void print(String name, String operation, long start, int operations) {
+		double millis = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-6s %-10s %10.1f ms %12.4f ms/op%n", name, operation, millis, millis / Math.max(operations, 1));
+	}
+}
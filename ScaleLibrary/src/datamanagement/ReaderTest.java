@@ -0,0 +1,173 @@
+package datamanagement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class ReaderTest {
+	
+	// temporary directory holding the storage files
+	File directory;
+	
+	// the scale collections to store
+	ScaleCollection major;
+	ScaleCollection blues;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		directory = Files.createTempDirectory("reader-test").toFile();
+		major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		blues = new ScaleCollection("scale", "blues", new String[] {"1", "b3", "4", "b5", "5", "b7", "8"}, false);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	void testTextReader() throws Exception {
+		File file = new File(directory, "custom.txt");
+		try (Reader reader = new TextReader(file)) {
+			testOperations(reader);
+		}
+		
+		// the file stays in the scale file format
+		assertEquals("scale; blues; 1, b3, 4, b5, 5, b7, 8; true", Files.readAllLines(file.toPath()).get(0));
+	}
+
+	@Test
+	void testStoreReader() throws Exception {
+		File file = new File(directory, "custom.store");
+		try (Reader reader = new StoreReader(file)) {
+			testOperations(reader);
+		}
+		
+		// the definitions are still there when the store is reopened
+		try (StoreReader reader = new StoreReader(file)) {
+			assertEquals(1, reader.size());
+			assertTrue(reader.get("scale", "blues").getSimplify());
+			assertTrue(reader.getGarbage() > 0);
+			
+			// compacting removes the replaced and removed records
+			reader.compact();
+			assertEquals(0, reader.getGarbage());
+			assertEquals(1, reader.size());
+			assertEquals("blues scale", reader.get("scale", "blues").toString());
+		}
+	}
+
+	@Test
+	void testStoreRecovery() throws Exception {
+		File file = new File(directory, "custom.store");
+		try (Reader reader = new StoreReader(file)) {
+			reader.put(major);
+			reader.put(blues);
+		}
+		
+		// cut the last record short, as if the program stopped while writing it
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 3);
+		}
+		
+		try (StoreReader reader = new StoreReader(file)) {
+			assertEquals(1, reader.size());
+			assertNotNull(reader.get("scale", "major"));
+			assertNull(reader.get("scale", "blues"));
+			
+			// new records are written after the last complete record
+			reader.put(blues);
+		}
+		
+		try (StoreReader reader = new StoreReader(file)) {
+			assertEquals(2, reader.size());
+		}
+	}
+	
+	@Test
+	void testStoreWriteFailure() throws Exception {
+		// write half of the first batch and then fail, as if the disk filled up
+		File file = new File(directory, "custom.store");
+		try (StoreReader reader = new StoreReader(file) {
+			boolean failed;
+			
+			@Override
+			void write(ByteBuffer buffer, long position) throws IOException {
+				if (!failed) {
+					failed = true;
+					buffer.limit(buffer.position() + buffer.remaining() / 2);
+					super.write(buffer, position);
+					throw new IOException("No space left on device");
+				}
+				super.write(buffer, position);
+			}
+		}) {
+			assertThrows(IOException.class, () -> reader.put(major));
+			assertEquals(0, reader.size());
+			
+			// test that the torn record was removed before the next record was appended
+			reader.put(blues);
+		}
+		
+		try (StoreReader reader = new StoreReader(file)) {
+			assertEquals(1, reader.size());
+			assertEquals("blues scale", reader.get("scale", "blues").toString());
+		}
+	}
+	
+	/**
+	 * Checks the operations that every backend must support.
+	 */
+	void testOperations(Reader reader) throws Exception {
+		assertTrue(reader.load().isEmpty());
+		assertNull(reader.get("scale", "major"));
+		
+		reader.put(major);
+		reader.put(blues);
+		assertEquals("1, 2, 3, 4, 5, 6, 7, 8", String.join(", ", reader.get("scale", "major").getIntervals()));
+		
+		// loading creates every scale
+		ArrayList<ScaleCollection> scalesList = reader.load();
+		assertEquals(2, scalesList.size());
+		assertEquals("major scale", scalesList.get(0).toString());
+		assertFalse(scalesList.get(1).getAllScales().isEmpty());
+		
+		// a batch applies its changes in order, and a put replaces the existing definition
+		ScaleCollection simplified = new ScaleCollection("scale", "blues", blues.getIntervals(), true);
+		reader.apply(new Batch().delete("scale", "major").put(major).delete("scale", "major").put(simplified));
+		
+		ArrayList<String> names = new ArrayList<String>();
+		reader.stream(scales -> names.add(scales.toString()));
+		assertEquals("[blues scale]", names.toString());
+		assertTrue(reader.get("scale", "blues").getSimplify());
+		
+		assertFalse(reader.delete("scale", "major"));
+		assertFalse(reader.delete("arpeggio", "blues"));
+	}
+}
@@ -0,0 +1,354 @@
+package datamanagement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import files.FileLoader;
+import scales.ScaleCollection;
+
+/**
+ * Stores scale collection definitions in an embedded key-value store. The store is a single append-only
+ * file of checksummed records, and an index of the latest record for each key is kept in memory, so
+ * lookups read one record and changes only append to the file. Removals append a marker record, and
+ * compact() rewrites the file without the records that have been replaced or removed.
+ * <p>
+ * Each record holds a CRC32 checksum, the key length, the value length (or -1 for a removal), the key
+ * and the value. The value is the definition in the text scale file format. If the program stops while
+ * writing, the incomplete record is discarded when the store is next opened.
+ * @author Joel Gibson
+ */
+public class StoreReader implements Reader {
+	
+	/**
+	 * The size of each record header in bytes.
+	 */
+	private static final int HEADER_SIZE = 12;
+	
+	/**
+	 * The location of a stored value in the file.
+	 */
+	private static class Location {
+		
+		/**
+		 * The position of the first byte of the record.
+		 */
+		long position;
+		
+		/**
+		 * The total length of the record in bytes.
+		 */
+		int recordLength;
+		
+		/**
+		 * The length of the value in bytes.
+		 */
+		int valueLength;
+		
+		Location(long position, int recordLength, int valueLength) {
+			this.position = position;
+			this.recordLength = recordLength;
+			this.valueLength = valueLength;
+		}
+	}
+	
+	/**
+	 * The store file.
+	 */
+	private File file;
+	
+	/**
+	 * The channel of the open store file.
+	 */
+	private FileChannel channel;
+	
+	/**
+	 * The location of the latest value for each key, in the order the keys were first stored.
+	 */
+	private Map<String, Location> index = new LinkedHashMap<String, Location>();
+	
+	/**
+	 * The number of bytes in the file used by records that have been replaced or removed.
+	 */
+	private long garbage;
+	
+	/**
+	 * Opens the given store file, creating it if it does not exist, and builds the index.
+	 * @param file the store file
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public StoreReader(File file) throws IOException {
+		this.file = file;
+		open();
+	}
+	
+	@Override
+	public ArrayList<ScaleCollection> load() throws IOException {
+		ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>(size());
+		stream(scales -> {
+			scales.createAllScales();
+			scalesList.add(scales);
+		});
+		
+		return scalesList;
+	}
+	
+	@Override
+	public synchronized void stream(Consumer<ScaleCollection> action) throws IOException {
+		for (Location location : index.values()) {
+			action.accept(readValue(location));
+		}
+	}
+	
+	@Override
+	public synchronized ScaleCollection get(String format, String type) throws IOException {
+		Location location = index.get(Reader.getKey(format, type));
+		return location == null ? null : readValue(location);
+	}
+	
+	@Override
+	public synchronized boolean delete(String format, String type) throws IOException {
+		if (!index.containsKey(Reader.getKey(format, type))) {
+			return false;
+		}
+		
+		apply(new Batch().delete(format, type));
+		return true;
+	}
+	
+	@Override
+	public synchronized void apply(Batch batch) throws IOException {
+		// encode every record of the batch so it can be appended with a single write
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		int[] lengths = new int[batch.size()];
+		for (int i = 0; i < batch.size(); i++) {
+			ScaleCollection scales = batch.getScales(i);
+			int start = out.size();
+			writeRecord(out, batch.getKey(i), scales == null ? null : scales.toFileLine());
+			lengths[i] = out.size() - start;
+		}
+		
+		// append the records and make sure they reach the disk before they are indexed
+		long position = channel.size();
+		try {
+			write(ByteBuffer.wrap(bytes.toByteArray()), position);
+			channel.force(false);
+		} catch (IOException | RuntimeException e) {
+			// remove any part of the batch that was written, so that later records aren't appended after a
+			// torn record and discarded with it when the store is next opened
+			try {
+				channel.truncate(position);
+			} catch (IOException truncate) {
+				e.addSuppressed(truncate);
+			}
+			throw e;
+		}
+		
+		for (int i = 0; i < batch.size(); i++) {
+			int valueLength = lengths[i] - HEADER_SIZE - batch.getKey(i).getBytes(StandardCharsets.UTF_8).length;
+			updateIndex(batch.getKey(i), batch.getScales(i) == null ? null
+					: new Location(position, lengths[i], valueLength), lengths[i]);
+			position += lengths[i];
+		}
+	}
+	
+	/**
+	 * Writes every remaining byte of the buffer to the store file.
+	 * @param buffer the bytes to write
+	 * @param position the position in the file of the first byte
+	 * @throws IOException if the bytes cannot be written
+	 */
+	void write(ByteBuffer buffer, long position) throws IOException {
+		long start = position - buffer.position();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, start + buffer.position());
+		}
+	}
+	
+	/**
+	 * Gets the number of definitions in the store.
+	 * @return the number of definitions
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+	
+	/**
+	 * Gets the number of bytes in the file used by records that have been replaced or removed.
+	 * @return the number of unused bytes
+	 */
+	public synchronized long getGarbage() {
+		return garbage;
+	}
+	
+	/**
+	 * Rewrites the store file with only the latest record for each key.
+	 * @throws IOException if the file cannot be rewritten
+	 */
+	public synchronized void compact() throws IOException {
+		File temp = new File(file.getPath() + ".compact");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+			for (Map.Entry<String, Location> entry : index.entrySet()) {
+				writeRecord(out, entry.getKey(), readValueText(entry.getValue()));
+			}
+		}
+		
+		// replace the old file and rebuild the index from the new one (the channel is closed first, since
+		// an open file can't be replaced on every platform)
+		channel.close();
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			// the old file is unchanged, so keep using it
+			temp.delete();
+			try {
+				open();
+			} catch (IOException reopen) {
+				e.addSuppressed(reopen);
+			}
+			throw e;
+		}
+		open();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Opens the store file and builds the index by reading every record. Any incomplete or corrupt
+	 * record at the end of the file is removed.
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	private void open() throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		index.clear();
+		garbage = 0;
+		
+		long position = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			while (true) {
+				// read the record header
+				int checksum = in.readInt();
+				int keyLength = in.readInt();
+				int valueLength = in.readInt();
+				if (keyLength < 0 || valueLength < -1 || position + HEADER_SIZE + keyLength + Math.max(valueLength, 0) > channel.size()) {
+					break;
+				}
+				
+				// read the key and value and check them against the checksum
+				byte[] data = new byte[keyLength + Math.max(valueLength, 0)];
+				in.readFully(data);
+				if (checksum(keyLength, valueLength, data, new byte[0]) != checksum) {
+					break;
+				}
+				
+				int recordLength = HEADER_SIZE + data.length;
+				String key = new String(data, 0, keyLength, StandardCharsets.UTF_8);
+				updateIndex(key, valueLength < 0 ? null : new Location(position, recordLength, valueLength), recordLength);
+				position += recordLength;
+			}
+			
+		} catch (EOFException e) {
+			// reached the end of the file
+		}
+		
+		// discard anything after the last complete record
+		if (channel.size() > position) {
+			channel.truncate(position);
+		}
+	}
+	
+	/**
+	 * Records the latest location of a key, counting the space used by any record it replaces.
+	 * @param key the storage key
+	 * @param location the location of the new value, or null if the key was removed
+	 * @param recordLength the length of the new record
+	 */
+	private void updateIndex(String key, Location location, int recordLength) {
+		Location previous = location == null ? index.remove(key) : index.put(key, location);
+		if (previous != null) {
+			garbage += previous.recordLength;
+		}
+		
+		// removal markers are never needed once written
+		if (location == null) {
+			garbage += recordLength;
+		}
+	}
+	
+	/**
+	 * Writes a single record.
+	 * @param out the stream to write to
+	 * @param key the storage key
+	 * @param value the value to store, or null to mark the key as removed
+	 * @throws IOException if the record cannot be written
+	 */
+	private static void writeRecord(DataOutputStream out, String key, String value) throws IOException {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] valueBytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+		int valueLength = value == null ? -1 : valueBytes.length;
+		
+		out.writeInt(checksum(keyBytes.length, valueLength, keyBytes, valueBytes));
+		out.writeInt(keyBytes.length);
+		out.writeInt(valueLength);
+		out.write(keyBytes);
+		out.write(valueBytes);
+	}
+	
+	/**
+	 * Calculates the checksum of a record from its lengths and contents.
+	 * @param keyLength the length of the key in bytes
+	 * @param valueLength the length of the value in bytes, or -1 for a removal
+	 * @param first the first block of record data
+	 * @param second the second block of record data
+	 * @return the CRC32 checksum
+	 */
+	private static int checksum(int keyLength, int valueLength, byte[] first, byte[] second) {
+		CRC32 crc = new CRC32();
+		crc.update(ByteBuffer.allocate(8).putInt(keyLength).putInt(valueLength).array());
+		crc.update(first);
+		crc.update(second);
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * Reads the stored text of a value.
+	 * @param location the location of the value
+	 * @return the value text
+	 * @throws IOException if the value cannot be read
+	 */
+	private String readValueText(Location location) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+		long start = location.position + location.recordLength - location.valueLength;
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				throw new EOFException("Truncated record in " + file);
+			}
+		}
+		
+		return new String(buffer.array(), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads and parses a value.
+	 * @param location the location of the value
+	 * @return the scale collection, without its scales created
+	 * @throws IOException if the value cannot be read
+	 */
+	private ScaleCollection readValue(Location location) throws IOException {
+		return FileLoader.parseLine(readValueText(location));
+	}
+}
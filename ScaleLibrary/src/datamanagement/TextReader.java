@@ -0,0 +1,175 @@
+package datamanagement;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import files.FileLoader;
+import scales.ScaleCollection;
+
+/**
+ * Stores scale collection definitions in the plain text scale file format, one definition per line.
+ * Lookups scan the file, and every change rewrites the whole file. The new file is written alongside
+ * the old one and moved into place, so readers never see a partly written file.
+ * @author Joel Gibson
+ */
+public class TextReader implements Reader {
+	
+	/**
+	 * The scale file.
+	 */
+	private File file;
+	
+	/**
+	 * Creates a text backend for the given scale file. The file is created when it is first written.
+	 * @param file the scale file
+	 */
+	public TextReader(File file) {
+		this.file = file;
+	}
+	
+	@Override
+	public ArrayList<ScaleCollection> load() throws IOException {
+		ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
+		stream(scales -> {
+			scales.createAllScales();
+			scalesList.add(scales);
+		});
+		
+		return scalesList;
+	}
+	
+	@Override
+	public synchronized void stream(Consumer<ScaleCollection> action) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		
+		try (BufferedReader br = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				line = line.trim();
+				
+				// skip empty lines
+				if (line.isEmpty()) {
+					continue;
+				}
+				
+				ScaleCollection scales;
+				try {
+					scales = FileLoader.parseLine(line);
+				} catch (RuntimeException e) {
+					System.out.println("Skipping invalid line in " + file.getName() + ": " + line);
+					continue;
+				}
+				
+				action.accept(scales);
+			}
+		}
+	}
+	
+	@Override
+	public synchronized ScaleCollection get(String format, String type) throws IOException {
+		String key = Reader.getKey(format, type);
+		
+		// scan the file for the last line with the given name
+		ScaleCollection[] found = new ScaleCollection[1];
+		stream(scales -> {
+			if (key.equals(Reader.getKey(scales))) {
+				found[0] = scales;
+			}
+		});
+		
+		return found[0];
+	}
+	
+	@Override
+	public synchronized boolean delete(String format, String type) throws IOException {
+		return rewrite(new Batch().delete(format, type));
+	}
+	
+	@Override
+	public synchronized void apply(Batch batch) throws IOException {
+		rewrite(batch);
+	}
+	
+	@Override
+	public void close() {
+		// the file is only open while it is being read or written
+	}
+	
+	/**
+	 * Applies the changes in the batch to the lines of the file and rewrites it, unless nothing changed.
+	 * @param batch the changes to apply
+	 * @return true if the file was changed, otherwise false
+	 * @throws IOException if the file cannot be read or written
+	 */
+	private boolean rewrite(Batch batch) throws IOException {
+		Map<String, String> lines = readLines();
+		
+		// apply each change to the lines in order
+		boolean changed = false;
+		for (int i = 0; i < batch.size(); i++) {
+			ScaleCollection scales = batch.getScales(i);
+			String previous;
+			if (scales == null) {
+				previous = lines.remove(batch.getKey(i));
+			} else {
+				previous = lines.put(batch.getKey(i), scales.toFileLine());
+			}
+			changed |= scales == null ? previous != null : !scales.toFileLine().equals(previous);
+		}
+		
+		if (!changed) {
+			return false;
+		}
+		
+		// write the new file next to the old one, then replace it
+		File temp = new File(file.getPath() + ".tmp");
+		try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8))) {
+			for (String line : lines.values()) {
+				pw.println(line);
+			}
+			
+			if (pw.checkError()) {
+				throw new IOException("Could not write " + temp);
+			}
+		}
+		
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return true;
+	}
+	
+	/**
+	 * Reads the current lines of the file, keyed by the name of each definition. Lines that cannot be
+	 * parsed are kept as they are.
+	 * @return the map of storage keys to lines, in file order
+	 * @throws IOException if the file cannot be read
+	 */
+	private Map<String, String> readLines() throws IOException {
+		Map<String, String> lines = new LinkedHashMap<String, String>();
+		if (!file.exists()) {
+			return lines;
+		}
+		
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			
+			try {
+				lines.put(Reader.getKey(FileLoader.parseLine(line)), line);
+			} catch (RuntimeException e) {
+				lines.put(line, line);
+			}
+		}
+		
+		return lines;
+	}
+}
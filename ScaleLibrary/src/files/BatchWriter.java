@@ -0,0 +1,67 @@
+package files;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Helper methods for writing many generated files (e.g. MIDI or audio renderings) in parallel.
+ * @author Joel Gibson
+ */
+public class BatchWriter {
+	
+	/**
+	 * Runs the file writing tasks in parallel using one thread per processor. Failed tasks have their
+	 * errors printed and are not counted.
+	 * @param tasks the tasks to run, each returning true if its file was written
+	 * @return the number of tasks that completed successfully
+	 */
+	public static int runAll(List<Callable<Boolean>> tasks) {
+		int threads = Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		int written = 0;
+		
+		try {
+			for (Future<Boolean> result : executor.invokeAll(tasks)) {
+				try {
+					if (result.get()) {
+						written++;
+					}
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+		
+		return written;
+	}
+	
+	/**
+	 * Converts a scale or section name into a file name (e.g. "Bb major scale" becomes "bb-major-scale").
+	 * Sharps are written as "sharp" so that names remain distinct on case-insensitive file systems.
+	 * @param name the name to convert
+	 * @return the file name
+	 */
+	public static String toFileName(String name) {
+		StringBuilder fileName = new StringBuilder();
+		for (char c : name.toLowerCase().toCharArray()) {
+			if (Character.isLetterOrDigit(c)) {
+				fileName.append(c);
+			} else if (c == '#') {
+				fileName.append("sharp");
+			} else if (fileName.length() > 0 && fileName.charAt(fileName.length() - 1) != '-') {
+				fileName.append('-');
+			}
+		}
+		
+		// remove any trailing separator
+		while (fileName.length() > 0 && fileName.charAt(fileName.length() - 1) == '-') {
+			fileName.setLength(fileName.length() - 1);
+		}
+		
+		return fileName.toString();
+	}
+}
@@ -0,0 +1,33 @@
+package files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+
+class BatchWriterTest {
+
+	@Test
+	void testRunAll() {
+		// test that successful tasks are counted and failed tasks are not
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (int i = 0; i < 10; i++) {
+			tasks.add(() -> true);
+		}
+		tasks.add(() -> false);
+		assertEquals(10, BatchWriter.runAll(tasks));
+		
+		// test an empty batch
+		assertEquals(0, BatchWriter.runAll(new ArrayList<Callable<Boolean>>()));
+	}
+
+	@Test
+	void testToFileName() {
+		assertEquals("bb-major-scale", BatchWriter.toFileName("Bb major scale"));
+		assertEquals("fsharp-octatonic-tone-semitone-scale", BatchWriter.toFileName("F# octatonic (tone-semitone) scale"));
+		assertEquals("custom-scales", BatchWriter.toFileName("custom scales"));
+	}
+}
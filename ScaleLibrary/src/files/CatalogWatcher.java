@@ -0,0 +1,184 @@
+package files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import scales.*;
+
+/**
+ * Watches the scale files in a directory and reloads them into the library while the program runs.
+ * Only lines that have changed are rebuilt; unchanged scale collections are reused. Each reload publishes
+ * a new version of the library, so readers never see a partially built library.
+ * @author Joel Gibson
+ */
+public class CatalogWatcher {
+	
+	/**
+	 * The time to wait after a change before reloading, so that editors can finish writing the file.
+	 */
+	private static final long SETTLE_MILLIS = 100;
+	
+	/**
+	 * The directory containing the scale files.
+	 */
+	private File directory;
+	
+	/**
+	 * A mapping of scale file names to the library sections they are loaded into.
+	 */
+	private Map<String, String> sections;
+	
+	/**
+	 * The library being updated.
+	 */
+	private VersionedLibrary library;
+	
+	/**
+	 * The service watching the directory, or null if the watcher hasn't been started.
+	 */
+	private WatchService watchService;
+	
+	/**
+	 * The background thread processing file changes.
+	 */
+	private Thread thread;
+	
+	/**
+	 * Creates a watcher for the given scale files.
+	 * @param directory the directory containing the scale files
+	 * @param sections a mapping of file names (e.g. scales.txt) to library section names (e.g. scales)
+	 * @param library the library to update
+	 */
+	public CatalogWatcher(File directory, Map<String, String> sections,
+			VersionedLibrary library) {
+		this.directory = directory;
+		this.sections = sections;
+		this.library = library;
+	}
+	
+	/**
+	 * Starts watching the directory on a background thread.
+	 * @throws IOException if the directory cannot be watched
+	 */
+	public void start() throws IOException {
+		watchService = FileSystems.getDefault().newWatchService();
+		directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		
+		thread = new Thread(this::watch, "catalog-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Stops watching the directory.
+	 */
+	public void close() {
+		try {
+			if (watchService != null) {
+				watchService.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Waits for file changes and reloads each changed scale file.
+	 */
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				
+				// let the writer finish, then collect every change that arrived in the meantime
+				Thread.sleep(SETTLE_MILLIS);
+				Set<String> changed = new HashSet<String>();
+				do {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.context() instanceof Path) {
+							changed.add(((Path) event.context()).getFileName().toString());
+						}
+					}
+					key.reset();
+				} while ((key = watchService.poll()) != null);
+				
+				for (String fileName : changed) {
+					if (sections.containsKey(fileName)) {
+						reload(fileName);
+					}
+				}
+			}
+			
+		} catch (ClosedWatchServiceException e) {
+			// the watcher has been closed
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Reloads the given scale file into its library section. Lines that match an existing scale
+	 * collection reuse it, so only new or edited lines are rebuilt.
+	 * @param fileName the name of the scale file
+	 * @return the number of scale collections that were rebuilt
+	 */
+	public int reload(String fileName) {
+		String section = sections.get(fileName);
+		File file = new File(directory, fileName);
+		
+		// read the new lines (a deleted file empties its section)
+		ArrayList<String> lines = file.isFile() ? FileLoader.readFile(file.getPath()) : new ArrayList<String>();
+		
+		while (true) {
+			LibrarySnapshot current = library.snapshot();
+			
+			// index the current collections by their file lines
+			Map<String, ScaleCollection> existing = new HashMap<String, ScaleCollection>();
+			List<ScaleCollection> currentList = current.get(section);
+			for (ScaleCollection scales : currentList) {
+				existing.put(scales.toFileLine(), scales);
+			}
+			
+			// reuse unchanged collections and build the rest
+			ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
+			int rebuilt = 0;
+			for (String line : lines) {
+				ScaleCollection scales;
+				try {
+					scales = FileLoader.parseLine(line);
+					ScaleCollection previous = existing.get(scales.toFileLine());
+					if (previous != null) {
+						scales = previous;
+					} else {
+						// the new collection's scales are created as they are looked up
+						rebuilt++;
+					}
+				} catch (RuntimeException e) {
+					System.out.println("Skipping invalid line in " + fileName + ": " + line);
+					continue;
+				}
+				
+				scalesList.add(scales);
+			}
+			
+			// nothing to publish if the section is unchanged
+			if (current.hasSection(section) && rebuilt == 0 && scalesList.equals(currentList)) {
+				return 0;
+			}
+			
+			// publish a new version, retrying if another version was published in the meantime
+			if (library.publish(current, current.withSection(section, scalesList))) {
+				return rebuilt;
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class CatalogWatcherTest {
+	
+	// temporary directory holding the test scale file
+	File directory;
+	
+	// the library being reloaded
+	VersionedLibrary library;
+	
+	// the watcher under test
+	CatalogWatcher watcher;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		// write a scale file with two scale collections and load it into the library
+		directory = Files.createTempDirectory("catalog-watcher-test").toFile();
+		write("scale; major; 1, 2, 3, 4, 5, 6, 7, 8; false", "scale; blues; 1, b3, 4, b5, 5, b7, 8; false");
+		
+		Map<String, ArrayList<ScaleCollection>> allScales = new HashMap<String, ArrayList<ScaleCollection>>();
+		allScales.put("scales", FileLoader.loadFileData(new File(directory, "scales.txt").getPath()));
+		library = new VersionedLibrary();
+		library.replaceAll(allScales);
+		
+		Map<String, String> sections = new HashMap<String, String>();
+		sections.put("scales.txt", "scales");
+		watcher = new CatalogWatcher(directory, sections, library);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		watcher.close();
+		
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * Writes the given lines to the test scale file.
+	 */
+	void write(String... lines) throws Exception {
+		try (PrintWriter pw = new PrintWriter(new File(directory, "scales.txt"))) {
+			for (String line : lines) {
+				pw.println(line);
+			}
+		}
+	}
+
+	@Test
+	void testReload() throws Exception {
+		LibrarySnapshot original = library.snapshot();
+		ScaleCollection major = original.get("scales").get(0);
+		
+		// test that an unchanged file doesn't publish a new library
+		assertEquals(0, watcher.reload("scales.txt"));
+		assertSame(original, library.snapshot());
+		
+		// test that only the edited line is rebuilt
+		write("scale; major; 1, 2, 3, 4, 5, 6, 7, 8; false", "scale; blues; 1, b3, 4, #4, 5, b7, 8; false");
+		assertEquals(1, watcher.reload("scales.txt"));
+		assertNotSame(original, library.snapshot());
+		assertSame(major, library.snapshot().get("scales").get(0), "The unchanged collection should be reused");
+		assertEquals("scale; blues; 1, b3, 4, #4, 5, b7, 8; false", library.snapshot().get("scales").get(1).toFileLine());
+		
+		// test that the previous library is left untouched
+		assertEquals("scale; blues; 1, b3, 4, b5, 5, b7, 8; false", original.get("scales").get(1).toFileLine());
+		
+		// test that invalid lines are skipped and deleted files empty the section
+		write("scale; broken");
+		assertEquals(0, watcher.reload("scales.txt"));
+		assertTrue(library.snapshot().get("scales").isEmpty());
+		new File(directory, "scales.txt").delete();
+		watcher.reload("scales.txt");
+		assertTrue(library.snapshot().get("scales").isEmpty());
+	}
+
+	@Test
+	void testStart() throws Exception {
+		watcher.start();
+		
+		// test that editing the file is picked up in the background
+		write("scale; major; 1, 2, 3, 4, 5, 6, 7, 8; false");
+		for (int i = 0; i < 100 && library.snapshot().get("scales").size() != 1; i++) {
+			Thread.sleep(50);
+		}
+		
+		assertEquals(1, library.snapshot().get("scales").size());
+	}
+}
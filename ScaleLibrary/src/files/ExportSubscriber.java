@@ -0,0 +1,231 @@
+package files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import scales.Scale;
+
+/**
+ * Writes each published scale to its own file (e.g. MIDI or audio renderings), a few at a time in
+ * parallel. Only a fixed number of scales are requested ahead of the files being written, so the
+ * publisher never has to produce more scales than can be held. A file that cannot be written does
+ * not stop the export, but the result then completes exceptionally once every other file is written.
+ * @author Joel Gibson
+ */
+public class ExportSubscriber implements Flow.Subscriber<Scale> {
+	
+	/**
+	 * Writes a single scale to a file.
+	 */
+	public interface ScaleWriter {
+		
+		/**
+		 * Writes the scale to the given file.
+		 * @param scale the scale to write
+		 * @param file the file to write to
+		 * @throws IOException if the file cannot be written
+		 */
+		void write(Scale scale, File file) throws IOException;
+	}
+	
+	/**
+	 * Writes each scale.
+	 */
+	private final ScaleWriter writer;
+	
+	/**
+	 * The directory to write to.
+	 */
+	private final File directory;
+	
+	/**
+	 * The file extension of each written file (e.g. ".mid").
+	 */
+	private final String extension;
+	
+	/**
+	 * The largest number of scales requested but not yet written.
+	 */
+	private final int window;
+	
+	/**
+	 * The threads writing the files.
+	 */
+	private final ExecutorService executor;
+	
+	/**
+	 * The number of scales received but not yet written, plus one until the publisher has finished.
+	 */
+	private final AtomicInteger pending = new AtomicInteger(1);
+	
+	/**
+	 * Whether the publisher has finished or the export was cancelled.
+	 */
+	private final AtomicBoolean finished = new AtomicBoolean();
+	
+	/**
+	 * The number of files written successfully.
+	 */
+	private final AtomicInteger written = new AtomicInteger();
+	
+	/**
+	 * The failure of each file that could not be written.
+	 */
+	private final Queue<Exception> failures = new ConcurrentLinkedQueue<Exception>();
+	
+	/**
+	 * The error reported by the publisher, or null if it has not failed.
+	 */
+	private volatile Throwable error;
+	
+	/**
+	 * Completes with the number of files written once every received scale has been written.
+	 */
+	private final CompletableFuture<Integer> result = new CompletableFuture<Integer>();
+	
+	/**
+	 * The subscription to the publisher.
+	 */
+	private volatile Flow.Subscription subscription;
+	
+	/**
+	 * Creates a subscriber that writes files into the given directory.
+	 * @param writer writes each scale (e.g. MidiRenderer::writeScale)
+	 * @param directory the directory to write to
+	 * @param extension the file extension of each written file (e.g. ".mid")
+	 * @param window the largest number of scales requested but not yet written
+	 */
+	public ExportSubscriber(ScaleWriter writer, File directory, String extension, int window) {
+		this.writer = writer;
+		this.directory = directory;
+		this.extension = extension;
+		this.window = window;
+		
+		int threads = Math.max(1, Math.min(window, Runtime.getRuntime().availableProcessors()));
+		this.executor = Executors.newFixedThreadPool(threads);
+	}
+	
+	/**
+	 * Gets the result of the export.
+	 * @return a future that completes with the number of files written, or exceptionally with the
+	 * publisher's error or an IOException (suppressing each failure) if any file could not be written
+	 */
+	public CompletableFuture<Integer> getResult() {
+		return result;
+	}
+	
+	/**
+	 * Stops requesting scales. Scales already received are still written before the result completes, and
+	 * any scales the publisher delivers after this are ignored.
+	 */
+	public void cancel() {
+		Flow.Subscription current = subscription;
+		if (current != null) {
+			current.cancel();
+		}
+		finish();
+	}
+	
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (this.subscription != null || finished.get()) {
+			subscription.cancel();
+			return;
+		}
+		
+		this.subscription = subscription;
+		directory.mkdirs();
+		subscription.request(window);
+	}
+	
+	@Override
+	public void onNext(Scale scale) {
+		// the publisher may still deliver scales after the export was cancelled
+		if (finished.get() || !acquire()) {
+			return;
+		}
+		
+		File file = new File(directory, BatchWriter.toFileName(scale.toString()) + extension);
+		executor.execute(() -> {
+			try {
+				writer.write(scale, file);
+				written.incrementAndGet();
+			} catch (IOException | RuntimeException e) {
+				failures.add(e);
+			}
+			
+			// ask for the next scale once this one is out of the way
+			subscription.request(1);
+			release();
+		});
+	}
+	
+	@Override
+	public void onError(Throwable throwable) {
+		error = throwable;
+		finish();
+	}
+	
+	@Override
+	public void onComplete() {
+		finish();
+	}
+	
+	/**
+	 * Records that the publisher has finished, at most once.
+	 */
+	private void finish() {
+		if (finished.compareAndSet(false, true)) {
+			release();
+		}
+	}
+	
+	/**
+	 * Adds one pending unit, unless nothing is pending any more and the threads have been shut down.
+	 * @return true if the unit was added, or false if the export is over
+	 */
+	private boolean acquire() {
+		int current;
+		do {
+			current = pending.get();
+			if (current == 0) {
+				return false;
+			}
+		} while (!pending.compareAndSet(current, current + 1));
+		
+		return true;
+	}
+	
+	/**
+	 * Releases one pending unit, completing the result once nothing is left to write.
+	 */
+	private void release() {
+		if (pending.decrementAndGet() == 0) {
+			executor.shutdown();
+			
+			// the publisher's own error takes precedence over the files it did manage to send
+			Throwable failure = error;
+			if (failure == null && !failures.isEmpty()) {
+				failure = new IOException(failures.size() + " of " + (written.get() + failures.size())
+						+ " files could not be written");
+				for (Exception e : failures) {
+					failure.addSuppressed(e);
+				}
+			}
+			
+			if (failure != null) {
+				result.completeExceptionally(failure);
+			} else {
+				result.complete(written.get());
+			}
+		}
+	}
+}
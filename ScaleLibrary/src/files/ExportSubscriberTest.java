@@ -0,0 +1,165 @@
+package files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class ExportSubscriberTest {
+	
+	// temporary directory for the exported files
+	File directory;
+	
+	// the library snapshot to export
+	LibrarySnapshot snapshot;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		ScaleCollection major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		major.createAllScales();
+		Map<String, List<ScaleCollection>> allScales = new HashMap<String, List<ScaleCollection>>();
+		allScales.put("scales", List.of(major));
+		snapshot = new VersionedLibrary().replaceAll(allScales);
+		
+		directory = Files.createTempDirectory("export-subscriber-test").toFile();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	void testExport() throws Exception {
+		// write each scale's name, tracking how many scales are waiting to be written at once
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		ExportSubscriber subscriber = new ExportSubscriber((scale, file) -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			Files.writeString(file.toPath(), scale.toString());
+			inFlight.decrementAndGet();
+		}, directory, ".txt", 4);
+		
+		LibraryPublisher.enumerate(snapshot, ForkJoinPool.commonPool()).subscribe(subscriber);
+		int total = snapshot.get("scales").get(0).getAllScales().size();
+		assertEquals(total, (int) subscriber.getResult().get(10, TimeUnit.SECONDS));
+		assertEquals(total, directory.listFiles().length);
+		assertTrue(maxInFlight.get() <= 4);
+		assertEquals("F# major scale", Files.readString(new File(directory, "fsharp-major-scale.txt").toPath()));
+	}
+
+	@Test
+	void testCancel() throws Exception {
+		ExportSubscriber subscriber = new ExportSubscriber((scale, file) -> Files.writeString(file.toPath(), ""),
+				directory, ".txt", 2);
+		subscriber.cancel();
+		
+		// test that a cancelled export finishes without writing anything
+		LibraryPublisher.enumerate(snapshot, ForkJoinPool.commonPool()).subscribe(subscriber);
+		assertEquals(0, (int) subscriber.getResult().get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testCancelDuringDelivery() throws Exception {
+		// hold the first write open until the export has been cancelled
+		CountDownLatch cancelled = new CountDownLatch(1);
+		ExportSubscriber subscriber = new ExportSubscriber((scale, file) -> {
+			try {
+				cancelled.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			Files.writeString(file.toPath(), scale.toString());
+		}, directory, ".txt", 2);
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+			}
+			
+			@Override
+			public void cancel() {
+			}
+		});
+		
+		// test that scales delivered after cancelling are ignored rather than rejected by the finished threads
+		List<Scale> scales = new ArrayList<Scale>(snapshot.get("scales").get(0).getAllScales().values());
+		subscriber.onNext(scales.get(0));
+		subscriber.cancel();
+		subscriber.onNext(scales.get(1));
+		cancelled.countDown();
+		assertEquals(1, (int) subscriber.getResult().get(10, TimeUnit.SECONDS));
+		subscriber.onNext(scales.get(2));
+		assertEquals(1, directory.listFiles().length);
+	}
+
+	@Test
+	void testWriteFailures() throws Exception {
+		// fail to write every sharp scale, but keep writing the rest
+		ExportSubscriber subscriber = new ExportSubscriber((scale, file) -> {
+			if (scale.toString().contains("#")) {
+				throw new IOException("Cannot write " + file.getName());
+			}
+			Files.writeString(file.toPath(), scale.toString());
+		}, directory, ".txt", 4);
+		
+		LibraryPublisher.enumerate(snapshot, ForkJoinPool.commonPool()).subscribe(subscriber);
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> subscriber.getResult().get(10, TimeUnit.SECONDS));
+		
+		// test that every failure is reported and every other file is still written
+		assertTrue(e.getCause() instanceof IOException);
+		int failed = e.getCause().getSuppressed().length;
+		assertTrue(failed > 0);
+		int total = snapshot.get("scales").get(0).getAllScales().size();
+		assertEquals(total - failed, directory.listFiles().length);
+	}
+
+	@Test
+	void testPublisherError() throws Exception {
+		ExportSubscriber subscriber = new ExportSubscriber((scale, file) -> Files.writeString(file.toPath(), ""),
+				directory, ".txt", 2);
+		
+		// test that the publisher's error completes the result exceptionally
+		try (SubmissionPublisher<Scale> publisher = new SubmissionPublisher<Scale>()) {
+			publisher.subscribe(subscriber);
+			publisher.closeExceptionally(new IllegalStateException("library unavailable"));
+		}
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> subscriber.getResult().get(10, TimeUnit.SECONDS));
+		assertEquals("library unavailable", e.getCause().getMessage());
+	}
+}
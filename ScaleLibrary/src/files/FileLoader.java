@@ -3,6 +3,7 @@ package files;
 import java.io.*;
 import java.util.ArrayList;
 
+import notes.Interval;
 import scales.*;
 
 /**
@@ -16,7 +17,7 @@ public class FileLoader {
 	 * @param filename the path to the file
 	 * @return the list of lines from the file
 	 */
-	private static ArrayList<String> readFile(String filename) {
+	static ArrayList<String> readFile(String filename) {
 		// the list to store each line
 		ArrayList<String> lines = new ArrayList<String>();
 		
@@ -73,21 +74,35 @@ public class FileLoader {
 		// the list to store each scale collection
 		ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
 		
+		// the scales in each collection are created as they are looked up
 		for (String line : lines) {
-			// extract each data field from the line
-			String[] data = line.split(";\\s*");
-			
-			String format = data[0].toLowerCase().trim();
-			String type = data[1].toLowerCase().trim();
-			String[] intervals = data[2].split(",\\s*");
-			boolean simplify = Boolean.valueOf(data[3].trim());
-			
-			// create each scale in the scale collection
-			ScaleCollection scales = new ScaleCollection(format, type, intervals, simplify);
-			scales.createAllScales();
-			scalesList.add(scales);
+			scalesList.add(parseLine(line));
 		}
 		
 		return scalesList;
 	}
+	
+	/**
+	 * Parses a single line of a scale file into a scale collection. The scales in the collection are
+	 * not created until they are looked up or createAllScales() is called.
+	 * @param line the line to parse (e.g. "scale; major; 1, 2, 3, 4, 5, 6, 7, 8; false")
+	 * @return the scale collection
+	 */
+	public static ScaleCollection parseLine(String line) {
+		// extract each data field from the line
+		String[] data = line.split(";\\s*");
+		
+		String format = data[0].toLowerCase().trim();
+		String type = data[1].toLowerCase().trim();
+		String[] intervals = data[2].split(",\\s*");
+		
+		// convert intervals written in other notations (e.g. m3, P5) to the library's names
+		String[] libraryNames = Interval.toLibraryNames(intervals);
+		if (libraryNames != null) {
+			intervals = libraryNames;
+		}
+		boolean simplify = Boolean.valueOf(data[3].trim());
+		
+		return new ScaleCollection(format, type, intervals, simplify);
+	}
 }
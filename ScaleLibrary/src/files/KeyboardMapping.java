@@ -0,0 +1,91 @@
+package files;
+
+/**
+ * Represents a Scala keyboard mapping (.kbm file), which assigns scale degrees to MIDI keys.
+ * @author Joel Gibson
+ */
+public class KeyboardMapping {
+	
+	/**
+	 * The MIDI key where the first mapping entry (scale degree 0) is placed.
+	 */
+	private int middleNote;
+	
+	/**
+	 * The MIDI key that sounds at the reference frequency.
+	 */
+	private int referenceNote;
+	
+	/**
+	 * The frequency of the reference note in hertz.
+	 */
+	private double referenceFrequency;
+	
+	/**
+	 * The scale degree that forms the formal octave of the mapping.
+	 */
+	private int octaveDegree;
+	
+	/**
+	 * The scale degree mapped to each key in the repeating pattern, or -1 for unmapped keys.
+	 */
+	private int[] degrees;
+	
+	/**
+	 * Creates a keyboard mapping.
+	 * @param middleNote the MIDI key where scale degree 0 is placed
+	 * @param referenceNote the MIDI key that sounds at the reference frequency
+	 * @param referenceFrequency the frequency of the reference note in hertz
+	 * @param octaveDegree the scale degree that forms the formal octave
+	 * @param degrees the scale degree for each key in the pattern, or -1 for unmapped keys
+	 */
+	public KeyboardMapping(int middleNote, int referenceNote, double referenceFrequency, int octaveDegree,
+			int[] degrees) {
+		this.middleNote = middleNote;
+		this.referenceNote = referenceNote;
+		this.referenceFrequency = referenceFrequency;
+		this.octaveDegree = octaveDegree;
+		this.degrees = degrees;
+	}
+	
+	/**
+	 * Gets the MIDI key where scale degree 0 is placed.
+	 * @return the middle note
+	 */
+	public int getMiddleNote() {
+		return middleNote;
+	}
+	
+	/**
+	 * Gets the MIDI key that sounds at the reference frequency.
+	 * @return the reference note
+	 */
+	public int getReferenceNote() {
+		return referenceNote;
+	}
+	
+	/**
+	 * Gets the frequency of the reference note.
+	 * @return the reference frequency in hertz
+	 */
+	public double getReferenceFrequency() {
+		return referenceFrequency;
+	}
+	
+	/**
+	 * Gets the scale degree that forms the formal octave.
+	 * @return the octave degree
+	 */
+	public int getOctaveDegree() {
+		return octaveDegree;
+	}
+	
+	/**
+	 * Gets the scale degree mapped to each key in the repeating pattern. An empty pattern means every
+	 * degree is mapped in order.
+	 * @return the scale degrees, with -1 for unmapped keys
+	 */
+	public int[] getDegrees() {
+		return degrees;
+	}
+}
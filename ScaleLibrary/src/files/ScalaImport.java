@@ -0,0 +1,97 @@
+package files;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import scales.ScaleCollection;
+
+/**
+ * Represents the outcome of importing a single Scala tuning file, including any diagnostic messages.
+ * @author Joel Gibson
+ */
+public class ScalaImport {
+	
+	/**
+	 * The file that was imported.
+	 */
+	private File file;
+	
+	/**
+	 * The imported scale collection, or null if the file could not be imported.
+	 */
+	private ScaleCollection scales;
+	
+	/**
+	 * The warnings and errors found while importing the file.
+	 */
+	private ArrayList<String> diagnostics = new ArrayList<String>();
+	
+	/**
+	 * Creates an empty import result for the given file.
+	 * @param file the file being imported
+	 */
+	public ScalaImport(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Gets the file that was imported.
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Gets the imported scale collection.
+	 * @return the scale collection, or null if the file could not be imported
+	 */
+	public ScaleCollection getScales() {
+		return scales;
+	}
+	
+	/**
+	 * Sets the imported scale collection.
+	 * @param scales the scale collection
+	 */
+	void setScales(ScaleCollection scales) {
+		this.scales = scales;
+	}
+	
+	/**
+	 * Gets the warnings and errors found while importing the file.
+	 * @return the list of diagnostic messages
+	 */
+	public ArrayList<String> getDiagnostics() {
+		return diagnostics;
+	}
+	
+	/**
+	 * Adds a diagnostic message.
+	 * @param message the message to add
+	 */
+	void addDiagnostic(String message) {
+		diagnostics.add(message);
+	}
+	
+	/**
+	 * Checks whether the file was imported.
+	 * @return true if a scale collection was created
+	 */
+	public boolean isSuccessful() {
+		return scales != null;
+	}
+	
+	/**
+	 * Returns a summary of the import and its diagnostics for printing.
+	 */
+	@Override
+	public String toString() {
+		String status = isSuccessful() ? "imported " + scales : "failed";
+		if (diagnostics.isEmpty()) {
+			return file.getName() + ": " + status;
+		}
+		
+		return file.getName() + ": " + status + " (" + String.join("; ", diagnostics) + ")";
+	}
+}
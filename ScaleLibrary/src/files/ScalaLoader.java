@@ -0,0 +1,418 @@
+package files;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import notes.Interval;
+import scales.ScaleCollection;
+
+/**
+ * Class for importing Scala tuning files (.scl, with optional .kbm keyboard mappings) as scale collections.
+ * Each pitch is approximated by the nearest interval name on a quarter-tone grid (using ups for the
+ * quarter-tones when microtonal accidentals have been created, or on a semitone grid otherwise).
+ * @author Joel Gibson
+ */
+public class ScalaLoader {
+	
+	/**
+	 * The interval name used for each number of semitones within an octave.
+	 */
+	private static final String[] SEMITONE_INTERVALS = {"1", "b2", "2", "b3", "3", "4", "b5", "5", "b6", "6",
+			"b7", "7", "8"};
+	
+	/**
+	 * The approximation error in cents above which a warning is reported.
+	 */
+	private static final double MAX_ERROR = 10;
+	
+	/**
+	 * Imports a single Scala file. If a keyboard mapping with the same base name exists alongside it,
+	 * only the mapped scale degrees are imported.
+	 * @param file the .scl file
+	 * @return the import result with any diagnostics
+	 */
+	public static ScalaImport importFile(File file) {
+		ScalaImport result = new ScalaImport(file);
+		
+		try {
+			// read the description and pitches
+			ArrayList<String> lines = readLines(file);
+			String description = parseDescription(lines);
+			double[] pitches = parsePitches(lines, result);
+			if (pitches == null) {
+				return result;
+			}
+			
+			// apply the keyboard mapping, if there is one
+			File mappingFile = new File(file.getParentFile(), baseName(file) + ".kbm");
+			if (mappingFile.isFile()) {
+				pitches = applyMapping(pitches, loadKeyboardMapping(mappingFile), result);
+			}
+			
+			// convert the pitches into interval names
+			String[] intervals = toIntervals(pitches, result);
+			if (intervals.length < 2) {
+				result.addDiagnostic("error: too few distinct pitches");
+				return result;
+			}
+			
+			// name the scales after the description, or the file if there is no description
+			String type = description.isEmpty() ? baseName(file) : description;
+			ScaleCollection scales = new ScaleCollection("scale", type.toLowerCase(), intervals, false);
+			scales.createAllScales();
+			
+			if (scales.getAllScales().isEmpty()) {
+				result.addDiagnostic("error: no valid root notes");
+			} else {
+				result.setScales(scales);
+			}
+			
+		} catch (IOException e) {
+			result.addDiagnostic("error: " + e.getMessage());
+			
+		} catch (IllegalArgumentException e) {
+			result.addDiagnostic("error: " + e.getMessage());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Imports every .scl file in the directory and its subdirectories in parallel. Files are read as the
+	 * directory is walked, and each result is passed to the consumer as soon as it is ready, so the full
+	 * archive is never held in memory at once.
+	 * @param directory the directory to search
+	 * @param consumer receives each import result; this is called from several threads at once
+	 * @return the number of files successfully imported
+	 */
+	public static int importDirectory(File directory, Consumer<ScalaImport> consumer) {
+		if (!directory.isDirectory()) {
+			return 0;
+		}
+		
+		// limit the number of files waiting to be parsed so that the walk doesn't run too far ahead
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Semaphore slots = new Semaphore(threads * 4);
+		AtomicInteger imported = new AtomicInteger();
+		
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			Iterator<Path> files = paths.filter(path -> path.toString().toLowerCase().endsWith(".scl")).iterator();
+			while (files.hasNext()) {
+				File file = files.next().toFile();
+				slots.acquire();
+				
+				executor.execute(() -> {
+					try {
+						ScalaImport result = importFile(file);
+						if (result.isSuccessful()) {
+							imported.incrementAndGet();
+						}
+						consumer.accept(result);
+					} finally {
+						slots.release();
+					}
+				});
+			}
+			
+		} catch (IOException | UncheckedIOException e) {
+			e.printStackTrace();
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			
+		} finally {
+			// wait for the remaining files to finish
+			executor.shutdown();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		return imported.get();
+	}
+	
+	/**
+	 * Reads a Scala keyboard mapping file.
+	 * @param file the .kbm file
+	 * @return the keyboard mapping
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a valid keyboard mapping
+	 */
+	public static KeyboardMapping loadKeyboardMapping(File file) throws IOException {
+		// collect the values, skipping comments
+		ArrayList<String> values = new ArrayList<String>();
+		for (String line : readLines(file)) {
+			if (!line.startsWith("!") && !line.isEmpty()) {
+				values.add(firstToken(line));
+			}
+		}
+		
+		if (values.size() < 7) {
+			throw new IllegalArgumentException("incomplete keyboard mapping " + file.getName());
+		}
+		
+		try {
+			// the header is: map size, first note, last note, middle note, reference note, reference
+			// frequency and octave degree
+			int size = Integer.parseInt(values.get(0));
+			int middleNote = Integer.parseInt(values.get(3));
+			int referenceNote = Integer.parseInt(values.get(4));
+			double referenceFrequency = Double.parseDouble(values.get(5));
+			int octaveDegree = Integer.parseInt(values.get(6));
+			
+			// read each mapping entry, where x marks an unmapped key
+			int[] degrees = new int[size];
+			for (int i = 0; i < size; i++) {
+				String value = (7 + i < values.size()) ? values.get(7 + i) : "x";
+				degrees[i] = "x".equalsIgnoreCase(value) ? -1 : Integer.parseInt(value);
+			}
+			
+			return new KeyboardMapping(middleNote, referenceNote, referenceFrequency, octaveDegree, degrees);
+			
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid keyboard mapping " + file.getName());
+		}
+	}
+	
+	/**
+	 * Reads the file into a list of trimmed lines. Scala files are usually Latin-1 encoded.
+	 * @param file the file to read
+	 * @return the list of lines
+	 * @throws IOException if the file cannot be read
+	 */
+	private static ArrayList<String> readLines(File file) throws IOException {
+		ArrayList<String> lines = new ArrayList<String>();
+		try (BufferedReader br = Files.newBufferedReader(file.toPath(), StandardCharsets.ISO_8859_1)) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				lines.add(line.trim());
+			}
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Finds the description, which is the first line that isn't a comment (and may be blank).
+	 * @param lines the lines of the .scl file
+	 * @return the description
+	 */
+	private static String parseDescription(ArrayList<String> lines) {
+		for (String line : lines) {
+			if (!line.startsWith("!")) {
+				return line;
+			}
+		}
+		
+		throw new IllegalArgumentException("missing description");
+	}
+	
+	/**
+	 * Parses the pitch lines of a .scl file into cents above the tonic. The final pitch is the period
+	 * (normally the octave).
+	 * @param lines the lines of the .scl file
+	 * @param result the import result to add diagnostics to
+	 * @return the pitches in cents, or null if the file is invalid
+	 */
+	static double[] parsePitches(ArrayList<String> lines, ScalaImport result) {
+		// skip comments and the description, then read the note count followed by the pitches
+		int count = -1;
+		boolean described = false;
+		ArrayList<Double> pitches = new ArrayList<Double>();
+		for (String line : lines) {
+			if (line.startsWith("!")) {
+				continue;
+			} else if (!described) {
+				described = true;
+				continue;
+			} else if (line.isEmpty()) {
+				continue;
+			}
+			
+			try {
+				if (count < 0) {
+					count = Integer.parseInt(firstToken(line));
+				} else if (pitches.size() < count) {
+					pitches.add(parsePitch(firstToken(line)));
+				}
+			} catch (NumberFormatException e) {
+				result.addDiagnostic("error: invalid value '" + line + "'");
+				return null;
+			}
+		}
+		
+		if (count <= 0 || pitches.size() < count) {
+			result.addDiagnostic("error: expected " + Math.max(count, 1) + " pitches but found " + pitches.size());
+			return null;
+		}
+		
+		double[] cents = new double[count];
+		for (int i = 0; i < count; i++) {
+			cents[i] = pitches.get(i);
+		}
+		
+		return cents;
+	}
+	
+	/**
+	 * Parses a single pitch, which is in cents if it contains a full stop, or otherwise a ratio (e.g. 3/2
+	 * or 2).
+	 * @param value the pitch value
+	 * @return the pitch in cents
+	 */
+	private static double parsePitch(String value) {
+		if (value.contains(".")) {
+			return Double.parseDouble(value);
+		}
+		
+		// parse the ratio, allowing a missing denominator
+		int slash = value.indexOf('/');
+		double numerator = Double.parseDouble(slash < 0 ? value : value.substring(0, slash));
+		double denominator = (slash < 0) ? 1 : Double.parseDouble(value.substring(slash + 1));
+		if (numerator <= 0 || denominator <= 0) {
+			throw new NumberFormatException(value);
+		}
+		
+		return 1200 * Math.log(numerator / denominator) / Math.log(2);
+	}
+	
+	/**
+	 * Selects the scale degrees used by a keyboard mapping, keeping the period as the final pitch.
+	 * @param pitches the pitches of the scale in cents, ending with the period
+	 * @param mapping the keyboard mapping
+	 * @param result the import result to add diagnostics to
+	 * @return the mapped pitches in cents, ending with the period
+	 */
+	private static double[] applyMapping(double[] pitches, KeyboardMapping mapping, ScalaImport result) {
+		int[] degrees = mapping.getDegrees();
+		if (degrees.length == 0) {
+			return pitches;
+		}
+		
+		// collect each mapped degree once, where degree 0 is the tonic
+		boolean[] mapped = new boolean[pitches.length];
+		for (int degree : degrees) {
+			if (degree >= pitches.length) {
+				result.addDiagnostic("warning: keyboard mapping uses missing degree " + degree);
+			} else if (degree >= 0) {
+				mapped[degree] = true;
+			}
+		}
+		
+		// keep the mapped degrees (other than the tonic, which is always included) and the period
+		ArrayList<Double> selected = new ArrayList<Double>();
+		for (int degree = 1; degree < pitches.length; degree++) {
+			if (mapped[degree]) {
+				selected.add(pitches[degree - 1]);
+			}
+		}
+		selected.add(pitches[pitches.length - 1]);
+		
+		double[] mappedPitches = new double[selected.size()];
+		for (int i = 0; i < mappedPitches.length; i++) {
+			mappedPitches[i] = selected.get(i);
+		}
+		
+		return mappedPitches;
+	}
+	
+	/**
+	 * Converts the pitches into the nearest interval names, starting from the tonic (1) and ending with
+	 * the octave (8).
+	 * @param pitches the pitches in cents, ending with the period
+	 * @param result the import result to add diagnostics to
+	 * @return the interval names
+	 */
+	static String[] toIntervals(double[] pitches, ScalaImport result) {
+		// quarter-tones are only available if the microtonal accidentals have been created
+		boolean microtonal = Interval.getInterval("^1") != null;
+		int stepsPerSemitone = microtonal ? 2 : 1;
+		
+		// check that the period is an octave
+		double period = pitches[pitches.length - 1];
+		if (Math.abs(period - 1200) > 0.01) {
+			result.addDiagnostic(String.format("warning: period of %.2f cents treated as an octave", period));
+		}
+		
+		// sort the pitches within the period
+		double[] sorted = Arrays.copyOf(pitches, pitches.length - 1);
+		Arrays.sort(sorted);
+		if (!Arrays.equals(sorted, Arrays.copyOf(pitches, pitches.length - 1))) {
+			result.addDiagnostic("warning: pitches are not in ascending order");
+		}
+		
+		ArrayList<String> intervals = new ArrayList<String>();
+		intervals.add("1");
+		int previous = 0;
+		double largestError = 0;
+		int merged = 0;
+		for (double cents : sorted) {
+			// find the nearest step, skipping pitches outside the octave or equal to the previous step
+			int step = (int) Math.round(cents * stepsPerSemitone / 100);
+			if (step <= 0 || step >= 12 * stepsPerSemitone) {
+				if (cents < 0 || cents >= 1200) {
+					result.addDiagnostic(String.format("warning: pitch of %.2f cents is outside the octave", cents));
+				} else {
+					merged++;
+				}
+				continue;
+			} else if (step == previous) {
+				merged++;
+				continue;
+			}
+			
+			largestError = Math.max(largestError, Math.abs(cents - step * 100.0 / stepsPerSemitone));
+			previous = step;
+			
+			// odd quarter-tone steps are written as an up on the semitone below
+			String up = (step % stepsPerSemitone == 0) ? "" : "^";
+			intervals.add(up + SEMITONE_INTERVALS[step / stepsPerSemitone]);
+		}
+		intervals.add("8");
+		
+		if (merged > 0) {
+			result.addDiagnostic("warning: " + merged + " pitches merged with neighbouring pitches");
+		}
+		
+		if (largestError > MAX_ERROR) {
+			result.addDiagnostic(String.format("warning: pitches approximated by up to %.1f cents", largestError));
+		}
+		
+		return intervals.toArray(new String[0]);
+	}
+	
+	/**
+	 * Gets the first whitespace-separated token of a line.
+	 * @param line the line
+	 * @return the first token
+	 */
+	private static String firstToken(String line) {
+		return line.split("\\s+", 2)[0];
+	}
+	
+	/**
+	 * Gets the name of a file without its extension.
+	 * @param file the file
+	 * @return the base name
+	 */
+	private static String baseName(File file) {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		return (dot < 0) ? name : name.substring(0, dot);
+	}
+}
@@ -0,0 +1,131 @@
+package files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class ScalaLoaderTest {
+	
+	// temporary directory holding the test Scala files
+	File directory;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components, including the microtonal accidentals
+		Accidental.createAllAccidentals();
+		Accidental.createMicrotonalAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		directory = Files.createTempDirectory("scala-loader-test").toFile();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * Writes the given lines to a file in the test directory.
+	 */
+	File write(String name, String... lines) throws Exception {
+		File file = new File(directory, name);
+		try (PrintWriter pw = new PrintWriter(file)) {
+			for (String line : lines) {
+				pw.println(line);
+			}
+		}
+		return file;
+	}
+
+	@Test
+	void testImportFile() throws Exception {
+		// test a just major scale written with ratios and cents
+		File file = write("just.scl", "! just.scl", "!", "Just Major", " 7", "!", " 9/8", " 386.314", " 4/3",
+				" 3/2", " 5/3", " 15/8", " 2/1");
+		ScalaImport result = ScalaLoader.importFile(file);
+		assertTrue(result.isSuccessful());
+		assertEquals(1, result.getDiagnostics().size(), "The 15.6 cent error of the just 6th and 7th should be reported");
+		
+		ScaleCollection scales = result.getScales();
+		assertEquals("just major", scales.getType());
+		String[] intervals = {"1", "2", "3", "4", "5", "6", "7", "8"};
+		assertArrayEquals(intervals, scales.getIntervals());
+		assertEquals(Note.getNote("E"), scales.getAllScales().get("c").getNotes().get(2));
+		
+		// test an invalid file
+		file = write("broken.scl", "Broken", "3", "9/8", "abc", "2/1");
+		result = ScalaLoader.importFile(file);
+		assertFalse(result.isSuccessful());
+		assertEquals(1, result.getDiagnostics().size());
+	}
+
+	@Test
+	void testQuarterTones() throws Exception {
+		// test a scale with a neutral third and a non-octave period
+		File file = write("neutral.scl", "", "3", "350.0", "700.0", "1201.0");
+		ScalaImport result = ScalaLoader.importFile(file);
+		assertTrue(result.isSuccessful());
+		
+		String[] intervals = {"1", "^b3", "5", "8"};
+		assertArrayEquals(intervals, result.getScales().getIntervals());
+		assertEquals("neutral", result.getScales().getType(), "A blank description should use the file name");
+		assertEquals(Note.getNote("E^b"), result.getScales().getAllScales().get("c").getNotes().get(1));
+		assertEquals(1, result.getDiagnostics().size(), "The period should be reported");
+	}
+
+	@Test
+	void testKeyboardMapping() throws Exception {
+		// test a chromatic scale mapped onto a pentatonic subset
+		write("chromatic.scl", "Chromatic", "12", "100.", "200.", "300.", "400.", "500.", "600.", "700.", "800.",
+				"900.", "1000.", "1100.", "1200.");
+		write("chromatic.kbm", "! pentatonic", "5", "0", "127", "60", "69", "440.0", "12", "0", "2", "4", "7", "9");
+		ScalaImport result = ScalaLoader.importFile(new File(directory, "chromatic.scl"));
+		
+		String[] intervals = {"1", "2", "3", "5", "6", "8"};
+		assertArrayEquals(intervals, result.getScales().getIntervals());
+		
+		KeyboardMapping mapping = ScalaLoader.loadKeyboardMapping(new File(directory, "chromatic.kbm"));
+		assertEquals(69, mapping.getReferenceNote());
+		assertEquals(440.0, mapping.getReferenceFrequency(), 1e-9);
+		assertEquals(5, mapping.getDegrees().length);
+	}
+
+	@Test
+	void testImportDirectory() throws Exception {
+		// test importing many files in parallel
+		for (int i = 0; i < 50; i++) {
+			write("scale" + i + ".scl", "Scale " + i, "2", "3/2", "2/1");
+		}
+		write("bad.scl", "Bad", "2", "3/2");
+		
+		List<ScalaImport> results = Collections.synchronizedList(new ArrayList<ScalaImport>());
+		assertEquals(50, ScalaLoader.importDirectory(directory, results::add));
+		assertEquals(51, results.size());
+		
+		// test a missing directory
+		assertEquals(0, ScalaLoader.importDirectory(new File(directory, "missing"), results::add));
+	}
+}
@@ -0,0 +1,247 @@
+package midi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the bytes of a Standard MIDI File into a reusable buffer. Each encoder should only be used
+ * by one thread at a time; calling reset() allows the same buffer to be reused for the next file.
+ * @author Joel Gibson
+ */
+public class MidiEncoder {
+	
+	/**
+	 * The slowest tempo in beats per minute whose beat length fits the 3-byte tempo field.
+	 */
+	public static final int MIN_TEMPO = 4;
+	
+	/**
+	 * The fastest tempo in beats per minute, with a beat length of one microsecond.
+	 */
+	public static final int MAX_TEMPO = 60000000;
+	
+	/**
+	 * The buffer holding the encoded bytes.
+	 */
+	private byte[] buffer;
+	
+	/**
+	 * The number of bytes written to the buffer.
+	 */
+	private int size;
+	
+	/**
+	 * The position of the length field of the track currently being written.
+	 */
+	private int trackLengthPosition = -1;
+	
+	/**
+	 * Creates an encoder with a buffer large enough for most scales.
+	 */
+	public MidiEncoder() {
+		buffer = new byte[1024];
+	}
+	
+	/**
+	 * Discards the encoded bytes so the buffer can be reused.
+	 */
+	public void reset() {
+		size = 0;
+		trackLengthPosition = -1;
+	}
+	
+	/**
+	 * Gets the number of encoded bytes.
+	 * @return the size in bytes
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Copies the encoded bytes into a new array.
+	 * @return the encoded bytes
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[size];
+		System.arraycopy(buffer, 0, bytes, 0, size);
+		return bytes;
+	}
+	
+	/**
+	 * Writes the encoded bytes to the given stream.
+	 * @param out the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buffer, 0, size);
+	}
+	
+	/**
+	 * Writes the file header chunk for a single-track (format 0) file.
+	 * @param ticksPerBeat the time resolution in ticks per quarter note
+	 */
+	public void writeHeader(int ticksPerBeat) {
+		writeAscii("MThd");
+		writeInt(6);
+		writeShort(0);
+		writeShort(1);
+		writeShort(ticksPerBeat);
+	}
+	
+	/**
+	 * Starts a track chunk. The chunk length is filled in by endTrack().
+	 */
+	public void beginTrack() {
+		writeAscii("MTrk");
+		trackLengthPosition = size;
+		writeInt(0);
+	}
+	
+	/**
+	 * Writes the end of track event and fills in the length of the current track chunk.
+	 * @param delta the ticks since the previous event
+	 */
+	public void endTrack(int delta) {
+		writeMetaEvent(delta, 0x2F, 0);
+		
+		// patch the chunk length now that the track is complete
+		int length = size - trackLengthPosition - 4;
+		int end = size;
+		size = trackLengthPosition;
+		writeInt(length);
+		size = end;
+		trackLengthPosition = -1;
+	}
+	
+	/**
+	 * Writes a tempo change event.
+	 * @param delta the ticks since the previous event
+	 * @param beatsPerMinute the new tempo, between MIN_TEMPO and MAX_TEMPO
+	 * @throws IllegalArgumentException if the tempo can't be written
+	 */
+	public void writeTempo(int delta, int beatsPerMinute) {
+		if (beatsPerMinute < MIN_TEMPO || beatsPerMinute > MAX_TEMPO) {
+			throw new IllegalArgumentException("The tempo must be between " + MIN_TEMPO + " and " + MAX_TEMPO);
+		}
+		
+		int microsecondsPerBeat = 60000000 / beatsPerMinute;
+		writeMetaEvent(delta, 0x51, 3);
+		writeByte(microsecondsPerBeat >> 16);
+		writeByte(microsecondsPerBeat >> 8);
+		writeByte(microsecondsPerBeat);
+	}
+	
+	/**
+	 * Writes a track name event.
+	 * @param delta the ticks since the previous event
+	 * @param name the track name (non-ASCII characters are replaced with '?')
+	 */
+	public void writeTrackName(int delta, String name) {
+		writeMetaEvent(delta, 0x03, name.length());
+		writeAscii(name);
+	}
+	
+	/**
+	 * Writes a note on event.
+	 * @param delta the ticks since the previous event
+	 * @param channel the MIDI channel (0 to 15)
+	 * @param pitch the MIDI note number
+	 * @param velocity the note velocity
+	 */
+	public void writeNoteOn(int delta, int channel, int pitch, int velocity) {
+		writeVariableLength(delta);
+		writeByte(0x90 | channel);
+		writeByte(pitch);
+		writeByte(velocity);
+	}
+	
+	/**
+	 * Writes a note off event.
+	 * @param delta the ticks since the previous event
+	 * @param channel the MIDI channel (0 to 15)
+	 * @param pitch the MIDI note number
+	 */
+	public void writeNoteOff(int delta, int channel, int pitch) {
+		writeVariableLength(delta);
+		writeByte(0x80 | channel);
+		writeByte(pitch);
+		writeByte(0);
+	}
+	
+	/**
+	 * Writes the start of a meta event.
+	 * @param delta the ticks since the previous event
+	 * @param type the meta event type
+	 * @param length the number of data bytes that follow
+	 */
+	private void writeMetaEvent(int delta, int type, int length) {
+		writeVariableLength(delta);
+		writeByte(0xFF);
+		writeByte(type);
+		writeVariableLength(length);
+	}
+	
+	/**
+	 * Writes a value as a MIDI variable-length quantity (7 bits per byte, most significant first).
+	 * @param value the non-negative value to write
+	 */
+	void writeVariableLength(int value) {
+		// find the highest group of 7 bits that is in use
+		int shift = 21;
+		while (shift > 0 && (value >>> shift) == 0) {
+			shift -= 7;
+		}
+		
+		// write every group, setting the continuation bit on all but the last
+		for (; shift > 0; shift -= 7) {
+			writeByte(((value >>> shift) & 0x7F) | 0x80);
+		}
+		writeByte(value & 0x7F);
+	}
+	
+	/**
+	 * Writes each character of the text as a single byte.
+	 * @param text the text to write
+	 */
+	private void writeAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			writeByte(c < 128 ? c : '?');
+		}
+	}
+	
+	/**
+	 * Writes a 32-bit big-endian value.
+	 * @param value the value to write
+	 */
+	private void writeInt(int value) {
+		writeByte(value >> 24);
+		writeByte(value >> 16);
+		writeByte(value >> 8);
+		writeByte(value);
+	}
+	
+	/**
+	 * Writes a 16-bit big-endian value.
+	 * @param value the value to write
+	 */
+	private void writeShort(int value) {
+		writeByte(value >> 8);
+		writeByte(value);
+	}
+	
+	/**
+	 * Writes the low 8 bits of the value, growing the buffer if it is full.
+	 * @param value the value to write
+	 */
+	private void writeByte(int value) {
+		if (size == buffer.length) {
+			byte[] larger = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, larger, 0, size);
+			buffer = larger;
+		}
+		
+		buffer[size++] = (byte) value;
+	}
+}
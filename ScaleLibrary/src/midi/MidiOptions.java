@@ -0,0 +1,113 @@
+package midi;
+
+import scales.Direction;
+
+/**
+ * Represents the playback settings used when rendering scales to MIDI files.
+ * @author Joel Gibson
+ */
+public class MidiOptions {
+	
+	/**
+	 * The tempo in beats (quarter notes) per minute.
+	 */
+	private int tempo;
+	
+	/**
+	 * The octave of the root note (e.g. 4 for middle C).
+	 */
+	private int octave;
+	
+	/**
+	 * The order in which the notes are played.
+	 */
+	private Direction direction;
+	
+	/**
+	 * The length of each note in beats.
+	 */
+	private double noteLength;
+	
+	/**
+	 * The velocity (loudness) of each note, between 1 and 127.
+	 */
+	private int velocity;
+	
+	/**
+	 * Creates the default options: ascending quarter notes at 120 bpm starting from the 4th octave.
+	 */
+	public MidiOptions() {
+		this(120, 4, Direction.ASCENDING, 1.0);
+	}
+	
+	/**
+	 * Creates options using the given settings and a default velocity.
+	 * @param tempo the tempo in beats per minute
+	 * @param octave the octave of the root note
+	 * @param direction the order in which the notes are played
+	 * @param noteLength the length of each note in beats
+	 */
+	public MidiOptions(int tempo, int octave, Direction direction, double noteLength) {
+		this(tempo, octave, direction, noteLength, 96);
+	}
+	
+	/**
+	 * Creates options using the given settings.
+	 * @param tempo the tempo in beats per minute
+	 * @param octave the octave of the root note
+	 * @param direction the order in which the notes are played
+	 * @param noteLength the length of each note in beats
+	 * @param velocity the velocity of each note, between 1 and 127
+	 */
+	public MidiOptions(int tempo, int octave, Direction direction, double noteLength, int velocity) {
+		if (tempo < MidiEncoder.MIN_TEMPO || tempo > MidiEncoder.MAX_TEMPO || noteLength <= 0 || velocity < 1 || velocity > 127 || direction == null) {
+			throw new IllegalArgumentException("Invalid MIDI options");
+		}
+		
+		this.tempo = tempo;
+		this.octave = octave;
+		this.direction = direction;
+		this.noteLength = noteLength;
+		this.velocity = velocity;
+	}
+	
+	/**
+	 * Gets the tempo.
+	 * @return the tempo in beats per minute
+	 */
+	public int getTempo() {
+		return tempo;
+	}
+	
+	/**
+	 * Gets the octave of the root note.
+	 * @return the octave
+	 */
+	public int getOctave() {
+		return octave;
+	}
+	
+	/**
+	 * Gets the playback direction.
+	 * @return the direction
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+	
+	/**
+	 * Gets the length of each note.
+	 * @return the note length in beats
+	 */
+	public double getNoteLength() {
+		return noteLength;
+	}
+	
+	/**
+	 * Gets the velocity of each note.
+	 * @return the velocity
+	 */
+	public int getVelocity() {
+		return velocity;
+	}
+}
@@ -0,0 +1,139 @@
+package midi;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import files.BatchWriter;
+import scales.*;
+
+/**
+ * Renders scales to Standard MIDI Files, either one at a time or in parallel batches.
+ * @author Joel Gibson
+ */
+public class MidiRenderer {
+	
+	/**
+	 * The time resolution of rendered files in ticks per quarter note.
+	 */
+	public static final int TICKS_PER_BEAT = 480;
+	
+	/**
+	 * The playback settings used for every rendered file.
+	 */
+	private MidiOptions options;
+	
+	/**
+	 * An encoder for each rendering thread, so that buffers are reused between files.
+	 */
+	private ThreadLocal<MidiEncoder> encoders = ThreadLocal.withInitial(MidiEncoder::new);
+	
+	/**
+	 * Creates a renderer using the given playback settings.
+	 * @param options the playback settings
+	 */
+	public MidiRenderer(MidiOptions options) {
+		this.options = options;
+	}
+	
+	/**
+	 * Gets the playback settings.
+	 * @return the options
+	 */
+	public MidiOptions getOptions() {
+		return options;
+	}
+	
+	/**
+	 * Encodes the given scale as a single-track MIDI file into the encoder's buffer.
+	 * @param scale the scale to render
+	 * @param encoder the encoder to write to (this is reset first)
+	 */
+	public void render(Scale scale, MidiEncoder encoder) {
+		int[] pitches = scale.getPitchSequence(options.getOctave(), options.getDirection());
+		int length = (int) Math.round(options.getNoteLength() * TICKS_PER_BEAT);
+		
+		encoder.reset();
+		encoder.writeHeader(TICKS_PER_BEAT);
+		encoder.beginTrack();
+		encoder.writeTrackName(0, scale.toString());
+		encoder.writeTempo(0, options.getTempo());
+		
+		// play each note for the note length, one after the other
+		for (int pitch : pitches) {
+			if (pitch < 0 || pitch > 127) {
+				continue;
+			}
+			
+			encoder.writeNoteOn(0, 0, pitch, options.getVelocity());
+			encoder.writeNoteOff(length, 0, pitch);
+		}
+		
+		encoder.endTrack(0);
+	}
+	
+	/**
+	 * Renders the given scale and writes it to a file.
+	 * @param scale the scale to render
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeScale(Scale scale, File file) throws IOException {
+		MidiEncoder encoder = encoders.get();
+		render(scale, encoder);
+		
+		try (OutputStream out = new FileOutputStream(file)) {
+			encoder.writeTo(out);
+		}
+	}
+	
+	/**
+	 * Renders every scale in the collection into the given directory.
+	 * @param scales the scale collection to render
+	 * @param directory the directory to write to
+	 * @return the number of files written
+	 */
+	public int writeCollection(ScaleCollection scales, File directory) {
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		addTasks(scales, directory, tasks);
+		return BatchWriter.runAll(tasks);
+	}
+	
+	/**
+	 * Renders every scale in the library, writing each library section (e.g. scales, modes) into its own
+	 * subdirectory of the given directory.
+	 * @param library the map of section names to the scale collections in each section
+	 * @param directory the directory to write to
+	 * @return the number of files written
+	 */
+	public int writeLibrary(Map<String, ? extends List<ScaleCollection>> library, File directory) {
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (Map.Entry<String, ? extends List<ScaleCollection>> section : library.entrySet()) {
+			File sectionDirectory = new File(directory, BatchWriter.toFileName(section.getKey()));
+			for (ScaleCollection scales : section.getValue()) {
+				addTasks(scales, sectionDirectory, tasks);
+			}
+		}
+		
+		return BatchWriter.runAll(tasks);
+	}
+	
+	/**
+	 * Adds a rendering task for each scale in the collection.
+	 * @param scales the scale collection to render
+	 * @param directory the directory to write to
+	 * @param tasks the list of tasks to add to
+	 */
+	private void addTasks(ScaleCollection scales, File directory, List<Callable<Boolean>> tasks) {
+		directory.mkdirs();
+		for (Scale scale : scales.getAllScales().values()) {
+			File file = new File(directory, BatchWriter.toFileName(scale.toString()) + ".mid");
+			tasks.add(() -> {
+				writeScale(scale, file);
+				return true;
+			});
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package midi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class MidiRendererTest {
+	
+	// test scale collection of major scales
+	ScaleCollection scales;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		String[] intervals = {"1", "2", "3", "4", "5", "6", "7", "8"};
+		this.scales = new ScaleCollection("scale", "major", intervals, false);
+		this.scales.createAllScales();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+	}
+
+	@Test
+	void testVariableLength() {
+		// test values from the MIDI specification
+		MidiEncoder encoder = new MidiEncoder();
+		encoder.writeVariableLength(0);
+		assertArrayEquals(new byte[] {0x00}, encoder.toByteArray());
+		
+		encoder.reset();
+		encoder.writeVariableLength(0x7F);
+		assertArrayEquals(new byte[] {0x7F}, encoder.toByteArray());
+		
+		encoder.reset();
+		encoder.writeVariableLength(0x80);
+		assertArrayEquals(new byte[] {(byte) 0x81, 0x00}, encoder.toByteArray());
+		
+		encoder.reset();
+		encoder.writeVariableLength(0x0FFFFFFF);
+		assertArrayEquals(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}, encoder.toByteArray());
+	}
+
+	@Test
+	void testTempo() {
+		// test the slowest tempo, whose beat length only just fits in 3 bytes
+		MidiEncoder encoder = new MidiEncoder();
+		encoder.writeTempo(0, MidiEncoder.MIN_TEMPO);
+		assertArrayEquals(new byte[] {0x00, (byte) 0xFF, 0x51, 0x03, (byte) 0xE4, (byte) 0xE1, (byte) 0xC0},
+				encoder.toByteArray());
+		
+		// test that slower tempos are rejected rather than written with the top byte cut off
+		assertThrows(IllegalArgumentException.class, () -> encoder.writeTempo(0, MidiEncoder.MIN_TEMPO - 1));
+		assertThrows(IllegalArgumentException.class,
+				() -> new MidiOptions(MidiEncoder.MIN_TEMPO - 1, 4, Direction.ASCENDING, 1.0));
+	}
+
+	@Test
+	void testRender() {
+		MidiRenderer renderer = new MidiRenderer(new MidiOptions());
+		MidiEncoder encoder = new MidiEncoder();
+		renderer.render(this.scales.getAllScales().get("c"), encoder);
+		byte[] bytes = encoder.toByteArray();
+		
+		// test the header chunk
+		assertEquals('M', bytes[0]);
+		assertEquals('d', bytes[3]);
+		assertEquals(480, ((bytes[12] & 0xFF) << 8) | (bytes[13] & 0xFF));
+		
+		// test the track chunk length matches the remaining bytes
+		assertEquals('M', bytes[14]);
+		int length = ((bytes[18] & 0xFF) << 24) | ((bytes[19] & 0xFF) << 16) | ((bytes[20] & 0xFF) << 8) | (bytes[21] & 0xFF);
+		assertEquals(bytes.length - 22, length);
+		
+		// test the track ends with an end of track event
+		assertEquals((byte) 0xFF, bytes[bytes.length - 3]);
+		assertEquals(0x2F, bytes[bytes.length - 2]);
+		assertEquals(0x00, bytes[bytes.length - 1]);
+		
+		// test that rendering again into the same encoder gives the same bytes
+		renderer.render(this.scales.getAllScales().get("c"), encoder);
+		assertArrayEquals(bytes, encoder.toByteArray());
+	}
+
+	@Test
+	void testWriteLibrary() throws Exception {
+		File directory = new File(System.getProperty("java.io.tmpdir"), "midi-renderer-test");
+		Map<String, ArrayList<ScaleCollection>> library = new HashMap<String, ArrayList<ScaleCollection>>();
+		ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
+		scalesList.add(this.scales);
+		library.put("custom scales", scalesList);
+		
+		// test that a file is written for every scale
+		MidiRenderer renderer = new MidiRenderer(new MidiOptions());
+		assertEquals(21, renderer.writeLibrary(library, directory));
+		File file = new File(new File(directory, "custom-scales"), "csharp-major-scale.mid");
+		assertTrue(file.exists());
+		
+		// clean up the written files
+		for (File section : directory.listFiles()) {
+			for (File written : section.listFiles()) {
+				written.delete();
+			}
+			section.delete();
+		}
+		directory.delete();
+	}
+}
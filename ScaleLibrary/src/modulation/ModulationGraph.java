@@ -0,0 +1,531 @@
+package modulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import notes.Note;
+import scales.LibrarySnapshot;
+import scales.Scale;
+import scales.ScaleCollection;
+
+/**
+ * Represents the built-in scales of the library as a graph for finding smooth modulations. Each node is a scale
+ * (a collection and a root note), and there is a step from one scale to another when the second scale
+ * is the first with one note moved by a semitone (e.g. C major to G major), or when they share enough
+ * notes (e.g. C major to A natural minor). Each step costs 1 plus the number of notes it moves (the
+ * larger of the notes left out and the notes brought in), so the cheapest routes change the fewest notes in
+ * the fewest steps, and don't pass through scales with many more notes.
+ * <p>
+ * The steps are kept in primitive arrays: the steps from node n are at positions offsets[n] to
+ * offsets[n + 1] - 1 of the target and cost arrays. The cheapest costs between every pair of scales are
+ * worked out in parallel on first use and kept with the graph, so that the cost of the best route is a
+ * lookup and route searches head straight for the target. Since both finding the steps and keeping the
+ * costs grow with the square of the number of scales, only the built-in sections are included (not imported
+ * or custom scales), and a graph of more than MAX_SCALES scales is refused.
+ * @author Joel Gibson
+ */
+public class ModulationGraph {
+	
+	/**
+	 * The default number of notes that two scales must share to be linked by a step.
+	 */
+	public static final int DEFAULT_COMMON_TONES = 6;
+	
+	/**
+	 * The cost recorded between scales that can't be reached from each other.
+	 */
+	public static final int UNREACHABLE = Short.MAX_VALUE;
+	
+	/**
+	 * The sections of the built-in catalogue that the graph is built from, in node order.
+	 */
+	public static final List<String> SECTIONS = List.of("arpeggios", "modes", "scales");
+	
+	/**
+	 * The largest number of scales in a graph, which keeps the table of costs between every pair of scales
+	 * to 32 MB.
+	 */
+	public static final int MAX_SCALES = 4096;
+	
+	/**
+	 * The graph of the latest built-in catalogue, shared by every session.
+	 */
+	private static volatile ModulationGraph latest;
+	
+	/**
+	 * The snapshot of the library that the graph was built from.
+	 */
+	private final LibrarySnapshot snapshot;
+	
+	/**
+	 * The number of notes that two scales must share to be linked by a step.
+	 */
+	private final int commonTones;
+	
+	/**
+	 * The collection, root note and pitch-class mask (with bit n for pitch class n, counting up from C)
+	 * of each node.
+	 */
+	private final ScaleCollection[] collections;
+	private final Note[] roots;
+	private final int[] masks;
+	
+	/**
+	 * The node of each scale by its lowercase name (e.g. "f# dorian mode").
+	 */
+	private final Map<String, Integer> byName = new HashMap<String, Integer>();
+	
+	/**
+	 * The steps from each node, as described above.
+	 */
+	private final int[] offsets;
+	private final int[] targets;
+	private final byte[] costs;
+	
+	/**
+	 * The cheapest cost from each node to each other node, in rows of size(), or null if they haven't been
+	 * worked out yet.
+	 */
+	private volatile short[] distances;
+	
+	/**
+	 * Builds the graph of every scale in the built-in sections of the given snapshot, in parallel.
+	 * @param snapshot the snapshot of the library
+	 * @param commonTones the number of notes that two scales must share to be linked by a step
+	 * @throws IllegalArgumentException if the sections have more than MAX_SCALES scales
+	 */
+	public ModulationGraph(LibrarySnapshot snapshot, int commonTones) {
+		this.snapshot = snapshot;
+		this.commonTones = commonTones;
+		
+		// list the collections in section order, so that node numbers don't depend on hashing
+		List<ScaleCollection> all = new ArrayList<ScaleCollection>();
+		for (String section : SECTIONS) {
+			if (snapshot.hasSection(section)) {
+				all.addAll(snapshot.get(section));
+			}
+		}
+		
+		// create the scales of every collection in parallel, keeping the roots that have a scale
+		List<Note> rootNotes = Note.getRootNotes();
+		Scale[][] scales = new Scale[all.size()][];
+		IntStream.range(0, all.size()).parallel().forEach(i -> {
+			scales[i] = new Scale[rootNotes.size()];
+			for (int j = 0; j < rootNotes.size(); j++) {
+				scales[i][j] = all.get(i).getScale(rootNotes.get(j));
+			}
+		});
+		
+		List<ScaleCollection> nodeCollections = new ArrayList<ScaleCollection>();
+		List<Note> nodeRoots = new ArrayList<Note>();
+		List<Integer> nodeMasks = new ArrayList<Integer>();
+		for (int i = 0; i < all.size(); i++) {
+			for (int j = 0; j < rootNotes.size(); j++) {
+				if (scales[i][j] != null) {
+					byName.putIfAbsent(scales[i][j].toString().toLowerCase(), nodeCollections.size());
+					nodeCollections.add(all.get(i));
+					nodeRoots.add(rootNotes.get(j));
+					nodeMasks.add(getPitchClassMask(scales[i][j]));
+				}
+			}
+		}
+		if (nodeCollections.size() > MAX_SCALES) {
+			throw new IllegalArgumentException("Too many scales for a modulation graph (" + nodeCollections.size()
+					+ ", at most " + MAX_SCALES + ")");
+		}
+		collections = nodeCollections.toArray(new ScaleCollection[0]);
+		roots = nodeRoots.toArray(new Note[0]);
+		masks = nodeMasks.stream().mapToInt(Integer::intValue).toArray();
+		
+		// find the steps from each node in parallel, then pack them into the shared arrays
+		int[][] steps = new int[masks.length][];
+		IntStream.range(0, masks.length).parallel().forEach(node -> steps[node] = findSteps(node));
+		offsets = new int[masks.length + 1];
+		for (int node = 0; node < masks.length; node++) {
+			offsets[node + 1] = offsets[node] + steps[node].length;
+		}
+		targets = new int[offsets[masks.length]];
+		costs = new byte[targets.length];
+		for (int node = 0; node < masks.length; node++) {
+			for (int i = 0; i < steps[node].length; i++) {
+				targets[offsets[node] + i] = steps[node][i];
+				costs[offsets[node] + i] = (byte) getCost(masks[node], masks[steps[node][i]]);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the graph of the given snapshot of the built-in catalogue, reusing the latest graph while the
+	 * catalogue and the number of common tones stay the same.
+	 * @param snapshot the snapshot of the library
+	 * @param commonTones the number of notes that two scales must share to be linked by a step
+	 * @return the graph
+	 */
+	public static ModulationGraph forLibrary(LibrarySnapshot snapshot, int commonTones) {
+		ModulationGraph graph = latest;
+		if (graph == null || graph.snapshot != snapshot || graph.commonTones != commonTones) {
+			graph = new ModulationGraph(snapshot, commonTones);
+			latest = graph;
+		}
+		
+		return graph;
+	}
+	
+	/**
+	 * Finds the nodes that a node has a step to.
+	 * @return the target nodes, in order
+	 */
+	private int[] findSteps(int node) {
+		int[] found = new int[masks.length];
+		int count = 0;
+		for (int other = 0; other < masks.length; other++) {
+			if (other != node && isStep(masks[node], masks[other])) {
+				found[count++] = other;
+			}
+		}
+		
+		return Arrays.copyOf(found, count);
+	}
+	
+	/**
+	 * Checks whether there is a step between scales with the given pitch classes: one note moved by a
+	 * semitone, or at least the number of common tones (or every note of the smaller scale) shared.
+	 */
+	private boolean isStep(int from, int to) {
+		int common = Integer.bitCount(from & to);
+		if (common >= Math.min(commonTones, Math.min(Integer.bitCount(from), Integer.bitCount(to)))) {
+			return true;
+		}
+		
+		// one pitch class is left out and a neighbouring pitch class brought in
+		int removed = from & ~to;
+		int added = to & ~from;
+		return Integer.bitCount(removed) == 1 && Integer.bitCount(added) == 1
+				&& (added == rotate(removed, 1) || added == rotate(removed, 11));
+	}
+	
+	/**
+	 * Gets the cost of a step: 1 plus the number of notes it moves.
+	 */
+	private static int getCost(int from, int to) {
+		return 1 + Math.max(Integer.bitCount(from & ~to), Integer.bitCount(to & ~from));
+	}
+	
+	/**
+	 * Rotates a pitch-class mask up by the given number of semitones.
+	 */
+	private static int rotate(int mask, int semitones) {
+		return ((mask << semitones) | (mask >>> (12 - semitones))) & 0xFFF;
+	}
+	
+	/**
+	 * Gets the pitch classes of the notes of a scale.
+	 * @param scale the scale
+	 * @return the pitch-class mask, with bit n for pitch class n (counting up from C)
+	 */
+	static int getPitchClassMask(Scale scale) {
+		int mask = 0;
+		for (Note note : scale.getNotes()) {
+			mask |= 1 << note.getPitchClass();
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Gets the number of scales in the graph.
+	 * @return the number of nodes
+	 */
+	public int size() {
+		return masks.length;
+	}
+	
+	/**
+	 * Gets the number of steps between scales in the graph.
+	 * @return the number of edges
+	 */
+	public int getStepCount() {
+		return targets.length;
+	}
+	
+	/**
+	 * Gets the scale of a node.
+	 * @param node the node number
+	 * @return the scale
+	 */
+	public Scale getScale(int node) {
+		return collections[node].getScale(roots[node]);
+	}
+	
+	/**
+	 * Finds the node of a scale by its name.
+	 * @param name the name of the scale (e.g. F# dorian mode), ignoring case
+	 * @return the node number, or -1 if there is no such scale
+	 */
+	public int find(String name) {
+		return byName.getOrDefault(name.trim().toLowerCase().replaceAll("\\s+", " "), -1);
+	}
+	
+	/**
+	 * Gets the cost of the cheapest route between two scales, working out the costs between every pair of
+	 * scales on first use.
+	 * @param from the node of the first scale
+	 * @param to the node of the last scale
+	 * @return the cost, or UNREACHABLE if there is no route
+	 */
+	public int getDistance(int from, int to) {
+		return getDistances()[from * masks.length + to];
+	}
+	
+	/**
+	 * Gets the cheapest costs between every pair of scales, running a search from each scale in parallel
+	 * the first time.
+	 * @return the costs, in rows of size()
+	 */
+	private short[] getDistances() {
+		short[] result = distances;
+		if (result == null) {
+			synchronized (this) {
+				result = distances;
+				if (result == null) {
+					short[] all = new short[masks.length * masks.length];
+					IntStream.range(0, masks.length).parallel().forEach(from -> {
+						int[] row = search(from, -1, null, null, null).costs;
+						for (int to = 0; to < masks.length; to++) {
+							all[from * masks.length + to] = (short) Math.min(row[to], UNREACHABLE);
+						}
+					});
+					distances = result = all;
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the cheapest route between two scales.
+	 * @param from the node of the first scale
+	 * @param to the node of the last scale
+	 * @return the route, or null if there is no route
+	 */
+	public Route findRoute(int from, int to) {
+		List<Route> routes = findRoutes(from, to, 1);
+		return routes.isEmpty() ? null : routes.get(0);
+	}
+	
+	/**
+	 * Finds the cheapest routes between two scales that don't pass through any scale twice, cheapest first
+	 * (Yen's algorithm). Each route after the first leaves an earlier route at some scale, and the
+	 * cheapest way on from there is searched for with the steps of the earlier routes removed.
+	 * @param from the node of the first scale
+	 * @param to the node of the last scale
+	 * @param count the number of routes to find
+	 * @return up to count routes, cheapest first
+	 */
+	public List<Route> findRoutes(int from, int to, int count) {
+		List<Route> found = new ArrayList<Route>();
+		if (count < 1 || getDistance(from, to) == UNREACHABLE) {
+			return found;
+		}
+		found.add(toRoute(search(from, to, null, null, getDistances()), to));
+		
+		// the candidates for the next route, cheapest first, then with the fewest steps
+		PriorityQueue<Route> candidates = new PriorityQueue<Route>((a, b) -> (a.getCost() != b.getCost())
+				? Integer.compare(a.getCost(), b.getCost()) : Integer.compare(a.getSteps(), b.getSteps()));
+		Set<List<Integer>> seen = new HashSet<List<Integer>>();
+		seen.add(toList(found.get(0).getNodes()));
+		
+		while (found.size() < count) {
+			int[] previous = found.get(found.size() - 1).getNodes();
+			for (int i = 0; i < previous.length - 1; i++) {
+				// remove the steps taken from this scale by the routes sharing the route so far
+				Set<Long> removedSteps = new HashSet<Long>();
+				for (Route route : found) {
+					int[] nodes = route.getNodes();
+					if (nodes.length > i + 1 && Arrays.equals(nodes, 0, i + 1, previous, 0, i + 1)) {
+						removedSteps.add(((long) nodes[i] << 32) | nodes[i + 1]);
+					}
+				}
+				
+				// the route so far can't be revisited
+				boolean[] removedNodes = new boolean[masks.length];
+				int rootCost = 0;
+				for (int j = 0; j < i; j++) {
+					removedNodes[previous[j]] = true;
+					rootCost += getStepCost(previous[j], previous[j + 1]);
+				}
+				
+				Search spur = search(previous[i], to, removedNodes, removedSteps, getDistances());
+				if (spur.costs[to] == Integer.MAX_VALUE) {
+					continue;
+				}
+				
+				Route spurRoute = toRoute(spur, to);
+				int[] nodes = new int[i + spurRoute.getNodes().length];
+				System.arraycopy(previous, 0, nodes, 0, i);
+				System.arraycopy(spurRoute.getNodes(), 0, nodes, i, spurRoute.getNodes().length);
+				if (seen.add(toList(nodes))) {
+					candidates.add(new Route(this, nodes, rootCost + spurRoute.getCost()));
+				}
+			}
+			
+			if (candidates.isEmpty()) {
+				break;
+			}
+			found.add(candidates.poll());
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Gets the cost of the step between two nodes.
+	 */
+	private int getStepCost(int from, int to) {
+		for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+			if (targets[i] == to) {
+				return costs[i];
+			}
+		}
+		
+		throw new IllegalArgumentException("no step from " + getScale(from) + " to " + getScale(to));
+	}
+	
+	/**
+	 * Holds the results of a search: the cheapest cost to each node found, and the node before it.
+	 */
+	private static final class Search {
+		final int[] costs;
+		final int[] previous;
+		
+		Search(int size) {
+			costs = new int[size];
+			previous = new int[size];
+			Arrays.fill(costs, Integer.MAX_VALUE);
+			Arrays.fill(previous, -1);
+		}
+	}
+	
+	/**
+	 * Searches for the cheapest routes from a node. With a target and the costs between every pair of
+	 * scales, the search is guided by the remaining cost to the target (A*), which can only be too low once
+	 * nodes and steps are removed, so the route found is still the cheapest.
+	 * @param from the node to search from
+	 * @param to the target node, or -1 to find the cost to every node
+	 * @param removedNodes the nodes that can't be passed through, or null for none
+	 * @param removedSteps the steps that can't be taken (from << 32 | to), or null for none
+	 * @param estimates the costs between every pair of scales, or null to search without estimates
+	 * @return the search results
+	 */
+	private Search search(int from, int to, boolean[] removedNodes, Set<Long> removedSteps, short[] estimates) {
+		Search search = new Search(masks.length);
+		search.costs[from] = 0;
+		
+		// the queue holds each node with its cost plus estimate in the high bits
+		long[] queue = new long[16];
+		int queueSize = 0;
+		queue[queueSize++] = from;
+		boolean[] done = new boolean[masks.length];
+		while (queueSize > 0) {
+			long head = queue[0];
+			queue[0] = queue[--queueSize];
+			siftDown(queue, queueSize);
+			int node = (int) head;
+			if (done[node]) {
+				continue;
+			}
+			done[node] = true;
+			if (node == to) {
+				break;
+			}
+			
+			for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+				int next = targets[i];
+				if (done[next] || (removedNodes != null && removedNodes[next])
+						|| (removedSteps != null && removedSteps.contains(((long) node << 32) | next))) {
+					continue;
+				}
+				
+				int cost = search.costs[node] + costs[i];
+				if (cost < search.costs[next]) {
+					search.costs[next] = cost;
+					search.previous[next] = node;
+					int estimate = (estimates == null || to < 0) ? 0 : estimates[next * masks.length + to];
+					if (estimate == UNREACHABLE) {
+						continue;
+					}
+					if (queueSize == queue.length) {
+						queue = Arrays.copyOf(queue, 2 * queueSize);
+					}
+					queue[queueSize++] = ((long) (cost + estimate) << 32) | next;
+					siftUp(queue, queueSize - 1);
+				}
+			}
+		}
+		
+		return search;
+	}
+	
+	/**
+	 * Restores the heap order after adding to the end of the queue.
+	 */
+	private static void siftUp(long[] queue, int position) {
+		long value = queue[position];
+		while (position > 0 && queue[(position - 1) / 2] > value) {
+			queue[position] = queue[(position - 1) / 2];
+			position = (position - 1) / 2;
+		}
+		queue[position] = value;
+	}
+	
+	/**
+	 * Restores the heap order after replacing the head of the queue.
+	 */
+	private static void siftDown(long[] queue, int size) {
+		if (size == 0) {
+			return;
+		}
+		
+		long value = queue[0];
+		int position = 0;
+		while (2 * position + 1 < size) {
+			int child = 2 * position + 1;
+			if (child + 1 < size && queue[child + 1] < queue[child]) {
+				child++;
+			}
+			if (queue[child] >= value) {
+				break;
+			}
+			queue[position] = queue[child];
+			position = child;
+		}
+		queue[position] = value;
+	}
+	
+	/**
+	 * Follows the search results back from the target to make a route.
+	 */
+	private Route toRoute(Search search, int to) {
+		List<Integer> nodes = new ArrayList<Integer>();
+		for (int node = to; node >= 0; node = search.previous[node]) {
+			nodes.add(0, node);
+		}
+		
+		return new Route(this, nodes.stream().mapToInt(Integer::intValue).toArray(), search.costs[to]);
+	}
+	
+	/**
+	 * Converts a route's nodes to a list, so that routes can be compared.
+	 */
+	private static List<Integer> toList(int[] nodes) {
+		return Arrays.stream(nodes).boxed().toList();
+	}
+}
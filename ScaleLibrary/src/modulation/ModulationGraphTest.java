@@ -0,0 +1,131 @@
+package modulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class ModulationGraphTest {
+	
+	// the library the graph is built from
+	VersionedLibrary library;
+	
+	// the graph under test
+	ModulationGraph graph;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		library = new VersionedLibrary();
+		library.replaceAll(Map.of(
+				"scales", List.of(
+						new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false),
+						new ScaleCollection("scale", "major pentatonic", new String[] {"1", "2", "3", "5", "6", "8"}, false)),
+				"modes", List.of(
+						new ScaleCollection("mode", "dorian", new String[] {"1", "2", "b3", "4", "5", "6", "b7", "8"}, false))));
+		graph = new ModulationGraph(library.snapshot(), ModulationGraph.DEFAULT_COMMON_TONES);
+	}
+	
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+	
+	@Test
+	void testFind() {
+		assertTrue(graph.find("C major scale") >= 0);
+		assertEquals(graph.find("C major scale"), graph.find("  c  MAJOR scale "));
+		assertEquals("F# dorian mode", graph.getScale(graph.find("F# dorian mode")).toString());
+		assertEquals(-1, graph.find("C minor scale"));
+		assertTrue(graph.getStepCount() > 0);
+	}
+	
+	@Test
+	void testRoute() {
+		int c = graph.find("C major scale");
+		
+		// the dorian mode on the second degree has the same notes
+		Route route = graph.findRoute(c, graph.find("D dorian mode"));
+		assertEquals(1, route.getSteps());
+		assertEquals(1, route.getCost());
+		assertTrue(route.appendTo(new StringBuilder()).toString().contains("D dorian mode (same notes)"));
+		
+		// each key around the circle of fifths moves one note
+		route = graph.findRoute(c, graph.find("A major scale"));
+		assertEquals(3, route.getSteps());
+		assertEquals(6, route.getCost());
+		assertEquals(6, graph.getDistance(c, graph.find("A major scale")));
+		assertEquals("C major scale", route.getScales().get(0).toString());
+		assertEquals("A major scale", route.getScales().get(3).toString());
+		
+		// the pentatonic scale is inside the major scale, and leaves out two notes
+		route = graph.findRoute(c, graph.find("C major pentatonic scale"));
+		assertEquals(1, route.getSteps());
+		assertEquals(3, route.getCost());
+	}
+	
+	@Test
+	void testRoutes() {
+		int c = graph.find("C major scale");
+		int a = graph.find("A major scale");
+		List<Route> routes = graph.findRoutes(c, a, 5);
+		assertEquals(5, routes.size());
+		
+		// the routes are cheapest first, and all different
+		for (int i = 1; i < routes.size(); i++) {
+			assertTrue(routes.get(i - 1).getCost() <= routes.get(i).getCost());
+			for (int j = 0; j < i; j++) {
+				assertNotEquals(routes.get(j).toString(), routes.get(i).toString());
+			}
+		}
+		for (Route route : routes) {
+			assertEquals("C major scale", route.getScales().get(0).toString());
+			assertEquals("A major scale", route.getScales().get(route.getSteps()).toString());
+		}
+		
+		assertTrue(graph.findRoutes(c, a, 0).isEmpty());
+		assertEquals(0, graph.findRoute(c, c).getSteps());
+	}
+	
+	@Test
+	void testForLibrary() {
+		ModulationGraph shared = ModulationGraph.forLibrary(library.snapshot(), 6);
+		assertSame(shared, ModulationGraph.forLibrary(library.snapshot(), 6));
+		assertNotSame(shared, ModulationGraph.forLibrary(library.snapshot(), 5));
+	}
+	
+	@Test
+	void testSections() {
+		// test that imported scales are left out of the graph
+		LibrarySnapshot imported = library.snapshot().withSection("imported scales", List.of(
+				new ScaleCollection("scale", "whole tone", new String[] {"1", "2", "3", "#4", "#5", "b7", "8"}, false)));
+		ModulationGraph builtIn = new ModulationGraph(imported, ModulationGraph.DEFAULT_COMMON_TONES);
+		assertEquals(graph.size(), builtIn.size());
+		assertEquals(-1, builtIn.find("C whole tone scale"));
+		
+		// test that a catalogue with too many scales is refused
+		List<ScaleCollection> many = new ArrayList<ScaleCollection>();
+		for (int i = 0; i <= ModulationGraph.MAX_SCALES / 12; i++) {
+			many.add(new ScaleCollection("scale", "major " + i, new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false));
+		}
+		LibrarySnapshot large = library.snapshot().withSection("scales", many);
+		assertThrows(IllegalArgumentException.class,
+				() -> new ModulationGraph(large, ModulationGraph.DEFAULT_COMMON_TONES));
+	}
+}
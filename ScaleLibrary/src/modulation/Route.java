@@ -0,0 +1,150 @@
+package modulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import notes.Note;
+import scales.Scale;
+
+/**
+ * Represents a route between two scales in a modulation graph: the scales passed through in order and
+ * the total cost of the steps between them.
+ * @author Joel Gibson
+ */
+public class Route {
+	
+	/**
+	 * The graph that the route belongs to.
+	 */
+	private final ModulationGraph graph;
+	
+	/**
+	 * The nodes of the scales passed through, from the first scale to the last.
+	 */
+	private final int[] nodes;
+	
+	/**
+	 * The total cost of the steps.
+	 */
+	private final int cost;
+	
+	/**
+	 * Creates a route.
+	 * @param graph the graph that the route belongs to
+	 * @param nodes the nodes passed through, which must not change
+	 * @param cost the total cost of the steps
+	 */
+	Route(ModulationGraph graph, int[] nodes, int cost) {
+		this.graph = graph;
+		this.nodes = nodes;
+		this.cost = cost;
+	}
+	
+	/**
+	 * Gets the nodes passed through.
+	 * @return the node numbers, which must not be changed
+	 */
+	int[] getNodes() {
+		return nodes;
+	}
+	
+	/**
+	 * Gets the scales passed through.
+	 * @return the scales, from the first scale to the last
+	 */
+	public List<Scale> getScales() {
+		List<Scale> scales = new ArrayList<Scale>();
+		for (int node : nodes) {
+			scales.add(graph.getScale(node));
+		}
+		
+		return scales;
+	}
+	
+	/**
+	 * Gets the total cost of the steps, where each step costs 1 plus the number of notes it moves.
+	 * @return the cost
+	 */
+	public int getCost() {
+		return cost;
+	}
+	
+	/**
+	 * Gets the number of steps between scales.
+	 * @return the number of steps
+	 */
+	public int getSteps() {
+		return nodes.length - 1;
+	}
+	
+	/**
+	 * Prints the route, one scale per line, with the notes that each step leaves out (-) and brings in (+).
+	 * @param buffer the buffer to append to
+	 * @return the buffer
+	 */
+	public StringBuilder appendTo(StringBuilder buffer) {
+		Scale previous = null;
+		for (Scale scale : getScales()) {
+			buffer.append("  ").append(scale);
+			if (previous != null) {
+				String changes = describeChanges(previous, scale);
+				buffer.append(changes.isEmpty() ? " (same notes)" : " (" + changes + ")");
+			}
+			buffer.append('\n');
+			previous = scale;
+		}
+		
+		return buffer;
+	}
+	
+	/**
+	 * Lists the notes of the first scale whose pitches aren't in the second, then the notes of the second
+	 * scale whose pitches aren't in the first (e.g. -F +F#).
+	 */
+	private static String describeChanges(Scale from, Scale to) {
+		int fromMask = ModulationGraph.getPitchClassMask(from);
+		int toMask = ModulationGraph.getPitchClassMask(to);
+		List<String> changes = new ArrayList<String>();
+		for (Note note : unique(from)) {
+			if ((toMask & (1 << note.getPitchClass())) == 0) {
+				changes.add("-" + note);
+			}
+		}
+		for (Note note : unique(to)) {
+			if ((fromMask & (1 << note.getPitchClass())) == 0) {
+				changes.add("+" + note);
+			}
+		}
+		
+		return String.join(" ", changes);
+	}
+	
+	/**
+	 * Gets the notes of a scale without any repeated pitches (e.g. the octave).
+	 */
+	private static List<Note> unique(Scale scale) {
+		List<Note> notes = new ArrayList<Note>();
+		int seen = 0;
+		for (Note note : scale.getNotes()) {
+			if ((seen & (1 << note.getPitchClass())) == 0) {
+				seen |= 1 << note.getPitchClass();
+				notes.add(note);
+			}
+		}
+		
+		return notes;
+	}
+	
+	/**
+	 * Returns the route as the scales passed through (e.g. C major scale -> G major scale).
+	 */
+	@Override
+	public String toString() {
+		List<String> names = new ArrayList<String>();
+		for (Scale scale : getScales()) {
+			names.add(scale.toString());
+		}
+		
+		return String.join(" -> ", names);
+	}
+}
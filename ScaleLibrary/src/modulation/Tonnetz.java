@@ -0,0 +1,478 @@
+package modulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import notes.Interval;
+import notes.Notation;
+import notes.Note;
+import scales.Scale;
+import scales.ScaleCollection;
+import util.QueryCache;
+import util.QueryKey;
+
+/**
+ * Applies the neo-Riemannian transformations to the chords of the arpeggio catalogue. Each transformation
+ * keeps all but one note of a chord and moves the other note to make a chord of the other quality:
+ * <ul>
+ * <li>P (parallel) moves the third: C major and C minor, C dominant 7th and C minor 7th.</li>
+ * <li>L (leading-tone exchange) keeps the notes above the root: C major and E minor, C major 7th and
+ * E minor 7th, C dominant 7th and E half-diminished 7th.</li>
+ * <li>R (relative) keeps the major third: C major and A minor, C major 7th and A minor 7th.</li>
+ * </ul>
+ * Transformations are written as words applied in order, such as PL, and the compound transformations
+ * N (RLP), S (LPR) and H (LPL) can be used as letters.
+ * <p>
+ * A chord is held as a state, quality * 12 + the pitch class of its root, and each transformation as a
+ * table of the state it leads to from each state (or -1 if it doesn't apply to the chord's quality), so a
+ * transformation is an array read. The tables of words are composed once and cached. Chords are only
+ * spelled with notes when they're printed.
+ * @author Joel Gibson
+ */
+public class Tonnetz {
+	
+	/**
+	 * The transformations used for path queries by default.
+	 */
+	public static final String DEFAULT_TRANSFORMATIONS = "PLR";
+	
+	/**
+	 * The transformations: the letter, the chord quality it applies to and the one it leads to, and the
+	 * interval from the old root to the new root.
+	 */
+	private static final String[][] RULES = {
+		{"P", "1, 3, 5", "1, b3, 5", "1"},
+		{"P", "1, b3, 5", "1, 3, 5", "1"},
+		{"L", "1, 3, 5", "1, b3, 5", "3"},
+		{"L", "1, b3, 5", "1, 3, 5", "b6"},
+		{"R", "1, 3, 5", "1, b3, 5", "6"},
+		{"R", "1, b3, 5", "1, 3, 5", "b3"},
+		{"P", "1, 3, 5, b7", "1, b3, 5, b7", "1"},
+		{"P", "1, b3, 5, b7", "1, 3, 5, b7", "1"},
+		{"P", "1, 3, 5, 7", "1, b3, 5, 7", "1"},
+		{"P", "1, b3, 5, 7", "1, 3, 5, 7", "1"},
+		{"L", "1, 3, 5, 7", "1, b3, 5, b7", "3"},
+		{"L", "1, b3, 5, b7", "1, 3, 5, 7", "b6"},
+		{"L", "1, 3, 5, b7", "1, b3, b5, b7", "3"},
+		{"L", "1, b3, b5, b7", "1, 3, 5, b7", "b6"},
+		{"R", "1, 3, 5, 7", "1, b3, 5, b7", "6"},
+		{"R", "1, b3, 5, b7", "1, 3, 5, 7", "b3"}
+	};
+	
+	/**
+	 * The single transformations, and the compound transformations with their words.
+	 */
+	private static final String LETTERS = "PLR";
+	private static final String[][] COMPOUNDS = {{"N", "RLP"}, {"S", "LPR"}, {"H", "LPL"}};
+	
+	/**
+	 * The maximum total weight of the table cache, where each table weighs one unit per state.
+	 */
+	private static final long TABLE_CACHE_WEIGHT = 1 << 16;
+	
+	/**
+	 * The Tonnetz of the latest arpeggio catalogue, shared by every session.
+	 */
+	private static volatile Tonnetz latest;
+	
+	/**
+	 * The arpeggio collections that the chords belong to, which must not change.
+	 */
+	private final List<ScaleCollection> arpeggios;
+	
+	/**
+	 * The arpeggio collection of each chord quality, in catalogue order.
+	 */
+	private final List<ScaleCollection> qualities = new ArrayList<ScaleCollection>();
+	
+	/**
+	 * The table of each single transformation, in the order of LETTERS, and the interval from the old root
+	 * to the new root of each state.
+	 */
+	private final int[][] tables = new int[LETTERS.length()][];
+	private final Interval[][] steps = new Interval[LETTERS.length()][];
+	
+	/**
+	 * The tables of words, keyed by their letters.
+	 */
+	private final QueryCache<QueryKey, int[]> words = new QueryCache<QueryKey, int[]>(TABLE_CACHE_WEIGHT,
+			(key, table) -> table.length);
+	
+	/**
+	 * Creates the transformation tables of the chords in the given arpeggios.
+	 * @param arpeggios the arpeggio collections, which must not change
+	 */
+	public Tonnetz(List<ScaleCollection> arpeggios) {
+		this.arpeggios = arpeggios;
+		
+		// each quality with a rule is the first arpeggio with its pitch classes
+		for (String[] rule : RULES) {
+			for (int side = 1; side <= 2; side++) {
+				ScaleCollection arpeggio = findArpeggio(rule[side]);
+				if (arpeggio != null && !qualities.contains(arpeggio)) {
+					qualities.add(arpeggio);
+				}
+			}
+		}
+		
+		for (int letter = 0; letter < LETTERS.length(); letter++) {
+			tables[letter] = new int[size()];
+			steps[letter] = new Interval[size()];
+			Arrays.fill(tables[letter], -1);
+		}
+		for (String[] rule : RULES) {
+			int letter = LETTERS.indexOf(rule[0]);
+			int from = qualities.indexOf(findArpeggio(rule[1]));
+			int to = qualities.indexOf(findArpeggio(rule[2]));
+			Interval interval = Interval.getInterval(rule[3]);
+			if (from < 0 || to < 0) {
+				continue;
+			}
+			
+			int semitones = Interval.intervalToSemitones(interval);
+			for (int root = 0; root < 12; root++) {
+				tables[letter][12 * from + root] = 12 * to + (root + semitones) % 12;
+				steps[letter][12 * from + root] = interval;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the Tonnetz of the given arpeggio catalogue, reusing the latest one while the catalogue stays the
+	 * same so that its tables are shared.
+	 * @param arpeggios the arpeggio collections, which must not change
+	 * @return the Tonnetz
+	 */
+	public static Tonnetz forArpeggios(List<ScaleCollection> arpeggios) {
+		Tonnetz tonnetz = latest;
+		if (tonnetz == null || tonnetz.arpeggios != arpeggios) {
+			tonnetz = new Tonnetz(arpeggios);
+			latest = tonnetz;
+		}
+		
+		return tonnetz;
+	}
+	
+	/**
+	 * Finds the first arpeggio with the pitch classes of the given intervals.
+	 */
+	private ScaleCollection findArpeggio(String intervals) {
+		int mask = ScaleCollection.toPitchClassMask(intervals.split(", "));
+		for (ScaleCollection arpeggio : arpeggios) {
+			if (arpeggio.getPitchClassMask() == mask) {
+				return arpeggio;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the number of states: 12 for each chord quality.
+	 * @return the number of states
+	 */
+	public int size() {
+		return 12 * qualities.size();
+	}
+	
+	/**
+	 * Gets the cache of word tables.
+	 * @return the table cache
+	 */
+	public QueryCache<QueryKey, int[]> getTableCache() {
+		return words;
+	}
+	
+	/**
+	 * Finds the state of a chord.
+	 * @param name the root note and arpeggio type (e.g. C major, F# minor 7th arpeggio), ignoring case
+	 * @return the state, or -1 if there is no such chord or it has no transformations
+	 */
+	public int find(String name) {
+		Scale chord = findChord(name);
+		return (chord == null) ? -1 : getState(chord);
+	}
+	
+	/**
+	 * Finds a chord with transformations by its name.
+	 * @param name the root note and arpeggio type (e.g. C major, F# minor 7th arpeggio), ignoring case
+	 * @return the chord, or null if there is no such chord or it has no transformations
+	 */
+	public Scale findChord(String name) {
+		String[] parts = name.trim().split("\\s+", 2);
+		Note root = Note.getNote(Notation.parseNote(parts[0]));
+		if (root == null || parts.length < 2) {
+			return null;
+		}
+		
+		String type = parts[1].replaceFirst("(?i)\\s+arpeggio$", "");
+		for (ScaleCollection arpeggio : qualities) {
+			if (arpeggio.getType().equalsIgnoreCase(type)) {
+				return arpeggio.getScale(root);
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the state of a chord.
+	 * @param chord the chord, as a scale of one of the arpeggio collections
+	 * @return the state, or -1 if the chord has no transformations
+	 */
+	public int getState(Scale chord) {
+		for (int quality = 0; quality < qualities.size(); quality++) {
+			ScaleCollection arpeggio = qualities.get(quality);
+			if (arpeggio.getType().equals(chord.getType()) && arpeggio.getFormat().equals(chord.getFormat())) {
+				return 12 * quality + chord.getRoot().getPitchClass();
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Gets the table of a word, composing it from the single transformations on first use.
+	 * @param word the transformations to apply in order (e.g. PL, or N for RLP)
+	 * @return the state reached from each state, or -1 if some transformation doesn't apply on the way,
+	 * which must not be changed
+	 */
+	public int[] getTable(String word) {
+		int[] letters = parseWord(word);
+		if (letters.length == 1) {
+			return tables[letters[0]];
+		}
+		
+		return words.get(new QueryKey("tonnetz", letters), key -> {
+			int[] table = new int[size()];
+			for (int state = 0; state < table.length; state++) {
+				int next = state;
+				for (int i = 0; i < letters.length && next >= 0; i++) {
+					next = tables[letters[i]][next];
+				}
+				table[state] = next;
+			}
+			return table;
+		});
+	}
+	
+	/**
+	 * Applies a word to a chord.
+	 * @param word the transformations to apply in order
+	 * @param state the state of the chord
+	 * @return the state reached, or -1 if some transformation doesn't apply on the way
+	 */
+	public int apply(String word, int state) {
+		return getTable(word)[state];
+	}
+	
+	/**
+	 * Applies a word to many chords at once.
+	 * @param word the transformations to apply in order
+	 * @param states the states of the chords
+	 * @return the states reached, with -1 where some transformation doesn't apply (or the state was -1)
+	 */
+	public int[] applyAll(String word, int[] states) {
+		int[] table = getTable(word);
+		int[] reached = new int[states.length];
+		for (int i = 0; i < states.length; i++) {
+			reached[i] = (states[i] < 0) ? -1 : table[states[i]];
+		}
+		
+		return reached;
+	}
+	
+	/**
+	 * Finds a shortest word leading from one chord to another (breadth-first search).
+	 * @param from the state of the first chord
+	 * @param to the state of the last chord
+	 * @param transformations the transformations that can be used, each counting as one step (e.g. PLR)
+	 * @return the word, which is empty if the chords are the same, or null if there is none
+	 */
+	public String findPath(int from, int to, String transformations) {
+		// each letter (single or compound) is one step
+		String letters = transformations.toUpperCase();
+		parseWord(letters);
+		int[][] usable = new int[letters.length()][];
+		for (int i = 0; i < usable.length; i++) {
+			usable[i] = getTable(letters.substring(i, i + 1));
+		}
+		
+		// record the state and transformation each state was first reached by
+		int[] previous = new int[size()];
+		int[] taken = new int[size()];
+		Arrays.fill(previous, -1);
+		int[] queue = new int[size()];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = from;
+		previous[from] = from;
+		while (head < tail && previous[to] < 0) {
+			int state = queue[head++];
+			for (int i = 0; i < usable.length; i++) {
+				int next = usable[i][state];
+				if (next >= 0 && previous[next] < 0) {
+					previous[next] = state;
+					taken[next] = i;
+					queue[tail++] = next;
+				}
+			}
+		}
+		if (previous[to] < 0) {
+			return null;
+		}
+		
+		StringBuilder word = new StringBuilder();
+		for (int state = to; state != from; state = previous[state]) {
+			word.append(letters.charAt(taken[state]));
+		}
+		return word.reverse().toString();
+	}
+	
+	/**
+	 * Finds the cycle of a word through a chord: the chords reached by applying the word again and again
+	 * until the chord comes back.
+	 * @param word the transformations to apply in order
+	 * @param state the state of the first chord
+	 * @return the states of the cycle, starting with the chord, or an empty array if the word stops applying
+	 * before the chord comes back
+	 */
+	public int[] getCycle(String word, int state) {
+		int[] table = getTable(word);
+		int[] cycle = new int[size()];
+		int length = 0;
+		int next = state;
+		do {
+			cycle[length++] = next;
+			next = table[next];
+		} while (next >= 0 && next != state && length < cycle.length);
+		
+		return (next == state) ? Arrays.copyOf(cycle, length) : new int[0];
+	}
+	
+	/**
+	 * Enumerates the cycles of a word: each set of chords that the word moves around in a circle.
+	 * @param word the transformations to apply in order
+	 * @return the states of each cycle, each starting with its lowest state, in order of their lowest states
+	 */
+	public List<int[]> getCycles(String word) {
+		List<int[]> cycles = new ArrayList<int[]>();
+		boolean[] seen = new boolean[size()];
+		for (int state = 0; state < seen.length; state++) {
+			if (seen[state]) {
+				continue;
+			}
+			
+			int[] cycle = getCycle(word, state);
+			for (int member : cycle) {
+				seen[member] = true;
+			}
+			if (cycle.length > 0) {
+				cycles.add(cycle);
+			}
+		}
+		
+		return cycles;
+	}
+	
+	/**
+	 * Gets a chord, spelled with the fewest sharps and flats.
+	 * @param state the state of the chord
+	 * @return the chord
+	 */
+	public Scale getChord(int state) {
+		return spell(state, null);
+	}
+	
+	/**
+	 * Spells the chords reached by applying each single transformation of a word in turn, following the interval from each
+	 * root to the next so that, for example, A minor goes to C major rather than B# major.
+	 * @param chord the first chord
+	 * @param word the transformations to apply in order
+	 * @return the first chord and each chord reached, which stop early if a transformation doesn't apply
+	 */
+	public List<Scale> spell(Scale chord, String word) {
+		int[] letters = parseWord(word);
+		List<Scale> chords = new ArrayList<Scale>();
+		chords.add(chord);
+		int state = getState(chord);
+		for (int letter : letters) {
+			if (state < 0 || tables[letter][state] < 0) {
+				break;
+			}
+			
+			Note root = chord.getRoot().addInterval(steps[letter][state]);
+			state = tables[letter][state];
+			chord = spell(state, root);
+			chords.add(chord);
+		}
+		
+		return chords;
+	}
+	
+	/**
+	 * Spells a chord on the given root note, unless another spelling needs fewer sharps and flats, in which
+	 * case the spelling with the fewest is used (e.g. F minor rather than E# minor).
+	 */
+	private Scale spell(int state, Note root) {
+		ScaleCollection arpeggio = qualities.get(state / 12);
+		Scale best = null;
+		for (Note note : Note.getRootNotes()) {
+			Scale chord = arpeggio.getScale(note);
+			if (note.getPitchClass() == state % 12 && chord != null
+					&& (best == null || countAccidentals(chord) < countAccidentals(best))) {
+				best = chord;
+			}
+		}
+		
+		Scale chord = (root == null) ? null : arpeggio.getScale(root);
+		return (chord != null && countAccidentals(chord) <= countAccidentals(best)) ? chord : best;
+	}
+	
+	/**
+	 * Counts the sharps and flats in the notes of a chord, with a double sharp or flat counting twice.
+	 */
+	private static int countAccidentals(Scale chord) {
+		int count = 0;
+		for (Note note : chord.getNotes()) {
+			count += Math.abs(note.getAccidental().getSemitones());
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Converts a word to the indexes of its single transformations, expanding any compound transformations.
+	 */
+	private static int[] parseWord(String word) {
+		StringBuilder expanded = new StringBuilder();
+		for (char c : word.toUpperCase().toCharArray()) {
+			String letter = String.valueOf(c);
+			if (LETTERS.contains(letter)) {
+				expanded.append(letter);
+				continue;
+			}
+			
+			String compound = null;
+			for (String[] pair : COMPOUNDS) {
+				if (pair[0].equals(letter)) {
+					compound = pair[1];
+				}
+			}
+			if (compound == null) {
+				throw new IllegalArgumentException("invalid transformation '" + c + "'");
+			}
+			expanded.append(compound);
+		}
+		if (expanded.length() == 0) {
+			throw new IllegalArgumentException("missing transformation");
+		}
+		
+		int[] letters = new int[expanded.length()];
+		for (int i = 0; i < letters.length; i++) {
+			letters[i] = LETTERS.indexOf(expanded.charAt(i));
+		}
+		return letters;
+	}
+}
@@ -0,0 +1,143 @@
+package modulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class TonnetzTest {
+	
+	// the Tonnetz under test
+	Tonnetz tonnetz;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		tonnetz = new Tonnetz(List.of(
+				new ScaleCollection("arpeggio", "major", new String[] {"1", "3", "5", "8"}, false),
+				new ScaleCollection("arpeggio", "minor", new String[] {"1", "b3", "5", "8"}, false),
+				new ScaleCollection("arpeggio", "diminished", new String[] {"1", "b3", "b5", "8"}, false),
+				new ScaleCollection("arpeggio", "major 7th", new String[] {"1", "3", "5", "7", "8"}, false),
+				new ScaleCollection("arpeggio", "minor 7th", new String[] {"1", "b3", "5", "b7", "8"}, false),
+				new ScaleCollection("arpeggio", "dominant 7th", new String[] {"1", "3", "5", "b7", "8"}, false),
+				new ScaleCollection("arpeggio", "half-diminished 7th", new String[] {"1", "b3", "b5", "b7", "8"}, false)));
+	}
+	
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+	
+	/**
+	 * Applies a word to a chord and returns the name of the chord reached.
+	 */
+	String apply(String chord, String word) {
+		int state = tonnetz.apply(word, tonnetz.find(chord));
+		return (state < 0) ? null : tonnetz.getChord(state).toString();
+	}
+	
+	@Test
+	void testTransformations() {
+		// the diminished triad has no transformations
+		assertEquals(6 * 12, tonnetz.size());
+		assertEquals(-1, tonnetz.find("C diminished"));
+		assertEquals(-1, tonnetz.find("H major"));
+		
+		assertEquals("C minor arpeggio", apply("C major", "P"));
+		assertEquals("E minor arpeggio", apply("C major", "L"));
+		assertEquals("A minor arpeggio", apply("C major", "R"));
+		assertEquals("C major arpeggio", apply("A minor", "R"));
+		assertEquals("Ab major arpeggio", apply("C minor", "L"));
+		assertEquals("F minor arpeggio", apply("C major", "N"));
+		assertEquals("F minor arpeggio", apply("c MAJOR arpeggio", "RLP"));
+		assertEquals("C# minor arpeggio", apply("C major", "S"));
+		assertEquals("G# minor arpeggio", apply("C major", "H"));
+		
+		// seventh chords keep all but one note
+		assertEquals("C minor 7th arpeggio", apply("C dominant 7th", "P"));
+		assertEquals("E minor 7th arpeggio", apply("C major 7th", "L"));
+		assertEquals("E half-diminished 7th arpeggio", apply("C dominant 7th", "L"));
+		assertEquals("A minor 7th arpeggio", apply("C major 7th", "R"));
+		assertNull(apply("C dominant 7th", "R"));
+		assertNull(apply("C dominant 7th", "LP"));
+		assertNull(apply("C dominant 7th", "S"));
+		assertNull(apply("C dominant 7th", "H"));
+		
+		// every single transformation is its own inverse where it applies
+		for (String letter : List.of("P", "L", "R")) {
+			int[] table = tonnetz.getTable(letter);
+			for (int state = 0; state < table.length; state++) {
+				assertTrue(table[state] < 0 || table[table[state]] == state);
+			}
+		}
+		
+		assertArrayEquals(new int[] {tonnetz.find("Ab major"), -1}, tonnetz.applyAll("L", new int[] {tonnetz.find("C minor"), -1}));
+		assertThrows(IllegalArgumentException.class, () -> tonnetz.getTable("PX"));
+		assertThrows(IllegalArgumentException.class, () -> tonnetz.getTable(""));
+	}
+	
+	@Test
+	void testPaths() {
+		int c = tonnetz.find("C major");
+		assertEquals("", tonnetz.findPath(c, c, "PLR"));
+		assertEquals("R", tonnetz.findPath(c, tonnetz.find("A minor"), "PLR"));
+		assertEquals(3, tonnetz.findPath(c, tonnetz.find("F# minor"), "PLR").length());
+		assertEquals("LP", tonnetz.findPath(c, tonnetz.find("E major"), "PL"));
+		assertNull(tonnetz.findPath(c, tonnetz.find("D major"), "PL"));
+		assertNull(tonnetz.findPath(c, tonnetz.find("C major 7th"), "PLR"));
+		
+		// every triad can be reached with P, L and R
+		for (String name : List.of("C", "Db", "D", "Eb", "E", "F", "F#", "G", "Ab", "A", "Bb", "B")) {
+			assertNotNull(tonnetz.findPath(c, tonnetz.find(name + " minor"), "PLR"));
+			assertTrue(tonnetz.findPath(c, tonnetz.find(name + " major"), "PLR").length() <= 5);
+		}
+	}
+	
+	@Test
+	void testCycles() {
+		// the hexatonic cycle
+		int[] cycle = tonnetz.getCycle("PL", tonnetz.find("C major"));
+		assertEquals(3, cycle.length);
+		assertEquals("E major arpeggio", tonnetz.getChord(tonnetz.getCycle("PL", tonnetz.find("C major"))[2]).toString());
+		
+		// the word PL moves major and minor triads around separate cycles
+		assertEquals(8, tonnetz.getCycles("PL").size());
+		assertEquals(12, tonnetz.getCycle("LR", tonnetz.find("C major")).length);
+		assertEquals(4, tonnetz.getCycle("PR", tonnetz.find("C major")).length);
+		assertEquals(0, tonnetz.getCycle("R", tonnetz.find("C dominant 7th")).length);
+		
+		// the cycles of a word cover every state it applies to
+		int covered = 0;
+		for (int[] states : tonnetz.getCycles("P")) {
+			covered += states.length;
+		}
+		assertEquals(tonnetz.size() - 2 * 12, covered);
+	}
+	
+	@Test
+	void testSpelling() {
+		List<String> names = new ArrayList<String>();
+		for (Scale chord : tonnetz.spell(tonnetz.findChord("A minor"), "PLPLPL")) {
+			names.add(chord.toString());
+		}
+		assertEquals(List.of("A minor arpeggio", "A major arpeggio", "C# minor arpeggio", "Db major arpeggio",
+				"F minor arpeggio", "F major arpeggio", "A minor arpeggio"), names);
+		assertEquals("Bb minor arpeggio", tonnetz.getChord(tonnetz.find("A# minor")).toString());
+		assertEquals(2, tonnetz.spell(tonnetz.findChord("C dominant 7th"), "LR").size());
+	}
+}
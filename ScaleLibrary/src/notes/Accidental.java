@@ -18,35 +18,79 @@ public class Accidental {
 	 */
 	private int semitones;
 	
+	/**
+	 * The number of microtonal steps (ups or downs) applied by the accidental in addition to the semitones.
+	 */
+	private int ups;
+	
+	/**
+	 * The largest number of ups or downs that a microtonal accidental can have.
+	 */
+	public static final int MAX_UPS = 2;
+	
 	/**
 	 * The list of all accidentals.
 	 */
 	private static ArrayList<Accidental> accidentals = new ArrayList<Accidental>();
 	
+	// load the chromatic and microtonal accidentals from the generated tables, so that they exist as soon as
+	// the class is used
+	static {
+		createAllAccidentals();
+		createMicrotonalAccidentals();
+	}
+	
 	/**
 	 * Creates an accidental from the given symbol and semitone change.
 	 * @param symbol the symbol representing the accidental
 	 * @param semitones the semitone change applied by the accidental
 	 */
 	public Accidental(String symbol, int semitones) {
+		this(symbol, semitones, 0);
+	}
+	
+	/**
+	 * Creates a microtonal accidental from the given symbol, semitone change and number of ups.
+	 * @param symbol the symbol representing the accidental (e.g. ^#, vb)
+	 * @param semitones the semitone (chromatic) change applied by the accidental
+	 * @param ups the number of microtonal steps up (positive) or down (negative)
+	 */
+	public Accidental(String symbol, int semitones, int ups) {
 		this.symbol = symbol;
 		this.semitones = semitones;
+		this.ups = ups;
 		
 		accidentals.add(this);
 	}
 	
 	/**
-	 * Creates a list of all possible accidentals between 3 flats and 3 sharps.
+	 * Resets the list of accidentals to all possible accidentals between 3 flats and 3 sharps, without the
+	 * microtonal accidentals. Both are loaded when the class is initialised, so this is only needed to
+	 * restore the chromatic accidentals after the list has been changed (e.g. in tests).
 	 */
 	public static void createAllAccidentals() {
-		// the possible accidental symbols and corresponding semitone changes (these should be adequate
+		// create and store each chromatic accidental from the generated tables (these should be adequate
 		// for all commonly encountered intervals)
-		String[] symbols = {"bbb", "bb", "b", "", "#", "x", "#x"};
-		int[] semitones = {-3, -2, -1, 0, 1, 2, 3};
+		accidentals.clear();
+		for (int i = 0; i < Tables.CHROMATIC_ACCIDENTALS; i++) {
+			new Accidental(Tables.ACCIDENTAL_SYMBOLS[i], Tables.ACCIDENTAL_SEMITONES[i]);
+		}
+	}
+
+	/**
+	 * Creates the microtonal accidentals, which combine the chromatic accidentals with up to MAX_UPS ups (^)
+	 * or downs (v). An up raises a note by one step of the equal division in use, so in 24-tone equal
+	 * temperament it is a quarter-tone and in 53-tone equal temperament it is a comma. After a call to
+	 * createAllAccidentals(), this must be called before notes and intervals are created again.
+	 */
+	public static void createMicrotonalAccidentals() {
+		// replace any microtonal accidentals already created
+		accidentals.removeIf(accidental -> accidental.getUps() != 0);
 		
-		// create and store each accidental
-		for (int i = 0; i < 7; i++) {
-			new Accidental(symbols[i], semitones[i]);
+		// the generated tables list the microtonal accidentals after the chromatic ones, with the up or down
+		// symbols repeated before the chromatic symbol (e.g. ^#, vvb)
+		for (int i = Tables.CHROMATIC_ACCIDENTALS; i < Tables.ACCIDENTAL_SYMBOLS.length; i++) {
+			new Accidental(Tables.ACCIDENTAL_SYMBOLS[i], Tables.ACCIDENTAL_SEMITONES[i], Tables.ACCIDENTAL_UPS[i]);
 		}
 	}
 
@@ -66,6 +110,14 @@ public class Accidental {
 		return semitones;
 	}
 	
+	/**
+	 * Gets the number of microtonal ups (or downs, if negative) applied by the accidental.
+	 * @return the number of ups
+	 */
+	public int getUps() {
+		return ups;
+	}
+	
 	/**
 	 * Gets the list of all accidentals.
 	 * @return the accidental list
@@ -80,9 +132,19 @@ public class Accidental {
 	 * @return the accidental, or null if no accidental matches the requested semitone change
 	 */
 	public static Accidental convertSemitones(int semitones) {
-		// check the semitone change of each accidental
+		return convertSemitones(semitones, 0);
+	}
+	
+	/**
+	 * Returns the accidental associated with the given semitone change and number of ups.
+	 * @param semitones the number of semitones to convert
+	 * @param ups the number of microtonal ups (or downs, if negative)
+	 * @return the accidental, or null if no accidental matches
+	 */
+	public static Accidental convertSemitones(int semitones, int ups) {
+		// check the semitone change and ups of each accidental
 		for (Accidental accidental : getAccidentals()) {
-			if (accidental.getSemitones() == semitones) {
+			if (accidental.getSemitones() == semitones && accidental.getUps() == ups) {
 				return accidental;
 			}
 		}
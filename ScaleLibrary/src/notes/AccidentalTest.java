@@ -3,11 +3,18 @@ package notes;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 
 class AccidentalTest {
 	
+	@BeforeEach
+	void setUp() throws Exception {
+		// start without the accidentals loaded when the class was initialised
+		Accidental.getAccidentals().clear();
+	}
+	
 	@AfterEach
 	void tearDown() throws Exception {
 	    // reset the list of accidentals
@@ -44,6 +51,30 @@ class AccidentalTest {
 		assertEquals(7, Accidental.getAccidentals().size());
 	}
 
+	@Test
+	void testCreateMicrotonalAccidentals() {
+		Accidental.createAllAccidentals();
+		Accidental.createMicrotonalAccidentals();
+		assertEquals(35, Accidental.getAccidentals().size());
+		
+		// test that creating the accidentals again replaces them
+		Accidental.createMicrotonalAccidentals();
+		assertEquals(35, Accidental.getAccidentals().size());
+		Accidental.createAllAccidentals();
+		assertEquals(7, Accidental.getAccidentals().size());
+		Accidental.createMicrotonalAccidentals();
+		
+		// test some microtonal accidentals
+		Accidental upSharp = Accidental.convertSemitones(1, 1);
+		assertEquals("^#", upSharp.getSymbol());
+		Accidental doubleDown = Accidental.convertSemitones(0, -2);
+		assertEquals("vv", doubleDown.getSymbol());
+		
+		// test that chromatic conversions ignore microtonal accidentals
+		assertEquals("b", Accidental.convertSemitones(-1).getSymbol());
+		assertEquals(0, Accidental.convertSemitones(-1).getUps());
+	}
+
 	@Test
 	void testConvertSemitones() {
 		// test some valid accidentals
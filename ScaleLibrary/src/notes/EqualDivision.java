@@ -0,0 +1,215 @@
+package notes;
+
+/**
+ * Represents an equal division of the octave (e.g. 12-, 19-, 24-, 31- or 53-tone equal temperament) and
+ * performs integer step arithmetic on spelled notes and intervals. Natural notes are placed by stacking
+ * the division's closest fifth, each sharp adds a chromatic semitone (seven fifths less four octaves) and
+ * each up (^) adds a single step. All step sizes are precomputed into tables.
+ * @author Joel Gibson
+ */
+public class EqualDivision {
+	
+	/**
+	 * The position of each natural note on the line of fifths from C, in the same order as LETTER_NAMES.
+	 */
+	private static final int[] FIFTHS_FROM_C = {3, 5, 0, 2, 4, -1, 1};
+	
+	/**
+	 * The position of C in LETTER_NAMES.
+	 */
+	private static final int C_INDEX = 2;
+	
+	/**
+	 * Standard 12-tone equal temperament, where every chromatic semitone is one step.
+	 */
+	public static final EqualDivision TWELVE = new EqualDivision(12);
+	
+	/**
+	 * The number of equal steps in an octave.
+	 */
+	private int divisions;
+	
+	/**
+	 * The number of steps in a perfect fifth.
+	 */
+	private int fifth;
+	
+	/**
+	 * The number of steps added by each sharp (the chromatic semitone).
+	 */
+	private int sharp;
+	
+	/**
+	 * The number of steps from C up to each natural note, in the same order as LETTER_NAMES.
+	 */
+	private int[] letterSteps = new int[Note.LETTER_NAMES.length];
+	
+	/**
+	 * The number of steps in each simple major or perfect interval, indexed by interval number - 1.
+	 */
+	private int[] degreeSteps = new int[Note.LETTER_NAMES.length];
+	
+	/**
+	 * Creates the equal division of the octave into the given number of steps.
+	 * @param divisions the number of steps in an octave
+	 * @throws IllegalArgumentException if the division cannot spell a diatonic scale in ascending order
+	 */
+	public EqualDivision(int divisions) {
+		this.divisions = divisions;
+		
+		// use the closest approximation to a pure 3:2 fifth
+		fifth = (int) Math.round(divisions * Math.log(1.5) / Math.log(2));
+		sharp = 7 * fifth - 4 * divisions;
+		
+		// the diatonic semitone (e.g. E to F) must be at least one step for the letter names to ascend
+		if (divisions <= 0 || sharp < 0 || 3 * divisions - 5 * fifth <= 0) {
+			throw new IllegalArgumentException("Unsupported division of the octave: " + divisions);
+		}
+		
+		// place each natural note by stacking fifths from C
+		for (int i = 0; i < letterSteps.length; i++) {
+			letterSteps[i] = Math.floorMod(FIFTHS_FROM_C[i] * fifth, divisions);
+		}
+		
+		// the steps of each major or perfect interval match the steps of the natural notes above C
+		for (int i = 0; i < degreeSteps.length; i++) {
+			degreeSteps[i] = letterSteps[(C_INDEX + i) % letterSteps.length];
+		}
+	}
+	
+	/**
+	 * Gets the number of steps in an octave.
+	 * @return the number of divisions
+	 */
+	public int getDivisions() {
+		return divisions;
+	}
+	
+	/**
+	 * Gets the number of steps in a perfect fifth.
+	 * @return the fifth size in steps
+	 */
+	public int getFifth() {
+		return fifth;
+	}
+	
+	/**
+	 * Gets the number of steps added by each sharp.
+	 * @return the chromatic semitone size in steps
+	 */
+	public int getSharp() {
+		return sharp;
+	}
+	
+	/**
+	 * Gets the size of one step.
+	 * @return the step size in cents
+	 */
+	public double getStepCents() {
+		return 1200.0 / divisions;
+	}
+	
+	/**
+	 * Gets the number of steps from C up to the given note (negative for notes such as Cb).
+	 * @param note the note
+	 * @return the number of steps
+	 */
+	public int getSteps(Note note) {
+		Accidental accidental = note.getAccidental();
+		return letterSteps[note.getLetterIndex()] + accidental.getSemitones() * sharp + accidental.getUps();
+	}
+	
+	/**
+	 * Gets the pitch class of the note, counting steps up from C.
+	 * @param note the note
+	 * @return the pitch class between 0 and getDivisions() - 1
+	 */
+	public int getPitchClass(Note note) {
+		return Math.floorMod(getSteps(note), divisions);
+	}
+	
+	/**
+	 * Counts the number of steps between the given notes, where the upper note's letter name is the next
+	 * occurrence of that letter at or above the lower note's letter name.
+	 * @param firstNote the lower note
+	 * @param secondNote the upper note
+	 * @return the number of steps
+	 */
+	public int countSteps(Note firstNote, Note secondNote) {
+		int ups = secondNote.getAccidental().getUps() - firstNote.getAccidental().getUps();
+		return countChromaticSteps(firstNote, secondNote) + ups;
+	}
+	
+	/**
+	 * Converts the given interval into its number of steps as a simple interval.
+	 * @param interval the interval to convert
+	 * @return the number of steps
+	 */
+	public int intervalToSteps(Interval interval) {
+		return intervalToChromaticSteps(interval) + interval.getQuality().getUps();
+	}
+	
+	/**
+	 * Calculates the number of steps above the root for each interval in a pattern, including octaves
+	 * for compound intervals.
+	 * @param intervalPattern the interval names (e.g. 1, ^3, 5, 8)
+	 * @return the number of steps above the root for each interval
+	 */
+	public int[] getSteps(String[] intervalPattern) {
+		int[] steps = new int[intervalPattern.length];
+		for (int i = 0; i < steps.length; i++) {
+			Interval interval = Interval.getInterval(intervalPattern[i]);
+			steps[i] = intervalToSteps(interval) + divisions * ((interval.getNumber() - 1) / 7);
+		}
+		
+		return steps;
+	}
+	
+	/**
+	 * Counts the steps between the given notes, ignoring any ups or downs.
+	 * @param firstNote the lower note
+	 * @param secondNote the upper note
+	 * @return the number of steps
+	 */
+	int countChromaticSteps(Note firstNote, Note secondNote) {
+		int natural = countLetterSteps(firstNote.getLetterIndex(), secondNote.getLetterIndex());
+		
+		// account for the accidentals of both notes
+		int semitones = secondNote.getAccidental().getSemitones() - firstNote.getAccidental().getSemitones();
+		return natural + semitones * sharp;
+	}
+	
+	/**
+	 * Counts the steps between the natural notes with the given letter names, where the second letter is
+	 * the next occurrence at or above the first.
+	 * @param firstLetter the position of the lower letter name in LETTER_NAMES
+	 * @param secondLetter the position of the upper letter name in LETTER_NAMES
+	 * @return the number of steps
+	 */
+	int countLetterSteps(int firstLetter, int secondLetter) {
+		// find the steps between the letter names, wrapping around the octave if necessary
+		int natural = letterSteps[secondLetter] - letterSteps[firstLetter];
+		if (natural < 0) {
+			natural += divisions;
+		}
+		
+		return natural;
+	}
+	
+	/**
+	 * Converts the given interval into its number of steps as a simple interval, ignoring any ups or downs.
+	 * @param interval the interval to convert
+	 * @return the number of steps
+	 */
+	int intervalToChromaticSteps(Interval interval) {
+		return degreeSteps[interval.simplifyNumber() - 1] + interval.getQuality().getSemitones() * sharp;
+	}
+	
+	/**
+	 * Returns the name of the equal division for printing.
+	 */
+	@Override
+	public String toString() {
+		return getDivisions() + "-tone equal temperament";
+	}
+}
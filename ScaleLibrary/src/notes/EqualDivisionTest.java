@@ -0,0 +1,100 @@
+package notes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EqualDivisionTest {
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components, including the microtonal accidentals
+		Accidental.createAllAccidentals();
+		Accidental.createMicrotonalAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+
+	@Test
+	void testEqualDivision() {
+		// test the fifth and sharp sizes of some common divisions
+		assertEquals(7, EqualDivision.TWELVE.getFifth());
+		assertEquals(1, EqualDivision.TWELVE.getSharp());
+		assertEquals(1, new EqualDivision(19).getSharp());
+		assertEquals(2, new EqualDivision(24).getSharp());
+		assertEquals(2, new EqualDivision(31).getSharp());
+		assertEquals(5, new EqualDivision(53).getSharp());
+		
+		// test a division that can't spell a diatonic scale in order
+		assertThrows(IllegalArgumentException.class, () -> new EqualDivision(8));
+	}
+
+	@Test
+	void testCountSteps() {
+		// test that 12 steps matches the semitone count for every pair of chromatic notes
+		for (Note first : Note.getNotes().values()) {
+			for (Note second : Note.getNotes().values()) {
+				if (first.getAccidental().getUps() == 0 && second.getAccidental().getUps() == 0) {
+					assertEquals(Interval.countSemitones(first, second), EqualDivision.TWELVE.countSteps(first, second));
+				}
+			}
+		}
+		
+		// test that enharmonic notes are different in 19-tone equal temperament
+		EqualDivision nineteen = new EqualDivision(19);
+		assertEquals(1, nineteen.countSteps(Note.getNote("C"), Note.getNote("C#")));
+		assertEquals(2, nineteen.countSteps(Note.getNote("C"), Note.getNote("Db")));
+		
+		// test quarter-tones in 24-tone equal temperament
+		EqualDivision twentyFour = new EqualDivision(24);
+		assertEquals(1, twentyFour.countSteps(Note.getNote("C"), Note.getNote("C^")));
+		assertEquals(3, twentyFour.countSteps(Note.getNote("C"), Note.getNote("C^#")));
+		assertEquals(7, twentyFour.countSteps(Note.getNote("C"), Note.getNote("Ev")), "A neutral third");
+	}
+
+	@Test
+	void testIntervalToSteps() {
+		// test some intervals in 31-tone equal temperament
+		EqualDivision thirtyOne = new EqualDivision(31);
+		assertEquals(10, thirtyOne.intervalToSteps(Interval.getInterval("3")));
+		assertEquals(8, thirtyOne.intervalToSteps(Interval.getInterval("b3")));
+		assertEquals(18, thirtyOne.intervalToSteps(Interval.getInterval("5")));
+		
+		// test comma accidentals in 53-tone equal temperament
+		EqualDivision fiftyThree = new EqualDivision(53);
+		assertEquals(18, fiftyThree.intervalToSteps(Interval.getInterval("3")), "A Pythagorean major third");
+		assertEquals(17, fiftyThree.intervalToSteps(Interval.getInterval("v3")), "A just major third");
+		
+		// test steps including compound intervals
+		String[] pattern = {"1", "v3", "5", "8"};
+		assertArrayEquals(new int[] {0, 17, 31, 53}, fiftyThree.getSteps(pattern));
+	}
+
+	@Test
+	void testAddMicrotonalInterval() {
+		// test that ups and downs carry over when adding intervals
+		Note note = Note.getNote("C").addInterval(Interval.getInterval("v3"));
+		assertEquals(Note.getNote("Ev"), note);
+		
+		note = Note.getNote("D^").addInterval(Interval.getInterval("b3"));
+		assertEquals(Note.getNote("F^"), note);
+		
+		note = Note.getNote("Ev").addInterval(Interval.getInterval("^5"));
+		assertEquals(Note.getNote("B"), note);
+		
+		// test exceeding the maximum number of ups
+		note = Note.getNote("C^^").addInterval(Interval.getInterval("^5"));
+		assertNull(note);
+	}
+}
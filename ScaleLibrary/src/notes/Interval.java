@@ -19,11 +19,36 @@ public class Interval {
 	 */
 	private Accidental quality;
 	
+	/**
+	 * The name of the interval (e.g. b3), calculated once so that printing doesn't create strings.
+	 */
+	private String name;
+	
+	/**
+	 * The largest interval number that is created (2 octaves).
+	 */
+	public static final int MAX_NUMBER = 15;
+	
+	/**
+	 * The number of distinct interval ids.
+	 */
+	public static final int NUMBER_OF_IDS = (MAX_NUMBER + 1) * (2 * Note.MAX_ACCIDENTAL + 1) * (2 * Accidental.MAX_UPS + 1);
+	
 	/**
 	 * A mapping of all interval names to their associated Interval objects.
 	 */
 	private static Map<String, Interval> intervals = new HashMap<String, Interval>();
 	
+	/**
+	 * The intervals indexed by their ids.
+	 */
+	private static Interval[] intervalsById = new Interval[NUMBER_OF_IDS];
+	
+	// create every interval from the accidentals as soon as the class is used
+	static {
+		createAllIntervals();
+	}
+	
 	/**
 	 * Creates an interval from the given interval size and quality.
 	 * @param number the size of the interval
@@ -34,7 +59,14 @@ public class Interval {
 		this.quality = quality;
 		
 		// store the interval using its string representation
-		intervals.put(quality.toString() + number, this);
+		name = quality.toString() + number;
+		intervals.put(name, this);
+		
+		// store the interval using its id, if it has one
+		int id = getId();
+		if (id >= 0 && id < NUMBER_OF_IDS) {
+			intervalsById[id] = this;
+		}
 	}
 	
 	/**
@@ -53,6 +85,27 @@ public class Interval {
 		return quality;
 	}
 	
+	/**
+	 * Gets the id of the interval, which uniquely identifies its number and quality. Ids run from 0 to
+	 * NUMBER_OF_IDS - 1 for intervals up to MAX_NUMBER.
+	 * @return the interval id
+	 */
+	public int getId() {
+		return toId(number, quality.getSemitones(), quality.getUps());
+	}
+	
+	/**
+	 * Calculates the id of the interval with the given number and quality.
+	 * @param number the interval number
+	 * @param semitones the semitone change from the major or perfect interval
+	 * @param ups the number of ups (or downs, if negative)
+	 * @return the interval id
+	 */
+	public static int toId(int number, int semitones, int ups) {
+		return (number * (2 * Note.MAX_ACCIDENTAL + 1) + semitones + Note.MAX_ACCIDENTAL) * (2 * Accidental.MAX_UPS + 1)
+				+ ups + Accidental.MAX_UPS;
+	}
+	
 	/**
 	 * Gets the map containing all intervals.
 	 * @return the map of intervals
@@ -62,11 +115,14 @@ public class Interval {
 	}
 	
 	/**
-	 * Creates all common intervals within 2 octaves.
+	 * Resets the intervals to all common intervals within 2 octaves, using the current accidentals. The
+	 * intervals are created when the class is initialised, so this is only needed after the intervals or
+	 * the accidentals have been changed (e.g. in tests).
 	 */
 	public static void createAllIntervals() {
-		// create each interval up to a 15th (2 octaves)
-		for (int number = 1; number <= 15; number++) {
+		// create each interval up to a 15th (2 octaves), replacing any created before
+		intervals.clear();
+		for (int number = 1; number <= MAX_NUMBER; number++) {
 			for (Accidental quality : Accidental.getAccidentals()) {
 				new Interval(number, quality);
 			}
@@ -98,34 +154,52 @@ public class Interval {
 	}
 	
 	/**
-	 * Counts the number of semitones between the given notes.
-	 * @param firstNote the lower note
-	 * @param secondNote the upper note
-	 * @return the number of semitones
+	 * Returns the interval with the given id.
+	 * @param id the interval id (e.g. from Notation.parseInterval)
+	 * @return the Interval, or null if the id is invalid or the interval has not been created
 	 */
-	public static int countSemitones(Note firstNote, Note secondNote) {
-		// the array of all possible chromatic notes, used for counting semitone changes
-		String[] chromaticNotes = {"C", "C#", "D", "Eb", "E", "F", "F#", "G", "Ab", "A", "Bb", "B"};
-
-		// find the index of the lower note's letter name
-		int i = 0;
-		while (!firstNote.getLetterName().equals(chromaticNotes[i])) {
-			i++;
+	public static Interval getInterval(int id) {
+		if (id < 0 || id >= NUMBER_OF_IDS) {
+			return null;
 		}
 		
-		// account for the accidental of the lower note
-		int start = i + firstNote.getAccidental().getSemitones();
-		
-		// find the number of positions to the second note's letter name, wrapping around the array if necessary
-		while (!secondNote.getLetterName().equals(chromaticNotes[i % 12])) {
-			i++;
+		// check that the interval is still in the map of all intervals
+		Interval interval = intervalsById[id];
+		if (interval == null || intervals.get(interval.name) != interval) {
+			return null;
 		}
 		
-		// account for the accidental of the upper note
-		int end = i + secondNote.getAccidental().getSemitones();
+		return interval;
+	}
+	
+	/**
+	 * Parses each interval name, accepting any notation understood by Notation.parseInterval, and converts
+	 * it to the name used by the library (e.g. m3 becomes b3).
+	 * @param names the interval names
+	 * @return the library's interval names, or null if any name is not a valid interval
+	 */
+	public static String[] toLibraryNames(String[] names) {
+		String[] libraryNames = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			Interval interval = getInterval(Notation.parseInterval(names[i]));
+			if (interval == null) {
+				return null;
+			}
+			libraryNames[i] = interval.toString();
+		}
 		
-		// calculate the change in semitones
-		return end - start;
+		return libraryNames;
+	}
+	
+	/**
+	 * Counts the number of semitones between the given notes.
+	 * @param firstNote the lower note
+	 * @param secondNote the upper note
+	 * @return the number of semitones
+	 */
+	public static int countSemitones(Note firstNote, Note secondNote) {
+		// use the precomputed 12-tone tables (any ups or downs are microtonal and don't count as semitones)
+		return EqualDivision.TWELVE.countChromaticSteps(firstNote, secondNote);
 	}
 	
 	/**
@@ -134,22 +208,14 @@ public class Interval {
 	 * @return the number of semitones
 	 */
 	public static int intervalToSemitones(Interval interval) {
-		// the pattern of tones (T) and semitones (S) in a major scale
-		String[] tonePattern = {"T", "T", "S", "T", "T", "T", "S"};
-		
-		// count the semitones according to the major scale pattern, starting from an interval of a 2nd
-		int semitones = 0;
-		for (int i = 2; i <= interval.simplifyNumber(); i++) {
-			// add 1 for each semitone and 2 for each tone
-			if ("S".equals(tonePattern[(i - 2) % 7])) {
-				semitones += 1;
-			} else {
-				semitones += 2;
-			}
+		// use the generated 12-tone table (any ups or downs are microtonal and don't count as semitones)
+		int number = interval.getNumber();
+		int semitones = interval.getQuality().getSemitones();
+		if (number > 0 && number <= MAX_NUMBER && Math.abs(semitones) <= Note.MAX_ACCIDENTAL) {
+			return Tables.INTERVAL_SEMITONES[number * Tables.QUALITIES + semitones + Note.MAX_ACCIDENTAL];
 		}
 		
-		// account for the quality of the interval
-		return semitones + interval.getQuality().getSemitones();
+		return EqualDivision.TWELVE.intervalToChromaticSteps(interval);
 	}
 	
 	/**
@@ -157,6 +223,6 @@ public class Interval {
 	 */
 	@Override
 	public String toString() {
-		return getQuality().toString() + getNumber();
+		return name;
 	}
 }
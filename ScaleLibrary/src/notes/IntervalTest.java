@@ -10,9 +10,10 @@ class IntervalTest {
 
 	@BeforeEach
 	void setUp() throws Exception {
-		// create all notes and accidentals
+		// create all notes and accidentals, without the intervals created when the class was initialised
 		Accidental.createAllAccidentals();
 		Note.createAllNotes();
+		Interval.getIntervals().clear();
 	}
 
 	@AfterEach
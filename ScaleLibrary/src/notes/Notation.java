@@ -0,0 +1,462 @@
+package notes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import util.NameTrie;
+
+/**
+ * Parses note and interval names written in common notations into primitive ids, in a single pass and
+ * without creating any objects. As well as the names used by the library (e.g. Bb, b3, #4, ^5), it
+ * accepts Unicode accidentals (♭, ♯, 𝄪, 𝄫, ♮), accidentals written as words (e.g. C sharp, E double flat)
+ * and interval qualities (e.g. m3, M7, P5, aug4, dim5, A4, d7, minor 3rd).
+ * @author Joel Gibson
+ */
+public final class Notation {
+
+	/**
+	 * The value returned by parseChromatic when the text is not a valid accidental.
+	 */
+	private static final int INVALID = Integer.MIN_VALUE;
+
+	/**
+	 * The Unicode flat sign.
+	 */
+	private static final char FLAT = '♭';
+
+	/**
+	 * The Unicode natural sign.
+	 */
+	private static final char NATURAL = '♮';
+
+	/**
+	 * The Unicode sharp sign.
+	 */
+	private static final char SHARP = '♯';
+
+	/**
+	 * The Unicode double sharp sign, which lies outside the Basic Multilingual Plane.
+	 */
+	private static final int DOUBLE_SHARP = 0x1D12A;
+
+	/**
+	 * The Unicode double flat sign, which lies outside the Basic Multilingual Plane.
+	 */
+	private static final int DOUBLE_FLAT = 0x1D12B;
+
+	/**
+	 * The maximum number of notes suggested for a mistyped note name. When more notes are equally close,
+	 * none are suggested, since the name could mean almost anything.
+	 */
+	private static final int MAX_SUGGESTIONS = 3;
+
+	private Notation() {
+	}
+
+	/**
+	 * Parses a note name.
+	 * @param text the note name (e.g. F, eb, C#, D♭, F𝄪, G^b, E flat, C double sharp)
+	 * @return the note ordinal (see Note.getOrdinal), or -1 if the text is not a valid note
+	 */
+	public static int parseNote(CharSequence text) {
+		return parseNote(text, 0, text.length());
+	}
+
+	/**
+	 * Parses a note name from part of the given text.
+	 * @param text the text containing the note name
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return the note ordinal, or -1 if the text is not a valid note
+	 */
+	public static int parseNote(CharSequence text, int start, int end) {
+		// skip surrounding whitespace
+		start = skipWhitespace(text, start, end);
+		end = trimWhitespace(text, start, end);
+		if (start == end) {
+			return -1;
+		}
+
+		// find the letter name, ignoring case
+		int letterIndex = Character.toUpperCase(text.charAt(start)) - 'A';
+		if (letterIndex < 0 || letterIndex >= Note.LETTER_NAMES.length) {
+			return -1;
+		}
+
+		// the ups or downs come before the chromatic part of the accidental (e.g. C^#, Evvb)
+		int i = start + 1;
+		int ups = 0;
+		for (; i < end; i++) {
+			char c = Character.toLowerCase(text.charAt(i));
+			if (c != '^' && c != 'v') {
+				break;
+			}
+
+			// ups and downs can't be mixed
+			int step = (c == '^') ? 1 : -1;
+			if (ups * step < 0) {
+				return -1;
+			}
+			ups += step;
+		}
+
+		int semitones = parseChromatic(text, i, end);
+		if (semitones == INVALID || Math.abs(ups) > Accidental.MAX_UPS) {
+			return -1;
+		}
+
+		return Note.toOrdinal(letterIndex, semitones, ups);
+	}
+
+	/**
+	 * Parses an interval name.
+	 * @param text the interval name (e.g. b3, m3, M7, P5, #4, aug4, A4, dim5, d7, ^3, minor 3rd)
+	 * @return the interval id (see Interval.getId), or -1 if the text is not a valid interval
+	 */
+	public static int parseInterval(CharSequence text) {
+		return parseInterval(text, 0, text.length());
+	}
+
+	/**
+	 * Parses an interval name from part of the given text.
+	 * @param text the text containing the interval name
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return the interval id, or -1 if the text is not a valid interval
+	 */
+	public static int parseInterval(CharSequence text, int start, int end) {
+		start = skipWhitespace(text, start, end);
+		end = trimWhitespace(text, start, end);
+
+		// count the ups or downs, which come before the quality
+		int i = start;
+		int ups = 0;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c != '^' && c != 'v') {
+				break;
+			}
+
+			int step = (c == '^') ? 1 : -1;
+			if (ups * step < 0) {
+				return -1;
+			}
+			ups += step;
+		}
+		if (Math.abs(ups) > Accidental.MAX_UPS) {
+			return -1;
+		}
+
+		// the quality runs up to the first digit
+		int qualityStart = i;
+		while (i < end && !isDigit(text.charAt(i))) {
+			i++;
+		}
+		int qualityEnd = trimWhitespace(text, qualityStart, i);
+
+		// read the interval number
+		int number = 0;
+		for (; i < end && isDigit(text.charAt(i)); i++) {
+			number = 10 * number + text.charAt(i) - '0';
+			if (number > Interval.MAX_NUMBER) {
+				return -1;
+			}
+		}
+		if (number < 1) {
+			return -1;
+		}
+
+		// allow an ordinal suffix (e.g. 3rd, 5th), which isn't checked against the number
+		if (end - i == 2 && (matchesWord(text, i, end, "st") || matchesWord(text, i, end, "nd")
+				|| matchesWord(text, i, end, "rd") || matchesWord(text, i, end, "th"))) {
+			i = end;
+		}
+		if (i != end) {
+			return -1;
+		}
+
+		int semitones = parseQuality(text, qualityStart, qualityEnd, number);
+		if (semitones == INVALID) {
+			return -1;
+		}
+
+		return Interval.toId(number, semitones, ups);
+	}
+
+	/**
+	 * Converts an interval quality into the semitone change from the major or perfect interval, which is
+	 * how the library names intervals (e.g. a minor 3rd is b3 and a diminished 5th is b5).
+	 * @param text the text containing the quality
+	 * @param start the index of the first character of the quality
+	 * @param end the index after the last character of the quality
+	 * @param number the interval number
+	 * @return the semitone change, or INVALID if the quality is not valid for the interval
+	 */
+	private static int parseQuality(CharSequence text, int start, int end, int number) {
+		// unisons, 4ths, 5ths and their compounds are perfect intervals, the others are major or minor
+		int simpleNumber = (number - 1) % 7 + 1;
+		boolean perfect = simpleNumber == 1 || simpleNumber == 4 || simpleNumber == 5;
+		int length = end - start;
+
+		// intervals without a quality are major or perfect
+		if (length == 0) {
+			return 0;
+		}
+
+		// single letter qualities are case sensitive (M for major, m for minor)
+		if (length == 1) {
+			switch (text.charAt(start)) {
+			case 'M':
+				return perfect ? INVALID : 0;
+			case 'm':
+				return perfect ? INVALID : -1;
+			case 'P':
+			case 'p':
+				return perfect ? 0 : INVALID;
+			}
+		}
+
+		// repeated A or d (e.g. AA5 for doubly augmented, d7 for diminished)
+		char first = text.charAt(start);
+		if (first == 'A' || first == 'd') {
+			int count = 0;
+			while (count < length && text.charAt(start + count) == first) {
+				count++;
+			}
+			if (count == length) {
+				return checkRange(first == 'A' ? count : (perfect ? -count : -count - 1));
+			}
+		}
+
+		// qualities written as words
+		if (equalsWord(text, start, end, "maj") || equalsWord(text, start, end, "major")) {
+			return perfect ? INVALID : 0;
+		}
+		if (equalsWord(text, start, end, "min") || equalsWord(text, start, end, "minor")) {
+			return perfect ? INVALID : -1;
+		}
+		if (equalsWord(text, start, end, "perf") || equalsWord(text, start, end, "perfect")) {
+			return perfect ? 0 : INVALID;
+		}
+		if (equalsWord(text, start, end, "aug") || equalsWord(text, start, end, "augmented")) {
+			return 1;
+		}
+		if (equalsWord(text, start, end, "dim") || equalsWord(text, start, end, "diminished")) {
+			return perfect ? -1 : -2;
+		}
+
+		// otherwise the quality is an accidental applied to the major or perfect interval (e.g. b3, #4)
+		return parseChromatic(text, start, end);
+	}
+
+	/**
+	 * Suggests which of the given notes a note name that didn't match any of them was meant to be. A valid
+	 * note is matched to the candidates with the same pitch (e.g. Fx suggests G), and any other name is
+	 * matched to the candidate names that are one typing mistake away (e.g. Fs suggests Fb, F and F#).
+	 * @param text the note name that was entered
+	 * @param candidates the notes that would have been accepted (e.g. the roots of a collection's scales)
+	 * @return the suggested notes, closest first, or an empty list if there is no clear suggestion
+	 */
+	public static List<Note> suggestNotes(CharSequence text, List<Note> candidates) {
+		List<Note> suggestions = new ArrayList<Note>();
+		
+		// suggest enharmonic equivalents of valid notes
+		Note note = Note.getNote(parseNote(text));
+		if (note != null) {
+			for (Note candidate : candidates) {
+				if (candidate.getPitchClass() == note.getPitchClass()
+						&& candidate.getAccidental().getUps() == note.getAccidental().getUps()) {
+					suggestions.add(candidate);
+				}
+			}
+			
+			return (suggestions.size() <= MAX_SUGGESTIONS) ? suggestions : new ArrayList<Note>();
+		}
+		
+		// otherwise find the names with the fewest typing mistakes, allowing one
+		String name = text.toString().trim().toLowerCase();
+		int best = 2;
+		for (Note candidate : candidates) {
+			int distance = NameTrie.editDistance(name, candidate.getKey());
+			if (distance < best) {
+				best = distance;
+				suggestions.clear();
+			}
+			if (distance == best) {
+				suggestions.add(candidate);
+			}
+		}
+		
+		return (suggestions.size() <= MAX_SUGGESTIONS) ? suggestions : new ArrayList<Note>();
+	}
+
+	/**
+	 * Lists alternatives for a suggestion (e.g. "Fb, F or F#").
+	 * @param alternatives the alternatives, which must not be empty
+	 * @return the alternatives separated by commas, with "or" before the last one
+	 */
+	public static String formatAlternatives(List<?> alternatives) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < alternatives.size(); i++) {
+			if (i > 0) {
+				text.append(i == alternatives.size() - 1 ? " or " : ", ");
+			}
+			text.append(alternatives.get(i));
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * Parses the chromatic part of an accidental, which can be written with symbols (b, #, x, ♭, ♯, 𝄪, 𝄫, ♮)
+	 * or words (sharp, flat, double sharp, natural), optionally separated by spaces or hyphens.
+	 * @param text the text containing the accidental
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return the semitone change, or INVALID if the text is not a valid accidental
+	 */
+	private static int parseChromatic(CharSequence text, int start, int end) {
+		int sharps = 0;
+		int flats = 0;
+
+		// the multiplier applied to the next word by a preceding "double" or "triple"
+		int multiplier = 1;
+		int i = start;
+		while (i < end) {
+			char c = text.charAt(i);
+			if (c == ' ' || c == '-') {
+				i++;
+				continue;
+			}
+			
+			// words
+			if (matchesWord(text, i, end, "double") || matchesWord(text, i, end, "triple")) {
+				if (multiplier != 1) {
+					return INVALID;
+				}
+				multiplier = (Character.toLowerCase(c) == 'd') ? 2 : 3;
+				i += 6;
+				continue;
+			} else if (matchesWord(text, i, end, "sharp")) {
+				sharps += multiplier;
+				i += 5;
+			} else if (matchesWord(text, i, end, "flat")) {
+				flats += multiplier;
+				i += 4;
+			} else if (multiplier == 1 && matchesWord(text, i, end, "natural")) {
+				i += 7;
+				
+			// symbols, which can't follow "double" or "triple"
+			} else if (multiplier != 1) {
+				return INVALID;
+			} else if (c == '#' || c == SHARP) {
+				sharps++;
+				i++;
+			} else if (c == 'x' || c == 'X') {
+				sharps += 2;
+				i++;
+			} else if (c == 'b' || c == 'B' || c == FLAT) {
+				flats++;
+				i++;
+			} else if (c == NATURAL) {
+				i++;
+			} else if (Character.isHighSurrogate(c) && i + 1 < end) {
+				int codePoint = Character.codePointAt(text, i);
+				if (codePoint == DOUBLE_SHARP) {
+					sharps += 2;
+				} else if (codePoint == DOUBLE_FLAT) {
+					flats += 2;
+				} else {
+					return INVALID;
+				}
+				i += 2;
+			} else {
+				return INVALID;
+			}
+			multiplier = 1;
+		}
+
+		// sharps and flats can't be mixed, and a multiplier must be followed by sharp or flat
+		if ((sharps > 0 && flats > 0) || multiplier != 1) {
+			return INVALID;
+		}
+
+		return checkRange(sharps - flats);
+	}
+
+	/**
+	 * Checks that a semitone change can be represented by an accidental.
+	 * @param semitones the semitone change
+	 * @return the semitone change, or INVALID if it is beyond 3 flats or 3 sharps
+	 */
+	private static int checkRange(int semitones) {
+		return Math.abs(semitones) <= Note.MAX_ACCIDENTAL ? semitones : INVALID;
+	}
+
+	/**
+	 * Checks whether the given word appears at the index, ignoring case and followed by a non-letter.
+	 * @param text the text to search
+	 * @param index the index to look at
+	 * @param end the index after the last character that can be matched
+	 * @param word the lowercase word
+	 * @return true if the word is found, otherwise false
+	 */
+	private static boolean matchesWord(CharSequence text, int index, int end, String word) {
+		int length = word.length();
+		if (end - index < length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (Character.toLowerCase(text.charAt(index + i)) != word.charAt(i)) {
+				return false;
+			}
+		}
+
+		return index + length == end || !Character.isLetter(text.charAt(index + length));
+	}
+
+	/**
+	 * Checks whether the text is exactly the given word, ignoring case.
+	 * @param text the text to check
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @param word the lowercase word
+	 * @return true if the text is the word, otherwise false
+	 */
+	private static boolean equalsWord(CharSequence text, int start, int end, String word) {
+		return end - start == word.length() && matchesWord(text, start, end, word);
+	}
+
+	/**
+	 * Checks whether a character is an ASCII digit.
+	 * @param c the character
+	 * @return true if the character is a digit from 0 to 9
+	 */
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Finds the first character that isn't whitespace.
+	 * @return the index of the first non-whitespace character, or end if there is none
+	 */
+	private static int skipWhitespace(CharSequence text, int start, int end) {
+		while (start < end && Character.isWhitespace(text.charAt(start))) {
+			start++;
+		}
+
+		return start;
+	}
+
+	/**
+	 * Finds the end of the text once trailing whitespace is removed.
+	 * @return the index after the last non-whitespace character, or start if there is none
+	 */
+	private static int trimWhitespace(CharSequence text, int start, int end) {
+		while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+
+		return end;
+	}
+}
@@ -0,0 +1,193 @@
+package notes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NotationTest {
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components, including microtonal ones
+		Accidental.createAllAccidentals();
+		Accidental.createMicrotonalAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+
+	@Test
+	void testParseNote() {
+		// test that every note can be parsed from its own name
+		for (Note note : Note.getNotes().values()) {
+			assertSame(note, Note.getNote(Notation.parseNote(note.toString())), note.toString());
+		}
+		
+		// test lowercase names and Unicode accidentals
+		assertSame(Note.getNote("Bb"), Note.getNote(Notation.parseNote("bb")));
+		assertSame(Note.getNote("Db"), Note.getNote(Notation.parseNote("D♭")));
+		assertSame(Note.getNote("F#"), Note.getNote(Notation.parseNote("f♯")));
+		assertSame(Note.getNote("Fx"), Note.getNote(Notation.parseNote("F𝄪")));
+		assertSame(Note.getNote("Ebb"), Note.getNote(Notation.parseNote("E𝄫")));
+		assertSame(Note.getNote("G"), Note.getNote(Notation.parseNote("G♮")));
+		assertSame(Note.getNote("C#x"), Note.getNote(Notation.parseNote("C♯𝄪")));
+		assertSame(Note.getNote("E^b"), Note.getNote(Notation.parseNote("E^♭")));
+		
+		// test accidentals written as words
+		assertSame(Note.getNote("C#"), Note.getNote(Notation.parseNote("C sharp")));
+		assertSame(Note.getNote("Eb"), Note.getNote(Notation.parseNote("E-flat")));
+		assertSame(Note.getNote("Fx"), Note.getNote(Notation.parseNote("F double sharp")));
+		assertSame(Note.getNote("Bbb"), Note.getNote(Notation.parseNote("b double-flat")));
+		assertSame(Note.getNote("Abbb"), Note.getNote(Notation.parseNote("A Triple Flat")));
+		assertSame(Note.getNote("D"), Note.getNote(Notation.parseNote("D natural")));
+		
+		// test invalid notes
+		assertEquals(-1, Notation.parseNote(""));
+		assertEquals(-1, Notation.parseNote("H"));
+		assertEquals(-1, Notation.parseNote("C#b"));
+		assertEquals(-1, Notation.parseNote("C♯♭"));
+		assertEquals(-1, Notation.parseNote("Cxx"));
+		assertEquals(-1, Notation.parseNote("C double"));
+		assertEquals(-1, Notation.parseNote("C double #"));
+		assertEquals(-1, Notation.parseNote("C sharpest"));
+		assertEquals(-1, Notation.parseNote("C😀"));
+	}
+
+	@Test
+	void testParseInterval() {
+		// test that every interval can be parsed from its own name
+		for (Interval interval : Interval.getIntervals().values()) {
+			assertSame(interval, Interval.getInterval(Notation.parseInterval(interval.toString())), interval.toString());
+		}
+		
+		// test interval qualities
+		assertEquals("b3", getInterval("m3"));
+		assertEquals("3", getInterval("M3"));
+		assertEquals("7", getInterval("M7"));
+		assertEquals("5", getInterval("P5"));
+		assertEquals("8", getInterval("P8"));
+		assertEquals("#4", getInterval("aug4"));
+		assertEquals("#4", getInterval("A4"));
+		assertEquals("b5", getInterval("dim5"));
+		assertEquals("b5", getInterval("d5"));
+		assertEquals("bb7", getInterval("d7"));
+		assertEquals("bb7", getInterval("dim 7"));
+		assertEquals("x5", getInterval("AA5"));
+		assertEquals("#2", getInterval("aug2"));
+		assertEquals("b10", getInterval("minor 10th"));
+		assertEquals("11", getInterval("perfect 11th"));
+		assertEquals("b13", getInterval("min13"));
+		
+		// test accidentals and microtonal intervals
+		assertEquals("b3", getInterval("♭3"));
+		assertEquals("#11", getInterval("♯11"));
+		assertEquals("x4", getInterval("𝄪4"));
+		assertEquals("^3", getInterval("^3"));
+		assertEquals("vb7", getInterval("vm7"));
+		assertEquals("^#4", getInterval("^aug4"));
+		
+		// test invalid intervals
+		assertEquals(-1, Notation.parseInterval(""));
+		assertEquals(-1, Notation.parseInterval("0"));
+		assertEquals(-1, Notation.parseInterval("16"));
+		assertEquals(-1, Notation.parseInterval("m5"));
+		assertEquals(-1, Notation.parseInterval("P3"));
+		assertEquals(-1, Notation.parseInterval("M4"));
+		assertEquals(-1, Notation.parseInterval("AAAA5"));
+		assertEquals(-1, Notation.parseInterval("3x"));
+		assertEquals(-1, Notation.parseInterval("q3"));
+		assertEquals(-1, Notation.parseInterval("^v3"));
+	}
+
+	@Test
+	void testToLibraryNames() {
+		assertArrayEquals(new String[] {"1", "2", "b3", "4", "5", "b6", "7", "8"},
+				Interval.toLibraryNames(new String[] {"P1", "M2", "m3", "P4", "P5", "m6", "M7", "P8"}));
+		assertNull(Interval.toLibraryNames(new String[] {"1", "m4"}));
+	}
+
+	@Test
+	void testSuggestNotes() {
+		List<Note> roots = Note.getRootNotes();
+		
+		// test that valid notes suggest their enharmonic equivalents
+		assertEquals(List.of(Note.getNote("G")), Notation.suggestNotes("Fx", roots));
+		assertEquals(List.of(Note.getNote("D")), Notation.suggestNotes("ebb", roots));
+		assertEquals(List.of(Note.getNote("A#"), Note.getNote("Bb")), Notation.suggestNotes("Cbb", roots));
+		
+		// test that invalid names suggest the names one typing mistake away
+		assertEquals(List.of(Note.getNote("Fb"), Note.getNote("F"), Note.getNote("F#")), Notation.suggestNotes("Fs", roots));
+		assertEquals(List.of(Note.getNote("Eb")), Notation.suggestNotes(" Ebh ", roots));
+		
+		// test that names close to too many notes suggest nothing
+		assertTrue(Notation.suggestNotes("H", roots).isEmpty());
+		assertTrue(Notation.suggestNotes("pattern", roots).isEmpty());
+		
+		assertEquals("Fb, F or F#", Notation.formatAlternatives(Notation.suggestNotes("Fs", roots)));
+		assertEquals("G", Notation.formatAlternatives(List.of("G")));
+	}
+
+	@Test
+	void testParseAllocation() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assertTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		
+		String[] notes = {"C", "bb", "F♯", "E double flat", "G𝄪", "H"};
+		String[] intervals = {"b3", "m3", "M7", "P5", "aug4", "dim 5", "♭13", "q3"};
+		
+		// warm up until parsing is compiled, so that class loading and compilation aren't counted
+		long total = parseAll(notes, intervals, 50000);
+		
+		// measure the cost of reading the counter itself
+		long start = threads.getCurrentThreadAllocatedBytes();
+		long overhead = threads.getCurrentThreadAllocatedBytes() - start;
+		
+		// test that parsing doesn't allocate anything
+		start = threads.getCurrentThreadAllocatedBytes();
+		total += parseAll(notes, intervals, 10000);
+		long allocated = threads.getCurrentThreadAllocatedBytes() - start - overhead;
+		assertEquals(0, allocated, "Parsing should not allocate");
+		assertEquals(60000 * parseAll(notes, intervals, 1), total);
+	}
+	
+	/**
+	 * Parses the name of an interval and converts it to the library's name.
+	 * @return the library's interval name, or null if the interval is not valid
+	 */
+	private static String getInterval(String name) {
+		Interval interval = Interval.getInterval(Notation.parseInterval(name));
+		return interval == null ? null : interval.toString();
+	}
+	
+	/**
+	 * Parses every note and interval name the given number of times.
+	 * @return the sum of the parsed ids
+	 */
+	private static long parseAll(String[] notes, String[] intervals, int times) {
+		long total = 0;
+		for (int i = 0; i < times; i++) {
+			for (String note : notes) {
+				total += Notation.parseNote(note);
+			}
+			for (String interval : intervals) {
+				total += Notation.parseInterval(interval);
+			}
+		}
+		
+		return total;
+	}
+}
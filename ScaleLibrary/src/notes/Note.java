@@ -20,11 +20,46 @@ public class Note {
 	 */
 	private Accidental accidental;
 	
+	/**
+	 * The position of the letter name in LETTER_NAMES.
+	 */
+	private int letterIndex;
+	
+	/**
+	 * The name of the note for printing (e.g. Bb), calculated once so that printing doesn't create strings.
+	 */
+	private String name;
+	
+	/**
+	 * The lowercase name of the note used to look it up (e.g. bb).
+	 */
+	private String key;
+	
 	/**
 	 * The array of all possible note letter names.
 	 */
 	public static final String[] LETTER_NAMES = {"A", "B", "C", "D", "E", "F", "G"};
 	
+	/**
+	 * The number of semitones from C up to each natural letter name, in the same order as LETTER_NAMES.
+	 */
+	private static final int[] LETTER_SEMITONES = {9, 11, 0, 2, 4, 5, 7};
+	
+	/**
+	 * The largest number of sharps or flats that a note can have.
+	 */
+	public static final int MAX_ACCIDENTAL = 3;
+	
+	/**
+	 * The number of distinct chromatic note ordinals (one for every letter name and chromatic accidental).
+	 */
+	private static final int CHROMATIC_ORDINALS = LETTER_NAMES.length * (2 * MAX_ACCIDENTAL + 1);
+	
+	/**
+	 * The number of distinct note ordinals, including microtonal notes with ups or downs.
+	 */
+	public static final int NUMBER_OF_ORDINALS = CHROMATIC_ORDINALS * (2 * Accidental.MAX_UPS + 1);
+	
 	/**
 	 * A mapping of all note names to their associated Note objects.
 	 */
@@ -35,6 +70,16 @@ public class Note {
 	 */
 	private static ArrayList<Note> rootNotes = new ArrayList<Note>();
 	
+	/**
+	 * The notes indexed by their ordinals.
+	 */
+	private static Note[] notesByOrdinal = new Note[NUMBER_OF_ORDINALS];
+	
+	// create every note from the accidentals as soon as the class is used
+	static {
+		createAllNotes();
+	}
+	
 	/**
 	 * Creates a note from the given letter name and accidental.
 	 * @param letterName the base letter name of the note
@@ -44,8 +89,25 @@ public class Note {
 		this.letterName = letterName;
 		this.accidental = accidental;
 		
+		// find the position of the letter name
+		letterIndex = -1;
+		for (int i = 0; i < LETTER_NAMES.length; i++) {
+			if (LETTER_NAMES[i].equals(letterName)) {
+				letterIndex = i;
+				break;
+			}
+		}
+		
 		// store the note using its string representation
-		notes.put(letterName.toLowerCase() + accidental, this);
+		name = letterName + accidental;
+		key = letterName.toLowerCase() + accidental;
+		notes.put(key, this);
+		
+		// store the note using its ordinal, if it has one
+		int ordinal = getOrdinal();
+		if (letterIndex >= 0 && ordinal >= 0 && ordinal < NUMBER_OF_ORDINALS) {
+			notesByOrdinal[ordinal] = this;
+		}
 	}
 	
 	/**
@@ -64,6 +126,66 @@ public class Note {
 		return accidental;
 	}
 	
+	/**
+	 * Gets the lowercase name used to look up the note (e.g. bb for Bb).
+	 * @return the lookup key
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * Gets the position of the letter name in LETTER_NAMES (e.g. A = 0, C = 2).
+	 * @return the letter index
+	 */
+	public int getLetterIndex() {
+		return letterIndex;
+	}
+	
+	/**
+	 * Gets the ordinal of the note, which uniquely identifies its letter name and accidental. Ordinals
+	 * run from 0 to NUMBER_OF_ORDINALS - 1 and can be used to index precomputed tables. Notes without ups
+	 * or downs always have ordinals below LETTER_NAMES.length * (2 * MAX_ACCIDENTAL + 1).
+	 * @return the note ordinal
+	 */
+	public int getOrdinal() {
+		return toOrdinal(letterIndex, getAccidental().getSemitones(), getAccidental().getUps());
+	}
+	
+	/**
+	 * Calculates the ordinal of the note with the given letter name and chromatic accidental.
+	 * @param letterIndex the position of the letter name in LETTER_NAMES
+	 * @param semitones the semitone change applied by the accidental
+	 * @return the note ordinal
+	 */
+	public static int toOrdinal(int letterIndex, int semitones) {
+		return letterIndex * (2 * MAX_ACCIDENTAL + 1) + semitones + MAX_ACCIDENTAL;
+	}
+	
+	/**
+	 * Calculates the ordinal of the note with the given letter name and microtonal accidental.
+	 * @param letterIndex the position of the letter name in LETTER_NAMES
+	 * @param semitones the semitone change applied by the accidental
+	 * @param ups the number of ups (or downs, if negative) applied by the accidental
+	 * @return the note ordinal
+	 */
+	public static int toOrdinal(int letterIndex, int semitones, int ups) {
+		// order the ups as 0, 1, -1, 2, -2 so that chromatic notes come first
+		int upsIndex = (ups > 0) ? 2 * ups - 1 : -2 * ups;
+		return upsIndex * CHROMATIC_ORDINALS + toOrdinal(letterIndex, semitones);
+	}
+	
+	/**
+	 * Calculates the ordinal of the note with the given name without creating any objects, so that notes
+	 * entered by the user can be looked up in precomputed tables. Any notation understood by
+	 * Notation.parseNote is accepted.
+	 * @param name the name of the note (e.g. F, eb, C#, G^b, D♭)
+	 * @return the note ordinal, or -1 if the name is not a valid note
+	 */
+	public static int parseOrdinal(CharSequence name) {
+		return Notation.parseNote(name);
+	}
+	
 	/**
 	 * Gets the map containing all notes.
 	 * @return the map of notes
@@ -81,17 +203,24 @@ public class Note {
 	}
 	
 	/**
-	 * Creates a list of all possible notes between 3 flats and 3 sharps.
+	 * Resets the notes to all possible notes between 3 flats and 3 sharps, using the current accidentals.
+	 * The notes are created when the class is initialised, so this is only needed after the notes or the
+	 * accidentals have been changed (e.g. in tests).
 	 */
 	public static void createAllNotes() {
+		// start new lists of notes, so that creating the notes again doesn't repeat them
+		notes.clear();
+		rootNotes.clear();
+		
 		// create each note using every letter name and accidental
 		Note note;
 		for (String letter : LETTER_NAMES) {
 			for (Accidental accidental : Accidental.getAccidentals()) {
 				note = new Note(letter, accidental);
 				
-				// only notes between 1 flat and 1 sharp will be used as root notes for creating scales
-				if (Math.abs(accidental.getSemitones()) <= 1) {
+				// only notes between 1 flat and 1 sharp (without ups or downs) will be used as root notes
+				// for creating scales
+				if (Math.abs(accidental.getSemitones()) <= 1 && accidental.getUps() == 0) {
 					rootNotes.add(note);
 				}
 			}
@@ -108,25 +237,22 @@ public class Note {
 	}
 	
 	/**
-	 * Returns the note with the same letter name obtained by adding the given number of semitones.
-	 * @param semitones the number of semitones to change the note by
-	 * @return the new note, or null if the note would go beyond 3 flats or 3 sharps
+	 * Returns the note with the given ordinal.
+	 * @param ordinal the note ordinal (e.g. from Notation.parseNote)
+	 * @return the Note object, or null if the ordinal is invalid or the note has not been created
 	 */
-	private Note changeAccidental(int semitones) {
-		// find the current semitone alteration to the note
-		int currentSemitones = this.getAccidental().getSemitones();
-		
-		// calculate the required semitone alteration
-		int newSemitones = currentSemitones + semitones;
+	public static Note getNote(int ordinal) {
+		if (ordinal < 0 || ordinal >= NUMBER_OF_ORDINALS) {
+			return null;
+		}
 		
-		// don't calculate notes greater than 3 flats or 3 flats
-		if (Math.abs(newSemitones) > 3) {
+		// check that the note is still in the map of all notes
+		Note note = notesByOrdinal[ordinal];
+		if (note == null || notes.get(note.key) != note) {
 			return null;
 		}
-
-		// get the new note using its string representation
-        String newNoteName = getLetterName() + Accidental.convertSemitones(newSemitones).getSymbol();
-		return getNote(newNoteName);
+		
+		return note;
 	}
 	
 	/**
@@ -135,25 +261,44 @@ public class Note {
 	 * @return the new note, or null if more than 3 sharps/flats would be required to create the new note
 	 */
 	public Note addInterval(Interval interval) {
-		// calculate the required number of semitones to increase the note by
-		int requiredSemitones = Interval.intervalToSemitones(interval);
-		
-		// find the position of the current note in the array of letter names, then add the interval
-		// to find the letter name of the second note
-		String letterName = null;
-		for (int i = 0; i < LETTER_NAMES.length; i++) {
-			if (getLetterName().equals(LETTER_NAMES[i])) {
-				letterName = LETTER_NAMES[(i + interval.simplifyNumber() - 1) % LETTER_NAMES.length];
-				break;
-			}
+		// look up the chromatic note in the precomputed table of transpositions
+		int number = interval.getNumber();
+		int semitones = interval.getQuality().getSemitones();
+		if (letterIndex < 0 || number < 1 || number > Interval.MAX_NUMBER) {
+			return null;
 		}
+		int index = toOrdinal(letterIndex, getAccidental().getSemitones()) * Tables.INTERVAL_SEMITONES.length
+				+ number * Tables.QUALITIES + semitones + MAX_ACCIDENTAL;
+		int chromaticOrdinal = Tables.TRANSPOSITIONS.charAt(index) - Tables.TRANSPOSITION_OFFSET - 1;
 		
-		// get the new note (without any accidentals)
-		Note newNote = Note.getNote(letterName);
+		// carry over any microtonal ups or downs from the note and the interval
+		int ups = getAccidental().getUps() + interval.getQuality().getUps();
+		if (chromaticOrdinal < 0 || Math.abs(ups) > Accidental.MAX_UPS) {
+			return null;
+		}
 		
-		// calculate how many semitones are still required and apply an accidental to account for the difference
-		int currentSemitones = Interval.countSemitones(this, newNote);
-		return newNote.changeAccidental(requiredSemitones - currentSemitones);
+		// get the new note, if its accidental has been created
+		int qualities = 2 * MAX_ACCIDENTAL + 1;
+		return getNote(toOrdinal(chromaticOrdinal / qualities, chromaticOrdinal % qualities - MAX_ACCIDENTAL, ups));
+	}
+
+	/**
+	 * Gets the pitch class of the note, counting semitones up from C (e.g. C = 0, F# = 6, Cb = 11).
+	 * @return the pitch class between 0 and 11
+	 */
+	public int getPitchClass() {
+		return Math.floorMod(getMidiNumber(-1), 12);
+	}
+	
+	/**
+	 * Gets the MIDI note number of the note in the given octave, using scientific pitch notation
+	 * where middle C (C4) is note 60. The octave belongs to the letter name, so Cb4 is 59 and B#3 is 60.
+	 * @param octave the octave number of the note's letter name
+	 * @return the MIDI note number
+	 */
+	public int getMidiNumber(int octave) {
+		// MIDI octave -1 starts at note 0, then account for the letter name and accidental
+		return 12 * (octave + 1) + LETTER_SEMITONES[letterIndex] + getAccidental().getSemitones();
 	}
 
 	/**
@@ -161,7 +306,7 @@ public class Note {
 	 */
 	@Override
 	public String toString() {
-		return getLetterName() + getAccidental();
+		return name;
 	}
 	
 	/**
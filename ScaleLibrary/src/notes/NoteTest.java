@@ -10,8 +10,9 @@ class NoteTest {
 
 	@BeforeEach
 	void setUp() throws Exception {
-		// create all accidentals
+		// create all accidentals, without the notes created when the class was initialised
 		Accidental.createAllAccidentals();
+		Note.getNotes().clear();
 	}
 
 	@AfterEach
@@ -46,6 +47,11 @@ class NoteTest {
 		Note.createAllNotes();
 		assertEquals(49, Note.getNotes().size());
 		
+		// test that creating the notes again replaces them
+		Note.createAllNotes();
+		assertEquals(49, Note.getNotes().size());
+		assertEquals(21, Note.getRootNotes().size());
+		
 		// test some valid notes that should have been created
 		assertNotNull(Note.getNote("A"));
 		assertNotNull(Note.getNote("a"));
@@ -127,6 +133,79 @@ class NoteTest {
 		assertNull(note2, "An interval requiring a note with four flats should return null");
 	}
 
+	@Test
+	void testGetMidiNumber() {
+		Note.createAllNotes();
+		
+		// test some natural notes
+		assertEquals(60, Note.getNote("C").getMidiNumber(4), "Middle C should be note 60");
+		assertEquals(69, Note.getNote("A").getMidiNumber(4));
+		assertEquals(21, Note.getNote("A").getMidiNumber(0));
+		
+		// test notes with accidentals
+		assertEquals(70, Note.getNote("Bb").getMidiNumber(4));
+		assertEquals(66, Note.getNote("F#").getMidiNumber(4));
+		
+		// test notes whose accidental crosses the octave boundary
+		assertEquals(59, Note.getNote("Cb").getMidiNumber(4), "Cb4 should sound the same as B3");
+		assertEquals(60, Note.getNote("B#").getMidiNumber(3), "B#3 should sound the same as C4");
+	}
+
+	@Test
+	void testGetOrdinal() {
+		Note.createAllNotes();
+		
+		// test that every note has a distinct ordinal within range
+		boolean[] used = new boolean[Note.NUMBER_OF_ORDINALS];
+		for (Note note : Note.getNotes().values()) {
+			int ordinal = note.getOrdinal();
+			assertTrue(ordinal >= 0 && ordinal < Note.NUMBER_OF_ORDINALS);
+			assertFalse(used[ordinal]);
+			used[ordinal] = true;
+		}
+		
+		assertEquals(Note.toOrdinal(2, 1), Note.getNote("C#").getOrdinal());
+	}
+
+	@Test
+	void testParseOrdinal() {
+		Accidental.createMicrotonalAccidentals();
+		Note.createAllNotes();
+		
+		// test that every note name and lookup key parses to the note's ordinal
+		for (Note note : Note.getNotes().values()) {
+			assertEquals(note.getOrdinal(), Note.parseOrdinal(note.toString()), note.toString());
+			assertEquals(note.getOrdinal(), Note.parseOrdinal(note.getKey()), note.getKey());
+		}
+		
+		// test case and whitespace
+		assertEquals(Note.getNote("Bb").getOrdinal(), Note.parseOrdinal("bb"));
+		assertEquals(Note.getNote("Bbb").getOrdinal(), Note.parseOrdinal(" BBB "));
+		assertEquals(Note.getNote("F#x").getOrdinal(), Note.parseOrdinal("f#X"));
+		assertEquals(Note.getNote("Cx").getOrdinal(), Note.parseOrdinal("C##"));
+		
+		// test some invalid notes and random text
+		assertEquals(-1, Note.parseOrdinal(""));
+		assertEquals(-1, Note.parseOrdinal("H"));
+		assertEquals(-1, Note.parseOrdinal("Fxx"));
+		assertEquals(-1, Note.parseOrdinal("Abbbb"));
+		assertEquals(-1, Note.parseOrdinal("C#b"));
+		assertEquals(-1, Note.parseOrdinal("C^v"));
+		assertEquals(-1, Note.parseOrdinal("C^^^"));
+		assertEquals(-1, Note.parseOrdinal("pattern"));
+	}
+
+	@Test
+	void testGetPitchClass() {
+		Note.createAllNotes();
+		
+		assertEquals(0, Note.getNote("C").getPitchClass());
+		assertEquals(6, Note.getNote("F#").getPitchClass());
+		assertEquals(6, Note.getNote("Gb").getPitchClass());
+		assertEquals(11, Note.getNote("Cb").getPitchClass());
+		assertEquals(0, Note.getNote("B#").getPitchClass());
+	}
+
 	@Test
 	void testToString() {
 		Note.createAllNotes();
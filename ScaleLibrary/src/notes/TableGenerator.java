@@ -0,0 +1,242 @@
+package notes;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates the source of the Tables class, which holds the accidentals, interval sizes and
+ * transpositions as constants so that they don't have to be calculated at runtime. The rules for naming
+ * accidentals are defined here, and the interval sizes and transpositions are calculated with the
+ * 12-tone equal temperament arithmetic in EqualDivision.
+ * <p>
+ * Run this after changing any of those rules:
+ * <pre>java notes.TableGenerator src/notes/Tables.java</pre>
+ * @author Joel Gibson
+ */
+public class TableGenerator {
+	
+	/**
+	 * The chromatic accidental symbols, from 3 flats to 3 sharps.
+	 */
+	private static final String[] CHROMATIC_SYMBOLS = {"bbb", "bb", "b", "", "#", "x", "#x"};
+	
+	/**
+	 * The character offset used to keep the encoded transpositions printable. Encoded values run from this
+	 * character up to 49 characters above it, which avoids quotes and backslashes.
+	 */
+	static final char TRANSPOSITION_OFFSET = '#';
+	
+	/**
+	 * The position of C in LETTER_NAMES.
+	 */
+	private static final int C_INDEX = 2;
+	
+	/**
+	 * The number of characters of encoded transpositions on each line of the generated source.
+	 */
+	private static final int LINE_LENGTH = 98;
+	
+	/**
+	 * Writes the generated source to the given file.
+	 * @param args the path of the file to write (usually src/notes/Tables.java)
+	 */
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.out.println("Usage: java notes.TableGenerator <output file>");
+			return;
+		}
+		
+		// write the CRLF line endings used by the rest of the source tree
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(args[0]), StandardCharsets.UTF_8)) {
+			out.write(generate().replace("\n", "\r\n"));
+			System.out.println("Wrote " + args[0]);
+		
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Generates the source of the Tables class.
+	 * @return the Java source
+	 */
+	static String generate() {
+		String[] symbols = getAccidentalSymbols();
+		StringBuilder source = new StringBuilder();
+		source.append("package notes;\n\n");
+		source.append("/**\n");
+		source.append(" * Constant tables of accidentals, interval sizes and transpositions. This file is generated by\n");
+		source.append(" * TableGenerator, so it should be regenerated rather than edited.\n");
+		source.append(" * @author Joel Gibson\n");
+		source.append(" */\n");
+		source.append("final class Tables {\n\t\n");
+		
+		appendComment(source, "The number of chromatic accidentals (from 3 flats to 3 sharps), which come first in the\n"
+				+ "\t * accidental tables and are followed by the microtonal accidentals.");
+		source.append("\tstatic final int CHROMATIC_ACCIDENTALS = ").append(CHROMATIC_SYMBOLS.length).append(";\n\t\n");
+		
+		appendComment(source, "The symbol of each accidental.");
+		source.append("\tstatic final String[] ACCIDENTAL_SYMBOLS = {");
+		for (int i = 0; i < symbols.length; i++) {
+			source.append(i == 0 ? "" : (i % 14 == 0 ? ",\n\t\t\t" : ", ")).append('"').append(symbols[i]).append('"');
+		}
+		source.append("};\n\t\n");
+		
+		appendComment(source, "The semitone change applied by each accidental.");
+		appendArray(source, "ACCIDENTAL_SEMITONES", getAccidentalSemitones(symbols.length));
+		
+		appendComment(source, "The number of ups (or downs, if negative) applied by each accidental.");
+		appendArray(source, "ACCIDENTAL_UPS", getAccidentalUps(symbols.length));
+		
+		appendComment(source, "The number of qualities of each interval number (from 3 flats to 3 sharps).");
+		source.append("\tstatic final int QUALITIES = ").append(2 * Note.MAX_ACCIDENTAL + 1).append(";\n\t\n");
+		
+		appendComment(source, "The number of semitones in each chromatic interval as a simple interval, indexed by\n"
+				+ "\t * number * QUALITIES + semitones + 3 (where semitones is the quality's change from major or perfect).");
+		appendArray(source, "INTERVAL_SEMITONES", getIntervalSemitones());
+		
+		appendComment(source, "The chromatic note reached by applying each chromatic interval to each chromatic note, indexed\n"
+				+ "\t * by note ordinal * INTERVAL_SEMITONES.length + the interval's index. Each character holds the\n"
+				+ "\t * resulting note ordinal + 1 + TRANSPOSITION_OFFSET, where an ordinal of -1 means that the note\n"
+				+ "\t * would need more than 3 flats or sharps.");
+		source.append("\tstatic final String TRANSPOSITIONS =");
+		String transpositions = encodeTranspositions();
+		for (int i = 0; i < transpositions.length(); i += LINE_LENGTH) {
+			source.append(i == 0 ? "\n\t\t\t\"" : "\n\t\t\t+ \"");
+			source.append(transpositions, i, Math.min(i + LINE_LENGTH, transpositions.length())).append('"');
+		}
+		source.append(";\n\t\n");
+		
+		appendComment(source, "The character offset used to keep the encoded transpositions printable.");
+		source.append("\tstatic final char TRANSPOSITION_OFFSET = '").append(TRANSPOSITION_OFFSET).append("';\n\t\n");
+		
+		source.append("\tprivate Tables() {\n\t}\n}\n");
+		return source.toString();
+	}
+	
+	/**
+	 * Calculates the symbol of every accidental: the chromatic accidentals followed by the microtonal
+	 * accidentals, which repeat the up (^) or down (v) symbol before the chromatic symbol.
+	 * @return the accidental symbols
+	 */
+	static String[] getAccidentalSymbols() {
+		String[] symbols = new String[CHROMATIC_SYMBOLS.length * (2 * Accidental.MAX_UPS + 1)];
+		int index = 0;
+		for (String symbol : CHROMATIC_SYMBOLS) {
+			symbols[index++] = symbol;
+		}
+		
+		for (int ups = -Accidental.MAX_UPS; ups <= Accidental.MAX_UPS; ups++) {
+			if (ups == 0) {
+				continue;
+			}
+			
+			String arrows = (ups > 0 ? "^" : "v").repeat(Math.abs(ups));
+			for (String symbol : CHROMATIC_SYMBOLS) {
+				symbols[index++] = arrows + symbol;
+			}
+		}
+		
+		return symbols;
+	}
+	
+	/**
+	 * Calculates the semitone change applied by every accidental, in the same order as the symbols.
+	 * @param count the number of accidentals
+	 * @return the semitone changes
+	 */
+	static int[] getAccidentalSemitones(int count) {
+		int[] semitones = new int[count];
+		for (int i = 0; i < count; i++) {
+			semitones[i] = i % CHROMATIC_SYMBOLS.length - Note.MAX_ACCIDENTAL;
+		}
+		
+		return semitones;
+	}
+	
+	/**
+	 * Calculates the ups applied by every accidental, in the same order as the symbols.
+	 * @param count the number of accidentals
+	 * @return the ups (or downs, if negative)
+	 */
+	static int[] getAccidentalUps(int count) {
+		int[] ups = new int[count];
+		for (int i = CHROMATIC_SYMBOLS.length; i < count; i++) {
+			// the microtonal accidentals run from the most downs to the most ups, skipping 0
+			int group = i / CHROMATIC_SYMBOLS.length - 1;
+			ups[i] = (group < Accidental.MAX_UPS) ? group - Accidental.MAX_UPS : group - Accidental.MAX_UPS + 1;
+		}
+		
+		return ups;
+	}
+	
+	/**
+	 * Calculates the number of semitones in every chromatic interval as a simple interval.
+	 * @return the semitones, indexed by number * QUALITIES + semitones + 3
+	 */
+	static int[] getIntervalSemitones() {
+		int qualities = 2 * Note.MAX_ACCIDENTAL + 1;
+		int[] semitones = new int[(Interval.MAX_NUMBER + 1) * qualities];
+		for (int number = 1; number <= Interval.MAX_NUMBER; number++) {
+			// find the major or perfect interval, then apply the quality
+			int simpleNumber = (number - 1) % 7;
+			int natural = EqualDivision.TWELVE.countLetterSteps(C_INDEX, (C_INDEX + simpleNumber) % Note.LETTER_NAMES.length);
+			for (int quality = 0; quality < qualities; quality++) {
+				semitones[number * qualities + quality] = natural + quality - Note.MAX_ACCIDENTAL;
+			}
+		}
+		
+		return semitones;
+	}
+	
+	/**
+	 * Calculates the result of applying every chromatic interval to every chromatic note, by finding the
+	 * letter name of the result and then the accidental needed to make up the interval's semitones.
+	 * @return the encoded transpositions
+	 */
+	static String encodeTranspositions() {
+		int qualities = 2 * Note.MAX_ACCIDENTAL + 1;
+		int[] intervalSemitones = getIntervalSemitones();
+		StringBuilder encoded = new StringBuilder();
+		for (int letterIndex = 0; letterIndex < Note.LETTER_NAMES.length; letterIndex++) {
+			for (int accidental = -Note.MAX_ACCIDENTAL; accidental <= Note.MAX_ACCIDENTAL; accidental++) {
+				for (int index = 0; index < intervalSemitones.length; index++) {
+					int number = index / qualities;
+					int result = -1;
+					if (number > 0) {
+						// count the semitones to the natural note with the new letter name
+						int newLetter = (letterIndex + number - 1) % Note.LETTER_NAMES.length;
+						int natural = EqualDivision.TWELVE.countLetterSteps(letterIndex, newLetter);
+						
+						// the new note's accidental makes up the difference
+						int newAccidental = intervalSemitones[index] - (natural - accidental);
+						if (Math.abs(newAccidental) <= Note.MAX_ACCIDENTAL) {
+							result = Note.toOrdinal(newLetter, newAccidental);
+						}
+					}
+					encoded.append((char) (TRANSPOSITION_OFFSET + result + 1));
+				}
+			}
+		}
+		
+		return encoded.toString();
+	}
+	
+	/**
+	 * Appends a documentation comment.
+	 */
+	private static void appendComment(StringBuilder source, String text) {
+		source.append("\t/**\n\t * ").append(text).append("\n\t */\n");
+	}
+	
+	/**
+	 * Appends an integer array constant.
+	 */
+	private static void appendArray(StringBuilder source, String name, int[] values) {
+		source.append("\tstatic final int[] ").append(name).append(" = {");
+		for (int i = 0; i < values.length; i++) {
+			source.append(i == 0 ? "" : (i % 28 == 0 ? ",\n\t\t\t" : ", ")).append(values[i]);
+		}
+		source.append("};\n\t\n");
+	}
+}
@@ -0,0 +1,68 @@
+package notes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableGeneratorTest {
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components, including microtonal ones
+		Accidental.createAllAccidentals();
+		Accidental.createMicrotonalAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+
+	@Test
+	void testTablesUpToDate() {
+		// test that the generated source matches the current rules, so that Tables.java has been regenerated
+		String[] symbols = TableGenerator.getAccidentalSymbols();
+		assertArrayEquals(symbols, Tables.ACCIDENTAL_SYMBOLS);
+		assertArrayEquals(TableGenerator.getAccidentalSemitones(symbols.length), Tables.ACCIDENTAL_SEMITONES);
+		assertArrayEquals(TableGenerator.getAccidentalUps(symbols.length), Tables.ACCIDENTAL_UPS);
+		assertArrayEquals(TableGenerator.getIntervalSemitones(), Tables.INTERVAL_SEMITONES);
+		assertEquals(TableGenerator.encodeTranspositions(), Tables.TRANSPOSITIONS);
+		assertTrue(TableGenerator.generate().contains("static final String TRANSPOSITIONS ="));
+	}
+
+	@Test
+	void testTranspositions() {
+		// test every interval applied to every note against the step arithmetic of 12-tone equal temperament
+		for (Note note : Note.getNotes().values()) {
+			for (Interval interval : Interval.getIntervals().values()) {
+				Note expected = null;
+				int letter = (note.getLetterIndex() + interval.getNumber() - 1) % Note.LETTER_NAMES.length;
+				Note natural = Note.getNote(Note.LETTER_NAMES[letter]);
+				int semitones = EqualDivision.TWELVE.intervalToChromaticSteps(interval)
+						- EqualDivision.TWELVE.countChromaticSteps(note, natural);
+				int ups = note.getAccidental().getUps() + interval.getQuality().getUps();
+				Accidental accidental = Accidental.convertSemitones(semitones, ups);
+				if (accidental != null) {
+					expected = Note.getNote(natural.getLetterName() + accidental.getSymbol());
+				}
+				
+				assertSame(expected, note.addInterval(interval), note + " + " + interval);
+			}
+		}
+	}
+
+	@Test
+	void testIntervalSemitones() {
+		for (Interval interval : Interval.getIntervals().values()) {
+			assertEquals(EqualDivision.TWELVE.intervalToChromaticSteps(interval), Interval.intervalToSemitones(interval), interval.toString());
+		}
+	}
+}
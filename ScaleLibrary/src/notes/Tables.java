@@ -0,0 +1,120 @@
+package notes;
+
+/**
+ * Constant tables of accidentals, interval sizes and transpositions. This file is generated by
+ * TableGenerator, so it should be regenerated rather than edited.
+ * @author Joel Gibson
+ */
+final class Tables {
+	
+	/**
+	 * The number of chromatic accidentals (from 3 flats to 3 sharps), which come first in the
+	 * accidental tables and are followed by the microtonal accidentals.
+	 */
+	static final int CHROMATIC_ACCIDENTALS = 7;
+	
+	/**
+	 * The symbol of each accidental.
+	 */
+	static final String[] ACCIDENTAL_SYMBOLS = {"bbb", "bb", "b", "", "#", "x", "#x", "vvbbb", "vvbb", "vvb", "vv", "vv#", "vvx", "vv#x",
+			"vbbb", "vbb", "vb", "v", "v#", "vx", "v#x", "^bbb", "^bb", "^b", "^", "^#", "^x", "^#x",
+			"^^bbb", "^^bb", "^^b", "^^", "^^#", "^^x", "^^#x"};
+	
+	/**
+	 * The semitone change applied by each accidental.
+	 */
+	static final int[] ACCIDENTAL_SEMITONES = {-3, -2, -1, 0, 1, 2, 3, -3, -2, -1, 0, 1, 2, 3, -3, -2, -1, 0, 1, 2, 3, -3, -2, -1, 0, 1, 2, 3,
+			-3, -2, -1, 0, 1, 2, 3};
+	
+	/**
+	 * The number of ups (or downs, if negative) applied by each accidental.
+	 */
+	static final int[] ACCIDENTAL_UPS = {0, 0, 0, 0, 0, 0, 0, -2, -2, -2, -2, -2, -2, -2, -1, -1, -1, -1, -1, -1, -1, 1, 1, 1, 1, 1, 1, 1,
+			2, 2, 2, 2, 2, 2, 2};
+	
+	/**
+	 * The number of qualities of each interval number (from 3 flats to 3 sharps).
+	 */
+	static final int QUALITIES = 7;
+	
+	/**
+	 * The number of semitones in each chromatic interval as a simple interval, indexed by
+	 * number * QUALITIES + semitones + 3 (where semitones is the quality's change from major or perfect).
+	 */
+	static final int[] INTERVAL_SEMITONES = {0, 0, 0, 0, 0, 0, 0, -3, -2, -1, 0, 1, 2, 3, -1, 0, 1, 2, 3, 4, 5, 1, 2, 3, 4, 5, 6, 7,
+			2, 3, 4, 5, 6, 7, 8, 4, 5, 6, 7, 8, 9, 10, 6, 7, 8, 9, 10, 11, 12, 8, 9, 10, 11, 12, 13, 14,
+			-3, -2, -1, 0, 1, 2, 3, -1, 0, 1, 2, 3, 4, 5, 1, 2, 3, 4, 5, 6, 7, 2, 3, 4, 5, 6, 7, 8,
+			4, 5, 6, 7, 8, 9, 10, 6, 7, 8, 9, 10, 11, 12, 8, 9, 10, 11, 12, 13, 14, -3, -2, -1, 0, 1, 2, 3};
+	
+	/**
+	 * The chromatic note reached by applying each chromatic interval to each chromatic note, indexed
+	 * by note ordinal * INTERVAL_SEMITONES.length + the interval's index. Each character holds the
+	 * resulting note ordinal + 1 + TRANSPOSITION_OFFSET, where an ordinal of -1 means that the note
+	 * would need more than 3 flats or sharps.
+	 */
+	static final String TRANSPOSITIONS =
+			"##########$%&'###+,-.##23456###9:;<###@ABC##GHIJK##NOPQR###$%&'###+,-.##23456###9:;<###@ABC##GHIJK"
+			+ "##NOPQR###$%&'#########$%&'(##+,-./#234567##9:;<=##@ABCD#GHIJKL#NOPQRS##$%&'(##+,-./#234567##9:;<="
+			+ "##@ABCD#GHIJKL#NOPQRS##$%&'(########$%&'()#+,-./02345678#9:;<=>#@ABCDEGHIJKLMNOPQRST#$%&'()#+,-./0"
+			+ "2345678#9:;<=>#@ABCDEGHIJKLMNOPQRST#$%&'()#######$%&'()*+,-./01345678#9:;<=>?@ABCDEFHIJKLM#OPQRST#"
+			+ "$%&'()*+,-./01345678#9:;<=>?@ABCDEFHIJKLM#OPQRST#$%&'()*#######%&'()*#,-./01#45678##:;<=>?#ABCDEF#"
+			+ "IJKLM##PQRST##%&'()*#,-./01#45678##:;<=>?#ABCDEF#IJKLM##PQRST##%&'()*########&'()*##-./01##5678###"
+			+ ";<=>?##BCDEF##JKLM###QRST###&'()*##-./01##5678###;<=>?##BCDEF##JKLM###QRST###&'()*#########'()*###"
+			+ "./01###678####<=>?###CDEF###KLM####RST####'()*###./01###678####<=>?###CDEF###KLM####RST####'()*###"
+			+ "##########+,-.##23456##9:;<=###@ABC##GHIJK##NOPQR##$%&'(###+,-.##23456##9:;<=###@ABC##GHIJK##NOPQR"
+			+ "##$%&'(###+,-.#########+,-./#234567#9:;<=>##@ABCD#GHIJKL#NOPQRS#$%&'()##+,-./#234567#9:;<=>##@ABCD"
+			+ "#GHIJKL#NOPQRS#$%&'()##+,-./########+,-./023456789:;<=>?#@ABCDEGHIJKLMNOPQRST$%&'()*#+,-./02345678"
+			+ "9:;<=>?#@ABCDEGHIJKLMNOPQRST$%&'()*#+,-./0#######+,-./01345678#:;<=>?#@ABCDEFHIJKLM#OPQRST#%&'()*#"
+			+ "+,-./01345678#:;<=>?#@ABCDEFHIJKLM#OPQRST#%&'()*#+,-./01#######,-./01#45678##;<=>?##ABCDEF#IJKLM##"
+			+ "PQRST##&'()*##,-./01#45678##;<=>?##ABCDEF#IJKLM##PQRST##&'()*##,-./01########-./01##5678###<=>?###"
+			+ "BCDEF##JKLM###QRST###'()*###-./01##5678###<=>?###BCDEF##JKLM###QRST###'()*###-./01#########./01###"
+			+ "678####=>?####CDEF###KLM####RST####()*####./01###678####=>?####CDEF###KLM####RST####()*####./01###"
+			+ "##########2345###9:;<###@ABC###GHIJ###NOPQ###$%&'###+,-.###2345###9:;<###@ABC###GHIJ###NOPQ###$%&'"
+			+ "###+,-.###2345#########23456##9:;<=##@ABCD##GHIJK##NOPQR##$%&'(##+,-./##23456##9:;<=##@ABCD##GHIJK"
+			+ "##NOPQR##$%&'(##+,-./##23456########234567#9:;<=>#@ABCDE#GHIJKL#NOPQRS#$%&'()#+,-./0#234567#9:;<=>"
+			+ "#@ABCDE#GHIJKL#NOPQRS#$%&'()#+,-./0#234567#######23456789:;<=>?@ABCDEFGHIJKLMNOPQRST$%&'()*+,-./01"
+			+ "23456789:;<=>?@ABCDEFGHIJKLMNOPQRST$%&'()*+,-./012345678#######345678#:;<=>?#ABCDEF#HIJKLM#OPQRST#"
+			+ "%&'()*#,-./01#345678#:;<=>?#ABCDEF#HIJKLM#OPQRST#%&'()*#,-./01#345678########45678##;<=>?##BCDEF##"
+			+ "IJKLM##PQRST##&'()*##-./01##45678##;<=>?##BCDEF##IJKLM##PQRST##&'()*##-./01##45678#########5678###"
+			+ "<=>?###CDEF###JKLM###QRST###'()*###./01###5678###<=>?###CDEF###JKLM###QRST###'()*###./01###5678###"
+			+ "##########9:;<###@ABC##GHIJK###NOPQ###$%&'###+,-.##23456###9:;<###@ABC##GHIJK###NOPQ###$%&'###+,-."
+			+ "##23456###9:;<#########9:;<=##@ABCD#GHIJKL##NOPQR##$%&'(##+,-./#234567##9:;<=##@ABCD#GHIJKL##NOPQR"
+			+ "##$%&'(##+,-./#234567##9:;<=########9:;<=>#@ABCDEGHIJKLM#NOPQRS#$%&'()#+,-./02345678#9:;<=>#@ABCDE"
+			+ "GHIJKLM#NOPQRS#$%&'()#+,-./02345678#9:;<=>#######9:;<=>?@ABCDEFHIJKLM#NOPQRST$%&'()*+,-./01345678#"
+			+ "9:;<=>?@ABCDEFHIJKLM#NOPQRST$%&'()*+,-./01345678#9:;<=>?#######:;<=>?#ABCDEF#IJKLM##OPQRST#%&'()*#"
+			+ ",-./01#45678##:;<=>?#ABCDEF#IJKLM##OPQRST#%&'()*#,-./01#45678##:;<=>?########;<=>?##BCDEF##JKLM###"
+			+ "PQRST##&'()*##-./01##5678###;<=>?##BCDEF##JKLM###PQRST##&'()*##-./01##5678###;<=>?#########<=>?###"
+			+ "CDEF###KLM####QRST###'()*###./01###678####<=>?###CDEF###KLM####QRST###'()*###./01###678####<=>?###"
+			+ "##########@ABC##GHIJK##NOPQR###$%&'###+,-.##23456##9:;<=###@ABC##GHIJK##NOPQR###$%&'###+,-.##23456"
+			+ "##9:;<=###@ABC#########@ABCD#GHIJKL#NOPQRS##$%&'(##+,-./#234567#9:;<=>##@ABCD#GHIJKL#NOPQRS##$%&'("
+			+ "##+,-./#234567#9:;<=>##@ABCD########@ABCDEGHIJKLMNOPQRST#$%&'()#+,-./023456789:;<=>?#@ABCDEGHIJKLM"
+			+ "NOPQRST#$%&'()#+,-./023456789:;<=>?#@ABCDE#######@ABCDEFHIJKLM#OPQRST#$%&'()*+,-./01345678#:;<=>?#"
+			+ "@ABCDEFHIJKLM#OPQRST#$%&'()*+,-./01345678#:;<=>?#@ABCDEF#######ABCDEF#IJKLM##PQRST##%&'()*#,-./01#"
+			+ "45678##;<=>?##ABCDEF#IJKLM##PQRST##%&'()*#,-./01#45678##;<=>?##ABCDEF########BCDEF##JKLM###QRST###"
+			+ "&'()*##-./01##5678###<=>?###BCDEF##JKLM###QRST###&'()*##-./01##5678###<=>?###BCDEF#########CDEF###"
+			+ "KLM####RST####'()*###./01###678####=>?####CDEF###KLM####RST####'()*###./01###678####=>?####CDEF###"
+			+ "##########GHIJ###NOPQ###$%&'####+,-###2345###9:;<###@ABC###GHIJ###NOPQ###$%&'####+,-###2345###9:;<"
+			+ "###@ABC###GHIJ#########GHIJK##NOPQR##$%&'(###+,-.##23456##9:;<=##@ABCD##GHIJK##NOPQR##$%&'(###+,-."
+			+ "##23456##9:;<=##@ABCD##GHIJK########GHIJKL#NOPQRS#$%&'()##+,-./#234567#9:;<=>#@ABCDE#GHIJKL#NOPQRS"
+			+ "#$%&'()##+,-./#234567#9:;<=>#@ABCDE#GHIJKL#######GHIJKLMNOPQRST$%&'()*#+,-./023456789:;<=>?@ABCDEF"
+			+ "GHIJKLMNOPQRST$%&'()*#+,-./023456789:;<=>?@ABCDEFGHIJKLM#######HIJKLM#OPQRST#%&'()*#+,-./01345678#"
+			+ ":;<=>?#ABCDEF#HIJKLM#OPQRST#%&'()*#+,-./01345678#:;<=>?#ABCDEF#HIJKLM########IJKLM##PQRST##&'()*##"
+			+ ",-./01#45678##;<=>?##BCDEF##IJKLM##PQRST##&'()*##,-./01#45678##;<=>?##BCDEF##IJKLM#########JKLM###"
+			+ "QRST###'()*###-./01##5678###<=>?###CDEF###JKLM###QRST###'()*###-./01##5678###<=>?###CDEF###JKLM###"
+			+ "##########NOPQ###$%&'###+,-.###2345###9:;<###@ABC##GHIJK###NOPQ###$%&'###+,-.###2345###9:;<###@ABC"
+			+ "##GHIJK###NOPQ#########NOPQR##$%&'(##+,-./##23456##9:;<=##@ABCD#GHIJKL##NOPQR##$%&'(##+,-./##23456"
+			+ "##9:;<=##@ABCD#GHIJKL##NOPQR########NOPQRS#$%&'()#+,-./0#234567#9:;<=>#@ABCDEGHIJKLM#NOPQRS#$%&'()"
+			+ "#+,-./0#234567#9:;<=>#@ABCDEGHIJKLM#NOPQRS#######NOPQRST$%&'()*+,-./0123456789:;<=>?@ABCDEFHIJKLM#"
+			+ "NOPQRST$%&'()*+,-./0123456789:;<=>?@ABCDEFHIJKLM#NOPQRST#######OPQRST#%&'()*#,-./01#345678#:;<=>?#"
+			+ "ABCDEF#IJKLM##OPQRST#%&'()*#,-./01#345678#:;<=>?#ABCDEF#IJKLM##OPQRST########PQRST##&'()*##-./01##"
+			+ "45678##;<=>?##BCDEF##JKLM###PQRST##&'()*##-./01##45678##;<=>?##BCDEF##JKLM###PQRST#########QRST###"
+			+ "'()*###./01###5678###<=>?###CDEF###KLM####QRST###'()*###./01###5678###<=>?###CDEF###KLM####QRST###";
+	
+	/**
+	 * The character offset used to keep the encoded transpositions printable.
+	 */
+	static final char TRANSPOSITION_OFFSET = '#';
+	
+	private Tables() {
+	}
+}
@@ -1,5 +1,863 @@
 package processor;
 
-public class Processor {
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import modulation.ModulationGraph;
+import modulation.Route;
+import modulation.Tonnetz;
+import notes.*;
+import query.LibraryIndex;
+import query.Query;
+import query.QueryPlan;
+import scales.*;
+import sets.PitchClassSets;
+import util.NameTrie;
+import util.QueryCache;
+import util.QueryKey;
 
+/**
+ * Runs library queries given as command-line style arguments, either one at a time or as a batch of
+ * lines read from a stream. Results are printed to a single stream, which is only flushed when the
+ * batch input has to wait for more queries.
+ * <p>
+ * Commands:
+ * <ul>
+ * <li>show --format scale --type "harmonic minor" [--root Bb]</li>
+ * <li>pattern --format scale --type "harmonic minor"</li>
+ * <li>chords --format scale --type "harmonic minor" [--root Bb]</li>
+ * <li>identify C Eb G Bb (or --notes "C, Eb, G, Bb")</li>
+ * <li>add --format scale --type "my scale" --intervals "1, 2, b3, 5, 6, 8" [--simplify]</li>
+ * <li>remove --format scale --type "my scale"</li>
+ * <li>query contains b3 and #4; notes 7; root Bb; format mode; not contains 7 [--explain]</li>
+ * <li>route --from "C major scale" --to "F# dorian mode" [--routes 3] [--common 6]</li>
+ * <li>tonnetz --chord "C major" --apply PLR (or --to "F# minor" [--using PLR], or --cycle PL)</li>
+ * <li>set --format scale --type "harmonic minor" [--root Bb] (or --intervals "1, 3, 5", or --all)</li>
+ * <li>stats</li>
+ * </ul>
+ * Every command accepts --user to choose the custom scale namespace, and commands that search the
+ * library accept --all-users to search the custom scales of every user instead.
+ * @author Joel Gibson
+ */
+public class Processor {
+	
+	/**
+	 * The catalogue of built-in scales.
+	 */
+	private VersionedLibrary library;
+	
+	/**
+	 * The custom scales of every user.
+	 */
+	private CustomScales customScales;
+	
+	/**
+	 * The stream that results are printed to.
+	 */
+	private PrintStream out;
+	
+	/**
+	 * The usage counts that queries are recorded in, or null if usage isn't recorded.
+	 */
+	private UsageStats usage;
+	
+	/**
+	 * The index of the scale collections that the latest query was run against, kept while the library
+	 * and the user's custom scales stay the same.
+	 */
+	private LibraryIndex index;
+	
+	/**
+	 * The maximum total weight of the match cache, where each result weighs one unit per id.
+	 */
+	private static final long MATCH_CACHE_WEIGHT = 1 << 18;
+	
+	/**
+	 * The scales in each scale collection that contain a set of notes, shared by every processor since
+	 * the same notes are often identified again. Each result is the ordinal of the root note of each
+	 * exact match, with enharmonic matches stored as the complement (~) of the ordinal.
+	 */
+	private static final QueryCache<QueryKey, int[]> matches = new QueryCache<QueryKey, int[]>(MATCH_CACHE_WEIGHT,
+			(key, roots) -> key.size() + roots.length);
+	
+	/**
+	 * Creates a processor for the given library.
+	 * @param library the catalogue of built-in scales
+	 * @param customScales the custom scales of every user
+	 * @param out the stream that results are printed to
+	 */
+	public Processor(VersionedLibrary library, CustomScales customScales, PrintStream out) {
+		this(library, customScales, null, out);
+	}
+	
+	/**
+	 * Creates a processor for the given library that records the scales and queries it is asked for.
+	 * @param library the catalogue of built-in scales
+	 * @param customScales the custom scales of every user
+	 * @param usage the usage counts to record in, or null to not record usage
+	 * @param out the stream that results are printed to
+	 */
+	public Processor(VersionedLibrary library, CustomScales customScales, UsageStats usage, PrintStream out) {
+		this.library = library;
+		this.customScales = customScales;
+		this.usage = usage;
+		this.out = out;
+	}
+	
+	/**
+	 * Prints the list of commands.
+	 * @param out the stream to print to
+	 */
+	public static void printUsage(PrintStream out) {
+		out.println("Usage: Main <command> [options]");
+		out.println();
+		out.println("  show --format <format> --type <type> [--root <note>]");
+		out.println("  pattern --format <format> --type <type>");
+		out.println("  chords --format <format> --type <type> [--root <note>]");
+		out.println("  identify <note> <note> ...");
+		out.println("  add --format <format> --type <type> --intervals \"1, 2, b3, ...\" [--simplify]");
+		out.println("  remove --format <format> --type <type>");
+		out.println("  query <clause>; <clause>; ... [--explain]");
+		out.println("        clauses: contains <intervals>, not contains <intervals>, notes <count>,");
+		out.println("        root <note>, format <format>, name <words>");
+		out.println("  route --from <scale> --to <scale> [--routes <count>] [--common <notes>]");
+		out.println("  tonnetz --chord <chord> --apply <word>");
+		out.println("  tonnetz --chord <chord> --to <chord> [--using <transformations>]");
+		out.println("  tonnetz [--chord <chord>] --cycle <word>");
+		out.println("        transformations: P, L, R, N (RLP), S (LPR), H (LPL)");
+		out.println("  set --format <format> --type <type> [--root <note>]");
+		out.println("  set --intervals \"1, 2, b3, ...\"");
+		out.println("  set --all   (lists every scale by set class)");
+		out.println("  stats   (prints the query cache statistics)");
+		out.println("  batch   (reads one command per line from standard input)");
+		out.println();
+		out.println("Every command accepts --user <name> to choose the custom scale namespace.");
+		out.println("Searches (identify, query, set, and --format/--type lookups) accept --all-users to");
+		out.println("search the custom scales of every user instead.");
+	}
+	
+	/**
+	 * Runs a single command, printing an error message if it fails.
+	 * @param args the command name followed by its arguments
+	 * @return true if the command succeeded, otherwise false
+	 */
+	public boolean execute(String[] args) {
+		if (args.length == 0) {
+			out.println("error: missing command");
+			return false;
+		}
+		
+		try {
+			Map<String, String> options = new HashMap<String, String>();
+			List<String> values = new ArrayList<String>();
+			parseArguments(args, options, values);
+			
+			String command = args[0].toLowerCase();
+			if ("show".equals(command)) {
+				show(options);
+			} else if ("pattern".equals(command)) {
+				pattern(options);
+			} else if ("chords".equals(command)) {
+				chords(options);
+			} else if ("identify".equals(command)) {
+				identify(options, values);
+			} else if ("add".equals(command)) {
+				add(options);
+			} else if ("remove".equals(command)) {
+				remove(options);
+			} else if ("query".equals(command)) {
+				query(options, values);
+			} else if ("route".equals(command)) {
+				route(options);
+			} else if ("tonnetz".equals(command)) {
+				tonnetz(options);
+			} else if ("set".equals(command)) {
+				set(options);
+			} else if ("stats".equals(command)) {
+				stats();
+			} else {
+				throw new IllegalArgumentException("unknown command '" + args[0] + "'");
+			}
+			
+			return true;
+			
+		} catch (IllegalArgumentException e) {
+			out.println("error: " + e.getMessage());
+			return false;
+			
+		} catch (IOException e) {
+			out.println("error: " + e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Runs every command read from the given input, one per line, skipping blank lines and lines
+	 * starting with '#'. Output is only flushed when the next line isn't ready yet.
+	 * @param in the input to read commands from
+	 * @return the number of commands that failed
+	 * @throws IOException if the input cannot be read
+	 */
+	public int runBatch(BufferedReader in) throws IOException {
+		int failed = 0;
+		while (true) {
+			// flush the results so far before waiting for more input
+			if (!in.ready()) {
+				out.flush();
+			}
+			
+			String line = in.readLine();
+			if (line == null) {
+				break;
+			}
+			
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			
+			if (!execute(tokenize(line))) {
+				failed++;
+			}
+		}
+		
+		out.flush();
+		return failed;
+	}
+	
+	/**
+	 * Splits a command line into arguments at whitespace, keeping quoted text together.
+	 * @param line the command line (e.g. show --type "harmonic minor")
+	 * @return the array of arguments
+	 */
+	public static String[] tokenize(String line) {
+		List<String> tokens = new ArrayList<String>();
+		StringBuilder token = new StringBuilder();
+		boolean quoted = false;
+		boolean started = false;
+		
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+				started = true;
+			} else if (Character.isWhitespace(c) && !quoted) {
+				if (started) {
+					tokens.add(token.toString());
+					token.setLength(0);
+					started = false;
+				}
+			} else {
+				token.append(c);
+				started = true;
+			}
+		}
+		
+		if (started) {
+			tokens.add(token.toString());
+		}
+		
+		return tokens.toArray(new String[0]);
+	}
+	
+	/**
+	 * Separates the arguments after the command name into options (--name value, or --name for a flag)
+	 * and plain values.
+	 */
+	private static void parseArguments(String[] args, Map<String, String> options, List<String> values) {
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].startsWith("--")) {
+				String name = args[i].substring(2).toLowerCase();
+				
+				// options without a following value are flags
+				if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+					options.put(name, args[++i]);
+				} else {
+					options.put(name, "true");
+				}
+			} else {
+				values.add(args[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Gets a required option.
+	 */
+	private static String getRequired(Map<String, String> options, String name) {
+		String value = options.get(name);
+		if (value == null || value.isBlank()) {
+			throw new IllegalArgumentException("missing --" + name);
+		}
+		
+		return value.trim();
+	}
+	
+	/**
+	 * Gets the custom scale namespace chosen with --user.
+	 */
+	private CustomNamespace getNamespace(Map<String, String> options) throws IOException {
+		String user = options.getOrDefault("user", CustomScales.DEFAULT_NAMESPACE).toLowerCase();
+		if (!CustomScales.isValidName(user)) {
+			throw new IllegalArgumentException("invalid user name '" + user + "'");
+		}
+		
+		return customScales.getNamespace(user);
+	}
+	
+	/**
+	 * Gets every scale collection that the user can see: the built-in sections followed by the user's
+	 * custom scales, or by the custom scales of every user with --all-users.
+	 */
+	private List<List<ScaleCollection>> getSections(Map<String, String> options) throws IOException {
+		List<List<ScaleCollection>> sections = new ArrayList<List<ScaleCollection>>(library.snapshot().getSections().values());
+		sections.add(options.containsKey("all-users") ? customScales.getAllScales() : getNamespace(options).getScales());
+		return sections;
+	}
+	
+	/**
+	 * Finds the scale collection with the format and type given by --format and --type.
+	 */
+	private ScaleCollection findCollection(Map<String, String> options) throws IOException {
+		String format = getRequired(options, "format").toLowerCase();
+		String type = getRequired(options, "type").toLowerCase();
+		
+		// remember the closest names in case there is no exact match
+		String name = type + " " + format;
+		int best = NameTrie.getMaxDistance(name.length()) + 1;
+		List<String> closest = new ArrayList<String>();
+		for (List<ScaleCollection> scalesList : getSections(options)) {
+			for (ScaleCollection scales : scalesList) {
+				if (scales.getFormat().equals(format) && scales.getType().equals(type)) {
+					return scales;
+				}
+				
+				int distance = NameTrie.editDistance(name, scales.toString());
+				if (distance < best) {
+					best = distance;
+					closest.clear();
+				}
+				if (distance == best && !closest.contains(scales.toString())) {
+					closest.add(scales.toString());
+				}
+			}
+		}
+		
+		boolean suggest = !closest.isEmpty() && closest.size() <= 3;
+		throw new IllegalArgumentException("no " + name + " found"
+				+ (!suggest ? "" : " (did you mean " + Notation.formatAlternatives(closest) + "?)"));
+	}
+	
+	/**
+	 * Prints the notes of one scale, or of every scale in the collection if no root is given.
+	 */
+	private void show(Map<String, String> options) throws IOException {
+		ScaleCollection scales = findCollection(options);
+		
+		String root = options.get("root");
+		if (root == null) {
+			for (Note note : Note.getRootNotes()) {
+				Scale scale = scales.getScale(note);
+				if (scale != null) {
+					scale.printNotes(out);
+				}
+			}
+			return;
+		}
+		
+		Scale scale = scales.getScale(root);
+		if (scale == null) {
+			List<Note> suggestions = scales.suggestRoots(root);
+			throw new IllegalArgumentException("no " + scales + " starting on " + root
+					+ (suggestions.isEmpty() ? "" : " (did you mean " + Notation.formatAlternatives(suggestions) + "?)"));
+		}
+		
+		if (usage != null) {
+			scales.recordUse(scale.getRoot());
+		}
+		scale.printNotes(out);
+	}
+	
+	/**
+	 * Prints the interval pattern of a scale collection.
+	 */
+	private void pattern(Map<String, String> options) throws IOException {
+		findCollection(options).printIntervals(out);
+	}
+	
+	/**
+	 * Prints the triads and seventh chords on each degree of one scale, or of every scale in the collection
+	 * if no root is given. Chords are named after the arpeggios in the library.
+	 */
+	private void chords(Map<String, String> options) throws IOException {
+		ScaleCollection scales = findCollection(options);
+		Harmoniser harmoniser = Harmoniser.forArpeggios(library.snapshot().get("arpeggios"));
+		
+		String root = options.get("root");
+		if (root == null) {
+			for (Note note : Note.getRootNotes()) {
+				Scale scale = scales.getScale(note);
+				if (scale != null) {
+					harmoniser.printChords(scale, out);
+				}
+			}
+			return;
+		}
+		
+		Scale scale = scales.getScale(root);
+		if (scale == null) {
+			throw new IllegalArgumentException("no " + scales + " starting on " + root);
+		}
+		harmoniser.printChords(scale, out);
+	}
+	
+	/**
+	 * Prints every scale containing exactly the given notes. Scales with the same notes spelled
+	 * differently are listed after the exact matches.
+	 */
+	private void identify(Map<String, String> options, List<String> values) throws IOException {
+		// collect the notes from the plain values and --notes
+		List<String> names = new ArrayList<String>(values);
+		if (options.containsKey("notes")) {
+			names.add(options.get("notes"));
+		}
+		
+		List<Note> notes = new ArrayList<Note>();
+		int mask = 0;
+		for (String value : names) {
+			for (String name : value.split("[,\\s]+")) {
+				if (name.isEmpty()) {
+					continue;
+				}
+				
+				Note note = Note.getNote(Notation.parseNote(name));
+				if (note == null) {
+					throw new IllegalArgumentException("invalid note '" + name + "'");
+				}
+				notes.add(note);
+				mask |= 1 << note.getPitchClass();
+			}
+		}
+		
+		if (notes.isEmpty()) {
+			throw new IllegalArgumentException("missing notes");
+		}
+		
+		// the notes in a canonical order, which identify the query along with each collection's pattern
+		int[] ordinals = new int[notes.size()];
+		for (int i = 0; i < ordinals.length; i++) {
+			ordinals[i] = notes.get(i).getOrdinal();
+		}
+		ordinals = Arrays.stream(ordinals).sorted().distinct().toArray();
+		int pitchClasses = mask;
+		if (usage != null) {
+			usage.recordQuery(toQuery(ordinals));
+		}
+		
+		List<Scale> exact = new ArrayList<Scale>();
+		List<Scale> enharmonic = new ArrayList<Scale>();
+		for (List<ScaleCollection> scalesList : getSections(options)) {
+			for (ScaleCollection scales : scalesList) {
+				// skip collections whose pattern can't be transposed onto the notes
+				if (!matchesTransposition(scales.getPitchClassMask(), pitchClasses)) {
+					continue;
+				}
+				
+				int[] roots = matches.get(getMatchKey(scales, ordinals), key -> match(scales, notes, pitchClasses));
+				for (int root : roots) {
+					if (root >= 0) {
+						exact.add(scales.getScale(Note.getNote(root)));
+					} else {
+						enharmonic.add(scales.getScale(Note.getNote(~root)));
+					}
+				}
+			}
+		}
+		
+		if (exact.isEmpty() && enharmonic.isEmpty()) {
+			out.println("No scales found.");
+		}
+		
+		for (Scale scale : exact) {
+			out.println(scale);
+		}
+		for (Scale scale : enharmonic) {
+			out.println(scale + " (enharmonic)");
+		}
+		out.println();
+	}
+	
+	/**
+	 * Prints the scale collections matching a query (e.g. contains b3 and #4; notes 7), or the scales
+	 * starting on the query's root note. With --explain, the plan is printed first.
+	 */
+	private void query(Map<String, String> options, List<String> values) throws IOException {
+		Query query = Query.parse(String.join(" ", values));
+		
+		// index the collections again only when the library or the custom scales have changed
+		List<List<ScaleCollection>> sections = getSections(options);
+		if (index == null || !index.isFor(sections)) {
+			index = new LibraryIndex(sections);
+		}
+		
+		QueryPlan plan = index.plan(query);
+		if (options.containsKey("explain")) {
+			out.println("Plan: " + plan.explain());
+		}
+		
+		// list the collections, or print the scales on the root note
+		if (query.getRoot() == null) {
+			List<ScaleCollection> found = plan.findCollections();
+			if (found.isEmpty()) {
+				out.println("No scales found.");
+			}
+			for (ScaleCollection scales : found) {
+				out.println(scales);
+			}
+			out.println();
+			return;
+		}
+		
+		List<Scale> found = plan.findScales();
+		if (found.isEmpty()) {
+			out.println("No scales found.\n");
+		}
+		for (Scale scale : found) {
+			scale.printNotes(out);
+		}
+	}
+	
+	/**
+	 * Prints the smoothest routes between two built-in scales (e.g. C major scale to F# dorian mode), each
+	 * step moving one note by a semitone or keeping at least --common notes.
+	 */
+	private void route(Map<String, String> options) throws IOException {
+		int count = parseCount(options, "routes", 1);
+		int commonTones = parseCount(options, "common", ModulationGraph.DEFAULT_COMMON_TONES);
+		ModulationGraph graph = ModulationGraph.forLibrary(library.snapshot(), commonTones);
+		int from = findNode(graph, options, "from");
+		int to = findNode(graph, options, "to");
+		
+		List<Route> routes = graph.findRoutes(from, to, count);
+		if (routes.isEmpty()) {
+			out.println("No route found.\n");
+			return;
+		}
+		
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < routes.size(); i++) {
+			Route route = routes.get(i);
+			buffer.append("Route ").append(i + 1).append(" (cost ").append(route.getCost()).append(", ");
+			buffer.append(route.getSteps()).append(route.getSteps() == 1 ? " step):\n" : " steps):\n");
+			route.appendTo(buffer).append('\n');
+		}
+		out.print(buffer);
+	}
+	
+	/**
+	 * Applies neo-Riemannian transformations to a chord of the arpeggio catalogue: a word of
+	 * transformations (--apply), the shortest word leading to another chord (--to), or the cycle of a word
+	 * through the chord (--cycle). With --cycle and no chord, every cycle of the word is listed.
+	 */
+	private void tonnetz(Map<String, String> options) throws IOException {
+		Tonnetz tonnetz = Tonnetz.forArpeggios(library.snapshot().get("arpeggios"));
+		if (options.containsKey("cycle") && !options.containsKey("chord")) {
+			String word = getRequired(options, "cycle");
+			List<int[]> cycles = tonnetz.getCycles(word);
+			if (cycles.isEmpty()) {
+				out.println("No cycles found.");
+			}
+			for (int[] cycle : cycles) {
+				List<String> names = new ArrayList<String>();
+				for (int state : cycle) {
+					names.add(tonnetz.getChord(state).toString());
+				}
+				out.println(String.join(" -> ", names));
+			}
+			out.println();
+			return;
+		}
+		
+		Scale chord = findChord(tonnetz, options, "chord");
+		String word;
+		if (options.containsKey("apply")) {
+			word = getRequired(options, "apply");
+			tonnetz.getTable(word);
+			out.println("Apply " + word.toUpperCase() + ":");
+		} else if (options.containsKey("to")) {
+			int from = tonnetz.getState(chord);
+			int to = tonnetz.getState(findChord(tonnetz, options, "to"));
+			word = tonnetz.findPath(from, to, options.getOrDefault("using", Tonnetz.DEFAULT_TRANSFORMATIONS));
+			if (word == null) {
+				out.println("No path found.\n");
+				return;
+			}
+			out.println("Path " + word + " (" + word.length() + (word.length() == 1 ? " step):" : " steps):"));
+		} else if (options.containsKey("cycle")) {
+			word = getRequired(options, "cycle");
+			int length = tonnetz.getCycle(word, tonnetz.getState(chord)).length;
+			if (length == 0) {
+				out.println("No cycle found.\n");
+				return;
+			}
+			word = word.repeat(length);
+			out.println("Cycle " + getRequired(options, "cycle").toUpperCase() + " (" + word.length() + " chords):");
+		} else {
+			throw new IllegalArgumentException("missing --apply, --to or --cycle");
+		}
+		
+		// print each chord reached, with the transformation that reached it
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("     ").append(chord).append('\n');
+		for (char letter : word.toUpperCase().toCharArray()) {
+			// a compound letter only applies if every transformation in it does
+			List<Scale> chords = tonnetz.spell(chord, String.valueOf(letter));
+			if (tonnetz.apply(String.valueOf(letter), tonnetz.getState(chord)) < 0 || chords.get(chords.size() - 1) == null) {
+				buffer.append("  ").append(letter).append("  does not apply to ").append(chord).append('\n');
+				break;
+			}
+			chord = chords.get(chords.size() - 1);
+			buffer.append("  ").append(letter).append("  ").append(chord).append('\n');
+		}
+		out.print(buffer.append('\n'));
+	}
+	
+	/**
+	 * Prints the pitch-class set analysis of one scale, of a collection's interval pattern (counted from its
+	 * root) if no root is given, or of the intervals given by --intervals. With --all, every scale collection
+	 * the user can see is listed under the Forte number of its set class.
+	 */
+	private void set(Map<String, String> options) throws IOException {
+		if (options.containsKey("all")) {
+			// analyse every collection in parallel, then group them in Forte order
+			List<ScaleCollection> all = new ArrayList<ScaleCollection>();
+			for (List<ScaleCollection> scalesList : getSections(options)) {
+				all.addAll(scalesList);
+			}
+			String[] names = PitchClassSets.analyseAll(all);
+			Map<String, List<String>> bySetClass = new TreeMap<String, List<String>>(PitchClassSets.FORTE_ORDER);
+			for (int i = 0; i < names.length; i++) {
+				bySetClass.computeIfAbsent(names[i], name -> new ArrayList<String>()).add(all.get(i).toString());
+			}
+			
+			StringBuilder buffer = new StringBuilder();
+			for (Map.Entry<String, List<String>> setClass : bySetClass.entrySet()) {
+				buffer.append(setClass.getKey()).append(": ").append(String.join(", ", setClass.getValue())).append('\n');
+			}
+			out.print(buffer.append('\n'));
+			return;
+		}
+		
+		int mask;
+		if (options.containsKey("intervals")) {
+			String[] intervals = parseIntervals(options);
+			mask = ScaleCollection.toPitchClassMask(intervals);
+			out.println("Set: " + String.join(", ", intervals));
+		} else {
+			ScaleCollection scales = findCollection(options);
+			String root = options.get("root");
+			if (root == null) {
+				mask = scales.getPitchClassMask();
+				out.println("Set: " + scales + " (from the root)");
+			} else {
+				Scale scale = scales.getScale(root);
+				if (scale == null) {
+					throw new IllegalArgumentException("no " + scales + " starting on " + root);
+				}
+				mask = PitchClassSets.toMask(scale);
+				out.println("Set: " + scale);
+			}
+		}
+		PitchClassSets.printAnalysis(mask, out);
+	}
+	
+	/**
+	 * Finds the chord named by an option.
+	 */
+	private static Scale findChord(Tonnetz tonnetz, Map<String, String> options, String option) {
+		String name = getRequired(options, option);
+		Scale chord = tonnetz.findChord(name);
+		if (chord == null) {
+			throw new IllegalArgumentException("unknown chord '" + name + "'");
+		}
+		return chord;
+	}
+	
+	/**
+	 * Finds the node of the scale named by an option.
+	 */
+	private static int findNode(ModulationGraph graph, Map<String, String> options, String option) {
+		String name = getRequired(options, option);
+		int node = graph.find(name);
+		if (node < 0) {
+			throw new IllegalArgumentException("unknown scale '" + name + "'");
+		}
+		return node;
+	}
+	
+	/**
+	 * Reads a positive count from an option, or returns the default if it isn't given.
+	 */
+	private static int parseCount(Map<String, String> options, String option, int defaultCount) {
+		String value = options.get(option);
+		if (value == null) {
+			return defaultCount;
+		}
+		
+		try {
+			int count = Integer.parseInt(value);
+			if (count > 0) {
+				return count;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("invalid --" + option + " '" + value + "'");
+	}
+	
+	/**
+	 * Writes an identify query in its canonical form, so that queries for the same notes are counted
+	 * together.
+	 * @param ordinals the sorted ordinals of the notes
+	 * @return the canonical query (e.g. identify C E G)
+	 */
+	private static String toQuery(int[] ordinals) {
+		StringBuilder query = new StringBuilder("identify");
+		for (int ordinal : ordinals) {
+			query.append(' ').append(Note.getNote(ordinal));
+		}
+		
+		return query.toString();
+	}
+	
+	/**
+	 * Finds the scales in a collection that contain exactly the given pitch classes.
+	 * @return the root note ordinal of each exact match, and the complement of the ordinal of each
+	 * enharmonic match, in root note order
+	 */
+	private static int[] match(ScaleCollection scales, List<Note> notes, int mask) {
+		List<Integer> roots = new ArrayList<Integer>();
+		for (Note root : Note.getRootNotes()) {
+			Scale scale = scales.getScale(root);
+			if (scale == null || getPitchClassMask(scale) != mask) {
+				continue;
+			}
+			
+			if (scale.getNotes().containsAll(notes) && notes.containsAll(scale.getNotes())) {
+				roots.add(root.getOrdinal());
+			} else {
+				roots.add(~root.getOrdinal());
+			}
+		}
+		
+		return roots.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
+	/**
+	 * Gets the key identifying a match query: the collection's spelling ids, then the note ordinals.
+	 */
+	private static QueryKey getMatchKey(ScaleCollection scales, int[] ordinals) {
+		int[] spellingIds = scales.getSpellingIds();
+		int[] ids = Arrays.copyOf(spellingIds, spellingIds.length + 1 + ordinals.length);
+		
+		// separate the pattern from the notes, since patterns can have any length
+		ids[spellingIds.length] = -2;
+		System.arraycopy(ordinals, 0, ids, spellingIds.length + 1, ordinals.length);
+		return new QueryKey("identify", ids);
+	}
+	
+	/**
+	 * Gets the cache of identified scales shared by every processor.
+	 * @return the match cache
+	 */
+	public static QueryCache<QueryKey, int[]> getMatchCache() {
+		return matches;
+	}
+	
+	/**
+	 * Prints the statistics of the shared query caches.
+	 */
+	private void stats() {
+		out.println("Spelling cache: " + ScaleCollection.getSpellingCache().getStats());
+		out.println("Match cache: " + getMatchCache().getStats());
+		out.println("Chord cache: " + Harmoniser.forArpeggios(library.snapshot().get("arpeggios")).getTableCache().getStats());
+		out.println("Tonnetz cache: " + Tonnetz.forArpeggios(library.snapshot().get("arpeggios")).getTableCache().getStats());
+		out.println();
+	}
+	
+	/**
+	 * Checks if some transposition of a pattern's pitch classes equals the given pitch classes.
+	 */
+	private static boolean matchesTransposition(int patternMask, int mask) {
+		for (int shift = 0; shift < 12; shift++) {
+			int rotated = ((patternMask << shift) | (patternMask >>> (12 - shift))) & 0xFFF;
+			if (rotated == mask) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Gets the pitch classes of the notes of a scale.
+	 */
+	private static int getPitchClassMask(Scale scale) {
+		int mask = 0;
+		for (Note note : scale.getNotes()) {
+			mask |= 1 << note.getPitchClass();
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Adds a custom scale to the user's namespace.
+	 */
+	private void add(Map<String, String> options) throws IOException {
+		String format = getRequired(options, "format").toLowerCase();
+		String type = getRequired(options, "type").toLowerCase();
+		String[] intervals = parseIntervals(options);
+		boolean simplify = Boolean.parseBoolean(options.getOrDefault("simplify", "false"));
+		
+		ScaleCollection scales = new ScaleCollection(format, type, intervals, simplify);
+		scales.createAllScales();
+		getNamespace(options).add(scales);
+		out.println("Added " + scales + ".");
+	}
+	
+	/**
+	 * Reads the intervals given by --intervals (e.g. 1, 2, b3).
+	 * @return the library names of the intervals
+	 */
+	private static String[] parseIntervals(Map<String, String> options) {
+		String[] names = getRequired(options, "intervals").split(",\\s*");
+		for (String name : names) {
+			if (Interval.getInterval(Notation.parseInterval(name)) == null) {
+				throw new IllegalArgumentException("invalid interval '" + name + "'");
+			}
+		}
+		
+		return Interval.toLibraryNames(names);
+	}
+	
+	/**
+	 * Removes a custom scale from the user's namespace.
+	 */
+	private void remove(Map<String, String> options) throws IOException {
+		String format = getRequired(options, "format").toLowerCase();
+		String type = getRequired(options, "type").toLowerCase();
+		
+		if (!getNamespace(options).remove(format, type)) {
+			throw new IllegalArgumentException("no custom " + type + " " + format + " found");
+		}
+		out.println("Removed " + type + " " + format + ".");
+	}
 }
@@ -0,0 +1,217 @@
+package processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datamanagement.TextReader;
+import notes.*;
+import scales.*;
+
+class ProcessorTest {
+	
+	// temporary directory holding the custom scale files
+	File directory;
+	
+	// the custom scales of every user
+	CustomScales customScales;
+	
+	// the printed results
+	ByteArrayOutputStream bytes;
+	
+	// the processor under test
+	Processor processor;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		// create a small catalogue
+		ScaleCollection harmonicMinor = new ScaleCollection("scale", "harmonic minor", new String[] {"1", "2", "b3", "4", "5", "b6", "7", "8"}, false);
+		ScaleCollection major = new ScaleCollection("arpeggio", "major", new String[] {"1", "3", "5", "8"}, false);
+		harmonicMinor.createAllScales();
+		major.createAllScales();
+		Map<String, List<ScaleCollection>> allScales = new HashMap<String, List<ScaleCollection>>();
+		allScales.put("scales", List.of(harmonicMinor));
+		allScales.put("arpeggios", List.of(major));
+		VersionedLibrary library = new VersionedLibrary();
+		library.replaceAll(allScales);
+		
+		directory = Files.createTempDirectory("processor-test").toFile();
+		customScales = new CustomScales(namespace -> new TextReader(new File(directory, namespace + ".txt")));
+		bytes = new ByteArrayOutputStream();
+		processor = new Processor(library, customScales, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		customScales.close();
+		
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * Runs a command line and returns its output.
+	 */
+	String run(String line) {
+		bytes.reset();
+		processor.execute(Processor.tokenize(line));
+		return bytes.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testTokenize() {
+		assertArrayEquals(new String[] {"show", "--type", "harmonic minor", "--root", "Bb"},
+				Processor.tokenize("  show --type \"harmonic minor\"   --root Bb "));
+		assertArrayEquals(new String[] {"add", ""}, Processor.tokenize("add \"\""));
+		assertArrayEquals(new String[0], Processor.tokenize("   "));
+	}
+
+	@Test
+	void testQueries() {
+		assertEquals("Bb harmonic minor scale\nBb   C    Db   Eb   F    Gb   A    Bb\n\n",
+				run("show --format scale --type \"harmonic minor\" --root Bb"));
+		assertEquals("Interval pattern: harmonic minor scale\n1    2    b3   4    5    b6   7    8\n\n",
+				run("pattern --format scale --type \"Harmonic Minor\""));
+		assertEquals("C major arpeggio\nB# major arpeggio (enharmonic)\n\n", run("identify C, E G"));
+		
+		// test that errors are reported without stopping
+		assertEquals("error: no major scale found\n", run("show --format scale --type major"));
+		assertEquals("error: no harmonic minor scale starting on H\n", run("show --format scale --type \"harmonic minor\" --root H"));
+		assertEquals("error: no harmonic minor scale starting on Fx (did you mean G?)\n",
+				run("show --format scale --type \"harmonic minor\" --root Fx"));
+		assertEquals("error: no harmnic minor scale found (did you mean harmonic minor scale?)\n",
+				run("show --format scale --type \"harmnic minor\" --root A"));
+		assertEquals("error: missing --type\n", run("pattern --format scale"));
+		assertEquals("error: invalid note 'X'\n", run("identify C X"));
+		assertEquals("error: unknown command 'play'\n", run("play"));
+	}
+
+	@Test
+	void testChords() {
+		String chords = run("chords --format scale --type \"harmonic minor\" --root A");
+		assertTrue(chords.startsWith("Chords: A harmonic minor scale\ni         A (1, b3, 5)              A    C    E\n"));
+		assertTrue(chords.contains("\nV         E major                   E    G#   B\n"));
+		assertTrue(chords.contains("\nV7        E (1, 3, 5, b7)           E    G#   B    D\n"));
+		assertEquals("error: no harmonic minor scale starting on H\n", run("chords --format scale --type \"harmonic minor\" --root H"));
+		assertEquals("Chords: C major arpeggio\nThe scale has too few notes to build chords on each degree.\n\n",
+				run("chords --format arpeggio --type major --root C"));
+	}
+	
+	@Test
+	void testRoute() {
+		assertEquals("Route 1 (cost 5, 1 step):\n  A harmonic minor scale\n  E major arpeggio (-A -C -D -F)\n\n",
+				run("route --from \"A harmonic minor scale\" --to \"E major arpeggio\""));
+		assertEquals("error: unknown scale 'H major arpeggio'\n", run("route --from \"H major arpeggio\" --to \"C major arpeggio\""));
+		assertEquals("error: missing --to\n", run("route --from \"C major arpeggio\""));
+		assertEquals("error: invalid --routes 'x'\n", run("route --from \"C major arpeggio\" --to \"D major arpeggio\" --routes x"));
+	}
+	
+	@Test
+	void testTonnetz() {
+		// the test library has no minor arpeggio, so P has nothing to lead to
+		assertEquals("Apply P:\n     C major arpeggio\n  P  does not apply to C major arpeggio\n\n",
+				run("tonnetz --chord \"C major\" --apply p"));
+		assertEquals("No path found.\n\n", run("tonnetz --chord \"C major\" --to \"D major\""));
+		assertEquals("error: unknown chord 'C minor'\n", run("tonnetz --chord \"C minor\" --apply P"));
+		assertEquals("error: invalid transformation 'Q'\n", run("tonnetz --cycle Q"));
+		assertEquals("error: missing --apply, --to or --cycle\n", run("tonnetz --chord \"C major\""));
+		
+		// test that a compound letter fails when only part of it applies (S is LPR, and L leads from C
+		// dominant 7th to E half-diminished 7th, which P has nothing to lead to)
+		VersionedLibrary sevenths = new VersionedLibrary();
+		sevenths.replaceAll(Map.of("arpeggios", List.of(
+				new ScaleCollection("arpeggio", "dominant 7th", new String[] {"1", "3", "5", "b7", "8"}, false),
+				new ScaleCollection("arpeggio", "half-diminished 7th", new String[] {"1", "b3", "b5", "b7", "8"}, false))));
+		processor = new Processor(sevenths, customScales, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+		assertEquals("Apply S:\n     C dominant 7th arpeggio\n  S  does not apply to C dominant 7th arpeggio\n\n",
+				run("tonnetz --chord \"C dominant 7th\" --apply S"));
+		assertEquals("Apply H:\n     C dominant 7th arpeggio\n  H  does not apply to C dominant 7th arpeggio\n\n",
+				run("tonnetz --chord \"C dominant 7th\" --apply H"));
+	}
+	
+	@Test
+	void testSetCommand() {
+		String set = run("set --format scale --type \"harmonic minor\" --root A");
+		assertTrue(set.startsWith("Set: A harmonic minor scale\nNormal form: [8, 9, 11, 0, 2, 4, 5]\n"));
+		assertTrue(set.contains("\nForte number: 7-32\n"));
+		assertTrue(run("set --intervals \"1, b2, 3, #4\"").contains("\nZ-related to: 4-Z29 [0, 1, 3, 7]\n"));
+		assertEquals("3-11: major arpeggio\n7-32: harmonic minor scale\n\n", run("set --all"));
+		assertEquals("error: invalid interval 'x'\n", run("set --intervals \"1, x\""));
+	}
+	
+	@Test
+	void testQueryCommand() {
+		assertEquals("harmonic minor scale\n\n", run("query contains b3 and 7; notes 7"));
+		assertEquals("Plan: format arpeggio index (1 of 2 collections)\nmajor arpeggio\n\n", run("query format arpeggios --explain"));
+		assertEquals("Bb harmonic minor scale\nBb   C    Db   Eb   F    Gb   A    Bb\n\n", run("query name harm; root Bb"));
+		assertEquals("No scales found.\n\n", run("query contains #4"));
+		assertEquals("error: unknown query clause 'has b3'\n", run("query has b3"));
+		
+		// test that the user's custom scales are queried
+		run("add --format scale --type pentatonic --intervals \"1, 2, 3, 5, 6, 8\" --user alice");
+		assertEquals("pentatonic scale\n\n", run("query notes 5 --user alice"));
+	}
+	
+	@Test
+	void testCachedQueries() {
+		// test that repeated and reordered queries give the same results from the cache
+		long hits = Processor.getMatchCache().getStats().getHits();
+		assertEquals("D major arpeggio\n\n", run("identify D F# A"));
+		assertEquals("D major arpeggio\n\n", run("identify A D F#"));
+		assertEquals("D major arpeggio\n\n", run("identify F♯ A D"));
+		assertTrue(Processor.getMatchCache().getStats().getHits() >= hits + 2);
+		assertTrue(run("stats").startsWith("Spelling cache: "));
+	}
+
+	@Test
+	void testCustomScales() throws Exception {
+		assertEquals("Added pentatonic scale.\n", run("add --format scale --type Pentatonic --intervals \"1, 2, 3, 5, 6, 8\" --user alice"));
+		assertEquals("error: invalid interval 'x'\n", run("add --format scale --type bad --intervals \"1, x\""));
+		
+		// test that custom scales are only visible to their user
+		assertEquals("error: no pentatonic scale found\n", run("show --format scale --type pentatonic --root C"));
+		assertEquals("C pentatonic scale\nC    D    E    G    A    C\n\n", run("show --format scale --type pentatonic --root C --user alice"));
+		assertEquals("No scales found.\n\n", run("query notes 5 --user bob"));
+		assertEquals("pentatonic scale\n\n", run("query notes 5 --user bob --all-users"));
+		
+		assertEquals("Removed pentatonic scale.\n", run("remove --format scale --type pentatonic --user alice"));
+		assertTrue(customScales.getNamespace("alice").getScales().isEmpty());
+	}
+
+	@Test
+	void testBatch() throws Exception {
+		String input = "# a comment\n\nshow --format arpeggio --type major --root G\nshow --format scale --type nope\n"
+				+ "identify D F# A\n";
+		bytes.reset();
+		assertEquals(1, processor.runBatch(new BufferedReader(new StringReader(input))));
+		assertEquals("G major arpeggio\nG    B    D    G\n\nerror: no nope scale found\nD major arpeggio\n\n",
+				bytes.toString(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,323 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import scales.ScaleCollection;
+import util.NameTrie;
+
+/**
+ * Indexes one version of the library so that queries can be answered without scanning every scale
+ * collection. Each collection is given an id (its position across every section), and the ids are listed
+ * by pitch-class mask and by format, and the words of the collection names are kept in a trie. There are
+ * at most 4096 masks, so the contains, not contains and notes clauses of a query are answered together by
+ * checking each mask used in the library rather than each collection. The sizes of the lists tell the
+ * planner exactly how selective each clause is.
+ * @author Joel Gibson
+ */
+public class LibraryIndex {
+	
+	/**
+	 * The smallest average number of collections sharing each pitch-class mask for the masks to be
+	 * worth looking up, rather than checking each collection's mask.
+	 */
+	private static final int MIN_SHARED = 4;
+	
+	/**
+	 * The indexed sections, which must not change once indexed.
+	 */
+	private final List<List<ScaleCollection>> sections;
+	
+	/**
+	 * The scale collections by id.
+	 */
+	private final ScaleCollection[] collections;
+	
+	/**
+	 * The pitch-class mask of each collection.
+	 */
+	private final int[] masks;
+	
+	/**
+	 * The lowercase words of each collection's name.
+	 */
+	private final String[][] nameWords;
+	
+	/**
+	 * The ids of the collections with each pitch-class mask, or null for masks that aren't used.
+	 */
+	private final int[][] byMask = new int[1 << 12][];
+	
+	/**
+	 * The pitch-class masks used by the collections, in increasing order.
+	 */
+	private final int[] usedMasks;
+	
+	/**
+	 * The ids of the collections with each format.
+	 */
+	private final Map<String, int[]> byFormat = new HashMap<String, int[]>();
+	
+	/**
+	 * Every word used in the names, with the ids of the collections using it.
+	 */
+	private final NameTrie names = new NameTrie();
+	
+	/**
+	 * Indexes the given sections of the library.
+	 * @param sections the lists of scale collections, which must not change once indexed
+	 */
+	public LibraryIndex(List<List<ScaleCollection>> sections) {
+		this.sections = new ArrayList<List<ScaleCollection>>(sections);
+		
+		List<ScaleCollection> all = new ArrayList<ScaleCollection>();
+		for (List<ScaleCollection> scalesList : sections) {
+			all.addAll(scalesList);
+		}
+		collections = all.toArray(new ScaleCollection[0]);
+		nameWords = new String[collections.length][];
+		
+		// count the collections in each list first, so that each list is allocated once
+		masks = new int[collections.length];
+		int[] maskCounts = new int[byMask.length];
+		Map<String, Integer> formatCounts = new HashMap<String, Integer>();
+		for (int id = 0; id < collections.length; id++) {
+			masks[id] = collections[id].getPitchClassMask();
+			maskCounts[masks[id]]++;
+			formatCounts.merge(collections[id].getFormat(), 1, Integer::sum);
+			
+			nameWords[id] = collections[id].toString().toLowerCase().trim().split("\\s+");
+			for (String word : nameWords[id]) {
+				names.add(word, id);
+			}
+		}
+		
+		// fill the lists in id order, so that they stay sorted
+		List<Integer> used = new ArrayList<Integer>();
+		for (int mask = 0; mask < byMask.length; mask++) {
+			if (maskCounts[mask] > 0) {
+				byMask[mask] = new int[maskCounts[mask]];
+				maskCounts[mask] = 0;
+				used.add(mask);
+			}
+		}
+		usedMasks = used.stream().mapToInt(Integer::intValue).toArray();
+		for (Map.Entry<String, Integer> entry : formatCounts.entrySet()) {
+			byFormat.put(entry.getKey(), new int[entry.getValue()]);
+			entry.setValue(0);
+		}
+		for (int id = 0; id < collections.length; id++) {
+			int mask = masks[id];
+			byMask[mask][maskCounts[mask]++] = id;
+			String format = collections[id].getFormat();
+			byFormat.get(format)[formatCounts.merge(format, 1, Integer::sum) - 1] = id;
+		}
+	}
+	
+	/**
+	 * Checks whether the index was built from exactly the given sections, so that it can be reused.
+	 * @param sections the lists of scale collections
+	 * @return true if the index holds the same lists in the same order, otherwise false
+	 */
+	public boolean isFor(List<List<ScaleCollection>> sections) {
+		if (sections.size() != this.sections.size()) {
+			return false;
+		}
+		
+		for (int i = 0; i < sections.size(); i++) {
+			if (sections.get(i) != this.sections.get(i)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the number of indexed scale collections.
+	 * @return the number of collections
+	 */
+	public int size() {
+		return collections.length;
+	}
+	
+	/**
+	 * Gets the scale collection with the given id.
+	 * @param id the id, from 0 to size() - 1
+	 * @return the scale collection
+	 */
+	public ScaleCollection get(int id) {
+		return collections[id];
+	}
+	
+	/**
+	 * Compiles a query into a plan. The plan starts from the smallest list of ids matching part of the
+	 * query: the collections whose masks match its pitch clauses (contains, not contains and notes), the
+	 * collections with its format, or the collections with its name words. The other clauses are checked
+	 * against each of those collections. When no list is smaller than half of the library, the plan scans
+	 * every collection instead.
+	 * @param query the query
+	 * @return the plan
+	 */
+	public QueryPlan plan(Query query) {
+		String format = resolveFormat(query.getFormat());
+		List<String> words = query.getNameWords();
+		
+		// count the collections matching each kind of clause, so that the fewest collections are checked
+		boolean pitchClauses = query.getRequiredMask() != 0 || query.getExcludedMask() != 0 || query.getNoteCount() >= 0;
+		int[] matchingMasks = null;
+		int maskCount = collections.length;
+		if (pitchClauses && usedMasks.length <= collections.length / MIN_SHARED) {
+			matchingMasks = findMasks(query);
+			maskCount = 0;
+			for (int mask : matchingMasks) {
+				maskCount += byMask[mask].length;
+			}
+		}
+		int[] formatIds = (format == null) ? null : byFormat.getOrDefault(format, new int[0]);
+		int[] nameIds = words.isEmpty() ? null : lookUpNames(words);
+		
+		// the clauses of the chosen list don't need checking again
+		if (nameIds != null && (formatIds == null || nameIds.length <= formatIds.length) && nameIds.length <= maskCount) {
+			return new QueryPlan(this, query, "name " + String.join(" ", words), nameIds, pitchClauses, format,
+					new ArrayList<String>());
+		}
+		if (formatIds != null && formatIds.length <= maskCount) {
+			return new QueryPlan(this, query, "format " + format, formatIds, pitchClauses, null, words);
+		}
+		if (matchingMasks != null && maskCount <= collections.length / 2) {
+			return new QueryPlan(this, query, "pitch-class mask", collectIds(matchingMasks, maskCount), false, format, words);
+		}
+		
+		// merging most of the library costs more than checking every collection
+		return new QueryPlan(this, query, null, null, pitchClauses, format, words);
+	}
+	
+	/**
+	 * Finds the pitch-class masks used by the library that match the pitch clauses of a query.
+	 * @return the matching masks
+	 */
+	private int[] findMasks(Query query) {
+		int[] found = new int[usedMasks.length];
+		int count = 0;
+		for (int mask : usedMasks) {
+			if (matchesMask(mask, query)) {
+				found[count++] = mask;
+			}
+		}
+		
+		return Arrays.copyOf(found, count);
+	}
+	
+	/**
+	 * Checks whether a pitch-class mask matches the contains, not contains and notes clauses of a query.
+	 * @param mask the pitch-class mask of a collection
+	 * @param query the query
+	 * @return true if every pitch clause holds, otherwise false
+	 */
+	static boolean matchesMask(int mask, Query query) {
+		return (mask & query.getRequiredMask()) == query.getRequiredMask()
+				&& (mask & query.getExcludedMask()) == 0
+				&& (query.getNoteCount() < 0 || Integer.bitCount(mask) == query.getNoteCount());
+	}
+	
+	/**
+	 * Merges the lists of ids of the given masks.
+	 * @return the ids, in order
+	 */
+	private int[] collectIds(int[] matchingMasks, int count) {
+		// a single list is already in order
+		if (matchingMasks.length == 1) {
+			return byMask[matchingMasks[0]];
+		}
+		
+		// mark the ids in a bit set, then read them back in order
+		long[] bits = new long[(collections.length + 63) / 64];
+		for (int mask : matchingMasks) {
+			for (int id : byMask[mask]) {
+				bits[id >>> 6] |= 1L << id;
+			}
+		}
+		int[] ids = new int[count];
+		int position = 0;
+		for (int word = 0; word < bits.length; word++) {
+			for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+				ids[position++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+			}
+		}
+		
+		return ids;
+	}
+	
+	/**
+	 * Finds the format used by the library for the given format, accepting plurals (e.g. modes).
+	 * @return the library's format, or null if no format is given
+	 */
+	private String resolveFormat(String format) {
+		if (format == null || byFormat.containsKey(format)) {
+			return format;
+		}
+		
+		if (format.endsWith("s") && byFormat.containsKey(format.substring(0, format.length() - 1))) {
+			return format.substring(0, format.length() - 1);
+		}
+		
+		return format;
+	}
+	
+	/**
+	 * Finds the collections with a word starting with each of the given words.
+	 * @return the ids, in order
+	 */
+	private int[] lookUpNames(List<String> words) {
+		BitSet result = null;
+		for (String word : words) {
+			BitSet found = new BitSet(collections.length);
+			names.collectPrefix(word, found);
+			if (result == null) {
+				result = found;
+			} else {
+				result.and(found);
+			}
+		}
+		
+		return result.stream().toArray();
+	}
+	
+	/**
+	 * Gets the pitch-class mask of a collection.
+	 * @param id the id of the collection
+	 * @return the pitch-class mask
+	 */
+	int getMask(int id) {
+		return masks[id];
+	}
+	
+	/**
+	 * Checks whether each of the given words starts one of the words of a collection's name.
+	 * @param id the id of the collection
+	 * @param words the lowercase words
+	 * @return true if every word matches, otherwise false
+	 */
+	boolean matchesName(int id, List<String> words) {
+		for (String word : words) {
+			boolean found = false;
+			for (String nameWord : nameWords[id]) {
+				if (nameWord.startsWith(word)) {
+					found = true;
+					break;
+				}
+			}
+			
+			if (!found) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
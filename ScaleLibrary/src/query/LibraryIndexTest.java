@@ -0,0 +1,134 @@
+package query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class LibraryIndexTest {
+	
+	// the indexed sections
+	List<List<ScaleCollection>> sections;
+	
+	// the index under test
+	LibraryIndex index;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		List<ScaleCollection> scalesList = List.of(
+				new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false),
+				new ScaleCollection("scale", "harmonic minor", new String[] {"1", "2", "b3", "4", "5", "b6", "7", "8"}, false),
+				new ScaleCollection("scale", "blues", new String[] {"1", "b3", "4", "#4", "5", "b7", "8"}, false));
+		List<ScaleCollection> modes = List.of(
+				new ScaleCollection("mode", "dorian", new String[] {"1", "2", "b3", "4", "5", "6", "b7", "8"}, false),
+				new ScaleCollection("mode", "lydian", new String[] {"1", "2", "3", "#4", "5", "6", "7", "8"}, false),
+				new ScaleCollection("mode", "locrian", new String[] {"1", "b2", "b3", "4", "b5", "b6", "b7", "8"}, false));
+		sections = new ArrayList<List<ScaleCollection>>(List.of(scalesList, modes));
+		index = new LibraryIndex(sections);
+	}
+	
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+	
+	/**
+	 * Runs a query and returns the names of the matching collections.
+	 */
+	List<String> find(String query) {
+		List<String> names = new ArrayList<String>();
+		for (ScaleCollection scales : index.plan(Query.parse(query)).findCollections()) {
+			names.add(scales.toString());
+		}
+		
+		return names;
+	}
+	
+	@Test
+	void testFind() {
+		assertEquals(List.of("harmonic minor scale", "blues scale", "dorian mode", "locrian mode"), find("contains b3"));
+		assertEquals(List.of("blues scale", "locrian mode"), find("contains b3 and #4"));
+		assertEquals(List.of("locrian mode"), find("contains b3 and #4; notes 7; format modes; not contains 7"));
+		assertEquals(List.of("blues scale"), find("notes 6"));
+		assertEquals(List.of("major scale", "lydian mode"), find("not contains b3; not contains b7"));
+		assertEquals(List.of("harmonic minor scale"), find("name harm min"));
+		assertEquals(List.of(), find("format arpeggio"));
+	}
+	
+	@Test
+	void testFindScales() {
+		List<Scale> found = index.plan(Query.parse("contains b3 and #4; notes 7; root Bb")).findScales();
+		assertEquals(1, found.size());
+		assertEquals("Bb locrian mode", found.get(0).toString());
+		
+		// test that every scale of each collection is found without a root
+		assertEquals(Note.getRootNotes().size(), index.plan(Query.parse("name blues")).findScales().size());
+	}
+	
+	@Test
+	void testPlan() {
+		// test that small lists are used, and that the other clauses are checked
+		QueryPlan plan = index.plan(Query.parse("contains b3 and #4; notes 7; format mode; not contains 7"));
+		assertEquals("format mode index (3 of 6 collections), then filter by contains, not contains, notes", plan.explain());
+		plan = index.plan(Query.parse("contains 5; name dor"));
+		assertEquals("name dor", plan.getIndexName());
+		assertEquals(1, plan.getCandidateCount());
+		
+		// test that masks aren't looked up when few collections share them
+		plan = index.plan(Query.parse("contains b3 and #4"));
+		assertNull(plan.getIndexName());
+		assertEquals("scan (6 collections), then filter by contains", plan.explain());
+	}
+	
+	@Test
+	void testMaskPlan() {
+		// index every collection four times, so that each mask is shared
+		List<List<ScaleCollection>> repeated = new ArrayList<List<ScaleCollection>>();
+		for (int i = 0; i < 4; i++) {
+			repeated.addAll(sections);
+		}
+		index = new LibraryIndex(repeated);
+		
+		// test that the pitch clauses are answered by the masks
+		QueryPlan plan = index.plan(Query.parse("contains b3 and #4"));
+		assertEquals("pitch-class mask index (8 of 24 collections)", plan.explain());
+		assertEquals(8, plan.findCollections().size());
+		plan = index.plan(Query.parse("contains b3 and #4; notes 7; format mode; not contains 7"));
+		assertEquals("pitch-class mask index (4 of 24 collections), then filter by format", plan.explain());
+		assertEquals(List.of("locrian mode", "locrian mode", "locrian mode", "locrian mode"),
+				plan.findCollections().stream().map(ScaleCollection::toString).toList());
+		
+		// test that the name index is preferred when it is smaller
+		plan = index.plan(Query.parse("not contains b3; name lyd"));
+		assertEquals("name lyd index (4 of 24 collections), then filter by not contains", plan.explain());
+		
+		// test that every collection is checked when most of them match
+		plan = index.plan(Query.parse("contains 5"));
+		assertEquals("scan (24 collections), then filter by contains", plan.explain());
+		assertEquals(20, plan.findCollections().size());
+	}
+	
+	@Test
+	void testIsFor() {
+		assertTrue(index.isFor(new ArrayList<List<ScaleCollection>>(sections)));
+		sections.set(1, new ArrayList<ScaleCollection>(sections.get(1)));
+		assertFalse(index.isFor(sections));
+		assertFalse(index.isFor(sections.subList(0, 1)));
+	}
+}
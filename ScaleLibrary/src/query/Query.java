@@ -0,0 +1,200 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import notes.Interval;
+import notes.Notation;
+import notes.Note;
+
+/**
+ * Represents a parsed library query. A query is a list of clauses separated by semicolons, all of which
+ * must hold, e.g.
+ * <pre>contains b3 and #4; notes 7; root Bb; format mode; not contains 7</pre>
+ * The clauses are:
+ * <ul>
+ * <li>contains &lt;intervals&gt; - the scales contain every interval (compared by pitch, so #4 and b5
+ * are the same)</li>
+ * <li>not contains &lt;intervals&gt; - the scales contain none of the intervals</li>
+ * <li>notes &lt;count&gt; - the scales have this many different pitches</li>
+ * <li>root &lt;note&gt; - find the scale starting on the note in each collection</li>
+ * <li>format &lt;format&gt; - the collections have the format (e.g. scale, mode, arpeggio)</li>
+ * <li>name &lt;words&gt; - the collection names contain words starting with each word</li>
+ * </ul>
+ * Intervals can be separated by spaces, commas or "and".
+ * @author Joel Gibson
+ */
+public class Query {
+	
+	/**
+	 * The pitch classes (as a bit mask relative to the root) that the scales must contain.
+	 */
+	private int requiredMask;
+	
+	/**
+	 * The pitch classes that the scales must not contain.
+	 */
+	private int excludedMask;
+	
+	/**
+	 * The number of different pitch classes in the scales, or -1 for any number.
+	 */
+	private int noteCount = -1;
+	
+	/**
+	 * The root note of the scales to find, or null to find whole collections.
+	 */
+	private Note root;
+	
+	/**
+	 * The format of the collections, or null for any format.
+	 */
+	private String format;
+	
+	/**
+	 * The lowercase words that must start words of the collection names.
+	 */
+	private List<String> nameWords = new ArrayList<String>();
+	
+	/**
+	 * Parses a query.
+	 * @param text the query text (e.g. contains b3 and #4; notes 7)
+	 * @return the query
+	 * @throws IllegalArgumentException if the query is not valid
+	 */
+	public static Query parse(String text) {
+		Query query = new Query();
+		boolean empty = true;
+		for (String clause : text.split(";")) {
+			String[] words = clause.trim().split("[,\\s]+");
+			if (words[0].isEmpty()) {
+				continue;
+			}
+			empty = false;
+			
+			String keyword = words[0].toLowerCase();
+			int start = 1;
+			if ("not".equals(keyword) && words.length > 1 && "contains".equalsIgnoreCase(words[1])) {
+				keyword = "not contains";
+				start = 2;
+			}
+			if (start == words.length) {
+				throw new IllegalArgumentException("missing value after '" + keyword + "'");
+			}
+			
+			if ("contains".equals(keyword)) {
+				query.requiredMask |= parseIntervals(words, start);
+			} else if ("not contains".equals(keyword)) {
+				query.excludedMask |= parseIntervals(words, start);
+			} else if ("notes".equals(keyword)) {
+				query.noteCount = parseCount(words, start);
+			} else if ("root".equals(keyword)) {
+				String name = String.join(" ", List.of(words).subList(start, words.length));
+				query.root = Note.getNote(Notation.parseNote(name));
+				if (query.root == null) {
+					throw new IllegalArgumentException("invalid note '" + name + "'");
+				}
+			} else if ("format".equals(keyword)) {
+				query.format = words[start].toLowerCase();
+			} else if ("name".equals(keyword)) {
+				for (int i = start; i < words.length; i++) {
+					query.nameWords.add(words[i].toLowerCase());
+				}
+			} else {
+				throw new IllegalArgumentException("unknown query clause '" + clause.trim() + "'");
+			}
+		}
+		
+		if (empty) {
+			throw new IllegalArgumentException("missing query");
+		}
+		
+		return query;
+	}
+	
+	/**
+	 * Converts the intervals of a contains clause into pitch classes.
+	 * @return the pitch-class mask of the intervals
+	 */
+	private static int parseIntervals(String[] words, int start) {
+		int mask = 0;
+		for (int i = start; i < words.length; i++) {
+			if ("and".equalsIgnoreCase(words[i])) {
+				continue;
+			}
+			
+			Interval interval = Interval.getInterval(Notation.parseInterval(words[i]));
+			if (interval == null) {
+				throw new IllegalArgumentException("invalid interval '" + words[i] + "'");
+			}
+			mask |= 1 << Math.floorMod(Interval.intervalToSemitones(interval), 12);
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Reads the count of a notes clause.
+	 * @return the number of notes, between 1 and 12
+	 */
+	private static int parseCount(String[] words, int start) {
+		try {
+			int count = Integer.parseInt(words[start]);
+			if (count >= 1 && count <= 12 && words.length == start + 1) {
+				return count;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		
+		throw new IllegalArgumentException("invalid note count '" + words[start] + "'");
+	}
+	
+	/**
+	 * Gets the pitch classes that the scales must contain.
+	 * @return the pitch-class mask, where bit n stands for n semitones above the root
+	 */
+	public int getRequiredMask() {
+		return requiredMask;
+	}
+	
+	/**
+	 * Gets the pitch classes that the scales must not contain.
+	 * @return the pitch-class mask
+	 */
+	public int getExcludedMask() {
+		return excludedMask;
+	}
+	
+	/**
+	 * Gets the number of different pitch classes in the scales.
+	 * @return the number of notes, or -1 for any number
+	 */
+	public int getNoteCount() {
+		return noteCount;
+	}
+	
+	/**
+	 * Gets the root note of the scales to find.
+	 * @return the root note, or null to find whole collections
+	 */
+	public Note getRoot() {
+		return root;
+	}
+	
+	/**
+	 * Gets the format of the collections.
+	 * @return the lowercase format, or null for any format
+	 */
+	public String getFormat() {
+		return format;
+	}
+	
+	/**
+	 * Gets the words that must start words of the collection names.
+	 * @return the lowercase words, which may be empty
+	 */
+	public List<String> getNameWords() {
+		return nameWords;
+	}
+}
@@ -0,0 +1,95 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import scales.ScaleCollection;
+
+/**
+ * Times planned queries against a full scan on a large generated catalogue of scale collections. Run
+ * with the number of collections as an optional argument (default 100000).
+ * @author Joel Gibson
+ */
+public class QueryBenchmark {
+	
+	/**
+	 * The interval name for each number of semitones above the root.
+	 */
+	private static final String[] INTERVALS = {"1", "b2", "2", "b3", "3", "4", "#4", "5", "b6", "6", "b7", "7"};
+	
+	/**
+	 * The queries that are timed.
+	 */
+	private static final String[] QUERIES = {"contains b3 and #4; notes 7; format mode; not contains 7",
+			"notes 5; not contains b2", "name ab; format arpeggio", "contains b2 and b6 and 7", "not contains 5"};
+	
+	/**
+	 * The number of times each query is timed.
+	 */
+	private static final int RUNS = 1000;
+	
+	public static void main(String[] args) {
+		// generate collections with random notes and names
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		Random random = new Random(1);
+		String[] formats = {"scale", "arpeggio", "mode"};
+		List<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
+		for (int i = 0; i < count; i++) {
+			List<String> intervals = new ArrayList<String>(List.of("1"));
+			for (int semitones = 1; semitones < 12; semitones++) {
+				if (random.nextInt(12) < 5) {
+					intervals.add(INTERVALS[semitones]);
+				}
+			}
+			intervals.add("8");
+			String type = Integer.toString(i, 26).replace('0', 'z') + " " + (char) ('a' + random.nextInt(26)) + "b";
+			scalesList.add(new ScaleCollection(formats[random.nextInt(formats.length)], type,
+					intervals.toArray(new String[0]), false));
+		}
+		
+		long start = System.nanoTime();
+		LibraryIndex index = new LibraryIndex(List.of(scalesList));
+		System.out.printf("%d collections indexed in %.1f ms%n%n", count, (System.nanoTime() - start) / 1e6);
+		
+		// run every query first, so that the timings don't include compiling the code
+		for (String text : QUERIES) {
+			time(index, Query.parse(text), false);
+			time(index, Query.parse(text), true);
+		}
+		
+		for (String text : QUERIES) {
+			Query query = Query.parse(text);
+			QueryPlan plan = index.plan(query);
+			QueryPlan scan = scan(index, query);
+			System.out.println(text);
+			System.out.println("  " + plan.explain());
+			System.out.printf("  planned %8.1f us, scan %8.1f us (%d results)%n", time(index, query, false),
+					time(index, query, true), plan.findCollections().size());
+			if (plan.findCollections().size() != scan.findCollections().size()) {
+				throw new IllegalStateException("the plan and the scan disagree");
+			}
+		}
+	}
+	
+	/**
+	 * Times a query, planning it each time unless it is run as a full scan.
+	 * @return the average time in microseconds
+	 */
+	private static double time(LibraryIndex index, Query query, boolean scan) {
+		long start = System.nanoTime();
+		for (int i = 0; i < RUNS; i++) {
+			QueryPlan plan = scan ? scan(index, query) : index.plan(query);
+			plan.findCollections();
+		}
+		
+		return (System.nanoTime() - start) / 1e3 / RUNS;
+	}
+	
+	/**
+	 * Makes a plan that checks every clause of the query against every collection.
+	 */
+	private static QueryPlan scan(LibraryIndex index, Query query) {
+		return new QueryPlan(index, query, null, null, true, query.getFormat(), query.getNameWords());
+	}
+}
@@ -0,0 +1,165 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import notes.Note;
+import scales.Scale;
+import scales.ScaleCollection;
+
+/**
+ * Represents a compiled query: the list of collections to start from, chosen by the planner, and the
+ * clauses left to check against each of them. Plans are made by LibraryIndex.plan() and can be run any
+ * number of times while the index is current.
+ * @author Joel Gibson
+ */
+public class QueryPlan {
+	
+	/**
+	 * The index that the plan runs against.
+	 */
+	private final LibraryIndex index;
+	
+	/**
+	 * The compiled query.
+	 */
+	private final Query query;
+	
+	/**
+	 * The clause whose list the plan starts from (e.g. notes 7), or null to scan every collection.
+	 */
+	private final String indexName;
+	
+	/**
+	 * The sorted ids of the collections to check, or null to check every collection.
+	 */
+	private final int[] candidates;
+	
+	/**
+	 * The clauses left to check: whether the pitch clauses (contains, not contains and notes) need
+	 * checking, the format (or null) and the name words.
+	 */
+	private final boolean checkMask;
+	private final String format;
+	private final List<String> nameWords;
+	
+	/**
+	 * Creates a plan.
+	 */
+	QueryPlan(LibraryIndex index, Query query, String indexName, int[] candidates, boolean checkMask, String format,
+			List<String> nameWords) {
+		this.index = index;
+		this.query = query;
+		this.indexName = indexName;
+		this.candidates = candidates;
+		this.checkMask = checkMask;
+		this.format = format;
+		this.nameWords = nameWords;
+	}
+	
+	/**
+	 * Gets the compiled query.
+	 * @return the query
+	 */
+	public Query getQuery() {
+		return query;
+	}
+	
+	/**
+	 * Gets the clause whose list the plan starts from.
+	 * @return the clause (e.g. notes 7, pitch class 6), or null if the plan scans every collection
+	 */
+	public String getIndexName() {
+		return indexName;
+	}
+	
+	/**
+	 * Gets the number of collections the plan checks.
+	 * @return the number of candidates
+	 */
+	public int getCandidateCount() {
+		return (candidates == null) ? index.size() : candidates.length;
+	}
+	
+	/**
+	 * Finds the scale collections matching the query.
+	 * @return the matching collections, in library order
+	 */
+	public List<ScaleCollection> findCollections() {
+		List<ScaleCollection> found = new ArrayList<ScaleCollection>();
+		int count = getCandidateCount();
+		for (int i = 0; i < count; i++) {
+			int id = (candidates == null) ? i : candidates[i];
+			if (matches(id)) {
+				found.add(index.get(id));
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Finds the scales matching the query: the scale starting on the query's root note in each matching
+	 * collection, or every scale of each matching collection if the query has no root.
+	 * @return the matching scales, in library order
+	 */
+	public List<Scale> findScales() {
+		List<Scale> found = new ArrayList<Scale>();
+		for (ScaleCollection scales : findCollections()) {
+			for (Note root : (query.getRoot() == null) ? Note.getRootNotes() : List.of(query.getRoot())) {
+				Scale scale = scales.getScale(root);
+				if (scale != null) {
+					found.add(scale);
+				}
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Checks the clauses that the starting list doesn't cover.
+	 */
+	private boolean matches(int id) {
+		return (!checkMask || LibraryIndex.matchesMask(index.getMask(id), query))
+				&& (format == null || format.equals(index.get(id).getFormat()))
+				&& (nameWords.isEmpty() || index.matchesName(id, nameWords));
+	}
+	
+	/**
+	 * Describes how the plan runs, e.g. "format mode index (7 of 412 collections), then filter by contains,
+	 * notes".
+	 * @return the description
+	 */
+	public String explain() {
+		StringBuilder text = new StringBuilder();
+		if (indexName == null) {
+			text.append("scan (").append(index.size()).append(" collections)");
+		} else {
+			text.append(indexName).append(" index (").append(getCandidateCount()).append(" of ");
+			text.append(index.size()).append(" collections)");
+		}
+		
+		List<String> filters = new ArrayList<String>();
+		if (checkMask && query.getRequiredMask() != 0) {
+			filters.add("contains");
+		}
+		if (checkMask && query.getExcludedMask() != 0) {
+			filters.add("not contains");
+		}
+		if (checkMask && query.getNoteCount() >= 0) {
+			filters.add("notes");
+		}
+		if (format != null) {
+			filters.add("format");
+		}
+		if (!nameWords.isEmpty()) {
+			filters.add("name");
+		}
+		if (!filters.isEmpty()) {
+			text.append(", then filter by ").append(String.join(", ", filters));
+		}
+		
+		return text.toString();
+	}
+}
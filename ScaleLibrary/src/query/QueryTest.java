@@ -0,0 +1,69 @@
+package query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+
+class QueryTest {
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+	}
+	
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+	
+	@Test
+	void testParse() {
+		Query query = Query.parse("contains b3 and #4; notes 7; root Bb; format Mode; not contains 7");
+		assertEquals((1 << 3) | (1 << 6), query.getRequiredMask());
+		assertEquals(1 << 11, query.getExcludedMask());
+		assertEquals(7, query.getNoteCount());
+		assertEquals(Note.getNote("Bb"), query.getRoot());
+		assertEquals("mode", query.getFormat());
+		assertTrue(query.getNameWords().isEmpty());
+		
+		// test that intervals are compared by pitch, and can be separated in several ways
+		assertEquals(Query.parse("contains #4").getRequiredMask(), Query.parse("contains b5").getRequiredMask());
+		assertEquals(query.getRequiredMask(), Query.parse("contains m3, aug4").getRequiredMask());
+		assertEquals(query.getRequiredMask(), Query.parse(" CONTAINS b3 ;; contains #4 ").getRequiredMask());
+		
+		// test that unset clauses match anything
+		query = Query.parse("name Harm min");
+		assertEquals(List.of("harm", "min"), query.getNameWords());
+		assertEquals(0, query.getRequiredMask());
+		assertEquals(-1, query.getNoteCount());
+		assertNull(query.getRoot());
+		assertNull(query.getFormat());
+	}
+	
+	@Test
+	void testInvalidQueries() {
+		assertEquals("missing query", assertThrows(IllegalArgumentException.class, () -> Query.parse(" ; ")).getMessage());
+		assertEquals("unknown query clause 'has b3'",
+				assertThrows(IllegalArgumentException.class, () -> Query.parse("notes 7; has b3")).getMessage());
+		assertEquals("invalid interval 'q3'",
+				assertThrows(IllegalArgumentException.class, () -> Query.parse("contains b3 and q3")).getMessage());
+		assertEquals("invalid note 'H'", assertThrows(IllegalArgumentException.class, () -> Query.parse("root H")).getMessage());
+		assertEquals("invalid note count '13'",
+				assertThrows(IllegalArgumentException.class, () -> Query.parse("notes 13")).getMessage());
+		assertEquals("missing value after 'not contains'",
+				assertThrows(IllegalArgumentException.class, () -> Query.parse("not contains")).getMessage());
+	}
+}
@@ -0,0 +1,100 @@
+package scales;
+
+import java.util.List;
+
+import notes.Note;
+
+/**
+ * Represents a chord built on one degree of a scale, such as the triad or seventh chord found by stacking
+ * every other note of the scale.
+ * @author Joel Gibson
+ */
+public class Chord {
+	
+	/**
+	 * The Roman numeral of the chord in the scale (e.g. ii, V7, vii°).
+	 */
+	private String numeral;
+	
+	/**
+	 * The arpeggio type that the chord was matched to (e.g. minor 7th), or null if no arpeggio matched.
+	 */
+	private String type;
+	
+	/**
+	 * The intervals of the chord above its root (e.g. 1, b3, 5).
+	 */
+	private String[] intervals;
+	
+	/**
+	 * The notes of the chord, starting from its root.
+	 */
+	private List<Note> notes;
+	
+	/**
+	 * Creates a chord.
+	 * @param numeral the Roman numeral of the chord in the scale
+	 * @param type the arpeggio type of the chord, or null if it has none
+	 * @param intervals the intervals of the chord above its root
+	 * @param notes the notes of the chord, starting from its root
+	 */
+	public Chord(String numeral, String type, String[] intervals, List<Note> notes) {
+		this.numeral = numeral;
+		this.type = type;
+		this.intervals = intervals;
+		this.notes = notes;
+	}
+	
+	/**
+	 * Gets the Roman numeral of the chord in the scale.
+	 * @return the Roman numeral (e.g. ii, V7, vii°)
+	 */
+	public String getNumeral() {
+		return numeral;
+	}
+	
+	/**
+	 * Gets the arpeggio type that the chord was matched to.
+	 * @return the arpeggio type (e.g. minor 7th), or null if no arpeggio matched
+	 */
+	public String getType() {
+		return type;
+	}
+	
+	/**
+	 * Gets the intervals of the chord above its root.
+	 * @return the interval names
+	 */
+	public String[] getIntervals() {
+		return intervals;
+	}
+	
+	/**
+	 * Gets the root note of the chord.
+	 * @return the root note
+	 */
+	public Note getRoot() {
+		return notes.get(0);
+	}
+	
+	/**
+	 * Gets the notes of the chord.
+	 * @return the notes, starting from the root
+	 */
+	public List<Note> getNotes() {
+		return notes;
+	}
+	
+	/**
+	 * Returns the name of the chord (e.g. D minor 7th), or its root and intervals if it has no arpeggio
+	 * type (e.g. C (1, 2, 5)).
+	 */
+	@Override
+	public String toString() {
+		if (type == null) {
+			return getRoot() + " (" + String.join(", ", intervals) + ")";
+		}
+		
+		return getRoot() + " " + type;
+	}
+}
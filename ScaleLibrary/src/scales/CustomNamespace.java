@@ -0,0 +1,170 @@
+package scales;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import datamanagement.Batch;
+import datamanagement.Reader;
+
+/**
+ * Represents the custom scales of a single user. Each namespace has its own storage and its own lock,
+ * so changes to different namespaces never wait for each other. Changes are made to a copy of the list
+ * and published when they have been stored, so the scales can be read without locking.
+ * @author Joel Gibson
+ */
+public class CustomNamespace {
+	
+	/**
+	 * The name of the namespace.
+	 */
+	private final String name;
+	
+	/**
+	 * The storage holding the scales of this namespace.
+	 */
+	private final Reader storage;
+	
+	/**
+	 * The lock held while the namespace is loaded or changed.
+	 */
+	private final Object lock = new Object();
+	
+	/**
+	 * The current unmodifiable list of scale collections, or null if they haven't been loaded.
+	 */
+	private volatile List<ScaleCollection> scalesList;
+	
+	/**
+	 * Creates a namespace backed by the given storage. The scales are loaded when first used.
+	 * @param name the name of the namespace
+	 * @param storage the storage holding the scales
+	 */
+	CustomNamespace(String name, Reader storage) {
+		this.name = name;
+		this.storage = storage;
+	}
+	
+	/**
+	 * Gets the name of the namespace.
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the current custom scales of the namespace.
+	 * @return the unmodifiable list of scale collections
+	 */
+	public List<ScaleCollection> getScales() {
+		List<ScaleCollection> current = scalesList;
+		if (current != null) {
+			return current;
+		}
+		
+		// load the scales on first use
+		synchronized (lock) {
+			if (scalesList == null) {
+				try {
+					scalesList = Collections.unmodifiableList(storage.load());
+				} catch (IOException e) {
+					e.printStackTrace();
+					scalesList = Collections.emptyList();
+				}
+			}
+			
+			return scalesList;
+		}
+	}
+	
+	/**
+	 * Stores a scale collection, replacing any existing collection with the same format and type.
+	 * @param scales the scale collection to store, with its scales created
+	 * @throws IOException if the scale collection cannot be stored
+	 */
+	public void add(ScaleCollection scales) throws IOException {
+		synchronized (lock) {
+			ArrayList<ScaleCollection> updated = new ArrayList<ScaleCollection>(getScales());
+			updated.removeIf(existing -> Reader.getKey(existing).equals(Reader.getKey(scales)));
+			updated.add(scales);
+			
+			storage.put(scales);
+			scalesList = Collections.unmodifiableList(updated);
+		}
+	}
+	
+	/**
+	 * Removes the scale collection with the given format and type.
+	 * @param format the format of the scales
+	 * @param type the type/name of the scales
+	 * @return true if a scale collection was removed, otherwise false
+	 * @throws IOException if the change cannot be stored
+	 */
+	public boolean remove(String format, String type) throws IOException {
+		synchronized (lock) {
+			ArrayList<ScaleCollection> updated = new ArrayList<ScaleCollection>(getScales());
+			String key = Reader.getKey(format, type);
+			if (!updated.removeIf(existing -> Reader.getKey(existing).equals(key))) {
+				return false;
+			}
+			
+			storage.delete(format, type);
+			scalesList = Collections.unmodifiableList(updated);
+			return true;
+		}
+	}
+	
+	/**
+	 * Removes every given scale collection with a single write to storage.
+	 * @param removed the scale collections to remove, matched by format and type
+	 * @return the number of scale collections removed
+	 * @throws IOException if the change cannot be stored
+	 */
+	public int removeAll(List<ScaleCollection> removed) throws IOException {
+		synchronized (lock) {
+			Set<String> keys = new HashSet<String>();
+			for (ScaleCollection scales : removed) {
+				keys.add(Reader.getKey(scales));
+			}
+			
+			// only delete the collections that are still stored
+			ArrayList<ScaleCollection> updated = new ArrayList<ScaleCollection>();
+			Batch batch = new Batch();
+			for (ScaleCollection existing : getScales()) {
+				if (keys.contains(Reader.getKey(existing))) {
+					batch.delete(existing.getFormat(), existing.getType());
+				} else {
+					updated.add(existing);
+				}
+			}
+			
+			if (batch.size() > 0) {
+				storage.apply(batch);
+				scalesList = Collections.unmodifiableList(updated);
+			}
+			return batch.size();
+		}
+	}
+	
+	/**
+	 * Closes the storage of the namespace.
+	 * @throws IOException if the storage cannot be closed
+	 */
+	void close() throws IOException {
+		synchronized (lock) {
+			storage.close();
+		}
+	}
+	
+	/**
+	 * Creates a string representation of the namespace for printing.
+	 */
+	@Override
+	public String toString() {
+		return name;
+	}
+}
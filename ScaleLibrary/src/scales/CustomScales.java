@@ -0,0 +1,178 @@
+package scales;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import datamanagement.Reader;
+
+/**
+ * Holds the custom scales of every user, each in its own namespace. Namespaces are opened when first
+ * used and are changed independently. Lookups and searches see the namespace of the user making them
+ * unless they ask for every user, and exports see the union of every namespace in storage, through a
+ * view that doesn't copy the scales.
+ * @author Joel Gibson
+ */
+public class CustomScales {
+	
+	/**
+	 * The namespace used when no user is given.
+	 */
+	public static final String DEFAULT_NAMESPACE = "default";
+	
+	/**
+	 * The pattern that namespace names must match, so that they can be used as file names.
+	 */
+	private static final Pattern NAME_PATTERN = Pattern.compile("[a-z0-9_-]{1,32}");
+	
+	/**
+	 * Opens the storage for a namespace.
+	 */
+	public interface StorageFactory {
+		
+		/**
+		 * Opens the storage for the given namespace.
+		 * @param namespace the name of the namespace
+		 * @return the storage backend
+		 * @throws IOException if the storage cannot be opened
+		 */
+		Reader open(String namespace) throws IOException;
+	}
+	
+	/**
+	 * Lists the namespaces that have storage.
+	 */
+	public interface StorageDirectory {
+		
+		/**
+		 * Lists the names of every namespace that has storage, whether or not it has been opened.
+		 * @return the names of the namespaces
+		 * @throws IOException if the storage cannot be listed
+		 */
+		List<String> list() throws IOException;
+	}
+	
+	/**
+	 * The factory used to open the storage of each namespace.
+	 */
+	private final StorageFactory storageFactory;
+	
+	/**
+	 * Lists the namespaces that have storage.
+	 */
+	private final StorageDirectory storageDirectory;
+	
+	/**
+	 * The open namespaces, mapped by name.
+	 */
+	private final Map<String, CustomNamespace> namespaces = new ConcurrentHashMap<String, CustomNamespace>();
+	
+	/**
+	 * Creates an empty set of namespaces without any stored namespaces to list, so that the union of
+	 * every namespace only holds the namespaces that have been opened.
+	 * @param storageFactory the factory used to open the storage of each namespace
+	 */
+	public CustomScales(StorageFactory storageFactory) {
+		this(storageFactory, () -> List.of());
+	}
+	
+	/**
+	 * Creates an empty set of namespaces.
+	 * @param storageFactory the factory used to open the storage of each namespace
+	 * @param storageDirectory lists the namespaces that have storage
+	 */
+	public CustomScales(StorageFactory storageFactory, StorageDirectory storageDirectory) {
+		this.storageFactory = storageFactory;
+		this.storageDirectory = storageDirectory;
+	}
+	
+	/**
+	 * Checks if the given name can be used for a namespace.
+	 * @param name the name to check
+	 * @return true if the name is valid, otherwise false
+	 */
+	public static boolean isValidName(String name) {
+		return name != null && NAME_PATTERN.matcher(name).matches();
+	}
+	
+	/**
+	 * Gets the namespace with the given name, opening it if necessary.
+	 * @param name the name of the namespace (lowercase letters, digits, '-' and '_')
+	 * @return the namespace
+	 * @throws IOException if the storage of the namespace cannot be opened
+	 * @throws IllegalArgumentException if the name is invalid
+	 */
+	public CustomNamespace getNamespace(String name) throws IOException {
+		if (!isValidName(name)) {
+			throw new IllegalArgumentException("Invalid namespace: " + name);
+		}
+		
+		CustomNamespace namespace = namespaces.get(name);
+		if (namespace != null) {
+			return namespace;
+		}
+		
+		// open the storage outside the map, and close it again if another thread got there first
+		CustomNamespace created = new CustomNamespace(name, storageFactory.open(name));
+		namespace = namespaces.putIfAbsent(name, created);
+		if (namespace != null) {
+			created.close();
+			return namespace;
+		}
+		
+		return created;
+	}
+	
+	/**
+	 * Gets the custom scales of every namespace in storage as a single list, ordered by namespace name,
+	 * opening the namespaces that haven't been used yet. The list is a view of the namespaces as they were
+	 * when it was created.
+	 * @return the unmodifiable list of scale collections
+	 * @throws IOException if the storage cannot be listed or a namespace cannot be opened
+	 */
+	public List<ScaleCollection> getAllScales() throws IOException {
+		for (String name : storageDirectory.list()) {
+			if (isValidName(name)) {
+				getNamespace(name);
+			}
+		}
+		
+		return getOpenScales();
+	}
+	
+	/**
+	 * Gets the custom scales of every namespace opened so far as a single list, ordered by namespace name.
+	 * The list is a view of the namespaces as they were when it was created.
+	 * @return the unmodifiable list of scale collections
+	 */
+	@SuppressWarnings("unchecked")
+	public List<ScaleCollection> getOpenScales() {
+		// order the namespaces so the view is stable
+		Map<String, CustomNamespace> sorted = new TreeMap<String, CustomNamespace>(namespaces);
+		List<ScaleCollection>[] parts = (List<ScaleCollection>[]) new List<?>[sorted.size()];
+		int i = 0;
+		for (CustomNamespace namespace : sorted.values()) {
+			parts[i++] = namespace.getScales();
+		}
+		
+		return new UnionList<ScaleCollection>(parts);
+	}
+	
+	/**
+	 * Closes the storage of every open namespace.
+	 */
+	public void close() {
+		for (CustomNamespace namespace : namespaces.values()) {
+			try {
+				namespace.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		namespaces.clear();
+	}
+}
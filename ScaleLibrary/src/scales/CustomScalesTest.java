@@ -0,0 +1,177 @@
+package scales;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datamanagement.TextReader;
+import notes.*;
+
+class CustomScalesTest {
+	
+	// temporary directory holding a scale file for each namespace
+	File directory;
+	
+	// the namespaces under test
+	CustomScales customScales;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		directory = Files.createTempDirectory("custom-scales-test").toFile();
+		customScales = new CustomScales(namespace -> new TextReader(new File(directory, namespace + ".txt")));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		customScales.close();
+		
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * Creates a scale collection with the given type.
+	 */
+	ScaleCollection createScales(String type) {
+		return new ScaleCollection("scale", type, new String[] {"1", "2", "3", "5", "6", "8"}, false);
+	}
+
+	@Test
+	void testNamespaces() throws Exception {
+		CustomNamespace alice = customScales.getNamespace("alice");
+		CustomNamespace bob = customScales.getNamespace("bob");
+		assertSame(alice, customScales.getNamespace("alice"));
+		
+		// test that each namespace only sees its own scales
+		alice.add(createScales("first"));
+		bob.add(createScales("second"));
+		bob.add(createScales("third"));
+		assertEquals(1, alice.getScales().size());
+		assertEquals(2, bob.getScales().size());
+		
+		// test that adding a scale with an existing name replaces it
+		alice.add(createScales("first"));
+		assertEquals(1, alice.getScales().size());
+		
+		// test that each namespace has its own file
+		assertTrue(new File(directory, "alice.txt").exists());
+		assertEquals(2, Files.readAllLines(new File(directory, "bob.txt").toPath()).size());
+		
+		assertTrue(bob.remove("scale", "second"));
+		assertFalse(bob.remove("scale", "second"));
+		assertEquals("third scale", bob.getScales().get(0).toString());
+		
+		// test removing several scales with one write
+		alice.add(createScales("second"));
+		assertEquals(2, alice.removeAll(List.of(createScales("first"), createScales("second"), createScales("none"))));
+		assertTrue(alice.getScales().isEmpty());
+		assertTrue(Files.readAllLines(new File(directory, "alice.txt").toPath()).isEmpty());
+		
+		assertThrows(IllegalArgumentException.class, () -> customScales.getNamespace("../etc"));
+		assertThrows(IllegalArgumentException.class, () -> customScales.getNamespace(""));
+	}
+
+	@Test
+	void testAllScales() throws Exception {
+		customScales.getNamespace("bob").add(createScales("second"));
+		customScales.getNamespace("alice").add(createScales("first"));
+		
+		// test that the union is ordered by namespace and doesn't change with later edits
+		List<ScaleCollection> all = customScales.getAllScales();
+		assertEquals(2, all.size());
+		assertEquals("first scale", all.get(0).toString());
+		assertEquals("second scale", all.get(1).toString());
+		
+		customScales.getNamespace("alice").add(createScales("third"));
+		assertEquals(2, all.size());
+		assertEquals(3, customScales.getAllScales().size());
+		assertThrows(UnsupportedOperationException.class, () -> all.add(createScales("fourth")));
+		assertThrows(IndexOutOfBoundsException.class, () -> all.get(2));
+	}
+
+	@Test
+	void testStoredNamespaces() throws Exception {
+		// store a scale for a user whose namespace this set of namespaces never opens
+		try (TextReader reader = new TextReader(new File(directory, "carol.txt"))) {
+			reader.put(createScales("stored"));
+		}
+		customScales.getNamespace("alice").add(createScales("first"));
+		
+		// test that the union lists every namespace in storage, not just the open ones
+		customScales.close();
+		customScales = new CustomScales(namespace -> new TextReader(new File(directory, namespace + ".txt")), () -> {
+			List<String> names = new ArrayList<String>();
+			for (String name : directory.list()) {
+				names.add(name.substring(0, name.length() - ".txt".length()));
+			}
+			return names;
+		});
+		customScales.getNamespace("alice");
+		assertEquals(1, customScales.getOpenScales().size());
+		List<ScaleCollection> all = customScales.getAllScales();
+		assertEquals(2, all.size());
+		assertEquals("stored scale", all.get(1).toString());
+	}
+
+	@Test
+	void testReopen() throws Exception {
+		customScales.getNamespace("alice").add(createScales("first"));
+		customScales.close();
+		
+		// test that the scales are loaded again from the namespace's storage
+		customScales = new CustomScales(namespace -> new TextReader(new File(directory, namespace + ".txt")));
+		List<ScaleCollection> scalesList = customScales.getNamespace("alice").getScales();
+		assertEquals(1, scalesList.size());
+		assertFalse(scalesList.get(0).getAllScales().isEmpty());
+		assertTrue(customScales.getNamespace("bob").getScales().isEmpty());
+	}
+
+	@Test
+	void testConcurrentNamespaces() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		for (int user = 0; user < 4; user++) {
+			String name = "user" + user;
+			results.add(pool.submit(() -> {
+				for (int i = 0; i < 25; i++) {
+					customScales.getNamespace(name).add(createScales("scale" + i));
+				}
+				return null;
+			}));
+		}
+		
+		for (Future<?> result : results) {
+			result.get(30, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+		
+		for (int user = 0; user < 4; user++) {
+			assertEquals(25, customScales.getNamespace("user" + user).getScales().size());
+		}
+		assertEquals(100, customScales.getAllScales().size());
+	}
+}
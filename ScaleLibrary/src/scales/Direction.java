@@ -0,0 +1,68 @@
+package scales;
+
+/**
+ * Represents the order in which the notes of a scale are played back.
+ * @author Joel Gibson
+ */
+public enum Direction {
+	
+	/**
+	 * Plays the notes from the root up to the highest note.
+	 */
+	ASCENDING,
+	
+	/**
+	 * Plays the notes from the highest note down to the root.
+	 */
+	DESCENDING,
+	
+	/**
+	 * Plays the notes up to the highest note, then back down to the root without repeating the top note.
+	 */
+	ASCENDING_DESCENDING;
+	
+	/**
+	 * Calculates the order in which the notes of an ascending sequence are played in this direction.
+	 * @param size the number of notes in the ascending sequence
+	 * @return the index of each note to play, in playing order
+	 */
+	public int[] getOrder(int size) {
+		if (this == ASCENDING) {
+			int[] order = new int[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			return order;
+		}
+		
+		// play the notes backwards, starting after the top note when it has already been played
+		int start = (this == DESCENDING) ? size - 1 : size - 2;
+		int offset = (this == DESCENDING) ? 0 : size;
+		int[] order = new int[offset + Math.max(0, start + 1)];
+		for (int i = 0; i < offset; i++) {
+			order[i] = i;
+		}
+		for (int i = start; i >= 0; i--) {
+			order[offset + start - i] = i;
+		}
+		
+		return order;
+	}
+	
+	/**
+	 * Returns the direction associated with the given name, ignoring case and allowing spaces or dashes
+	 * (e.g. "ascending", "ascending-descending").
+	 * @param name the name of the direction
+	 * @return the direction, or null if no direction matches the name
+	 */
+	public static Direction getDirection(String name) {
+		String normalised = name.trim().toUpperCase().replace(' ', '_').replace('-', '_');
+		for (Direction direction : values()) {
+			if (direction.name().equals(normalised)) {
+				return direction;
+			}
+		}
+		
+		return null;
+	}
+}
@@ -0,0 +1,331 @@
+package scales;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import notes.Interval;
+import notes.Note;
+import util.QueryCache;
+import util.QueryKey;
+
+/**
+ * Builds the triads and seventh chords on each degree of a scale, by stacking every other note of the
+ * scale, and names them after the arpeggio collections with the same intervals. The chords of every
+ * scale with the same interval pattern only differ by transposition, so the intervals, names and Roman
+ * numerals are worked out once per pattern and kept in a table. The chords of a scale are then read from
+ * the table and the scale's own notes, without applying any intervals.
+ * @author Joel Gibson
+ */
+public class Harmoniser {
+	
+	/**
+	 * The number of notes in a triad and in a seventh chord.
+	 */
+	public static final int TRIAD = 3;
+	public static final int SEVENTH = 4;
+	
+	/**
+	 * The fewest degrees a scale can have for its chords to be built, since the notes of a seventh chord
+	 * are only all different with at least 7 degrees.
+	 */
+	public static final int MIN_DEGREES = 7;
+	
+	/**
+	 * The maximum total weight of the table cache, where each table weighs one unit per chord.
+	 */
+	private static final long TABLE_CACHE_WEIGHT = 1 << 14;
+	
+	/**
+	 * The Roman numerals of the degrees of a diatonic scale.
+	 */
+	private static final String[] NUMERALS = {"I", "II", "III", "IV", "V", "VI", "VII"};
+	
+	/**
+	 * The harmoniser of the latest arpeggio catalogue, shared by every session.
+	 */
+	private static volatile Harmoniser latest;
+	
+	/**
+	 * The arpeggio collections that chords are named after, which must not change.
+	 */
+	private final List<ScaleCollection> arpeggios;
+	
+	/**
+	 * The arpeggio types by their intervals without the octave (e.g. "1, b3, 5" for minor).
+	 */
+	private final Map<String, String> types = new HashMap<String, String>();
+	
+	/**
+	 * The chord tables of each interval pattern, keyed by the ids of the intervals.
+	 */
+	private final QueryCache<QueryKey, Table> tables = new QueryCache<QueryKey, Table>(TABLE_CACHE_WEIGHT,
+			(key, table) -> 2 * table.degrees.length);
+	
+	/**
+	 * Creates a harmoniser that names chords after the given arpeggios.
+	 * @param arpeggios the arpeggio collections, which must not change
+	 */
+	public Harmoniser(List<ScaleCollection> arpeggios) {
+		this.arpeggios = arpeggios;
+		
+		// the first arpeggio with each set of intervals gives its name
+		for (ScaleCollection arpeggio : arpeggios) {
+			List<String> names = new ArrayList<String>();
+			for (String name : arpeggio.getIntervals()) {
+				Interval interval = Interval.getInterval(name);
+				if (interval != null && getSemitones(interval) < 12) {
+					names.add(interval.toString());
+				}
+			}
+			types.putIfAbsent(String.join(", ", names), arpeggio.getType());
+		}
+	}
+	
+	/**
+	 * Gets a harmoniser for the given arpeggio catalogue, reusing the latest one while the catalogue stays
+	 * the same so that its tables are shared.
+	 * @param arpeggios the arpeggio collections, which must not change
+	 * @return the harmoniser
+	 */
+	public static Harmoniser forArpeggios(List<ScaleCollection> arpeggios) {
+		Harmoniser harmoniser = latest;
+		if (harmoniser == null || harmoniser.arpeggios != arpeggios) {
+			harmoniser = new Harmoniser(arpeggios);
+			latest = harmoniser;
+		}
+		
+		return harmoniser;
+	}
+	
+	/**
+	 * Gets the cache of chord tables.
+	 * @return the table cache
+	 */
+	public QueryCache<QueryKey, Table> getTableCache() {
+		return tables;
+	}
+	
+	/**
+	 * Checks whether a scale has enough degrees for its chords to be built.
+	 * @param scale the scale
+	 * @return true if the scale has at least MIN_DEGREES degrees, otherwise false
+	 */
+	public boolean canHarmonise(Scale scale) {
+		return getTable(scale) != null;
+	}
+	
+	/**
+	 * Builds the chords on each degree of a scale.
+	 * @param scale the scale
+	 * @param size the number of notes in each chord (TRIAD or SEVENTH)
+	 * @return the chords on each degree in order, which are empty if the scale has too few degrees
+	 */
+	public List<Chord> getChords(Scale scale, int size) {
+		List<Chord> chords = new ArrayList<Chord>();
+		Table table = getTable(scale);
+		if (table == null) {
+			return chords;
+		}
+		
+		// the chord tones are every other degree, read from the scale's notes
+		int[] degrees = table.degrees;
+		int sevenths = (size == SEVENTH) ? 1 : 0;
+		for (int degree = 0; degree < degrees.length; degree++) {
+			List<Note> notes = new ArrayList<Note>(size);
+			for (int tone = 0; tone < size; tone++) {
+				notes.add(scale.getNotes().get(degrees[(degree + 2 * tone) % degrees.length]));
+			}
+			chords.add(new Chord(table.numerals[sevenths][degree], table.types[sevenths][degree],
+					table.intervals[sevenths][degree], notes));
+		}
+		
+		return chords;
+	}
+	
+	/**
+	 * Prints the triads and seventh chords on each degree of a scale, or a message if the scale has too
+	 * few degrees.
+	 * @param scale the scale
+	 * @param out the stream to print to
+	 */
+	public void printChords(Scale scale, PrintStream out) {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("Chords: ").append(scale).append('\n');
+		if (!canHarmonise(scale)) {
+			buffer.append("The scale has too few notes to build chords on each degree.\n\n");
+			out.print(buffer);
+			return;
+		}
+		
+		for (int size : new int[] {TRIAD, SEVENTH}) {
+			for (Chord chord : getChords(scale, size)) {
+				appendPadded(buffer, chord.getNumeral(), 10);
+				appendPadded(buffer, chord.toString(), 26);
+				
+				// pad each note to 5 characters, as printNotes() does
+				List<Note> notes = chord.getNotes();
+				for (Note note : notes.subList(0, notes.size() - 1)) {
+					appendPadded(buffer, note.toString(), 5);
+				}
+				buffer.append(notes.get(notes.size() - 1)).append('\n');
+			}
+			buffer.append('\n');
+		}
+		out.print(buffer);
+	}
+	
+	/**
+	 * Appends text followed by enough spaces to fill the given width, and at least one space.
+	 */
+	private static void appendPadded(StringBuilder buffer, String text, int width) {
+		buffer.append(text).append(' ');
+		for (int i = text.length() + 1; i < width; i++) {
+			buffer.append(' ');
+		}
+	}
+	
+	/**
+	 * Gets the chord table of a scale's interval pattern, building it on first use.
+	 * @return the table, or null if the scale has too few degrees
+	 */
+	private Table getTable(Scale scale) {
+		String[] pattern = scale.getIntervalPattern();
+		int[] ids = new int[pattern.length];
+		for (int i = 0; i < pattern.length; i++) {
+			Interval interval = Interval.getInterval(pattern[i]);
+			ids[i] = (interval == null) ? -1 : interval.getId();
+		}
+		
+		Table table = tables.get(new QueryKey("harmonise", ids), key -> createTable(pattern));
+		return (table.degrees.length < MIN_DEGREES) ? null : table;
+	}
+	
+	/**
+	 * Works out the intervals, names and numerals of the chords on each degree of an interval pattern.
+	 */
+	private Table createTable(String[] pattern) {
+		// the degrees are the notes within the first octave
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int i = 0; i < pattern.length; i++) {
+			Interval interval = Interval.getInterval(pattern[i]);
+			if (interval != null && getSemitones(interval) < 12) {
+				positions.add(i);
+			}
+		}
+		Table table = new Table(positions.stream().mapToInt(Integer::intValue).toArray());
+		if (table.degrees.length < MIN_DEGREES) {
+			return table;
+		}
+		
+		int count = table.degrees.length;
+		for (int sevenths = 0; sevenths < 2; sevenths++) {
+			int size = (sevenths == 1) ? SEVENTH : TRIAD;
+			for (int degree = 0; degree < count; degree++) {
+				Interval bottom = Interval.getInterval(pattern[table.degrees[degree]]);
+				
+				// find the interval from the chord root to each tone, an octave higher once past the top degree
+				String[] intervals = new String[size];
+				for (int tone = 0; tone < size; tone++) {
+					int position = degree + 2 * tone;
+					Interval top = Interval.getInterval(pattern[table.degrees[position % count]]);
+					Interval interval = subtract(top, bottom, position / count);
+					intervals[tone] = (interval == null) ? "?" : interval.toString();
+				}
+				
+				table.intervals[sevenths][degree] = intervals;
+				table.types[sevenths][degree] = types.get(String.join(", ", intervals));
+				table.numerals[sevenths][degree] = toNumeral(bottom, intervals);
+			}
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Finds the interval between two intervals above the same root.
+	 * @param top the upper interval
+	 * @param bottom the lower interval
+	 * @param octaves the number of octaves to raise the upper interval by
+	 * @return the interval, or null if it needs more than 3 sharps or flats
+	 */
+	private static Interval subtract(Interval top, Interval bottom, int octaves) {
+		int number = top.getNumber() + 7 * octaves - bottom.getNumber() + 1;
+		int semitones = getSemitones(top) + 12 * octaves - getSemitones(bottom);
+		int ups = top.getQuality().getUps() - bottom.getQuality().getUps();
+		if (number < 1 || number > Interval.MAX_NUMBER) {
+			return null;
+		}
+		
+		// the quality is the change from the major or perfect interval with the same number
+		Interval natural = Interval.getInterval(Interval.toId(number, 0, 0));
+		if (natural == null) {
+			return null;
+		}
+		return Interval.getInterval(Interval.toId(number, semitones - getSemitones(natural), ups));
+	}
+	
+	/**
+	 * Counts the semitones in an interval, including any octaves of a compound interval.
+	 */
+	private static int getSemitones(Interval interval) {
+		return Interval.intervalToSemitones(interval) + 12 * ((interval.getNumber() - 1) / 7);
+	}
+	
+	/**
+	 * Writes the Roman numeral of a chord: the degree's accidental and number, in lower case for a minor
+	 * third, followed by ° (diminished), ø (half-diminished) or + (augmented), and 7 or maj7 for
+	 * seventh chords.
+	 * @param degree the interval from the scale's root to the chord's root
+	 * @param intervals the intervals of the chord above its root
+	 * @return the Roman numeral (e.g. bIII, ii7, viiø7)
+	 */
+	static String toNumeral(Interval degree, String[] intervals) {
+		String name = degree.toString();
+		String numeral = NUMERALS[(degree.getNumber() - 1) % 7];
+		boolean minor = "b3".equals(intervals[1]);
+		boolean diminished = minor && "b5".equals(intervals[2]);
+		boolean augmented = "3".equals(intervals[1]) && "#5".equals(intervals[2]);
+		numeral = name.substring(0, name.length() - Integer.toString(degree.getNumber()).length())
+				+ (minor ? numeral.toLowerCase() : numeral);
+		
+		if (intervals.length < SEVENTH) {
+			return numeral + (diminished ? "°" : augmented ? "+" : "");
+		}
+		if (diminished && "b7".equals(intervals[3])) {
+			return numeral + "ø7";
+		}
+		if (diminished && "bb7".equals(intervals[3])) {
+			return numeral + "°7";
+		}
+		return numeral + (diminished ? "°" : augmented ? "+" : "") + ("7".equals(intervals[3]) ? "maj7" : "7");
+	}
+	
+	/**
+	 * Represents the chords on each degree of an interval pattern. Index 0 of each array holds the triads,
+	 * and index 1 the seventh chords.
+	 */
+	public static final class Table {
+		
+		/**
+		 * The position in the pattern of each degree.
+		 */
+		private final int[] degrees;
+		
+		/**
+		 * The Roman numeral, arpeggio type (or null) and intervals of the chord on each degree.
+		 */
+		private final String[][] numerals;
+		private final String[][] types;
+		private final String[][][] intervals;
+		
+		private Table(int[] degrees) {
+			this.degrees = degrees;
+			numerals = new String[2][degrees.length];
+			types = new String[2][degrees.length];
+			intervals = new String[2][degrees.length][];
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package scales;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+
+class HarmoniserTest {
+	
+	// the harmoniser under test
+	Harmoniser harmoniser;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		// name chords after some of the library's arpeggios
+		List<ScaleCollection> arpeggios = new ArrayList<ScaleCollection>();
+		arpeggios.add(new ScaleCollection("arpeggio", "major", new String[] {"1", "3", "5", "8"}, false));
+		arpeggios.add(new ScaleCollection("arpeggio", "minor", new String[] {"1", "b3", "5", "8"}, false));
+		arpeggios.add(new ScaleCollection("arpeggio", "diminished", new String[] {"1", "b3", "b5", "8"}, false));
+		arpeggios.add(new ScaleCollection("arpeggio", "dominant 7th", new String[] {"1", "3", "5", "b7", "8"}, false));
+		arpeggios.add(new ScaleCollection("arpeggio", "half-diminished 7th", new String[] {"1", "b3", "b5", "b7", "8"}, false));
+		arpeggios.add(new ScaleCollection("arpeggio", "diminished 7th", new String[] {"1", "b3", "b5", "bb7", "8"}, false));
+		harmoniser = new Harmoniser(arpeggios);
+	}
+	
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+	
+	/**
+	 * Lists the numeral and name of each chord.
+	 */
+	List<String> describe(List<Chord> chords) {
+		List<String> descriptions = new ArrayList<String>();
+		for (Chord chord : chords) {
+			descriptions.add(chord.getNumeral() + " " + chord);
+		}
+		
+		return descriptions;
+	}
+	
+	@Test
+	void testTriads() {
+		Scale scale = new Scale(Note.getNote("C"), "scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"});
+		assertEquals(List.of("I C major", "ii D minor", "iii E minor", "IV F major", "V G major", "vi A minor", "vii° B diminished"),
+				describe(harmoniser.getChords(scale, Harmoniser.TRIAD)));
+		
+		// test that the chord notes are the scale's own notes
+		Chord chord = harmoniser.getChords(scale, Harmoniser.TRIAD).get(4);
+		assertEquals(List.of(Note.getNote("G"), Note.getNote("B"), Note.getNote("D")), chord.getNotes());
+		assertArrayEquals(new String[] {"1", "3", "5"}, chord.getIntervals());
+	}
+	
+	@Test
+	void testSevenths() {
+		Scale scale = new Scale(Note.getNote("A"), "scale", "harmonic minor", new String[] {"1", "2", "b3", "4", "5", "b6", "7", "8"});
+		List<String> chords = describe(harmoniser.getChords(scale, Harmoniser.SEVENTH));
+		assertEquals("imaj7 A (1, b3, 5, 7)", chords.get(0));
+		assertEquals("iiø7 B half-diminished 7th", chords.get(1));
+		assertEquals("bIII+maj7 C (1, 3, #5, 7)", chords.get(2));
+		assertEquals("V7 E dominant 7th", chords.get(4));
+		assertEquals("vii°7 G# diminished 7th", chords.get(6));
+	}
+	
+	@Test
+	void testTransposition() {
+		// test that scales with the same pattern share a table
+		String[] pattern = {"1", "2", "b3", "4", "5", "6", "b7", "8"};
+		long misses = harmoniser.getTableCache().getStats().getMisses();
+		for (Note root : Note.getRootNotes()) {
+			Scale scale = new Scale(root, "mode", "dorian", pattern);
+			List<Chord> chords = harmoniser.getChords(scale, Harmoniser.TRIAD);
+			assertEquals(root + " minor", chords.get(0).toString());
+			assertEquals(root, chords.get(0).getRoot());
+			assertEquals("IV", chords.get(3).getNumeral());
+		}
+		assertEquals(misses + 1, harmoniser.getTableCache().getStats().getMisses());
+	}
+	
+	@Test
+	void testTooFewDegrees() {
+		Scale scale = new Scale(Note.getNote("C"), "scale", "major pentatonic", new String[] {"1", "2", "3", "5", "6", "8"});
+		assertFalse(harmoniser.canHarmonise(scale));
+		assertTrue(harmoniser.getChords(scale, Harmoniser.TRIAD).isEmpty());
+	}
+	
+	@Test
+	void testForArpeggios() {
+		List<ScaleCollection> arpeggios = List.of(new ScaleCollection("arpeggio", "major", new String[] {"1", "3", "5", "8"}, false));
+		Harmoniser shared = Harmoniser.forArpeggios(arpeggios);
+		assertSame(shared, Harmoniser.forArpeggios(arpeggios));
+		assertNotSame(shared, Harmoniser.forArpeggios(new ArrayList<ScaleCollection>(arpeggios)));
+	}
+}
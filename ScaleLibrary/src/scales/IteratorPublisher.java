@@ -0,0 +1,172 @@
+package scales;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the items of an iterator to each subscriber, one item per unit of demand. Every subscriber
+ * gets its own iterator, and items are only taken from it when the subscriber has requested them, so
+ * nothing is buffered and results can be generated lazily. Items are delivered on the given executor,
+ * one subscriber signal at a time.
+ * @author Joel Gibson
+ */
+public class IteratorPublisher<T> implements Flow.Publisher<T> {
+	
+	/**
+	 * Creates a new iterator for each subscriber.
+	 */
+	private final Supplier<? extends Iterator<? extends T>> source;
+	
+	/**
+	 * The executor that delivers the items.
+	 */
+	private final Executor executor;
+	
+	/**
+	 * Creates a publisher of the items returned by a new iterator for each subscriber.
+	 * @param source creates the iterator for each subscriber
+	 * @param executor the executor that delivers the items
+	 */
+	public IteratorPublisher(Supplier<? extends Iterator<? extends T>> source, Executor executor) {
+		this.source = source;
+		this.executor = executor;
+	}
+	
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		Objects.requireNonNull(subscriber);
+		subscriber.onSubscribe(new IteratorSubscription<T>(subscriber, source, executor));
+	}
+	
+	/**
+	 * The subscription of a single subscriber, which delivers items while there is outstanding demand.
+	 */
+	private static class IteratorSubscription<T> implements Flow.Subscription, Runnable {
+		
+		private final Flow.Subscriber<? super T> subscriber;
+		private final Supplier<? extends Iterator<? extends T>> source;
+		private final Executor executor;
+		
+		/**
+		 * The number of items requested but not yet delivered.
+		 */
+		private final AtomicLong demand = new AtomicLong();
+		
+		/**
+		 * The number of times delivery has been scheduled, so that only one thread delivers at a time.
+		 */
+		private final AtomicInteger scheduled = new AtomicInteger();
+		
+		/**
+		 * Whether the subscription has been cancelled or has finished.
+		 */
+		private volatile boolean cancelled;
+		
+		/**
+		 * The error caused by an invalid request, to be delivered by the delivering thread.
+		 */
+		private volatile Throwable pendingError;
+		
+		/**
+		 * The iterator of the subscriber, created on the first delivery.
+		 */
+		private Iterator<? extends T> iterator;
+		
+		IteratorSubscription(Flow.Subscriber<? super T> subscriber, Supplier<? extends Iterator<? extends T>> source,
+				Executor executor) {
+			this.subscriber = subscriber;
+			this.source = source;
+			this.executor = executor;
+		}
+		
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				pendingError = new IllegalArgumentException("Requested " + n + " items; requests must be positive");
+			} else {
+				// add to the demand, treating anything that overflows as unbounded
+				demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+			}
+			
+			schedule();
+		}
+		
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+		
+		/**
+		 * Starts delivering on the executor, unless delivery is already running.
+		 */
+		private void schedule() {
+			if (scheduled.getAndIncrement() == 0) {
+				executor.execute(this);
+			}
+		}
+		
+		/**
+		 * Delivers items until the demand is met or the iterator is finished.
+		 */
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				if (!cancelled) {
+					deliver();
+				}
+				missed = scheduled.addAndGet(-missed);
+			} while (missed != 0);
+		}
+		
+		/**
+		 * Delivers as many items as have been requested.
+		 */
+		private void deliver() {
+			try {
+				if (pendingError != null) {
+					throw pendingError;
+				}
+				
+				if (iterator == null) {
+					iterator = source.get();
+				}
+				
+				long requested = demand.get();
+				long delivered = 0;
+				while (delivered != requested) {
+					if (cancelled) {
+						return;
+					}
+					
+					if (!iterator.hasNext()) {
+						break;
+					}
+					
+					subscriber.onNext(iterator.next());
+					delivered++;
+				}
+				
+				// complete as soon as the iterator is finished, even without demand
+				if (!cancelled && !iterator.hasNext()) {
+					cancelled = true;
+					subscriber.onComplete();
+					return;
+				}
+				
+				if (requested != Long.MAX_VALUE) {
+					demand.addAndGet(-delivered);
+				}
+				
+			} catch (Throwable e) {
+				cancelled = true;
+				subscriber.onError(e);
+			}
+		}
+	}
+}
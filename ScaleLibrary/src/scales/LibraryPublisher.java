@@ -0,0 +1,117 @@
+package scales;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+
+import datamanagement.MappedCatalog;
+
+/**
+ * Creates publishers that stream the contents of a library or catalog to subscribers on demand, so that
+ * large result sets can be processed incrementally without being collected into lists first.
+ * @author Joel Gibson
+ */
+public class LibraryPublisher {
+	
+	/**
+	 * Orders the scales of a collection by root note.
+	 */
+	private static final Comparator<Scale> BY_ROOT = Comparator.comparingInt(scale -> scale.getRoot().getOrdinal());
+	
+	/**
+	 * Publishes every scale in a snapshot of the library, section by section in name order.
+	 * @param snapshot the library version to enumerate
+	 * @param executor the executor that delivers the scales
+	 * @return the publisher of scales
+	 */
+	public static Flow.Publisher<Scale> enumerate(LibrarySnapshot snapshot, Executor executor) {
+		return search(snapshot, scale -> true, executor);
+	}
+	
+	/**
+	 * Publishes every scale in a snapshot of the library that matches the given condition.
+	 * @param snapshot the library version to search
+	 * @param condition the condition that published scales must meet
+	 * @param executor the executor that delivers the scales
+	 * @return the publisher of matching scales
+	 */
+	public static Flow.Publisher<Scale> search(LibrarySnapshot snapshot, Predicate<? super Scale> condition,
+			Executor executor) {
+		return new IteratorPublisher<Scale>(() -> snapshot.getSections().entrySet().stream()
+				.sorted(Map.Entry.comparingByKey())
+				.flatMap(section -> section.getValue().stream())
+				.flatMap(scales -> sortByRoot(scales).stream())
+				.filter(condition)
+				.iterator(), executor);
+	}
+	
+	/**
+	 * Publishes every scale of every entry in a catalog. Entries are only decoded when their scales are
+	 * requested.
+	 * @param catalog the catalog to enumerate
+	 * @param executor the executor that delivers the scales
+	 * @return the publisher of scales
+	 */
+	public static Flow.Publisher<Scale> enumerate(MappedCatalog catalog, Executor executor) {
+		return search(catalog, 0, executor);
+	}
+	
+	/**
+	 * Publishes every scale of the catalog entries that contain all of the given pitch classes. The
+	 * catalog is only scanned and decoded as far as is needed to meet the demand, so at most one entry's
+	 * scales are held at a time.
+	 * @param catalog the catalog to search
+	 * @param requiredMask the pitch classes that must be present (bit 0 is the root)
+	 * @param executor the executor that delivers the scales
+	 * @return the publisher of scales from matching entries
+	 */
+	public static Flow.Publisher<Scale> search(MappedCatalog catalog, int requiredMask, Executor executor) {
+		return new IteratorPublisher<Scale>(() -> new Iterator<Scale>() {
+			
+			// the index of the next matching entry, or -1 if there are no more
+			private int next = catalog.nextContaining(0, requiredMask);
+			
+			// the scales of the current entry that haven't been published yet
+			private Iterator<Scale> scales = Collections.emptyIterator();
+			
+			@Override
+			public boolean hasNext() {
+				// decode matching entries until one has scales left to publish
+				while (!scales.hasNext() && next >= 0) {
+					ScaleCollection collection = catalog.get(next).toScaleCollection();
+					scales = sortByRoot(collection).iterator();
+					next = catalog.nextContaining(next + 1, requiredMask);
+				}
+				
+				return scales.hasNext();
+			}
+			
+			@Override
+			public Scale next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				
+				return scales.next();
+			}
+		}, executor);
+	}
+	
+	/**
+	 * Gets the scales of a collection ordered by root note.
+	 * @param scales the scale collection
+	 * @return the sorted list of scales
+	 */
+	private static List<Scale> sortByRoot(ScaleCollection scales) {
+		List<Scale> sorted = new ArrayList<Scale>(scales.getAllScales().values());
+		sorted.sort(BY_ROOT);
+		return sorted;
+	}
+}
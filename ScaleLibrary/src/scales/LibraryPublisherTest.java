@@ -0,0 +1,169 @@
+package scales;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datamanagement.CatalogWriter;
+import datamanagement.MappedCatalog;
+import notes.*;
+
+class LibraryPublisherTest {
+	
+	// delivers items on the calling thread, so that each test runs in order
+	Executor direct = Runnable::run;
+	
+	// the library snapshot to publish
+	LibrarySnapshot snapshot;
+	
+	/**
+	 * Records every signal received from a publisher, requesting nothing by itself.
+	 */
+	static class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+		Flow.Subscription subscription;
+		List<T> items = new ArrayList<T>();
+		Throwable error;
+		boolean complete;
+		
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+		
+		@Override
+		public void onNext(T item) {
+			items.add(item);
+		}
+		
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+		}
+		
+		@Override
+		public void onComplete() {
+			complete = true;
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		ScaleCollection major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		ScaleCollection minor = new ScaleCollection("arpeggio", "minor", new String[] {"1", "b3", "5", "8"}, false);
+		major.createAllScales();
+		minor.createAllScales();
+		
+		Map<String, List<ScaleCollection>> allScales = new HashMap<String, List<ScaleCollection>>();
+		allScales.put("scales", List.of(major));
+		allScales.put("arpeggios", List.of(minor));
+		VersionedLibrary library = new VersionedLibrary();
+		snapshot = library.replaceAll(allScales);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+
+	@Test
+	void testBackpressure() {
+		RecordingSubscriber<Scale> subscriber = new RecordingSubscriber<Scale>();
+		LibraryPublisher.enumerate(snapshot, direct).subscribe(subscriber);
+		
+		// test that nothing is delivered until it is requested
+		assertTrue(subscriber.items.isEmpty());
+		subscriber.subscription.request(2);
+		assertEquals(2, subscriber.items.size());
+		assertFalse(subscriber.complete);
+		
+		// test that sections are published in name order and scales in root order
+		assertEquals("minor arpeggio", subscriber.items.get(0).getType() + " " + subscriber.items.get(0).getFormat());
+		assertTrue(subscriber.items.get(0).getRoot().getOrdinal() < subscriber.items.get(1).getRoot().getOrdinal());
+		
+		// test that the publisher completes once everything has been delivered
+		subscriber.subscription.request(Long.MAX_VALUE);
+		int total = snapshot.get("scales").get(0).getAllScales().size() + snapshot.get("arpeggios").get(0).getAllScales().size();
+		assertEquals(total, subscriber.items.size());
+		assertTrue(subscriber.complete);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	void testCancel() {
+		RecordingSubscriber<Scale> subscriber = new RecordingSubscriber<Scale>();
+		LibraryPublisher.enumerate(snapshot, direct).subscribe(subscriber);
+		subscriber.subscription.request(3);
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(3);
+		assertEquals(3, subscriber.items.size());
+		assertFalse(subscriber.complete);
+		
+		// test that invalid requests are reported as errors
+		RecordingSubscriber<Scale> invalid = new RecordingSubscriber<Scale>();
+		LibraryPublisher.enumerate(snapshot, direct).subscribe(invalid);
+		invalid.subscription.request(0);
+		assertTrue(invalid.error instanceof IllegalArgumentException);
+	}
+
+	@Test
+	void testSearch() {
+		RecordingSubscriber<Scale> subscriber = new RecordingSubscriber<Scale>();
+		LibraryPublisher.search(snapshot, scale -> scale.getNotes().contains(Note.getNote("F#")), direct).subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		
+		// F# is in the G and D major scales and the B and F# minor arpeggios, among others
+		List<String> names = new ArrayList<String>();
+		for (Scale scale : subscriber.items) {
+			names.add(scale.toString());
+		}
+		assertTrue(names.contains("G major scale"));
+		assertTrue(names.contains("B minor arpeggio"));
+		assertFalse(names.contains("C major scale"));
+		assertTrue(subscriber.complete);
+	}
+
+	@Test
+	void testCatalogSearch() throws Exception {
+		File file = File.createTempFile("library-publisher-test", ".cat");
+		try {
+			List<ScaleCollection> scalesList = new ArrayList<ScaleCollection>(snapshot.get("scales"));
+			scalesList.addAll(snapshot.get("arpeggios"));
+			CatalogWriter.write(file, scalesList);
+			
+			try (MappedCatalog catalog = new MappedCatalog(file)) {
+				// only the major scale has a perfect 4th above the root
+				RecordingSubscriber<Scale> subscriber = new RecordingSubscriber<Scale>();
+				LibraryPublisher.search(catalog, 1 << 5, direct).subscribe(subscriber);
+				subscriber.subscription.request(1);
+				assertEquals(1, subscriber.items.size());
+				assertEquals("major scale", subscriber.items.get(0).getType() + " " + subscriber.items.get(0).getFormat());
+				
+				subscriber.subscription.request(Long.MAX_VALUE);
+				assertTrue(subscriber.complete);
+				assertEquals(snapshot.get("scales").get(0).getAllScales().size(), subscriber.items.size());
+			}
+			
+		} finally {
+			file.delete();
+		}
+	}
+}
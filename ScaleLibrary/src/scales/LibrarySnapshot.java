@@ -0,0 +1,111 @@
+package scales;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents one version of the library catalogue. A snapshot never changes once created, so it can be
+ * read from any thread without locking. A new version is made with withSection(), which copies only the
+ * changed section and shares every other section list with the previous version.
+ * @author Joel Gibson
+ */
+public final class LibrarySnapshot {
+	
+	/**
+	 * The version number, which increases by one with each published change.
+	 */
+	private final long version;
+	
+	/**
+	 * The unmodifiable mapping of library sections (e.g. scales, modes) to their scale collections.
+	 */
+	private final Map<String, List<ScaleCollection>> sections;
+	
+	/**
+	 * Creates a snapshot from the given sections, which must not be changed afterwards.
+	 * @param version the version number
+	 * @param sections the mapping of section names to unmodifiable lists of scale collections
+	 */
+	private LibrarySnapshot(long version, Map<String, List<ScaleCollection>> sections) {
+		this.version = version;
+		this.sections = Collections.unmodifiableMap(sections);
+	}
+	
+	/**
+	 * Creates the first, empty version of a library.
+	 * @return the empty snapshot
+	 */
+	static LibrarySnapshot empty() {
+		return new LibrarySnapshot(0, new HashMap<String, List<ScaleCollection>>());
+	}
+	
+	/**
+	 * Gets the version number of the snapshot.
+	 * @return the version number
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Gets the scale collections in the given section.
+	 * @param section the name of the section (e.g. custom scales)
+	 * @return the unmodifiable list of scale collections, which is empty if there is no such section
+	 */
+	public List<ScaleCollection> get(String section) {
+		return sections.getOrDefault(section, Collections.emptyList());
+	}
+	
+	/**
+	 * Checks if the snapshot has the given section.
+	 * @param section the name of the section
+	 * @return true if the section exists, otherwise false
+	 */
+	public boolean hasSection(String section) {
+		return sections.containsKey(section);
+	}
+	
+	/**
+	 * Gets every section of the snapshot.
+	 * @return the unmodifiable mapping of section names to scale collections
+	 */
+	public Map<String, List<ScaleCollection>> getSections() {
+		return sections;
+	}
+	
+	/**
+	 * Creates the next version of the library with one section replaced.
+	 * @param section the name of the section to replace
+	 * @param scalesList the new scale collections of the section (copied)
+	 * @return the new snapshot
+	 */
+	public LibrarySnapshot withSection(String section, List<ScaleCollection> scalesList) {
+		Map<String, List<ScaleCollection>> updated = new HashMap<String, List<ScaleCollection>>(sections);
+		updated.put(section, List.copyOf(scalesList));
+		return new LibrarySnapshot(version + 1, updated);
+	}
+	
+	/**
+	 * Creates the next version of the library with every section replaced.
+	 * @param allScales the mapping of section names to scale collections (copied)
+	 * @return the new snapshot
+	 */
+	public LibrarySnapshot withSections(Map<String, ? extends List<ScaleCollection>> allScales) {
+		Map<String, List<ScaleCollection>> updated = new HashMap<String, List<ScaleCollection>>();
+		for (Map.Entry<String, ? extends List<ScaleCollection>> section : allScales.entrySet()) {
+			updated.put(section.getKey(), List.copyOf(section.getValue()));
+		}
+		
+		return new LibrarySnapshot(version + 1, updated);
+	}
+	
+	/**
+	 * Creates a string representation of the snapshot for printing.
+	 */
+	@Override
+	public String toString() {
+		return "version " + version + " " + sections.keySet();
+	}
+}
@@ -0,0 +1,269 @@
+package scales;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import util.NameTrie;
+
+/**
+ * Indexes the names of a list of scale collections (e.g. "harmonic minor scale") so that large menus can
+ * be filtered as the user types. Each word of every name is kept in a trie with the positions of the
+ * collections that use it, so the collections whose words start with each typed word can be found
+ * without scanning every name. When nothing matches, words within a small edit distance are matched
+ * instead, so misspelled filters (e.g. "harmnic minr") still find their collections. A filter that
+ * extends the previous filter only checks the previous matches.
+ * @author Joel Gibson
+ */
+final class MenuIndex {
+	
+	/**
+	 * The indexed scale collections, which must not change.
+	 */
+	private final List<ScaleCollection> scalesList;
+	
+	/**
+	 * The lowercase name of each collection, in list order.
+	 */
+	private final String[] names;
+	
+	/**
+	 * The words of each collection's name, in list order.
+	 */
+	private final String[][] nameWords;
+	
+	/**
+	 * Every word used in the names, with the positions of the collections using it.
+	 */
+	private final NameTrie words;
+	
+	/**
+	 * The position of each collection by its lowercase name.
+	 */
+	private final Map<String, Integer> byName;
+	
+	/**
+	 * The most recent filter, the positions it matched, and whether they were close matches rather than
+	 * exact matches.
+	 */
+	private String lastFilter;
+	private int[] lastMatches;
+	private boolean lastFuzzy;
+	
+	/**
+	 * Indexes the given list of scale collections.
+	 * @param scalesList the list of scale collections, which must not change once indexed
+	 */
+	MenuIndex(List<ScaleCollection> scalesList) {
+		this.scalesList = scalesList;
+		names = new String[scalesList.size()];
+		nameWords = new String[scalesList.size()][];
+		byName = new HashMap<String, Integer>();
+		words = new NameTrie();
+		
+		// index each word of the names, which includes the type and the format
+		for (int i = 0; i < names.length; i++) {
+			names[i] = scalesList.get(i).toString().toLowerCase();
+			nameWords[i] = splitWords(names[i]);
+			byName.putIfAbsent(names[i], i);
+			for (String word : nameWords[i]) {
+				words.add(word, i);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the indexed list of scale collections.
+	 * @return the list of scale collections
+	 */
+	List<ScaleCollection> getScales() {
+		return scalesList;
+	}
+	
+	/**
+	 * Finds the collections whose names contain a word starting with each word of the filter, ignoring
+	 * case (e.g. "harm min" matches "harmonic minor scale"). If there are none, the collections whose
+	 * words start close to each filter word are found instead (e.g. "harmnic minr").
+	 * @param filter the filter text, which matches every collection if blank
+	 * @return the positions of the matching collections, in list order
+	 */
+	int[] filter(String filter) {
+		String[] filterWords = splitWords(filter.toLowerCase());
+		String key = String.join(" ", filterWords);
+		
+		int[] matches;
+		boolean fuzzy = false;
+		if (filterWords.length == 0) {
+			matches = new int[names.length];
+			Arrays.setAll(matches, i -> i);
+		} else if (lastFilter != null && !lastFilter.isEmpty() && !lastFuzzy && key.startsWith(lastFilter)) {
+			// typing more can only narrow the matches, so only check the previous matches
+			matches = Arrays.stream(lastMatches).filter(i -> matchesAll(nameWords[i], filterWords)).toArray();
+		} else {
+			matches = lookUp(filterWords, false);
+		}
+		
+		// fall back to close matches when nothing matches exactly
+		if (matches.length == 0 && filterWords.length > 0) {
+			matches = lookUp(filterWords, true);
+			fuzzy = matches.length > 0;
+		}
+		
+		lastFilter = key;
+		lastMatches = matches;
+		lastFuzzy = fuzzy;
+		return matches;
+	}
+	
+	/**
+	 * Checks whether the most recent filter only found close matches.
+	 * @return true if the matches were found by edit distance, otherwise false
+	 */
+	boolean isFuzzy() {
+		return lastFuzzy;
+	}
+	
+	/**
+	 * Finds the words of the names that complete the given partly typed word.
+	 * @param prefix the partly typed word, ignoring case
+	 * @param limit the maximum number of words to find
+	 * @return the completions in sorted order
+	 */
+	List<String> complete(String prefix, int limit) {
+		return words.complete(prefix.toLowerCase(), limit);
+	}
+	
+	/**
+	 * Finds the collections matching every filter word using the word index.
+	 * @param filterWords the lowercase filter words
+	 * @param fuzzy true to match words starting close to each filter word, or false to match words
+	 * starting with it
+	 * @return the matching positions, in list order
+	 */
+	private int[] lookUp(String[] filterWords, boolean fuzzy) {
+		BitSet result = null;
+		for (String filterWord : filterWords) {
+			BitSet found = new BitSet(names.length);
+			if (fuzzy) {
+				words.collectFuzzy(filterWord, NameTrie.getMaxDistance(filterWord.length()), found);
+			} else {
+				words.collectPrefix(filterWord, found);
+			}
+			
+			if (result == null) {
+				result = found;
+			} else {
+				result.and(found);
+			}
+		}
+		
+		return result.stream().toArray();
+	}
+	
+	/**
+	 * Finds the collections chosen by an id or a pattern. An id is the full name of a collection as shown
+	 * in menus (e.g. "my blues scale"), and a pattern is a name containing * (any text) or ? (any single
+	 * character), e.g. "*blues*".
+	 * @param idOrPattern the id or pattern, ignoring case
+	 * @return the matching collections, in list order
+	 */
+	List<ScaleCollection> find(String idOrPattern) {
+		String text = idOrPattern.trim().toLowerCase();
+		List<ScaleCollection> found = new ArrayList<ScaleCollection>();
+		if (!isPattern(text)) {
+			Integer position = byName.get(text);
+			if (position != null) {
+				found.add(scalesList.get(position));
+			}
+			return found;
+		}
+		
+		for (int i = 0; i < names.length; i++) {
+			if (matchesPattern(text, names[i])) {
+				found.add(scalesList.get(i));
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Checks whether the text is a pattern rather than an id.
+	 * @param text the text to check
+	 * @return true if the text contains * or ?
+	 */
+	static boolean isPattern(String text) {
+		return text.indexOf('*') >= 0 || text.indexOf('?') >= 0;
+	}
+	
+	/**
+	 * Checks whether a name matches a pattern, where * matches any text and ? matches any single
+	 * character. Backtracks only to the most recent *, so matching takes linear time in practice.
+	 * @param pattern the pattern
+	 * @param name the name to check
+	 * @return true if the whole name matches the pattern
+	 */
+	static boolean matchesPattern(String pattern, String name) {
+		int p = 0;
+		int n = 0;
+		int star = -1;
+		int starMatch = 0;
+		while (n < name.length()) {
+			if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == name.charAt(n))) {
+				p++;
+				n++;
+			} else if (p < pattern.length() && pattern.charAt(p) == '*') {
+				// remember the star, and first try matching it with no text
+				star = p++;
+				starMatch = n;
+			} else if (star >= 0) {
+				// let the last star match one more character
+				p = star + 1;
+				n = ++starMatch;
+			} else {
+				return false;
+			}
+		}
+		
+		// any remaining stars match no text
+		while (p < pattern.length() && pattern.charAt(p) == '*') {
+			p++;
+		}
+		
+		return p == pattern.length();
+	}
+	
+	/**
+	 * Checks whether every filter word starts one of the name's words.
+	 */
+	private static boolean matchesAll(String[] nameWords, String[] filterWords) {
+		for (String filterWord : filterWords) {
+			boolean found = false;
+			for (String word : nameWords) {
+				if (word.startsWith(filterWord)) {
+					found = true;
+					break;
+				}
+			}
+			
+			if (!found) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Splits text into its words at whitespace.
+	 * @param text the text
+	 * @return the words, which may be empty
+	 */
+	private static String[] splitWords(String text) {
+		String trimmed = text.trim();
+		return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+	}
+}
@@ -0,0 +1,109 @@
+package scales;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times menu filters, close-match filters and completions on a large generated catalogue of scale
+ * collections. Run with the number of collections as an optional argument (default 100000).
+ * @author Joel Gibson
+ */
+public class MenuIndexBenchmark {
+
+	/**
+	 * The syllables that generated words are made from.
+	 */
+	private static final String[] SYLLABLES = {"har", "mo", "nic", "mi", "nor", "me", "lo", "dic", "do", "ri",
+			"an", "ly", "phry", "gi", "blu", "es", "pen", "ta", "ton", "ba", "be", "hex", "whole", "aug"};
+
+	/**
+	 * The number of times each kind of query is timed.
+	 */
+	private static final int QUERIES = 1000;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		Random random = new Random(1);
+
+		// generate names of two or three words from a vocabulary of a few thousand words
+		String[] vocabulary = new String[4000];
+		for (int i = 0; i < vocabulary.length; i++) {
+			vocabulary[i] = createWord(random);
+		}
+		String[] formats = {"scale", "arpeggio", "mode"};
+		List<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
+		for (int i = 0; i < count; i++) {
+			String type = vocabulary[random.nextInt(vocabulary.length)] + " " + vocabulary[random.nextInt(vocabulary.length)];
+			if (random.nextBoolean()) {
+				type += " " + vocabulary[random.nextInt(vocabulary.length)];
+			}
+			scalesList.add(new ScaleCollection(formats[random.nextInt(formats.length)], type, new String[] {"1", "8"}, false));
+		}
+
+		long start = System.nanoTime();
+		MenuIndex index = new MenuIndex(scalesList);
+		System.out.printf("%d collections indexed in %.1f ms%n%n", count, (System.nanoTime() - start) / 1e6);
+
+		// filter by the start of one or two words of a random name
+		String[] filters = new String[QUERIES];
+		String[] typos = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			String[] words = scalesList.get(random.nextInt(count)).getType().split(" ");
+			filters[i] = words[0].substring(0, Math.min(4, words[0].length())) + " " + words[1];
+			typos[i] = misspell(words[0], random) + " " + misspell(words[1], random);
+		}
+
+		time("filter", index, filters);
+		time("close-match filter", index, typos);
+
+		start = System.nanoTime();
+		int found = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			found += index.complete(filters[i].substring(0, 3), 7).size();
+		}
+		print("complete", start, found);
+	}
+
+	/**
+	 * Times a set of filters. The filters are unrelated, so each one uses the index rather than refining
+	 * the previous matches.
+	 */
+	private static void time(String name, MenuIndex index, String[] filters) {
+		long start = System.nanoTime();
+		int found = 0;
+		for (String filter : filters) {
+			found += index.filter(filter).length;
+		}
+		print(name, start, found);
+	}
+
+	/**
+	 * Prints the average time of the queries since the start time.
+	 */
+	private static void print(String name, long start, int found) {
+		double micros = (System.nanoTime() - start) / 1e3 / QUERIES;
+		System.out.printf("%-20s %8.1f us per query (%d results)%n", name, micros, found);
+	}
+
+	/**
+	 * Creates a random word of two to four syllables.
+	 */
+	private static String createWord(Random random) {
+		StringBuilder word = new StringBuilder();
+		int syllables = 2 + random.nextInt(3);
+		for (int i = 0; i < syllables; i++) {
+			word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+
+		return word.toString();
+	}
+
+	/**
+	 * Deletes one character from the middle of a word, as a typing mistake.
+	 */
+	private static String misspell(String word, Random random) {
+		int position = 1 + random.nextInt(word.length() - 2);
+		return word.substring(0, position) + word.substring(position + 1);
+	}
+}
@@ -0,0 +1,143 @@
+package scales;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MenuIndexTest {
+	
+	// the indexed collections
+	List<ScaleCollection> scalesList;
+	
+	// the index under test
+	MenuIndex index;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		scalesList = new ArrayList<ScaleCollection>();
+		for (String type : new String[] {"major", "harmonic minor", "melodic minor", "minor blues", "major blues", "dorian"}) {
+			scalesList.add(new ScaleCollection("scale", type, new String[] {"1", "8"}, false));
+		}
+		scalesList.add(new ScaleCollection("arpeggio", "minor", new String[] {"1", "b3", "5", "8"}, false));
+		index = new MenuIndex(scalesList);
+	}
+	
+	@Test
+	void testFilter() {
+		assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6}, index.filter("  "));
+		assertArrayEquals(new int[] {1, 2, 3, 6}, index.filter("min"));
+		assertArrayEquals(new int[] {1, 2, 3, 6}, index.filter("MIN"));
+		assertArrayEquals(new int[] {3, 4}, index.filter("blu"));
+		assertArrayEquals(new int[] {}, index.filter("lydian"));
+		
+		// test that every word of the filter must start a word of the name, in any order
+		assertArrayEquals(new int[] {1, 2, 3}, index.filter("min sc"));
+		assertArrayEquals(new int[] {3}, index.filter("blues mi"));
+		assertFalse(index.isFuzzy());
+	}
+	
+	@Test
+	void testFuzzyFilter() {
+		// test that misspelled and partly typed words find close matches when nothing matches exactly
+		assertArrayEquals(new int[] {1}, index.filter("harmnic minr"));
+		assertTrue(index.isFuzzy());
+		assertArrayEquals(new int[] {1, 2, 3, 6}, index.filter("inor"));
+		assertArrayEquals(new int[] {1}, index.filter("hramon"));
+		assertArrayEquals(new int[] {6}, index.filter("arpegio min"));
+		
+		// test that short words must be typed exactly
+		assertArrayEquals(new int[] {}, index.filter("xa"));
+		assertArrayEquals(new int[] {}, index.filter("lydian"));
+		assertFalse(index.isFuzzy());
+		
+		// test that exact matches are preferred
+		assertArrayEquals(new int[] {5}, index.filter("dor"));
+		assertFalse(index.isFuzzy());
+	}
+	
+	@Test
+	void testComplete() {
+		assertEquals(List.of("major", "melodic", "minor"), index.complete("M", 10));
+		assertEquals(List.of("major", "melodic"), index.complete("m", 2));
+		assertEquals(List.of("minor"), index.complete("minor", 10));
+		assertTrue(index.complete("x", 10).isEmpty());
+	}
+	
+	@Test
+	void testIncrementalFilter() {
+		// test that typing more narrows the previous matches
+		assertArrayEquals(new int[] {0, 1, 2, 3, 4, 6}, index.filter("m"));
+		assertArrayEquals(new int[] {0, 1, 2, 3, 4, 6}, index.filter("m "));
+		assertArrayEquals(new int[] {6}, index.filter("m a"));
+		assertArrayEquals(new int[] {6}, index.filter("m ar"));
+		
+		// test that deleting text widens them again
+		assertArrayEquals(new int[] {0, 4}, index.filter("maj"));
+		assertArrayEquals(new int[] {0, 1, 2, 3, 4, 6}, index.filter("m"));
+	}
+	
+	@Test
+	void testFind() {
+		// test finding by id
+		assertEquals(List.of(scalesList.get(1)), index.find("Harmonic Minor Scale"));
+		assertTrue(index.find("harmonic minor").isEmpty());
+		
+		// test finding by pattern
+		assertEquals(List.of(scalesList.get(3), scalesList.get(4)), index.find("*blues*"));
+		assertEquals(List.of(scalesList.get(6)), index.find("*arpeggio"));
+		assertEquals(List.of(scalesList.get(1), scalesList.get(2)), index.find("*ic minor scale"));
+		assertEquals(7, index.find("*").size());
+		assertTrue(index.find("?major scale").isEmpty());
+	}
+	
+	@Test
+	void testMatchesPattern() {
+		assertTrue(MenuIndex.matchesPattern("a*b?d", "axxbcd"));
+		assertTrue(MenuIndex.matchesPattern("*a*a*", "banana"));
+		assertTrue(MenuIndex.matchesPattern("**", ""));
+		assertFalse(MenuIndex.matchesPattern("a*b", "abc"));
+		assertFalse(MenuIndex.matchesPattern("?", ""));
+	}
+	
+	@Test
+	void testPagedMenu() {
+		List<ScaleCollection> large = new ArrayList<ScaleCollection>();
+		for (int i = 1; i <= 45; i++) {
+			large.add(new ScaleCollection("scale", "custom " + i, new String[] {"1", "8"}, false));
+		}
+		
+		PagedMenu menu = new PagedMenu("Search custom scales", true);
+		menu.update(new MenuIndex(List.copyOf(large)));
+		assertEquals(3, menu.getPageCount());
+		String page = menu.appendPage(new StringBuilder()).toString();
+		assertTrue(page.startsWith("----------------------\n Search custom scales\n"));
+		assertTrue(page.contains("\n20. custom 20 scale\nPage 1 of 3 (45 matches)\n"));
+		assertFalse(page.contains("custom 21 scale"));
+		
+		// test moving between pages, which stops at the last page
+		assertTrue(menu.navigate("n"));
+		assertTrue(menu.navigate("n"));
+		assertTrue(menu.navigate("n"));
+		page = menu.appendPage(new StringBuilder()).toString();
+		assertTrue(page.contains("\n45. custom 45 scale\nPage 3 of 3"));
+		
+		// test that option numbers count across pages of the filtered list
+		assertTrue(menu.navigate("/custom 4"));
+		assertEquals(7, menu.getMatchCount());
+		assertEquals("custom 40 scale", menu.getOption(2).toString());
+		assertNull(menu.getOption(8));
+		assertTrue(menu.appendPage(new StringBuilder()).toString().contains("Page 1 of 1 (7 matches for 'custom 4')"));
+		assertFalse(menu.navigate("3"));
+		
+		// test that a new version of the list keeps the filter
+		large.remove(39);
+		menu.update(new MenuIndex(List.copyOf(large)));
+		assertEquals(6, menu.getMatchCount());
+		assertTrue(menu.navigate("/"));
+		assertEquals(44, menu.getMatchCount());
+	}
+}
@@ -0,0 +1,206 @@
+package scales;
+
+import java.util.List;
+
+/**
+ * Represents a menu of scale collections that is shown one page at a time and can be filtered as the
+ * user types. The menu follows the latest version of its list, reapplying the filter whenever the list
+ * changes. Each page is built in a buffer so that it can be printed with a single write.
+ * @author Joel Gibson
+ */
+class PagedMenu {
+	
+	/**
+	 * The number of collections shown on each page.
+	 */
+	static final int PAGE_SIZE = 20;
+	
+	/**
+	 * The maximum number of completions shown for the last word of the filter.
+	 */
+	private static final int MAX_COMPLETIONS = 6;
+	
+	/**
+	 * The menu heading.
+	 */
+	private String heading;
+	
+	/**
+	 * Whether the collections are numbered so that they can be chosen by option number.
+	 */
+	private boolean numbered;
+	
+	/**
+	 * The index of the current list of collections.
+	 */
+	private MenuIndex index;
+	
+	/**
+	 * The current filter text.
+	 */
+	private String filter = "";
+	
+	/**
+	 * The positions of the collections matching the filter.
+	 */
+	private int[] matches;
+	
+	/**
+	 * The current page, starting from 0.
+	 */
+	private int page;
+	
+	/**
+	 * Creates a menu.
+	 * @param heading the menu heading
+	 * @param numbered true to number the collections so that they can be chosen by option number
+	 */
+	PagedMenu(String heading, boolean numbered) {
+		this.heading = heading;
+		this.numbered = numbered;
+	}
+	
+	/**
+	 * Shows the given version of the list, reapplying the filter if it has changed since the last version.
+	 * @param latest the index of the latest version of the list
+	 */
+	void update(MenuIndex latest) {
+		if (index == latest) {
+			return;
+		}
+		
+		index = latest;
+		matches = index.filter(filter);
+		page = Math.min(page, Math.max(getPageCount() - 1, 0));
+	}
+	
+	/**
+	 * Gets the number of collections matching the filter.
+	 * @return the number of matches
+	 */
+	int getMatchCount() {
+		return matches.length;
+	}
+	
+	/**
+	 * Gets the number of pages of matches.
+	 * @return the number of pages
+	 */
+	int getPageCount() {
+		return (matches.length + PAGE_SIZE - 1) / PAGE_SIZE;
+	}
+	
+	/**
+	 * Gets the collection with the given option number.
+	 * @param option the option number, counted from 1 across every page of matches
+	 * @return the collection, or null if there is no such option
+	 */
+	ScaleCollection getOption(int option) {
+		if (option < 1 || option > matches.length) {
+			return null;
+		}
+		
+		return index.getScales().get(matches[option - 1]);
+	}
+	
+	/**
+	 * Handles the navigation commands: n for the next page, p for the previous page, and /text to filter
+	 * the collections (or / alone to clear the filter).
+	 * @param input the user's input
+	 * @return true if the input was a navigation command, otherwise false
+	 */
+	boolean navigate(String input) {
+		if (input.startsWith("/")) {
+			filter = input.substring(1).trim();
+			matches = index.filter(filter);
+			page = 0;
+			return true;
+		}
+		
+		if ("n".equalsIgnoreCase(input)) {
+			page = Math.min(page + 1, Math.max(getPageCount() - 1, 0));
+			return true;
+		}
+		
+		if ("p".equalsIgnoreCase(input)) {
+			page = Math.max(page - 1, 0);
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Appends the current page to the given buffer: the heading, the collections on the page and, when
+	 * there is more than one page or a filter, where the page lies in the matches.
+	 * @param buffer the buffer to append to
+	 * @return the buffer
+	 */
+	StringBuilder appendPage(StringBuilder buffer) {
+		ScaleLibrary.appendMenuHeading(buffer, heading);
+		
+		int start = page * PAGE_SIZE;
+		int end = Math.min(start + PAGE_SIZE, matches.length);
+		for (int i = start; i < end; i++) {
+			if (numbered) {
+				buffer.append(i + 1).append(". ");
+			} else {
+				buffer.append("  ");
+			}
+			buffer.append(index.getScales().get(matches[i])).append('\n');
+		}
+		
+		if (matches.length == 0) {
+			buffer.append("No matches for '").append(filter).append("'\n");
+		} else if (getPageCount() > 1 || !filter.isEmpty()) {
+			buffer.append("Page ").append(page + 1).append(" of ").append(getPageCount());
+			buffer.append(" (").append(matches.length).append(matches.length == 1 ? " match" : " matches");
+			if (index.isFuzzy()) {
+				buffer.append(" close to '").append(filter).append("'");
+			} else if (!filter.isEmpty()) {
+				buffer.append(" for '").append(filter).append("'");
+			}
+			buffer.append(")\n");
+		}
+		appendCompletions(buffer);
+		buffer.append('\n');
+		
+		return buffer;
+	}
+	
+	/**
+	 * Appends the words that complete the last word of the filter, when there is more than one way to
+	 * complete it.
+	 * @param buffer the buffer to append to
+	 */
+	private void appendCompletions(StringBuilder buffer) {
+		int start = filter.lastIndexOf(' ') + 1;
+		if (filter.isEmpty() || index.isFuzzy()) {
+			return;
+		}
+		
+		String word = filter.substring(start).toLowerCase();
+		List<String> completions = index.complete(word, MAX_COMPLETIONS + 1);
+		if (completions.size() < 2) {
+			return;
+		}
+		
+		buffer.append("Completions of '").append(word).append("': ");
+		buffer.append(String.join(", ", completions.subList(0, Math.min(completions.size(), MAX_COMPLETIONS))));
+		buffer.append(completions.size() > MAX_COMPLETIONS ? ", ...\n" : "\n");
+	}
+	
+	/**
+	 * Appends the navigation commands available on the current page, for use in a prompt.
+	 * @param buffer the buffer to append to
+	 * @return the buffer
+	 */
+	StringBuilder appendCommands(StringBuilder buffer) {
+		if (getPageCount() > 1) {
+			buffer.append("n/p for the next/previous page, ");
+		}
+		buffer.append("/text to filter, ");
+		
+		return buffer;
+	}
+}
@@ -1,5 +1,6 @@
 package scales;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 
 import notes.*;
@@ -52,6 +53,22 @@ public class Scale {
 		this.createSequence();
 	}
 	
+	/**
+	 * Creates a scale whose notes have already been calculated.
+	 * @param root the root note
+	 * @param format the format of the scale
+	 * @param type the type of the scale
+	 * @param intervals the sequence of intervals for each note in the scale
+	 * @param notes the notes of the scale, which must not be shared with another scale
+	 */
+	Scale(Note root, String format, String type, String[] intervals, ArrayList<Note> notes) {
+		this.root = root;
+		this.format = format;
+		this.type = type;
+		this.intervalPattern = intervals;
+		this.notes = notes;
+	}
+	
 	/**
 	 * Gets the root note.
 	 * @return the root note
@@ -84,6 +101,43 @@ public class Scale {
 		return notes;
 	}
 	
+	/**
+	 * Gets the sequence of interval names used to construct the scale.
+	 * @return the array of interval names
+	 */
+	public String[] getIntervalPattern() {
+		return intervalPattern;
+	}
+	
+	/**
+	 * Calculates the MIDI note number of every note in the scale, in the order given by the direction.
+	 * Pitches are calculated from the interval pattern rather than the spelled notes, so compound intervals
+	 * (e.g. 8, 10) sound in the correct octave even after enharmonic simplification.
+	 * @param octave the octave of the root note (e.g. 4 for middle C)
+	 * @param direction the playback direction
+	 * @return the array of MIDI note numbers
+	 */
+	public int[] getPitchSequence(int octave, Direction direction) {
+		// calculate each pitch as a semitone offset from the root note
+		int rootPitch = getRoot().getMidiNumber(octave);
+		int size = intervalPattern.length;
+		int[] ascending = new int[size];
+		for (int i = 0; i < size; i++) {
+			Interval interval = Interval.getInterval(intervalPattern[i]);
+			int octaves = (interval.getNumber() - 1) / 7;
+			ascending[i] = rootPitch + Interval.intervalToSemitones(interval) + 12 * octaves;
+		}
+		
+		// arrange the pitches in playing order
+		int[] order = direction.getOrder(size);
+		int[] sequence = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sequence[i] = ascending[order[i]];
+		}
+		
+		return sequence;
+	}
+	
 	/**
 	 * Creates every note of the scale using the interval pattern.
 	 */
@@ -102,23 +156,31 @@ public class Scale {
 	 * Prints the list of notes in the scale on a single line.
 	 */
 	public void printNotes() {
+		printNotes(System.out);
+	}
+	
+	/**
+	 * Prints the list of notes in the scale on a single line to the given stream.
+	 * @param out the stream to print to
+	 */
+	public void printNotes(PrintStream out) {
 		// prints the scale name
-		System.out.println(this);
+		out.println(this);
 		
 		// print each note using a window of 5 spaces per note
 		for (Note note : notes.subList(0, notes.size() - 1)) {
-			System.out.print(note);
+			out.print(note);
 			
 			// print blank spaces to pad
 			for (int i = 0; i < 5 - note.toString().length(); i++) {
-				System.out.print(" ");
+				out.print(" ");
 			}
 			
 		}
 		
 		// print the final note
-		System.out.println(notes.get(notes.size() - 1));
-		System.out.println();
+		out.println(notes.get(notes.size() - 1));
+		out.println();
 	}
 	
 	/**
@@ -1,9 +1,18 @@
 package scales;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import notes.Interval;
+import notes.Notation;
 import notes.Note;
+import util.QueryCache;
+import util.QueryKey;
 
 /**
  * Represents a collection of scales of the same format and type using different root notes.
@@ -36,6 +45,46 @@ public class ScaleCollection {
 	 */
 	private Map<String, Scale> allScales;
 	
+	/**
+	 * The scales indexed by the ordinal of their root note, so that scales can be looked up without
+	 * creating any strings or taking a lock.
+	 */
+	private AtomicReferenceArray<Scale> scalesByRoot;
+	
+	/**
+	 * Whether every scale has been created. Until then, scales are created one at a time as they are
+	 * looked up.
+	 */
+	private volatile boolean allCreated;
+	
+	/**
+	 * The lock guarding the creation of scales.
+	 */
+	private final Object lock = new Object();
+	
+	/**
+	 * The number of times each scale has been looked up by a user, indexed by the ordinal of its root
+	 * note. The array is created on the first use, since most collections are never looked up.
+	 */
+	private volatile AtomicLongArray uses;
+	
+	/**
+	 * The ids that determine how each scale is spelled, calculated when the scales are created.
+	 */
+	private int[] spellingIds;
+	
+	/**
+	 * The maximum total weight of the spelling cache, where each spelling weighs one unit per note.
+	 */
+	private static final long SPELLING_CACHE_WEIGHT = 1 << 18;
+	
+	/**
+	 * The spelled notes of every scale created, as note ordinals (or -1 for notes that can't be spelled),
+	 * shared by every collection so that scales with the same pattern and root are only spelled once.
+	 */
+	private static final QueryCache<QueryKey, int[]> spellings = new QueryCache<QueryKey, int[]>(SPELLING_CACHE_WEIGHT,
+			(key, ordinals) -> key.size() + ordinals.length);
+	
 	/**
 	 * Creates a scale collection using the given scale specifications.
 	 * @param format the format of the scales (e.g. scale, arpeggio)
@@ -51,6 +100,7 @@ public class ScaleCollection {
 		
 		// create a new mapping of root note names to Scale objects
 		allScales = new HashMap<String, Scale>();
+		scalesByRoot = new AtomicReferenceArray<Scale>(Note.NUMBER_OF_ORDINALS);
 	}
 	
 	/**
@@ -86,32 +136,244 @@ public class ScaleCollection {
 	}
 	
 	/**
-	 * Get the map containing all root note names and their associated scales.
+	 * Get the set of pitch classes used by the scales, as a bit mask relative to the root.
+	 * @return the pitch-class mask, where bit n is set if the scales contain a note n semitones above the root
+	 */
+	public int getPitchClassMask() {
+		return toPitchClassMask(getIntervals());
+	}
+	
+	/**
+	 * Calculates the set of pitch classes used by the given interval pattern. Microtonal ups and downs are
+	 * ignored.
+	 * @param intervals the interval names
+	 * @return the pitch-class mask, where bit n is set if the pattern contains an interval of n semitones
+	 * (modulo the octave)
+	 */
+	public static int toPitchClassMask(String[] intervals) {
+		int mask = 0;
+		for (String name : intervals) {
+			Interval interval = Interval.getInterval(name);
+			if (interval != null) {
+				mask |= 1 << Math.floorMod(Interval.intervalToSemitones(interval), 12);
+			}
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Get the map containing all root note names and their associated scales, creating any scales that
+	 * haven't been created yet.
 	 * @return the map containing all scales
 	 */
 	public Map<String, Scale> getAllScales() {
+		if (!allCreated) {
+			createAllScales();
+		}
+		
 		return allScales;
 	}
 
 	/**
-	 * Creates all scales for the collection using every possible root note.
+	 * Gets the scale with the given root note.
+	 * @param root the root note
+	 * @return the scale, or null if the collection has no scale starting on the note
 	 */
-	public void createAllScales() {
-		for (Note root : Note.getRootNotes()) {
+	public Scale getScale(Note root) {
+		return getScale(root.getOrdinal());
+	}
+	
+	/**
+	 * Gets the scale whose root note has the given name, without creating any objects.
+	 * @param rootName the name of the root note (e.g. Bb or bb)
+	 * @return the scale, or null if the name is not a note or the collection has no scale starting on it
+	 */
+	public Scale getScale(CharSequence rootName) {
+		return getScale(Note.parseOrdinal(rootName));
+	}
+	
+	/**
+	 * Gets the scale whose root note has the given ordinal, creating it if it hasn't been created yet.
+	 * @param ordinal the note ordinal
+	 * @return the scale, or null if there is none
+	 */
+	private Scale getScale(int ordinal) {
+		if (ordinal < 0 || ordinal >= scalesByRoot.length()) {
+			return null;
+		}
+		
+		Scale scale = scalesByRoot.get(ordinal);
+		if (scale == null && !allCreated) {
+			scale = createScale(ordinal);
+		}
+		
+		return scale;
+	}
+	
+	/**
+	 * Creates the scale whose root note has the given ordinal, unless another thread already has.
+	 * @param ordinal the note ordinal
+	 * @return the scale, or null if the note is not a root note or the scale is not valid
+	 */
+	private Scale createScale(int ordinal) {
+		synchronized (lock) {
+			Scale scale = scalesByRoot.get(ordinal);
+			Note root = Note.getNote(ordinal);
+			if (scale != null || root == null || !Note.getRootNotes().contains(root)) {
+				return scale;
+			}
+			
+			if (spellingIds == null) {
+				spellingIds = getSpellingIds();
+			}
 			addScale(root);
+			return scalesByRoot.get(ordinal);
 		}
 	}
 	
 	/**
-	 * Creates a scale for the current collection using the given root note.
+	 * Suggests the root notes that a root note name with no scale in the collection was probably meant
+	 * to be, for "did you mean" messages.
+	 * @param rootName the root note name that was entered
+	 * @return the suggested root notes of scales in the collection, or an empty list if there is no clear
+	 * suggestion
+	 */
+	public List<Note> suggestRoots(CharSequence rootName) {
+		List<Note> roots = new ArrayList<Note>();
+		for (Note root : Note.getRootNotes()) {
+			if (getScale(root) != null) {
+				roots.add(root);
+			}
+		}
+		
+		return Notation.suggestNotes(rootName, roots);
+	}
+	
+	/**
+	 * Records that a user looked up the scale with the given root note. Lookups made internally (e.g. to
+	 * identify notes or export the library) should not be recorded.
+	 * @param root the root note of the scale
+	 */
+	public void recordUse(Note root) {
+		AtomicLongArray counts = uses;
+		if (counts == null) {
+			synchronized (lock) {
+				if (uses == null) {
+					uses = new AtomicLongArray(Note.NUMBER_OF_ORDINALS);
+				}
+				counts = uses;
+			}
+		}
+		
+		counts.incrementAndGet(root.getOrdinal());
+	}
+	
+	/**
+	 * Gets the number of times a user looked up the scale with the given root note.
+	 * @param root the root note of the scale
+	 * @return the number of recorded uses
+	 */
+	public long getUses(Note root) {
+		AtomicLongArray counts = uses;
+		return (counts == null) ? 0 : counts.get(root.getOrdinal());
+	}
+	
+	/**
+	 * Gets the ids that determine how every scale in the collection is spelled: whether notes are
+	 * simplified, whether the blues scale rule applies, then the id of each interval (or -1 if the
+	 * interval doesn't exist). Collections with the same ids contain the same scales.
+	 * @return a new array of ids
+	 */
+	public int[] getSpellingIds() {
+		String[] intervals = getIntervals();
+		int[] ids = new int[intervals.length + 2];
+		ids[0] = simplify ? 1 : 0;
+		ids[1] = isBlues() ? 1 : 0;
+		for (int i = 0; i < intervals.length; i++) {
+			Interval interval = Interval.getInterval(intervals[i]);
+			ids[i + 2] = (interval == null) ? -1 : interval.getId();
+		}
+		
+		return ids;
+	}
+	
+	/**
+	 * Gets the cache of spelled scales shared by every collection.
+	 * @return the spelling cache
+	 */
+	public static QueryCache<QueryKey, int[]> getSpellingCache() {
+		return spellings;
+	}
+	
+	/**
+	 * Creates all scales for the collection using every possible root note, keeping any scales that were
+	 * already created. Collections don't need to be created in advance, since scales are also created as
+	 * they are looked up.
+	 */
+	public void createAllScales() {
+		synchronized (lock) {
+			spellingIds = getSpellingIds();
+			for (Note root : Note.getRootNotes()) {
+				if (scalesByRoot.get(root.getOrdinal()) == null) {
+					addScale(root);
+				}
+			}
+			allCreated = true;
+		}
+	}
+	
+	/**
+	 * Checks whether every scale in the collection has been created.
+	 * @return true if every scale has been created, otherwise false
+	 */
+	public boolean isCreated() {
+		return allCreated;
+	}
+	
+	/**
+	 * Checks whether the collection contains blues scales, whose diminished 5th is always simplified.
+	 * @return true if the collection contains blues scales
+	 */
+	private boolean isBlues() {
+		return "blues".equals(getType()) && "scale".equals(getFormat());
+	}
+	
+	/**
+	 * Creates a scale for the current collection using the given root note. The lock must be held.
 	 * @param root the root note of the scale to create
 	 */
 	private void addScale(Note root) {
-		// create the scale using the specification of the current collection
+		// find the spelling of the scale, reusing the spelling of any earlier scale with the same pattern
+		int[] ids = new int[spellingIds.length + 1];
+		ids[0] = root.getOrdinal();
+		System.arraycopy(spellingIds, 0, ids, 1, spellingIds.length);
+		int[] ordinals = spellings.get(new QueryKey("spell", ids), key -> spell(root));
+		
+		// create the scale from the spelled notes
+		ArrayList<Note> notes = new ArrayList<Note>(ordinals.length);
+		for (int ordinal : ordinals) {
+			notes.add(Note.getNote(ordinal));
+		}
+		Scale scale = new Scale(root, getFormat(), getType(), getIntervals(), notes);
+		
+		// add the scale to the collection only if it is valid (i.e. all notes are non-null)
+		if (scale.isValid()) {
+			allScales.put(root.getKey(), scale);
+			scalesByRoot.set(root.getOrdinal(), scale);
+		}
+	}
+	
+	/**
+	 * Spells the scale with the given root note using the specification of the current collection.
+	 * @param root the root note
+	 * @return the ordinal of each note, or -1 for notes that can't be spelled
+	 */
+	private int[] spell(Note root) {
 		Scale scale = new Scale(root, getFormat(), getType(), getIntervals());
 		
 		// for blues scales, the diminished 5th (note at index 3) should be simplified
-		if ("blues".equals(getType()) && "scale".equals(getFormat())) {
+		if (isBlues()) {
 			scale.shuffleAccidentals(3);
 		}
 		
@@ -120,33 +382,44 @@ public class ScaleCollection {
 			scale.shuffleAccidentals();
 		}
 		
-		// add the scale to the collection only if it is valid (i.e. all notes are non-null)
-		if (scale.isValid()) {
-			allScales.put(root.toString().toLowerCase(), scale);
+		int[] ordinals = new int[scale.getNotes().size()];
+		for (int i = 0; i < ordinals.length; i++) {
+			Note note = scale.getNotes().get(i);
+			ordinals[i] = (note == null) ? -1 : note.getOrdinal();
 		}
+		
+		return ordinals;
 	}
 	
 	/**
 	 * Prints the interval pattern used the create each scale in the collection.
 	 */
 	void printIntervals() {
+		printIntervals(System.out);
+	}
+	
+	/**
+	 * Prints the interval pattern used the create each scale in the collection to the given stream.
+	 * @param out the stream to print to
+	 */
+	public void printIntervals(PrintStream out) {
 		// print the name of the scale collection
-		System.out.println("Interval pattern: " + this.toString());
+		out.println("Interval pattern: " + this.toString());
 		
 		// print each interval using a window of 5 spaces per interval
 		String[] intervals = getIntervals();
 		for (int i = 0; i < intervals.length - 1; i++) {
 			String interval = intervals[i];
-            System.out.print(interval);
+            out.print(interval);
 			
             // print blank spaces to pad
 			for (int j = 0; j < 5 - interval.length(); j++) {
-				System.out.print(" ");
+				out.print(" ");
 			}	
 		}
 		
 		// print the final interval
-		System.out.println(intervals[intervals.length - 1] + "\n");
+		out.println(intervals[intervals.length - 1] + "\n");
 	}
 	
 	/**
@@ -154,7 +427,7 @@ public class ScaleCollection {
 	 * and then read back in each time the program starts.
 	 * @return the scale collection information formatted for writing
 	 */
-	String toFileLine() {
+	public String toFileLine() {
 		return getFormat() + "; " + getType() + "; " + String.join(", ", getIntervals()) + "; " + getSimplify();
 	}
 	
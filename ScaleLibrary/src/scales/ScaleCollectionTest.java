@@ -2,6 +2,8 @@ package scales;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.management.ManagementFactory;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,6 +45,7 @@ class ScaleCollectionTest {
 		Interval.getIntervals().clear();
 		Accidental.getAccidentals().clear();
 		Note.getNotes().clear();
+		Note.getRootNotes().clear();
 	}
 
 	@Test
@@ -99,6 +102,142 @@ class ScaleCollectionTest {
 		assertEquals(13, scales.getAllScales().size(), "Invalid scales should not be included in the final collection");
 	}
 
+	@Test
+	void testGetScale() {
+		this.scales1.createAllScales();
+		
+		// test that lookups ignore case and whitespace, and agree with the map of all scales
+		assertSame(this.scales1.getAllScales().get("bb"), this.scales1.getScale("Bb"));
+		assertSame(this.scales1.getAllScales().get("bb"), this.scales1.getScale(" bb "));
+		assertSame(this.scales1.getAllScales().get("f#"), this.scales1.getScale(Note.getNote("F#")));
+		for (Note root : Note.getRootNotes()) {
+			assertSame(this.scales1.getAllScales().get(root.getKey()), this.scales1.getScale(root.toString()));
+		}
+		
+		// test notes without scales and random text
+		assertNull(this.scales1.getScale("Fx"));
+		assertNull(this.scales1.getScale("H"));
+		assertNull(this.scales1.getScale("pattern"));
+	}
+
+	@Test
+	void testLazyCreation() {
+		// test that looking up a scale only creates that scale
+		assertFalse(this.scales1.isCreated());
+		Scale scale = this.scales1.getScale("Bb");
+		assertEquals(Note.getNote("Eb"), scale.getNotes().get(3));
+		assertSame(scale, this.scales1.getScale(Note.getNote("Bb")));
+		assertNull(this.scales1.getScale("Fx"), "Scales should only be created for root notes");
+		assertFalse(this.scales1.isCreated());
+		
+		// test that getting every scale creates the rest
+		assertEquals(21, this.scales1.getAllScales().size());
+		assertTrue(this.scales1.isCreated());
+		assertSame(scale, this.scales1.getScale("Bb"));
+	}
+
+	@Test
+	void testRecordUse() {
+		Note root = Note.getNote("Eb");
+		assertEquals(0, this.scales1.getUses(root));
+		this.scales1.recordUse(root);
+		this.scales1.recordUse(root);
+		assertEquals(2, this.scales1.getUses(root));
+		assertEquals(0, this.scales1.getUses(Note.getNote("C")));
+	}
+
+	@Test
+	void testSpellingCache() {
+		this.scales1.createAllScales();
+		long hits = ScaleCollection.getSpellingCache().getStats().getHits();
+		
+		// test that a collection with the same pattern reuses the spellings but gets its own scales
+		ScaleCollection copy = new ScaleCollection("scale", "major", this.scales1.getIntervals(), false);
+		copy.createAllScales();
+		assertEquals(hits + 21, ScaleCollection.getSpellingCache().getStats().getHits());
+		assertEquals(this.scales1.getScale("Db").getNotes(), copy.getScale("Db").getNotes());
+		assertNotSame(this.scales1.getScale("Db").getNotes(), copy.getScale("Db").getNotes());
+		
+		// test that the interval names used don't matter, only the intervals themselves
+		String[] intervals = Interval.toLibraryNames(new String[] {"P1", "M2", "M3", "P4", "P5", "M6", "M7", "P8"});
+		new ScaleCollection("scale", "other major", intervals, false).createAllScales();
+		assertEquals(hits + 42, ScaleCollection.getSpellingCache().getStats().getHits());
+		
+		// test that simplified scales are spelled separately
+		this.scales2.createAllScales();
+		assertEquals(Note.getNote("B"), this.scales2.getScale("G").getNotes().get(2));
+	}
+
+	@Test
+	void testGetScaleAllocation() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assertTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		
+		this.scales1.createAllScales();
+		String[] names = {"C", "bb", "F#", " eb ", "Cb", "g", "Fx", "pattern"};
+		
+		// warm up until the lookup is compiled, so that class loading and compilation aren't counted
+		int found = lookUp(this.scales1, names, 50000);
+		
+		// measure the cost of reading the counter itself
+		long start = threads.getCurrentThreadAllocatedBytes();
+		long overhead = threads.getCurrentThreadAllocatedBytes() - start;
+		
+		// test that looking up scales by name doesn't allocate anything, taking the quietest of several
+		// windows so that a deoptimisation or on-stack replacement during one of them isn't counted
+		long allocated = Long.MAX_VALUE;
+		for (int window = 0; window < 5; window++) {
+			start = threads.getCurrentThreadAllocatedBytes();
+			found += lookUp(this.scales1, names, 10000);
+			allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - start - overhead);
+		}
+		assertEquals(0, allocated, "Looking up a scale should not allocate");
+		assertEquals(6 * 100000, found);
+		
+		// test that printing a note doesn't allocate either, once warmed up in the same way
+		Note note = Note.getNote("Bb");
+		int length = printedLength(note, 50000);
+		allocated = Long.MAX_VALUE;
+		for (int window = 0; window < 5; window++) {
+			start = threads.getCurrentThreadAllocatedBytes();
+			length += printedLength(note, 10000);
+			allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - start - overhead);
+		}
+		assertEquals(0, allocated, "Printing a note should not allocate");
+		assertEquals(3 * 100000, length);
+	}
+	
+	/**
+	 * Looks up the scale for each root note name the given number of times.
+	 * @return the number of scales found
+	 */
+	private static int lookUp(ScaleCollection scales, String[] names, int times) {
+		int found = 0;
+		for (int i = 0; i < times; i++) {
+			for (String name : names) {
+				if (scales.getScale(name) != null) {
+					found++;
+				}
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Converts the note and its accidental to strings the given number of times.
+	 * @return the total length of the strings
+	 */
+	private static int printedLength(Note note, int times) {
+		int length = 0;
+		for (int i = 0; i < times; i++) {
+			length += note.toString().length() + note.getAccidental().toString().length();
+		}
+		
+		return length;
+	}
+
 	@Test
 	void testToFileLine() {
 		// test the major scale collection
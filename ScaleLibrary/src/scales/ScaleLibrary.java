@@ -1,13 +1,26 @@
 package scales;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
+import audio.*;
+import datamanagement.Reader;
+import datamanagement.StoreReader;
+import datamanagement.TextReader;
 import files.*;
+import midi.*;
 import notes.*;
+import processor.Processor;
+import query.LibraryIndex;
+import query.Query;
+import query.QueryPlan;
+import sets.PitchClassSets;
+import tuning.Tuning;
 
 /**
  * Represents a scale library system where users can view musical scales and create their own.
@@ -16,22 +29,137 @@ import notes.*;
 public class ScaleLibrary {
 	
 	/**
-	 * The complete catalogue of scales in the library. This maps scale formats to the list of all scale
-	 * collections available for that format.
+	 * The complete catalogue of scales in the library. Each version maps scale formats to the list of all
+	 * scale collections available for that format, and is never changed once published, so menus can
+	 * read a consistent snapshot while the catalogue is being reloaded or edited.
 	 */
-	private Map<String, ArrayList<ScaleCollection>> library;
+	private VersionedLibrary library;
+	
+	/**
+	 * A mapping of the scale files to the library sections they are loaded into.
+	 */
+	private static final Map<String, String> CATALOG_FILES = Map.of("scales.txt", "scales", "modes.txt", "modes",
+			"arpeggios.txt", "arpeggios");
+	
+	/**
+	 * The file holding the usage counts of scales and queries, which choose what is prepared on startup.
+	 */
+	public static final File USAGE_FILE = new File("usage.txt");
+	
+	/**
+	 * The custom scales of every user, stored with the backend chosen by the scalelibrary.storage system
+	 * property ("text" for scale files, or "store" for the embedded key-value store).
+	 */
+	private CustomScales customScales;
+	
+	/**
+	 * The namespace holding the custom scales of the current user.
+	 */
+	private String user;
 	
 	/**
 	 * The scanner object for getting user input.
 	 */
-	private Scanner scanner = new Scanner(System.in);
+	private Scanner scanner;
+	
+	/**
+	 * The stream that menus and scales are printed to.
+	 */
+	private PrintStream out;
+	
+	/**
+	 * Whether the user may export files, which are written to this machine's file system.
+	 */
+	private boolean exportAllowed;
+	
+	/**
+	 * The name index of the latest version of each library section shown in a menu, kept between menus
+	 * since large sections take a while to index.
+	 */
+	private Map<String, MenuIndex> menuIndexes = new HashMap<String, MenuIndex>();
+	
+	/**
+	 * The query index of the latest version of every section, including the user's custom scales.
+	 */
+	private LibraryIndex libraryIndex;
+	
+	/**
+	 * Creates a library system for a local user, reading from the keyboard and printing to the console in
+	 * UTF-8 (e.g. for chord symbols such as vii°).
+	 * @param user the namespace holding the user's custom scales
+	 */
+	public ScaleLibrary(String user) {
+		this(new VersionedLibrary(), openCustomScales(), user, System.in,
+				new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8), true);
+	}
 	
 	/**
-	 * Gets the full catalogue of scales in the library.
-	 * @return the map of scale collection lists
+	 * Creates a library system for one session, sharing the catalogue and custom scales with other
+	 * sessions.
+	 * @param library the catalogue of built-in scales
+	 * @param customScales the custom scales of every user
+	 * @param user the namespace holding the user's custom scales
+	 * @param in the stream that user input is read from
+	 * @param out the stream that menus and scales are printed to
+	 * @param exportAllowed true if the user may export files
 	 */
-	private Map<String, ArrayList<ScaleCollection>> getLibrary() {
-		return library;
+	public ScaleLibrary(VersionedLibrary library, CustomScales customScales, String user, InputStream in,
+			PrintStream out, boolean exportAllowed) {
+		this.library = library;
+		this.customScales = customScales;
+		this.user = user;
+		this.scanner = new Scanner(in, StandardCharsets.UTF_8);
+		this.out = out;
+		this.exportAllowed = exportAllowed;
+	}
+	
+	/**
+	 * Gets the latest version of a library section. The custom scales section holds the custom scales of
+	 * the current user.
+	 * @param section the name of the section (e.g. scales, custom scales)
+	 * @return the unmodifiable list of scale collections
+	 */
+	private List<ScaleCollection> getSection(String section) {
+		if ("custom scales".equals(section)) {
+			try {
+				return customScales.getNamespace(user).getScales();
+			} catch (IOException e) {
+				e.printStackTrace();
+				return new ArrayList<ScaleCollection>();
+			}
+		}
+		
+		return library.snapshot().get(section);
+	}
+	
+	/**
+	 * Gets the name index of the latest version of a library section, indexing it if it has changed.
+	 * @param section the name of the section
+	 * @return the index
+	 */
+	private MenuIndex getMenuIndex(String section) {
+		List<ScaleCollection> scalesList = getSection(section);
+		MenuIndex index = menuIndexes.get(section);
+		if (index == null || index.getScales() != scalesList) {
+			index = new MenuIndex(scalesList);
+			menuIndexes.put(section, index);
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Gets the query index of the latest version of every section, indexing them again if any has changed.
+	 * @return the index
+	 */
+	private LibraryIndex getLibraryIndex() {
+		List<List<ScaleCollection>> sections = new ArrayList<List<ScaleCollection>>(library.snapshot().getSections().values());
+		sections.add(getSection("custom scales"));
+		if (libraryIndex == null || !libraryIndex.isFor(sections)) {
+			libraryIndex = new LibraryIndex(sections);
+		}
+		
+		return libraryIndex;
 	}
 	
 	/**
@@ -39,23 +167,33 @@ public class ScaleLibrary {
 	 */
 	private void printMainOptions() {
 		printMenuHeading("Main menu");
-		System.out.println("1. Search scales");
-		System.out.println("2. Search modes");
-		System.out.println("3. Search arpeggios");
-		System.out.println("4. Search custom scales");
-		System.out.println("5. Add custom scale");
-		System.out.println("6. Remove custom scales");
-		System.out.println();
+		out.println("1. Search scales");
+		out.println("2. Search modes");
+		out.println("3. Search arpeggios");
+		out.println("4. Search custom scales");
+		out.println("5. Add custom scale");
+		out.println("6. Remove custom scales");
+		out.println("7. Export MIDI files");
+		out.println("8. Export audio files");
+		out.println("9. Search imported scales");
+		out.println("10. Query scales");
+		out.println();
 	}
 	
 	/**
-	 * Receives input from the user.
-	 * @return
+	 * Receives input from the user. When the input ends, every menu is closed by returning "0".
+	 * @return the user's input
 	 */
 	private String getUserInput() {
+		// show the prompt before waiting for the user
+		out.flush();
+		
 		// get input from the user until they enter a non-blank line
 		String input = "";
 		while (input.isEmpty()) {
+			if (!scanner.hasNextLine()) {
+				return "0";
+			}
 			input = scanner.nextLine().trim();
 		}
 		
@@ -72,22 +210,22 @@ public class ScaleLibrary {
 		int option = -1;
 		while (true) {
 			// prompt user to enter a number
-			System.out.print("Enter an option number, or 0 to quit: ");
+			out.print("Enter an option number, or 0 to quit: ");
 			String input = getUserInput();
 			
 			// cast input to an integer
 			try {
 				option = Integer.parseInt(input);
 			} catch (NumberFormatException e) {
-				System.out.println("Invalid option.\n");
+				out.println("Invalid option.\n");
 				continue;
 			}
 			
 			// check if input number is within the allowable range
 			if (option < 0 || option > numOptions) {
-				System.out.println("Invalid option.\n");
+				out.println("Invalid option.\n");
 			} else {
-				System.out.println();
+				out.println();
 				break;
 			}
 		}
@@ -100,64 +238,131 @@ public class ScaleLibrary {
 	 * @param heading the menu heading
 	 */
 	private void printMenuHeading(String heading) {
-		// calculate length of bar to surround heading
-		int barLength = heading.length() + 2;
-		printBar(barLength);
-		
-		// print the heading with a single-space indent
-		System.out.println(" " + heading);
-		printBar(barLength);
+		out.print(appendMenuHeading(new StringBuilder(), heading));
 	}
 	
 	/**
-	 * Prints a heading bar with the given length.
-	 * @param length the length of the bar
+	 * Appends the given text as a menu heading, surrounded by bars of dashes.
+	 * @param buffer the buffer to append to
+	 * @param heading the menu heading
+	 * @return the buffer
 	 */
-	private void printBar(int length) {
-		// print the required number of dash characters
-		for (int i = 0; i < length; i++) {
-			System.out.print("-");
-		}
+	static StringBuilder appendMenuHeading(StringBuilder buffer, String heading) {
+		// calculate length of bar to surround heading
+		String bar = "-".repeat(heading.length() + 2);
 		
-		System.out.println();
+		// print the heading with a single-space indent
+		buffer.append(bar).append('\n');
+		buffer.append(' ').append(heading).append('\n');
+		buffer.append(bar).append('\n');
+		return buffer;
 	}
 	
 	/**
-	 * Prompts the user to select a scale type filtered by the given format.
+	 * Prompts the user to select a scale type filtered by the given format. Large sections are shown one
+	 * page at a time, and can be filtered by typing part of a name.
 	 * @param format the format of the scales to filter by
 	 */
 	private void searchScales(String format) {
-		// get the list of scale collections with the given format
-		ArrayList<ScaleCollection> scalesList = getLibrary().get(format);
-		
 		// check if any scales are available
-		if (scalesList.isEmpty()) {
-			System.out.println("No " + format + " found.\n");
+		if (getSection(format).isEmpty()) {
+			out.println("No " + format + " found.\n");
 			return;
 		}
 		
 		// prompt user to select an option number corresponding to a scale type
-		int option = -1;
+		PagedMenu menu = new PagedMenu("Search " + format, true);
 		while (true) {
-			printMenuHeading("Search " + format);
+			// take the latest version of the list, which stays the same while this page is shown
+			menu.update(getMenuIndex(format));
 			
-			// print all scale types
-			for (int i = 0; i < scalesList.size(); i++) {
-				System.out.println((i + 1) + ". " + scalesList.get(i));
+			// build the page and the prompt so that they are printed with a single write
+			StringBuilder page = menu.appendPage(new StringBuilder());
+			page.append("Enter an option number, ");
+			menu.appendCommands(page).append("or 0 to quit: ");
+			out.print(page);
+			String input = getUserInput();
+			
+			// check if user wants to quit
+			if ("0".equals(input)) {
+				out.println();
+				return;
 			}
 			
-			System.out.println();
+			// move between pages or change the filter
+			if (menu.navigate(input)) {
+				out.println();
+				continue;
+			}
 			
-			// get input from the user
-			option = getOption(scalesList.size());
+			// prompt user for specific scales to display
+			ScaleCollection scales = null;
+			try {
+				scales = menu.getOption(Integer.parseInt(input));
+			} catch (NumberFormatException e) {
+				// not an option number
+			}
+			
+			if (scales == null) {
+				out.println("Invalid option.\n");
+			} else {
+				out.println();
+				selectScalesToPrint(scales);
+			}
+		}
+	}
+	
+	/**
+	 * Prompts the user for queries (e.g. contains b3 and #4; notes 7; root Bb) and prints the matching
+	 * scale collections, or the scales starting on the query's root note. Queries search every section at
+	 * once, so users who know what they are looking for don't need to go through the menus.
+	 */
+	private void queryScales() {
+		printMenuHeading("Query scales");
+		out.println("Enter clauses separated by semicolons: contains <intervals>, not contains <intervals>,");
+		out.println("notes <count>, root <note>, format <format> or name <words>.\n");
+		
+		while (true) {
+			// prompt user for a query
+			out.print("Enter a query (e.g. contains b3 and #4; notes 7), or 0 to quit: ");
+			String input = getUserInput();
 			
 			// check if user wants to quit
-			if (option == 0) {
+			if ("0".equals(input)) {
+				out.println();
 				return;
 			}
 			
-			// prompt user for specific scales to display
-			selectScalesToPrint(scalesList.get(option - 1));
+			// check if the query is valid
+			Query query;
+			try {
+				query = Query.parse(input);
+			} catch (IllegalArgumentException e) {
+				out.println("Invalid query: " + e.getMessage() + ".\n");
+				continue;
+			}
+			out.println();
+			
+			// print the collections, or the scales on the root note
+			QueryPlan plan = getLibraryIndex().plan(query);
+			if (query.getRoot() == null) {
+				StringBuilder page = new StringBuilder();
+				List<ScaleCollection> found = plan.findCollections();
+				for (ScaleCollection scales : found) {
+					page.append("  ").append(scales).append('\n');
+				}
+				page.append(found.isEmpty() ? "No scales found.\n\n" : "\n");
+				out.print(page);
+				continue;
+			}
+			
+			List<Scale> found = plan.findScales();
+			if (found.isEmpty()) {
+				out.println("No scales found.\n");
+			}
+			for (Scale scale : found) {
+				scale.printNotes(out);
+			}
 		}
 	}
 	
@@ -169,38 +374,64 @@ public class ScaleLibrary {
 	private void selectScalesToPrint(ScaleCollection scales) {
 		// print instructions for how user can select a scale to display
 		printMenuHeading("Search " + scales + "s");
-		System.out.println("Enter a root note (e.g. Bb) to view the scale, or type 'pattern'");
-		System.out.println("to view the interval pattern for this scale type.\n");
+		out.println("Enter a root note (e.g. Bb) to view the scale, 'chords' and a root note (e.g. chords Bb)");
+		out.println("to view the chords on each degree, 'set' and a root note (e.g. set Bb) to view its");
+		out.println("pitch-class set analysis, or type 'pattern' to view the interval pattern for this scale type.\n");
 		
 		// get input from user and print the associated scales
 		String input = "";
 		while (true) {
 			// prompt user to enter an option
-			System.out.print("Enter an option, or 0 to quit: ");
-			input = getUserInput().toLowerCase();
+			out.print("Enter an option, or 0 to quit: ");
+			input = getUserInput();
 			
 			// check if user want to quit
 			if ("0".equals(input)) {
-				System.out.println();
+				out.println();
 				return;
 			}
 			
 			// print the sequence of intervals for this scale type
-			if ("pattern".equals(input)) {
-				System.out.println();
-				scales.printIntervals();
+			if ("pattern".equalsIgnoreCase(input)) {
+				out.println();
+				scales.printIntervals(out);
 				continue;
 			}
 			
+			// print the chords on each degree of the scale
+			boolean chords = input.toLowerCase().startsWith("chords ");
+			if (chords) {
+				input = input.substring("chords ".length()).trim();
+			}
+			
+			// print the pitch-class set analysis of the scale
+			boolean set = input.toLowerCase().startsWith("set ");
+			if (set) {
+				input = input.substring("set ".length()).trim();
+			}
+			
 			// get the requested scale
-			Scale scale = scales.getAllScales().get(input);
+			Scale scale = scales.getScale(input);
 			
-			// print the scale, if available
+			// print the scale, if available, or suggest the notes the user may have meant
 			if (scale == null) {
-				System.out.println("Scale not found.\n");
+				List<Note> suggestions = scales.suggestRoots(input);
+				if (suggestions.isEmpty()) {
+					out.println("Scale not found.\n");
+				} else {
+					out.println("Scale not found. Did you mean " + Notation.formatAlternatives(suggestions) + "?\n");
+				}
+			} else if (chords) {
+				out.println();
+				Harmoniser.forArpeggios(library.snapshot().get("arpeggios")).printChords(scale, out);
+			} else if (set) {
+				out.println();
+				out.println("Set: " + scale);
+				PitchClassSets.printAnalysis(PitchClassSets.toMask(scale), out);
 			} else {
-				System.out.println();
-				scale.printNotes();
+				out.println();
+				scales.recordUse(scale.getRoot());
+				scale.printNotes(out);
 			}
 		}
 	}
@@ -213,11 +444,11 @@ public class ScaleLibrary {
 		
 		// prompt user for scale format
 		String input = "";
-		System.out.print("Enter the scale format (e.g. scale, arpeggio), or 0 to quit: ");
+		out.print("Enter the scale format (e.g. scale, arpeggio), or 0 to quit: ");
 		input = getUserInput();
 		String format = input.toLowerCase();
 		
-		System.out.println();
+		out.println();
 		
 		// check if user wants to quit
 		if ("0".equals(input)) {
@@ -225,11 +456,11 @@ public class ScaleLibrary {
 		}
 		
 		// prompt user for scale type
-		System.out.print("Enter the scale name/type (e.g. major, minor), or 0 to quit: ");
+		out.print("Enter the scale name/type (e.g. major, minor), or 0 to quit: ");
 		input = getUserInput();
         String type = input.toLowerCase();
         
-        System.out.println();
+        out.println();
 		
         // check if user wants to quit
 		if ("0".equals(input)) {
@@ -239,34 +470,34 @@ public class ScaleLibrary {
 		// prompt user for interval sequence
 		String[] intervals;
 		while (true) {
-			System.out.print("Enter the interval sequence (e.g. 1, 2, b3, 5, 6, 8), or 0 to quit: ");
+			out.print("Enter the interval sequence (e.g. 1, 2, b3, 5, 6, 8), or 0 to quit: ");
 			input = getUserInput();
 			
 			// check if user wants to quit
 			if ("0".equals(input)) {
-				System.out.println();
+				out.println();
 				return;
 			}
 			
 			// check if interval sequence is valid
-			intervals = input.split(",\\s*");
-			if (isValid(intervals)) {
-				System.out.println();
+			intervals = Interval.toLibraryNames(input.split(",\\s*"));
+			if (intervals != null) {
+				out.println();
 				break;
 			} else {
-				System.out.println("Invalid interval sequence.\n");
+				out.println("Invalid interval sequence.\n");
 			}
 		}
 		
 		// prompt user for whether scale should be simplified using enharmonics
 		boolean simplify = false;
 		while (true) {
-			System.out.print("Should the scale be simplified using enharmonics (y/n)? ");
+			out.print("Should the scale be simplified using enharmonics (y/n)? ");
 			input = getUserInput().toLowerCase();
 			
 			// check if user wants to quit
 			if ("0".equals(input)) {
-				System.out.println();
+				out.println();
 				return;
 			}
 			
@@ -277,156 +508,308 @@ public class ScaleLibrary {
 			} else if ("n".equals(input) || "no".equals(input)) {
 				break;
 			} else {
-				System.out.println("Invalid option.\n");
+				out.println("Invalid option.\n");
 			}
 		}
 		
-		System.out.println();
+		out.println();
 		
 		// create the new scale collection using the user's input
 		ScaleCollection scales = new ScaleCollection(format, type, intervals, simplify);
 		scales.createAllScales();
-		getLibrary().get("custom scales").add(scales);
 		
-		// save the new scale to file
-		writeCustomScales("custom.txt");
-		System.out.println("New " + format + " successfully added.\n");
+		// save the new scale to the user's namespace
+		try {
+			customScales.getNamespace(user).add(scales);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		out.println("New " + format + " successfully added.\n");
 	}
 	
 	/**
-	 * Prompts the user to remove custom scales from the library.
+	 * Prompts the user to remove custom scales from the library, either by id (the name shown in the
+	 * menu, e.g. "my blues scale") or by a pattern matching several names (e.g. *blues*).
 	 */
 	private void removeCustomScale() {
-		// get the list of current custom scales
-        ArrayList<ScaleCollection> scalesList = getLibrary().get("custom scales");
-		
-        // check if any custom scales were found
-		if (scalesList.isEmpty()) {
-			System.out.println("No custom scales found.\n");
+		// check if any custom scales were found
+		if (getSection("custom scales").isEmpty()) {
+			out.println("No custom scales found.\n");
 			return;
 		}
 		
 		// prompt user for custom scales to remove
-		int option = -1;
+		PagedMenu menu = new PagedMenu("Remove custom scales", false);
 		while (true) {
+			// get the latest version of the list, since the library may have been updated
+			MenuIndex index = getMenuIndex("custom scales");
+			
 			// check if there are any more custom scales to remove
-			if (scalesList.isEmpty()) {
-				System.out.println("All custom scales have now been removed.\n");
+			if (index.getScales().isEmpty()) {
+				out.println("All custom scales have now been removed.\n");
 				return;
 			}
 			
-			// display all custom scales
-			printMenuHeading("Remove custom scales");
-			for (int i = 0; i < scalesList.size(); i++) {
-				System.out.println((i + 1) + ". " + scalesList.get(i));
+			// display a page of custom scales
+			menu.update(index);
+			StringBuilder page = menu.appendPage(new StringBuilder());
+			page.append("Enter a scale name or a pattern (e.g. *blues*), ");
+			menu.appendCommands(page).append("or 0 to quit: ");
+			out.print(page);
+			String input = getUserInput();
+			
+			// check if user wants to quit
+			if ("0".equals(input)) {
+				out.println();
+				return;
 			}
 			
-			System.out.println();
+			// move between pages or change the filter
+			if (menu.navigate(input)) {
+				out.println();
+				continue;
+			}
 			
-			// prompt user to enter an option number
-			option = getOption(scalesList.size());
+			// find the scales chosen by id or pattern
+			List<ScaleCollection> removed = index.find(input);
+			if (removed.isEmpty()) {
+				out.println("Scale not found.\n");
+				continue;
+			}
 			
-			// check if user wants to quit
-			if (option == 0) {
-				return;
+			// check before removing several scales at once
+			if (removed.size() > 1) {
+				out.print("Remove " + removed.size() + " scales (y/n)? ");
+				String answer = getUserInput().toLowerCase();
+				if (!"y".equals(answer) && !"yes".equals(answer)) {
+					out.println();
+					continue;
+				}
 			}
 			
-			// remove the scale from the library
-			scalesList.remove(option - 1);
-			writeCustomScales("custom.txt");
-			System.out.println("Scale successfully removed.\n");
+			// remove the scales from the library with a single write
+			int count = 0;
+			try {
+				count = customScales.getNamespace(user).removeAll(removed);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			out.println(count == 1 ? "Scale successfully removed.\n" : count + " scales successfully removed.\n");
 		}
 	}
 	
 	/**
-	 * Checks if the given array of interval names is valid.
-	 * @param intervals the array of interval names to check
-	 * @return true if all intervals are valid, otherwise false
+	 * Prompts the user for a directory and playback direction, then renders every scale in the library
+	 * to MIDI or WAV files.
+	 * @param audio true to synthesise WAV files, or false to write MIDI files
 	 */
-	private boolean isValid(String[] intervals) {
-		// try to create an interval from each interval name
-		for (String interval : intervals) {
-			if (Interval.getInterval(interval) == null) {
-				return false;
+	private void exportFiles(boolean audio) {
+		if (!exportAllowed) {
+			out.println("Exporting files is not available in this session.\n");
+			return;
+		}
+		
+		printMenuHeading(audio ? "Export audio files" : "Export MIDI files");
+		
+		// prompt user for the output directory
+		out.print("Enter the output directory, or 0 to quit: ");
+		String input = getUserInput();
+		out.println();
+		
+		// check if user wants to quit
+		if ("0".equals(input)) {
+			return;
+		}
+		
+		File directory = new File(input);
+		
+		// prompt user for the playback direction
+		Direction direction;
+		while (true) {
+			out.print("Enter the direction (ascending, descending, ascending-descending): ");
+			direction = Direction.getDirection(getUserInput());
+			
+			if (direction != null) {
+				out.println();
+				break;
+			} else {
+				out.println("Invalid direction.\n");
 			}
 		}
 		
-		return true;
+		// render the full library, including the custom scales of every user
+		Map<String, List<ScaleCollection>> sections = new HashMap<String, List<ScaleCollection>>(library.snapshot().getSections());
+		try {
+			sections.put("custom scales", customScales.getAllScales());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		int written;
+		if (audio) {
+			SynthOptions options = new SynthOptions(44100, 120, 4, direction, 1.0, Timbre.SINE, Envelope.DEFAULT,
+					Tuning.equalTemperament(440), false);
+			written = new Synthesiser(options).writeLibrary(sections, directory);
+		} else {
+			MidiOptions options = new MidiOptions(120, 4, direction, 1.0);
+			written = new MidiRenderer(options).writeLibrary(sections, directory);
+		}
+		
+		out.println(written + " files written to " + directory.getAbsolutePath() + ".\n");
 	}
 	
 	/**
-	 * Writes the current list of custom scales to the given file.
-	 * @param filename the file to write to
+	 * Opens the storage backend for a custom scale namespace, selected by the scalelibrary.storage system
+	 * property. The default namespace is stored in custom.txt (or custom.store), and every other
+	 * namespace has its own file in the custom directory.
+	 * @param namespace the name of the namespace
+	 * @return the storage backend
+	 * @throws IOException if the storage cannot be opened
 	 */
-	private void writeCustomScales(String filename) {
-		// get the current list of custom scales
-		ArrayList<ScaleCollection> scalesList = getLibrary().get("custom scales");
+	private static Reader openCustomStorage(String namespace) throws IOException {
+		boolean store = "store".equals(System.getProperty("scalelibrary.storage"));
+		String extension = store ? ".store" : ".txt";
 		
-		// prepare the file for writing
-		File file = new File(filename);
-		FileWriter fw = null;
-		PrintWriter pw = null;
+		File file;
+		if (CustomScales.DEFAULT_NAMESPACE.equals(namespace)) {
+			file = new File("custom" + extension);
+		} else {
+			File directory = new File("custom");
+			directory.mkdirs();
+			file = new File(directory, namespace + extension);
+		}
 		
-		try {
-			// create the file writers
-			fw = new FileWriter(file, false);
-			pw = new PrintWriter(fw);
-			
-			// write each custom scale to the file
-			for (ScaleCollection scales : scalesList) {
-				pw.println(scales.toFileLine());
-			}
-			
-		} catch (IOException e) {
-			e.printStackTrace();
-			
-		} finally {
-			try {
-				// close the file writers
-				pw.flush();
-				fw.close();
-				pw.close();
-				
-			} catch (IOException e) {
-				e.printStackTrace();
+		return store ? new StoreReader(file) : new TextReader(file);
+	}
+	
+	/**
+	 * Lists the custom scale namespaces stored with the backend chosen by the scalelibrary.storage system
+	 * property: the default namespace if its file exists, and one namespace for each file in the custom
+	 * directory.
+	 * @return the names of the namespaces
+	 */
+	private static List<String> listCustomStorage() {
+		String extension = "store".equals(System.getProperty("scalelibrary.storage")) ? ".store" : ".txt";
+		List<String> names = new ArrayList<String>();
+		if (new File("custom" + extension).exists()) {
+			names.add(CustomScales.DEFAULT_NAMESPACE);
+		}
+		
+		File[] files = new File("custom").listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(extension)) {
+					names.add(file.getName().substring(0, file.getName().length() - extension.length()));
+				}
 			}
 		}
+		
+		return names;
+	}
+	
+	/**
+	 * Opens the custom scales of every user, stored with the backend chosen by the scalelibrary.storage
+	 * system property.
+	 * @return the custom scales
+	 */
+	public static CustomScales openCustomScales() {
+		return new CustomScales(ScaleLibrary::openCustomStorage, ScaleLibrary::listCustomStorage);
 	}
 	
 	/**
-	 * Loads all scales from the scale files into the library.
+	 * Loads all scales from the scale files in the working directory into the given library.
+	 * @param library the library to load into
 	 */
-	private void loadAllScales() {
+	public static void loadAllScales(VersionedLibrary library) {
 		// create a new map to store the lists of scale collections
-		library = new HashMap<String, ArrayList<ScaleCollection>>();
+		Map<String, ArrayList<ScaleCollection>> allScales = new HashMap<String, ArrayList<ScaleCollection>>();
 		
 		// read the scale files and create each scale collection
-		library.put("scales", FileLoader.loadFileData("scales.txt"));
-		library.put("modes", FileLoader.loadFileData("modes.txt"));
-		library.put("arpeggios", FileLoader.loadFileData("arpeggios.txt"));
-		library.put("custom scales", FileLoader.loadFileData("custom.txt"));
+		for (Map.Entry<String, String> file : CATALOG_FILES.entrySet()) {
+			allScales.put(file.getValue(), FileLoader.loadFileData(file.getKey()));
+		}
+		allScales.put("imported scales", loadScalaFiles("scala"));
+		
+		library.replaceAll(allScales);
 	}
 	
-	public static void main(String[] args) {
-		System.out.println("Welcome to the scale library!\n");
-		
-		// create a new scale library
-		ScaleLibrary librarySystem = new ScaleLibrary();
+	/**
+	 * Imports every Scala file in the given directory, printing a message for each file that fails.
+	 * @param directory the directory containing the Scala files
+	 * @return the list of imported scale collections, sorted by type
+	 */
+	private static ArrayList<ScaleCollection> loadScalaFiles(String directory) {
+		ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>();
 		
-		// create all scale components
-		Accidental.createAllAccidentals();
-		Note.createAllNotes();
-		Interval.createAllIntervals();
+		// results arrive from several threads, so collect them under a lock
+		ScalaLoader.importDirectory(new File(directory), result -> {
+			synchronized (scalesList) {
+				if (result.isSuccessful()) {
+					scalesList.add(result.getScales());
+				} else {
+					System.out.println(result);
+				}
+			}
+		});
 		
-		// create all scale collections from the scale files
-		librarySystem.loadAllScales();
+		scalesList.sort((first, second) -> first.getType().compareTo(second.getType()));
+		return scalesList;
+	}
+	
+	/**
+	 * Gets every scale collection whose use is recorded: the built-in sections followed by the custom
+	 * scales of every user who has opened their namespace.
+	 * @param library the catalogue of built-in scales
+	 * @param customScales the custom scales of every user
+	 * @return the lists of scale collections
+	 */
+	public static List<List<ScaleCollection>> getUsageSections(VersionedLibrary library, CustomScales customScales) {
+		List<List<ScaleCollection>> sections = new ArrayList<List<ScaleCollection>>(library.snapshot().getSections().values());
+		sections.add(customScales.getOpenScales());
+		return sections;
+	}
+	
+	/**
+	 * Starts preparing the scales and queries used most in earlier runs in the background. Queries are
+	 * run by a processor that discards their output and doesn't record them again.
+	 * @param usage the usage counts
+	 * @param library the catalogue of built-in scales
+	 * @param customScales the custom scales of every user
+	 * @return the running thread
+	 */
+	public static Thread warmUsage(UsageStats usage, VersionedLibrary library, CustomScales customScales) {
+		Processor processor = new Processor(library, customScales, new PrintStream(OutputStream.nullOutputStream()));
+		return usage.warm(getUsageSections(library, customScales), query -> processor.execute(Processor.tokenize(query)));
+	}
+	
+	/**
+	 * Starts reloading the scale files in the working directory into the given library whenever they are
+	 * edited.
+	 * @param library the library to update
+	 * @return the running watcher
+	 */
+	public static CatalogWatcher watchCatalogFiles(VersionedLibrary library) {
+		CatalogWatcher watcher = new CatalogWatcher(new File("."), CATALOG_FILES, library);
+		try {
+			watcher.start();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 		
+		return watcher;
+	}
+	
+	/**
+	 * Shows the main menu and runs the option chosen by the user until they quit or the input ends.
+	 */
+	public void run() {
 		// get options to interact with user
 		int option;
 		while (true) {
 			// prompt user for an option
-			librarySystem.printMainOptions();
-			option = librarySystem.getOption(6);
+			printMainOptions();
+			option = getOption(10);
 			
 			if (option == 0) {
 				// exit the system
@@ -434,32 +817,78 @@ public class ScaleLibrary {
 				
 			} else if (option == 1) {
 				// look up scales
-				librarySystem.searchScales("scales");
+				searchScales("scales");
 				
 			} else if (option == 2) {
 				// look up modes
-				librarySystem.searchScales("modes");
+				searchScales("modes");
 				
 			} else if (option == 3) {
 				// look up arpeggios
-				librarySystem.searchScales("arpeggios");
+				searchScales("arpeggios");
 				
 			} else if (option == 4) {
 				// look up custom scales
-				librarySystem.searchScales("custom scales");
+				searchScales("custom scales");
 				
 			} else if (option == 5) {
 				// add custom scales
-				librarySystem.addCustomScale();
+				addCustomScale();
 				
 			} else if (option == 6) {
 				// remove custom scales
-				librarySystem.removeCustomScale();
+				removeCustomScale();
+				
+			} else if (option == 7) {
+				// export the library to MIDI files
+				exportFiles(false);
+				
+			} else if (option == 8) {
+				// export the library to audio files
+				exportFiles(true);
+				
+			} else if (option == 9) {
+				// look up scales imported from Scala files
+				searchScales("imported scales");
+				
+			} else if (option == 10) {
+				// look up scales with a query
+				queryScales();
 			}
 		}
 		
+		out.flush();
+	}
+	
+	public static void main(String[] args) {
+		System.out.println("Welcome to the scale library!\n");
+		
+		// choose the namespace for the user's custom scales
+		String user = System.getProperty("scalelibrary.user", CustomScales.DEFAULT_NAMESPACE).toLowerCase();
+		if (!CustomScales.isValidName(user)) {
+			System.out.println("Invalid user name, using the default custom scales.\n");
+			user = CustomScales.DEFAULT_NAMESPACE;
+		}
+		
+		// create a new scale library
+		ScaleLibrary librarySystem = new ScaleLibrary(user);
+		
+		// create all scale collections from the scale files, and reload them whenever they are edited
+		loadAllScales(librarySystem.library);
+		CatalogWatcher watcher = watchCatalogFiles(librarySystem.library);
+		
+		// prepare the scales used most in earlier runs, leaving the rest to be created when needed
+		UsageStats usage = UsageStats.load(USAGE_FILE);
+		warmUsage(usage, librarySystem.library, librarySystem.customScales);
+		
+		// interact with the user until they quit
+		librarySystem.run();
+		
 		// close the library
 		System.out.println("System closed.");
+		usage.save(USAGE_FILE, getUsageSections(librarySystem.library, librarySystem.customScales));
+		watcher.close();
+		librarySystem.customScales.close();
 		librarySystem.scanner.close();
 	}
 }
@@ -140,6 +140,32 @@ class ScaleTest {
 		assertFalse(scale.isValid(), "The 3rd note should have a triple sharp, making the scale invalid");
 	}
 
+	@Test
+	void testGetPitchSequence() {
+		// test an ascending D major scale
+		int[] ascending = {62, 64, 66, 67, 69, 71, 73, 74};
+		assertArrayEquals(ascending, this.scale1.getPitchSequence(4, Direction.ASCENDING));
+		
+		// test a descending D major scale
+		int[] descending = {74, 73, 71, 69, 67, 66, 64, 62};
+		assertArrayEquals(descending, this.scale1.getPitchSequence(4, Direction.DESCENDING));
+		
+		// test an ascending and descending scale, which should not repeat the top note
+		int[] both = this.scale1.getPitchSequence(4, Direction.ASCENDING_DESCENDING);
+		assertEquals(15, both.length);
+		assertEquals(74, both[7]);
+		assertEquals(73, both[8]);
+		assertEquals(62, both[14]);
+		
+		// test that simplified notes still sound in the right octave
+		Note root = Note.getNote("C");
+		String[] intervals = {"1", "#7", "10"};
+		Scale scale = new Scale(root, "scale", "test", intervals);
+		scale.shuffleAccidentals();
+		int[] pitches = {60, 72, 76};
+		assertArrayEquals(pitches, scale.getPitchSequence(4, Direction.ASCENDING));
+	}
+
 	@Test
 	void testToString() {
 		// test a major scale
@@ -0,0 +1,54 @@
+package scales;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Represents an unmodifiable view of several lists joined end to end. The elements are never copied;
+ * only the references to the lists are held, so the view costs the same however long the lists are.
+ * @author Joel Gibson
+ */
+class UnionList<T> extends AbstractList<T> {
+	
+	/**
+	 * The lists being joined.
+	 */
+	private final List<? extends T>[] parts;
+	
+	/**
+	 * The index in the view of the first element of each list, followed by the total size.
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Creates a view of the given lists, which must not be changed while the view is used.
+	 * @param parts the lists to join
+	 */
+	UnionList(List<? extends T>[] parts) {
+		this.parts = parts;
+		this.offsets = new int[parts.length + 1];
+		for (int i = 0; i < parts.length; i++) {
+			offsets[i + 1] = offsets[i] + parts[i].size();
+		}
+	}
+	
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+		}
+		
+		// find the list holding the index
+		int part = 0;
+		while (offsets[part + 1] <= index) {
+			part++;
+		}
+		
+		return parts[part].get(index - offsets[part]);
+	}
+	
+	@Override
+	public int size() {
+		return offsets[parts.length];
+	}
+}
@@ -0,0 +1,263 @@
+package scales;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import notes.Note;
+
+/**
+ * Records how often each scale and each derived query is used, and keeps the counts across runs so
+ * that the most used ones can be prepared in the background when the library starts. Scale lookups
+ * are counted by their scale collections, while queries (e.g. identifying a set of notes) are counted
+ * here. Everything that isn't warmed is still created lazily when it is first needed.
+ * <p>
+ * The usage file holds one key and its count per line, e.g.
+ * <pre>
+ * lookup; scale; harmonic minor; Bb; 12
+ * query; identify C E G; 3
+ * </pre>
+ * @author Joel Gibson
+ */
+public class UsageStats {
+	
+	/**
+	 * The prefix of the keys counting scale lookups.
+	 */
+	static final String LOOKUP = "lookup; ";
+	
+	/**
+	 * The prefix of the keys counting queries.
+	 */
+	static final String QUERY = "query; ";
+	
+	/**
+	 * The fraction of all recorded uses covered by the warmed keys.
+	 */
+	private static final double HOT_FRACTION = 0.9;
+	
+	/**
+	 * The maximum number of keys warmed on startup.
+	 */
+	private static final int MAX_HOT_KEYS = 200;
+	
+	/**
+	 * The maximum number of keys saved, so that rarely used queries don't make the file grow forever.
+	 */
+	private static final int MAX_SAVED_KEYS = 2000;
+	
+	/**
+	 * The counts loaded from earlier runs.
+	 */
+	private Map<String, Long> saved;
+	
+	/**
+	 * The number of times each query has been run since the counts were loaded.
+	 */
+	private Map<String, LongAdder> queries;
+	
+	/**
+	 * Creates an empty set of usage counts.
+	 */
+	public UsageStats() {
+		saved = new HashMap<String, Long>();
+		queries = new ConcurrentHashMap<String, LongAdder>();
+	}
+	
+	/**
+	 * Loads the usage counts saved by earlier runs. Invalid lines are skipped.
+	 * @param file the usage file, which doesn't need to exist
+	 * @return the usage counts
+	 */
+	public static UsageStats load(File file) {
+		UsageStats stats = new UsageStats();
+		if (!file.exists()) {
+			return stats;
+		}
+		
+		try (BufferedReader br = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				// the count follows the last separator
+				int separator = line.lastIndexOf("; ");
+				if (separator < 0 || !(line.startsWith(LOOKUP) || line.startsWith(QUERY))) {
+					continue;
+				}
+				
+				try {
+					long count = Long.parseLong(line.substring(separator + 2).trim());
+					if (count > 0) {
+						stats.saved.merge(line.substring(0, separator), count, Long::sum);
+					}
+				} catch (NumberFormatException e) {
+					// skip the invalid count
+				}
+			}
+		
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		return stats;
+	}
+	
+	/**
+	 * Records that a query was run.
+	 * @param query the query in a canonical form, so that equivalent queries are counted together
+	 * (e.g. identify C E G)
+	 */
+	public void recordQuery(String query) {
+		queries.computeIfAbsent(QUERY + query, key -> new LongAdder()).increment();
+	}
+	
+	/**
+	 * Creates the key that counts lookups of the given scale.
+	 * @param scales the scale collection
+	 * @param root the root note of the scale
+	 * @return the key
+	 */
+	static String getLookupKey(ScaleCollection scales, Note root) {
+		return LOOKUP + scales.getFormat() + "; " + scales.getType() + "; " + root;
+	}
+	
+	/**
+	 * Adds up the counts from earlier runs and the uses recorded since.
+	 * @param sections the lists of scale collections whose lookups are counted
+	 * @return the total count of each key
+	 */
+	public Map<String, Long> getCounts(Collection<? extends List<ScaleCollection>> sections) {
+		Map<String, Long> counts = new HashMap<String, Long>(saved);
+		for (Map.Entry<String, LongAdder> query : queries.entrySet()) {
+			counts.merge(query.getKey(), query.getValue().sum(), Long::sum);
+		}
+		
+		for (List<ScaleCollection> scalesList : sections) {
+			for (ScaleCollection scales : scalesList) {
+				for (Note root : Note.getRootNotes()) {
+					long uses = scales.getUses(root);
+					if (uses > 0) {
+						counts.merge(getLookupKey(scales, root), uses, Long::sum);
+					}
+				}
+			}
+		}
+		
+		return counts;
+	}
+	
+	/**
+	 * Chooses the keys worth warming: the most used keys that together cover most of the recorded uses.
+	 * Since usage is usually skewed towards a few scales, this is a small fraction of all keys.
+	 * @param sections the lists of scale collections whose lookups are counted
+	 * @return the hot keys, most used first
+	 */
+	public List<String> getHotKeys(Collection<? extends List<ScaleCollection>> sections) {
+		List<Map.Entry<String, Long>> sorted = sortByCount(getCounts(sections));
+		long total = 0;
+		for (Map.Entry<String, Long> entry : sorted) {
+			total += entry.getValue();
+		}
+		
+		// take the shortest prefix covering the hot fraction of all uses
+		List<String> hot = new ArrayList<String>();
+		long covered = 0;
+		for (Map.Entry<String, Long> entry : sorted) {
+			if (covered >= HOT_FRACTION * total || hot.size() == MAX_HOT_KEYS) {
+				break;
+			}
+			
+			hot.add(entry.getKey());
+			covered += entry.getValue();
+		}
+		
+		return hot;
+	}
+	
+	/**
+	 * Starts warming the hot keys in a background thread: the scales that are looked up most often are
+	 * created, and the most frequent queries are run so that their results are cached.
+	 * @param sections the lists of scale collections to warm
+	 * @param runQuery runs a query, discarding its output
+	 * @return the running thread, which doesn't stop the program from exiting
+	 */
+	public Thread warm(Collection<? extends List<ScaleCollection>> sections, Consumer<String> runQuery) {
+		List<String> hot = getHotKeys(sections);
+		
+		// index the collections by format and type
+		Map<String, ScaleCollection> collections = new HashMap<String, ScaleCollection>();
+		for (List<ScaleCollection> scalesList : sections) {
+			for (ScaleCollection scales : scalesList) {
+				collections.putIfAbsent(scales.getFormat() + "; " + scales.getType(), scales);
+			}
+		}
+		
+		Thread thread = new Thread(() -> {
+			for (String key : hot) {
+				if (key.startsWith(QUERY)) {
+					runQuery.accept(key.substring(QUERY.length()));
+					continue;
+				}
+				
+				// the root note follows the format and type
+				int separator = key.lastIndexOf("; ");
+				ScaleCollection scales = collections.get(key.substring(LOOKUP.length(), separator));
+				if (scales != null) {
+					scales.getScale(key.substring(separator + 2));
+				}
+			}
+		}, "usage-warmer");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+	
+	/**
+	 * Saves the counts from earlier runs added to the uses recorded since, most used first. The new
+	 * file is written alongside the old one and moved into place.
+	 * @param file the usage file
+	 * @param sections the lists of scale collections whose lookups are counted
+	 */
+	public void save(File file, Collection<? extends List<ScaleCollection>> sections) {
+		List<Map.Entry<String, Long>> sorted = sortByCount(getCounts(sections));
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8))) {
+				for (int i = 0; i < sorted.size() && i < MAX_SAVED_KEYS; i++) {
+					pw.println(sorted.get(i).getKey() + "; " + sorted.get(i).getValue());
+				}
+				
+				if (pw.checkError()) {
+					throw new IOException("Could not write " + temp);
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Sorts counted keys from the most to the least used, breaking ties by key so the order is stable.
+	 * @param counts the count of each key
+	 * @return the sorted entries
+	 */
+	private static List<Map.Entry<String, Long>> sortByCount(Map<String, Long> counts) {
+		List<Map.Entry<String, Long>> sorted = new ArrayList<Map.Entry<String, Long>>(counts.entrySet());
+		sorted.sort((first, second) -> {
+			int order = Long.compare(second.getValue(), first.getValue());
+			return (order != 0) ? order : first.getKey().compareTo(second.getKey());
+		});
+		
+		return sorted;
+	}
+}
@@ -0,0 +1,126 @@
+package scales;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.Accidental;
+import notes.Interval;
+import notes.Note;
+
+class UsageStatsTest {
+
+	// temporary file holding the usage counts
+	File file;
+
+	// the collections whose lookups are counted
+	ScaleCollection major;
+	ScaleCollection minor;
+	List<List<ScaleCollection>> sections;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+
+		major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		minor = new ScaleCollection("scale", "harmonic minor", new String[] {"1", "2", "b3", "4", "5", "b6", "7", "8"}, false);
+		sections = List.of(List.of(major, minor));
+
+		file = File.createTempFile("usage-test", ".txt");
+		file.delete();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		file.delete();
+
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+
+	@Test
+	void testSaveAndLoad() throws Exception {
+		// test that a missing file gives no counts
+		UsageStats usage = UsageStats.load(file);
+		assertTrue(usage.getCounts(sections).isEmpty());
+
+		major.recordUse(Note.getNote("Bb"));
+		major.recordUse(Note.getNote("Bb"));
+		usage.recordQuery("identify C E G");
+		usage.save(file, sections);
+		assertEquals(List.of("lookup; scale; major; Bb; 2", "query; identify C E G; 1"),
+				Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+
+		// test that the next run adds its uses to the saved counts, skipping invalid lines
+		Files.writeString(file.toPath(), Files.readString(file.toPath()) + "lookup; nonsense\nquery; x; -3\n");
+		UsageStats next = UsageStats.load(file);
+		ScaleCollection reloaded = new ScaleCollection("scale", "major", major.getIntervals(), false);
+		reloaded.recordUse(Note.getNote("Bb"));
+		next.recordQuery("identify C E G");
+		Map<String, Long> counts = next.getCounts(List.of(List.of(reloaded)));
+		assertEquals(2, counts.size());
+		assertEquals(3, (long) counts.get("lookup; scale; major; Bb"));
+		assertEquals(2, (long) counts.get("query; identify C E G"));
+	}
+
+	@Test
+	void testHotKeys() {
+		UsageStats usage = new UsageStats();
+
+		// test that the hot keys are the fewest that cover most uses
+		for (int i = 0; i < 60; i++) {
+			major.recordUse(Note.getNote("C"));
+		}
+		for (int i = 0; i < 30; i++) {
+			usage.recordQuery("identify C E G");
+		}
+		minor.recordUse(Note.getNote("A"));
+		major.recordUse(Note.getNote("G"));
+		assertEquals(List.of("lookup; scale; major; C", "query; identify C E G"), usage.getHotKeys(sections));
+
+		// test that evenly used keys are all hot
+		UsageStats even = new UsageStats();
+		even.recordQuery("identify C E G");
+		even.recordQuery("identify D F# A");
+		assertEquals(2, even.getHotKeys(Collections.emptyList()).size());
+	}
+
+	@Test
+	void testWarm() throws Exception {
+		UsageStats usage = new UsageStats();
+		for (int i = 0; i < 5; i++) {
+			minor.recordUse(Note.getNote("F#"));
+			usage.recordQuery("identify A C# E");
+		}
+
+		// test that the hot queries are run and everything else stays lazy
+		List<String> queries = new ArrayList<String>();
+		Thread thread = usage.warm(sections, query -> {
+			synchronized (queries) {
+				queries.add(query);
+			}
+		});
+		assertTrue(thread.isDaemon());
+		thread.join();
+		assertEquals(List.of("identify A C# E"), queries);
+		assertFalse(major.isCreated());
+		assertFalse(minor.isCreated());
+		assertEquals(Note.getNote("E#"), minor.getScale("F#").getNotes().get(6));
+	}
+}
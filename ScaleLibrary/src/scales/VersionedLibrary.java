@@ -0,0 +1,77 @@
+package scales;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current version of a library catalogue that is shared between threads. Readers take a
+ * snapshot, which never blocks and stays consistent however long it is used. Writers build the next
+ * version from the snapshot they read and publish it with a compare-and-set, retrying if another
+ * version was published first. Old versions are reclaimed by the garbage collector once no reader holds
+ * them.
+ * @author Joel Gibson
+ */
+public class VersionedLibrary {
+	
+	/**
+	 * The latest published version of the library.
+	 */
+	private final AtomicReference<LibrarySnapshot> current = new AtomicReference<LibrarySnapshot>(LibrarySnapshot.empty());
+	
+	/**
+	 * Gets the latest published version of the library.
+	 * @return the snapshot
+	 */
+	public LibrarySnapshot snapshot() {
+		return current.get();
+	}
+	
+	/**
+	 * Publishes a new version if the library is still at the expected version.
+	 * @param expected the snapshot the new version was built from
+	 * @param updated the new version
+	 * @return true if the new version was published, or false if another version was published first
+	 */
+	public boolean publish(LibrarySnapshot expected, LibrarySnapshot updated) {
+		return current.compareAndSet(expected, updated);
+	}
+	
+	/**
+	 * Applies a change to a copy of one section and publishes the result, retrying with the latest
+	 * version if another change was published in the meantime. The change may therefore run more than
+	 * once, and should only change the list it is given.
+	 * @param section the name of the section to change (e.g. custom scales)
+	 * @param change the change to apply to the copied list of scale collections
+	 * @return the published snapshot
+	 */
+	public LibrarySnapshot update(String section, Consumer<ArrayList<ScaleCollection>> change) {
+		while (true) {
+			LibrarySnapshot snapshot = current.get();
+			ArrayList<ScaleCollection> scalesList = new ArrayList<ScaleCollection>(snapshot.get(section));
+			change.accept(scalesList);
+			
+			LibrarySnapshot updated = snapshot.withSection(section, scalesList);
+			if (current.compareAndSet(snapshot, updated)) {
+				return updated;
+			}
+		}
+	}
+	
+	/**
+	 * Publishes a new version with every section replaced.
+	 * @param allScales the mapping of section names to scale collections
+	 * @return the published snapshot
+	 */
+	public LibrarySnapshot replaceAll(Map<String, ? extends List<ScaleCollection>> allScales) {
+		while (true) {
+			LibrarySnapshot snapshot = current.get();
+			LibrarySnapshot updated = snapshot.withSections(allScales);
+			if (current.compareAndSet(snapshot, updated)) {
+				return updated;
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package scales;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+
+class VersionedLibraryTest {
+	
+	// the library under test
+	VersionedLibrary library;
+	
+	// scale collections to store in the library
+	ScaleCollection major;
+	ScaleCollection minor;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		minor = new ScaleCollection("scale", "minor", new String[] {"1", "2", "b3", "4", "5", "b6", "b7", "8"}, false);
+		
+		library = new VersionedLibrary();
+		Map<String, List<ScaleCollection>> allScales = new HashMap<String, List<ScaleCollection>>();
+		allScales.put("scales", List.of(major, minor));
+		allScales.put("custom scales", new ArrayList<ScaleCollection>());
+		library.replaceAll(allScales);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+	}
+
+	@Test
+	void testSnapshotIsolation() {
+		LibrarySnapshot original = library.snapshot();
+		assertEquals(1, original.getVersion());
+		
+		// test that an update publishes a new version and leaves the old one untouched
+		LibrarySnapshot updated = library.update("custom scales", scalesList -> scalesList.add(major));
+		assertSame(updated, library.snapshot());
+		assertEquals(2, updated.getVersion());
+		assertTrue(original.get("custom scales").isEmpty());
+		assertEquals(1, updated.get("custom scales").size());
+		
+		// test that unchanged sections are shared between versions
+		assertSame(original.get("scales"), updated.get("scales"));
+		
+		// test that snapshots can't be changed
+		assertThrows(UnsupportedOperationException.class, () -> updated.get("scales").add(minor));
+		assertThrows(UnsupportedOperationException.class, () -> updated.getSections().remove("scales"));
+		assertTrue(updated.get("missing").isEmpty());
+		assertFalse(updated.hasSection("missing"));
+	}
+
+	@Test
+	void testPublish() {
+		LibrarySnapshot original = library.snapshot();
+		assertTrue(library.publish(original, original.withSection("modes", List.of(minor))));
+		
+		// test that a version built from an out of date snapshot is rejected
+		assertFalse(library.publish(original, original.withSection("modes", List.of(major))));
+		assertSame(minor, library.snapshot().get("modes").get(0));
+	}
+
+	@Test
+	void testConcurrentUpdates() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		for (int i = 0; i < 1000; i++) {
+			ScaleCollection scales = (i % 2 == 0) ? major : minor;
+			results.add(pool.submit(() -> library.update("custom scales", scalesList -> scalesList.add(scales))));
+			
+			// readers always see a complete version
+			results.add(pool.submit(() -> {
+				LibrarySnapshot snapshot = library.snapshot();
+				assertEquals(snapshot.getVersion() - 1, snapshot.get("custom scales").size());
+			}));
+		}
+		
+		for (Future<?> result : results) {
+			result.get(10, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+		
+		// test that no update was lost
+		assertEquals(1000, library.snapshot().get("custom scales").size());
+		assertEquals(1001, library.snapshot().getVersion());
+	}
+}
@@ -0,0 +1,480 @@
+package sets;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import notes.Note;
+import scales.Scale;
+import scales.ScaleCollection;
+
+/**
+ * Analyses scales as pitch-class sets: their normal form, prime form, Forte number, interval-class vector,
+ * Z-related set class, transpositional and inversional symmetry, and whether they are modes of limited
+ * transposition. A set is given as a mask, with bit n set for pitch class n (counting up from C for the
+ * notes of a scale, or from the root for an interval pattern).
+ * <p>
+ * There are only 4096 masks and 224 set classes, so every answer is worked out for all of them when the
+ * class is loaded and kept in primitive tables, and analysing a set is a few array reads. Prime forms are
+ * the most packed to the left after packing the largest element (Rahn's ordering), which for a mask
+ * transposed to start on 0 is simply the smallest mask. Forte numbers are matched to the set classes
+ * through the sets of Forte's list, so they don't depend on which ordering the prime forms follow.
+ * @author Joel Gibson
+ */
+public class PitchClassSets {
+	
+	/**
+	 * The number of pitch-class sets, one per mask.
+	 */
+	public static final int SIZE = 1 << 12;
+	
+	/**
+	 * The prime forms of Forte's list, by cardinality from 3 to 6, in the order of their numbers (with t
+	 * for 10). The sets of 7 to 9 notes take the number of their complement, as do the two sets of each
+	 * Z-related pair of hexachords.
+	 */
+	private static final String[][] FORTE = {
+		{"012", "013", "014", "015", "016", "024", "025", "026", "027", "036", "037", "048"},
+		{"0123", "0124", "0134", "0125", "0126", "0127", "0145", "0156", "0167", "0235", "0135", "0236", "0136",
+			"0237", "0146", "0157", "0347", "0147", "0148", "0158", "0246", "0247", "0257", "0248", "0268",
+			"0358", "0258", "0369", "0137"},
+		{"01234", "01235", "01245", "01236", "01237", "01256", "01267", "02346", "01246", "01346", "02347",
+			"01356", "01248", "01257", "01268", "01347", "01348", "01457", "01367", "01378", "01458", "01478",
+			"02357", "01357", "02358", "02458", "01358", "02368", "01368", "01468", "01369", "01469", "02468",
+			"02469", "02479", "01247", "03458", "01258"},
+		{"012345", "012346", "012356", "012456", "012367", "012567", "012678", "023457", "012357", "013457",
+			"012457", "012467", "013467", "013458", "012458", "014568", "012478", "012578", "013478", "014589",
+			"023468", "012468", "023568", "013468", "013568", "013578", "013469", "013569", "023679", "013679",
+			"013589", "024579", "023579", "013579", "02468t", "012347", "012348", "012378", "023458", "012358",
+			"012368", "012369", "012568", "012569", "023469", "012469", "012479", "012579", "013479", "014679"}
+	};
+	
+	/**
+	 * Orders Forte numbers by cardinality, then number (e.g. 5-35 before 6-Z3 before 6-7).
+	 */
+	public static final Comparator<String> FORTE_ORDER = Comparator.<String>comparingInt(name -> parseForteName(name)[0])
+			.thenComparingInt(name -> parseForteName(name)[1]);
+	
+	/**
+	 * The prime forms of Messiaen's seven modes of limited transposition, in order.
+	 */
+	private static final String[] MESSIAEN = {"02468t", "0134679t", "0234678te", "0125678e", "01567e", "024568te",
+		"012356789e"};
+	
+	/**
+	 * The set class of each mask, and the note that its normal form starts on.
+	 */
+	private static final short[] classes = new short[SIZE];
+	private static final byte[] normalStarts = new byte[SIZE];
+	
+	/**
+	 * The transposition (0 to 11) that takes the prime form to each mask, with 12 added if the prime form
+	 * is inverted first.
+	 */
+	private static final byte[] operations = new byte[SIZE];
+	
+	/**
+	 * The prime form, Forte number, interval-class vector (4 bits per interval class, starting from
+	 * interval class 1 in the low bits), Z-related set class (or -1), number of transpositions and
+	 * inversions that map the set to itself, and Messiaen mode (or 0) of each set class.
+	 */
+	private static final short[] primes;
+	private static final String[] forteNames;
+	private static final int[] vectors;
+	private static final short[] partners;
+	private static final byte[] transpositionalSymmetries;
+	private static final byte[] inversionalSymmetries;
+	private static final byte[] messiaenModes;
+	
+	static {
+		// the set class of a mask is its prime form, so find the prime forms first (not in parallel, since
+		// other threads would wait for this class to finish loading)
+		short[] primeOf = new short[SIZE];
+		for (int mask = 0; mask < SIZE; mask++) {
+			analyseMask(mask, primeOf);
+		}
+		
+		// number the set classes in order of cardinality, then prime form
+		short[] classOf = new short[SIZE];
+		Arrays.fill(classOf, (short) -1);
+		List<Integer> primeList = new ArrayList<Integer>();
+		for (int cardinality = 0; cardinality <= 12; cardinality++) {
+			for (int mask = 0; mask < SIZE; mask++) {
+				if (primeOf[mask] == mask && Integer.bitCount(mask) == cardinality) {
+					classOf[mask] = (short) primeList.size();
+					primeList.add(mask);
+				}
+			}
+		}
+		for (int mask = 0; mask < SIZE; mask++) {
+			classes[mask] = classOf[primeOf[mask]];
+		}
+		
+		int count = primeList.size();
+		primes = new short[count];
+		forteNames = new String[count];
+		vectors = new int[count];
+		partners = new short[count];
+		transpositionalSymmetries = new byte[count];
+		inversionalSymmetries = new byte[count];
+		messiaenModes = new byte[count];
+		for (int i = 0; i < count; i++) {
+			int prime = primeList.get(i);
+			primes[i] = (short) prime;
+			vectors[i] = findIntervalVector(prime);
+			for (int n = 0; n < 12; n++) {
+				transpositionalSymmetries[i] += (transpose(prime, n) == prime) ? 1 : 0;
+				inversionalSymmetries[i] += (transpose(invert(prime), n) == prime) ? 1 : 0;
+			}
+		}
+		
+		// Z-related set classes have the same size and interval vector
+		Arrays.fill(partners, (short) -1);
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < count; j++) {
+				if (i != j && vectors[i] == vectors[j] && Integer.bitCount(primes[i]) == Integer.bitCount(primes[j])) {
+					partners[i] = (short) j;
+				}
+			}
+		}
+		
+		nameSetClasses();
+		for (int mode = 0; mode < MESSIAEN.length; mode++) {
+			messiaenModes[classes[parseSet(MESSIAEN[mode])]] = (byte) (mode + 1);
+		}
+	}
+	
+	/**
+	 * Creates the analysis tables. All methods are static.
+	 */
+	private PitchClassSets() {
+	}
+	
+	/**
+	 * Finds the prime form of a mask, and the start of its normal form and its transposition from the
+	 * prime form. Each candidate is transposed to start on 0, and the smallest mask wins.
+	 */
+	private static void analyseMask(int mask, short[] primeOf) {
+		int best = Integer.MAX_VALUE;
+		int bestNormal = Integer.MAX_VALUE;
+		for (int start = 0; start < 12; start++) {
+			if ((mask & (1 << start)) == 0) {
+				continue;
+			}
+			
+			// the normal form starts on the note whose transposition is smallest
+			int rotated = transpose(mask, 12 - start);
+			if (rotated < bestNormal) {
+				bestNormal = rotated;
+				normalStarts[mask] = (byte) start;
+			}
+			if (rotated < best) {
+				best = rotated;
+				operations[mask] = (byte) start;
+			}
+			
+			// the inversion that starts on this note
+			int inverted = transpose(invert(mask), start);
+			if (inverted < best) {
+				best = inverted;
+				operations[mask] = (byte) (12 + start);
+			}
+		}
+		primeOf[mask] = (short) ((mask == 0) ? 0 : best);
+	}
+	
+	/**
+	 * Names each set class after Forte's list, and the few sizes that it leaves out by counting (e.g. 2-3
+	 * for the minor thirds, or 12-1 for the chromatic set).
+	 */
+	private static void nameSetClasses() {
+		for (int i = 0; i < primes.length; i++) {
+			int cardinality = Integer.bitCount(primes[i]);
+			if (cardinality < 3 || cardinality > 9) {
+				// the dyads are numbered by interval class, and the others have one class each
+				int number = 1;
+				for (int j = 0; j < i; j++) {
+					number += (Integer.bitCount(primes[j]) == cardinality) ? 1 : 0;
+				}
+				forteNames[i] = cardinality + "-" + number;
+			}
+		}
+		
+		for (int cardinality = 3; cardinality <= 6; cardinality++) {
+			String[] list = FORTE[cardinality - 3];
+			for (int number = 1; number <= list.length; number++) {
+				int mask = parseSet(list[number - 1]);
+				int setClass = classes[mask];
+				String z = (partners[setClass] >= 0) ? "Z" : "";
+				forteNames[setClass] = cardinality + "-" + z + number;
+				
+				// the complement takes the same number, apart from the hexachords, which are their own
+				// complements or their Z-related pair's
+				if (cardinality < 6) {
+					forteNames[classes[~mask & (SIZE - 1)]] = (12 - cardinality) + "-" + z + number;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Converts a set written as pitch class digits (e.g. 0148, with t and e for 10 and 11) to a mask.
+	 */
+	private static int parseSet(String set) {
+		int mask = 0;
+		for (char c : set.toCharArray()) {
+			mask |= 1 << ((c == 't') ? 10 : (c == 'e') ? 11 : c - '0');
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Splits a Forte number into its cardinality and number, leaving out any Z.
+	 */
+	private static int[] parseForteName(String name) {
+		int dash = name.indexOf('-');
+		return new int[] {Integer.parseInt(name.substring(0, dash)), Integer.parseInt(name.substring(dash + 1).replace("Z", ""))};
+	}
+	
+	/**
+	 * Transposes a set up by the given number of semitones.
+	 * @param mask the set
+	 * @param semitones the number of semitones (0 to 12)
+	 * @return the transposed set
+	 */
+	public static int transpose(int mask, int semitones) {
+		return ((mask << semitones) | (mask >>> (12 - semitones))) & (SIZE - 1);
+	}
+	
+	/**
+	 * Inverts a set around C, so that pitch class n becomes 12 - n.
+	 * @param mask the set
+	 * @return the inverted set
+	 */
+	public static int invert(int mask) {
+		int inverted = mask & 1;
+		for (int n = 1; n < 12; n++) {
+			if ((mask & (1 << n)) != 0) {
+				inverted |= 1 << (12 - n);
+			}
+		}
+		
+		return inverted;
+	}
+	
+	/**
+	 * Gets the pitch classes of the notes of a scale.
+	 * @param scale the scale
+	 * @return the set, counting up from C
+	 */
+	public static int toMask(Scale scale) {
+		int mask = 0;
+		for (Note note : scale.getNotes()) {
+			mask |= 1 << note.getPitchClass();
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Converts a set to its pitch classes in order, starting from the given one.
+	 */
+	private static int[] toArray(int mask, int start) {
+		int[] set = new int[Integer.bitCount(mask)];
+		int size = 0;
+		for (int n = 0; n < 12; n++) {
+			if ((mask & (1 << ((start + n) % 12))) != 0) {
+				set[size++] = (start + n) % 12;
+			}
+		}
+		
+		return set;
+	}
+	
+	/**
+	 * Gets the normal form of a set: its pitch classes in the rotation that is most packed to the left.
+	 * @param mask the set
+	 * @return the pitch classes in normal order (e.g. 11, 2, 5 for B, D, F)
+	 */
+	public static int[] getNormalForm(int mask) {
+		return toArray(mask, normalStarts[mask]);
+	}
+	
+	/**
+	 * Gets the prime form of a set: the normal form of the set or its inversion that is most packed to the
+	 * left, transposed to start on 0.
+	 * @param mask the set
+	 * @return the prime form as a set
+	 */
+	public static int getPrimeForm(int mask) {
+		return primes[classes[mask]];
+	}
+	
+	/**
+	 * Gets the operation that takes the prime form to a set.
+	 * @param mask the set
+	 * @return the operation (e.g. T4, or T7I if the prime form is inverted first)
+	 */
+	public static String getOperation(int mask) {
+		int operation = operations[mask];
+		return (operation < 12) ? "T" + operation : "T" + (operation - 12) + "I";
+	}
+	
+	/**
+	 * Gets the Forte number of a set's set class.
+	 * @param mask the set
+	 * @return the Forte number (e.g. 7-35, 6-Z44)
+	 */
+	public static String getForteName(int mask) {
+		return forteNames[classes[mask]];
+	}
+	
+	/**
+	 * Gets the interval-class vector of a set: the number of pairs of notes a semitone apart, a tone apart,
+	 * and so on up to a tritone.
+	 * @param mask the set
+	 * @return the six counts
+	 */
+	public static int[] getIntervalVector(int mask) {
+		int packed = vectors[classes[mask]];
+		int[] vector = new int[6];
+		for (int i = 0; i < 6; i++) {
+			vector[i] = (packed >>> (4 * i)) & 0xF;
+		}
+		
+		return vector;
+	}
+	
+	/**
+	 * Works out the packed interval-class vector of a set.
+	 */
+	private static int findIntervalVector(int mask) {
+		int packed = 0;
+		for (int n = 1; n <= 6; n++) {
+			int pairs = Integer.bitCount(mask & transpose(mask, n));
+			
+			// each tritone is counted from both of its notes
+			packed |= ((n == 6) ? pairs / 2 : pairs) << (4 * (n - 1));
+		}
+		
+		return packed;
+	}
+	
+	/**
+	 * Gets the set class with the same interval-class vector as a set's, but which isn't related to it by
+	 * transposition or inversion.
+	 * @param mask the set
+	 * @return the prime form of the Z-related set class, or -1 if there is none
+	 */
+	public static int getZPartner(int mask) {
+		int partner = partners[classes[mask]];
+		return (partner < 0) ? -1 : primes[partner];
+	}
+	
+	/**
+	 * Counts the transpositions (including T0) that map a set onto itself.
+	 * @param mask the set
+	 * @return the degree of transpositional symmetry, from 1 to 12
+	 */
+	public static int getTranspositionalSymmetry(int mask) {
+		return transpositionalSymmetries[classes[mask]];
+	}
+	
+	/**
+	 * Counts the inversions that map a set onto itself.
+	 * @param mask the set
+	 * @return the degree of inversional symmetry, from 0 to 12
+	 */
+	public static int getInversionalSymmetry(int mask) {
+		return inversionalSymmetries[classes[mask]];
+	}
+	
+	/**
+	 * Checks whether a set is a mode of limited transposition: a set with fewer than 12 different
+	 * transpositions, other than the empty and chromatic sets.
+	 * @param mask the set
+	 * @return true if the set has limited transpositions, otherwise false
+	 */
+	public static boolean isLimitedTransposition(int mask) {
+		return getTranspositionalSymmetry(mask) > 1 && mask != 0 && mask != SIZE - 1;
+	}
+	
+	/**
+	 * Gets the number of Messiaen's mode of limited transposition that a set belongs to.
+	 * @param mask the set
+	 * @return the mode number from 1 to 7, or 0 if the set isn't one of Messiaen's modes
+	 */
+	public static int getMessiaenMode(int mask) {
+		return messiaenModes[classes[mask]];
+	}
+	
+	/**
+	 * Gets the number of set classes.
+	 * @return the number of set classes (224)
+	 */
+	public static int getSetClassCount() {
+		return primes.length;
+	}
+	
+	/**
+	 * Formats a set as its pitch classes in brackets (e.g. [0, 1, 4]).
+	 * @param mask the set, in ascending order
+	 * @return the formatted set
+	 */
+	public static String format(int mask) {
+		return Arrays.toString(toArray(mask, 0));
+	}
+	
+	/**
+	 * Prints the set-theoretic analysis of a set.
+	 * @param mask the set
+	 * @param out the stream to print to
+	 */
+	public static void printAnalysis(int mask, PrintStream out) {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("Normal form: ").append(Arrays.toString(getNormalForm(mask))).append('\n');
+		buffer.append("Prime form: ").append(format(getPrimeForm(mask))).append(" (").append(getOperation(mask));
+		buffer.append(")\n");
+		buffer.append("Forte number: ").append(getForteName(mask)).append('\n');
+		
+		int[] vector = getIntervalVector(mask);
+		buffer.append("Interval vector: <");
+		for (int i = 0; i < vector.length; i++) {
+			buffer.append((i == 0) ? "" : ", ").append(vector[i]);
+		}
+		buffer.append(">\n");
+		
+		int partner = getZPartner(mask);
+		buffer.append("Z-related to: ");
+		buffer.append((partner < 0) ? "none" : getForteName(partner) + " " + format(partner)).append('\n');
+		buffer.append("Transpositional symmetry: ").append(getTranspositionalSymmetry(mask)).append('\n');
+		buffer.append("Inversional symmetry: ").append(getInversionalSymmetry(mask)).append('\n');
+		
+		buffer.append("Limited transposition: ");
+		if (!isLimitedTransposition(mask)) {
+			buffer.append("no\n");
+		} else {
+			buffer.append("yes (").append(12 / getTranspositionalSymmetry(mask)).append(" transpositions");
+			int mode = getMessiaenMode(mask);
+			buffer.append((mode > 0) ? ", Messiaen mode " + mode + ")\n" : ")\n");
+		}
+		out.print(buffer.append('\n'));
+	}
+	
+	/**
+	 * Finds the set class of every scale collection's interval pattern in parallel.
+	 * @param collections the scale collections
+	 * @return the Forte number of each collection, in the same order
+	 */
+	public static String[] analyseAll(List<ScaleCollection> collections) {
+		String[] names = new String[collections.size()];
+		IntStream.range(0, names.length).parallel()
+				.forEach(i -> names[i] = getForteName(collections.get(i).getPitchClassMask()));
+		
+		return names;
+	}
+}
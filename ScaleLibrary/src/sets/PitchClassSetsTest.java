@@ -0,0 +1,148 @@
+package sets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class PitchClassSetsTest {
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+	}
+	
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		Note.getRootNotes().clear();
+	}
+	
+	/**
+	 * Converts pitch classes to a set.
+	 */
+	int toMask(int... pitchClasses) {
+		int mask = 0;
+		for (int pitchClass : pitchClasses) {
+			mask |= 1 << pitchClass;
+		}
+		
+		return mask;
+	}
+	
+	@Test
+	void testSetClasses() {
+		// each cardinality has the known number of set classes, each with its own Forte number
+		int[] counts = new int[13];
+		Map<String, Integer> names = new HashMap<String, Integer>();
+		for (int mask = 0; mask < PitchClassSets.SIZE; mask++) {
+			if (PitchClassSets.getPrimeForm(mask) == mask) {
+				counts[Integer.bitCount(mask)]++;
+				assertNull(names.put(PitchClassSets.getForteName(mask), mask));
+			}
+		}
+		assertArrayEquals(new int[] {1, 1, 6, 12, 29, 38, 50, 38, 29, 12, 6, 1, 1}, counts);
+		assertEquals(224, PitchClassSets.getSetClassCount());
+		
+		// every transposition and inversion of a set has the same set class
+		int set = toMask(0, 1, 4, 6);
+		for (int n = 0; n < 12; n++) {
+			assertEquals(set, PitchClassSets.getPrimeForm(PitchClassSets.transpose(set, n)));
+			assertEquals(set, PitchClassSets.getPrimeForm(PitchClassSets.transpose(PitchClassSets.invert(set), n)));
+		}
+	}
+	
+	@Test
+	void testForms() {
+		int major = toMask(0, 2, 4, 5, 7, 9, 11);
+		assertArrayEquals(new int[] {11, 0, 2, 4, 5, 7, 9}, PitchClassSets.getNormalForm(major));
+		assertEquals(toMask(0, 1, 3, 5, 6, 8, 10), PitchClassSets.getPrimeForm(major));
+		assertEquals("T5I", PitchClassSets.getOperation(major));
+		assertEquals("[0, 1, 3, 5, 6, 8, 10]", PitchClassSets.format(PitchClassSets.getPrimeForm(major)));
+		
+		// B, D, F is a diminished triad
+		int diminished = toMask(11, 2, 5);
+		assertArrayEquals(new int[] {11, 2, 5}, PitchClassSets.getNormalForm(diminished));
+		assertEquals(toMask(0, 3, 6), PitchClassSets.getPrimeForm(diminished));
+		
+		// the minor triad is the inversion of the major triad
+		assertEquals("T0", PitchClassSets.getOperation(toMask(0, 3, 7)));
+		assertEquals("T7I", PitchClassSets.getOperation(toMask(0, 4, 7)));
+	}
+	
+	@Test
+	void testForteNames() {
+		assertEquals("3-11", PitchClassSets.getForteName(toMask(0, 4, 7)));
+		assertEquals("4-27", PitchClassSets.getForteName(toMask(0, 4, 7, 10)));
+		assertEquals("5-35", PitchClassSets.getForteName(toMask(0, 2, 4, 7, 9)));
+		assertEquals("6-Z47", PitchClassSets.getForteName(toMask(0, 3, 5, 6, 7, 10)));
+		assertEquals("7-32", PitchClassSets.getForteName(toMask(0, 2, 3, 5, 7, 8, 11)));
+		assertEquals("7-35", PitchClassSets.getForteName(toMask(0, 2, 4, 5, 7, 9, 11)));
+		assertEquals("8-28", PitchClassSets.getForteName(toMask(0, 1, 3, 4, 6, 7, 9, 10)));
+		assertEquals("2-6", PitchClassSets.getForteName(toMask(0, 6)));
+		assertEquals("0-1", PitchClassSets.getForteName(0));
+		assertEquals("12-1", PitchClassSets.getForteName(PitchClassSets.SIZE - 1));
+		
+		List<String> ordered = new ArrayList<String>(List.of("6-7", "12-1", "6-Z3", "5-35", "6-35"));
+		ordered.sort(PitchClassSets.FORTE_ORDER);
+		assertEquals(List.of("5-35", "6-Z3", "6-7", "6-35", "12-1"), ordered);
+	}
+	
+	@Test
+	void testIntervalVectors() {
+		assertArrayEquals(new int[] {2, 5, 4, 3, 6, 1}, PitchClassSets.getIntervalVector(toMask(0, 2, 4, 5, 7, 9, 11)));
+		assertArrayEquals(new int[] {0, 6, 0, 6, 0, 3}, PitchClassSets.getIntervalVector(toMask(0, 2, 4, 6, 8, 10)));
+		assertArrayEquals(new int[] {1, 1, 1, 1, 1, 1}, PitchClassSets.getIntervalVector(toMask(0, 1, 4, 6)));
+		
+		// the all-interval tetrachords are Z-related
+		assertEquals(toMask(0, 1, 3, 7), PitchClassSets.getZPartner(toMask(0, 1, 4, 6)));
+		assertEquals(toMask(0, 1, 4, 6), PitchClassSets.getZPartner(toMask(2, 3, 5, 9)));
+		assertEquals(-1, PitchClassSets.getZPartner(toMask(0, 4, 7)));
+		assertEquals(-1, PitchClassSets.getZPartner(0));
+	}
+	
+	@Test
+	void testSymmetry() {
+		int major = toMask(0, 2, 4, 5, 7, 9, 11);
+		assertEquals(1, PitchClassSets.getTranspositionalSymmetry(major));
+		assertEquals(1, PitchClassSets.getInversionalSymmetry(major));
+		assertFalse(PitchClassSets.isLimitedTransposition(major));
+		assertEquals(0, PitchClassSets.getMessiaenMode(major));
+		assertEquals(0, PitchClassSets.getInversionalSymmetry(toMask(0, 1, 4, 6)));
+		
+		// Messiaen's modes, starting on D
+		int wholeTone = toMask(0, 2, 4, 6, 8, 10);
+		assertEquals(6, PitchClassSets.getTranspositionalSymmetry(wholeTone));
+		assertEquals(1, PitchClassSets.getMessiaenMode(PitchClassSets.transpose(wholeTone, 2)));
+		assertEquals(2, PitchClassSets.getMessiaenMode(PitchClassSets.transpose(toMask(0, 1, 3, 4, 6, 7, 9, 10), 2)));
+		assertEquals(7, PitchClassSets.getMessiaenMode(PitchClassSets.transpose(toMask(0, 1, 2, 3, 5, 6, 7, 8, 9, 11), 2)));
+		
+		// the augmented triad is limited, but isn't one of Messiaen's modes
+		assertTrue(PitchClassSets.isLimitedTransposition(toMask(0, 4, 8)));
+		assertEquals(0, PitchClassSets.getMessiaenMode(toMask(0, 4, 8)));
+		assertFalse(PitchClassSets.isLimitedTransposition(PitchClassSets.SIZE - 1));
+	}
+	
+	@Test
+	void testScales() {
+		ScaleCollection major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		ScaleCollection blues = new ScaleCollection("scale", "blues", new String[] {"1", "b3", "4", "#4", "5", "b7", "8"}, false);
+		assertEquals(toMask(1, 2, 4, 6, 7, 9, 11), PitchClassSets.toMask(major.getScale("D")));
+		assertArrayEquals(new String[] {"7-35", "6-Z47"}, PitchClassSets.analyseAll(List.of(major, blues)));
+	}
+}
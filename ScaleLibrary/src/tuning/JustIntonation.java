@@ -0,0 +1,52 @@
+package tuning;
+
+/**
+ * Represents 5-limit just intonation on C. Natural notes use the pure ratios of the major scale, each
+ * sharp or flat raises or lowers the note by a just chromatic semitone (25:24), and each up or down
+ * raises or lowers it by a syntonic comma (81:80).
+ * @author Joel Gibson
+ */
+public class JustIntonation extends Tuning {
+	
+	/**
+	 * The ratios of the natural notes above C, in order of letter steps from C (C, D, E, F, G, A, B).
+	 */
+	private static final double[] RATIOS = {1, 9 / 8.0, 5 / 4.0, 4 / 3.0, 3 / 2.0, 5 / 3.0, 15 / 8.0};
+	
+	/**
+	 * The size of the just chromatic semitone in cents.
+	 */
+	private static final double CHROMATIC_SEMITONE = toCents(25 / 24.0);
+	
+	/**
+	 * The size of the syntonic comma (81:80) in cents.
+	 */
+	static final double SYNTONIC_COMMA = toCents(81 / 80.0);
+	
+	/**
+	 * Creates just intonation with A4 at the given frequency.
+	 * @param referencePitch the frequency of A4 in hertz
+	 */
+	public JustIntonation(double referencePitch) {
+		super("5-limit just intonation", referencePitch);
+		
+		createTables();
+	}
+	
+	/**
+	 * Calculates the size of the note above C from the ratio of its letter name and its accidental.
+	 */
+	@Override
+	protected double centsAboveC(int letterSteps, int semitones, int ups) {
+		return toCents(RATIOS[letterSteps]) + semitones * CHROMATIC_SEMITONE + ups * SYNTONIC_COMMA;
+	}
+	
+	/**
+	 * Converts a frequency ratio into cents.
+	 * @param ratio the frequency ratio
+	 * @return the size in cents
+	 */
+	private static double toCents(double ratio) {
+		return 1200 * Math.log(ratio) / Math.log(2);
+	}
+}
@@ -0,0 +1,80 @@
+package tuning;
+
+/**
+ * Represents a tuning where every note is generated by stacking fifths of the same size from C
+ * (e.g. Pythagorean tuning, meantone, or 12-tone equal temperament when the fifth is 700 cents). Ups and
+ * downs move a note by a fixed size, such as a syntonic comma or one step of an equal division.
+ * @author Joel Gibson
+ */
+public class RegularTemperament extends Tuning {
+	
+	/**
+	 * The position of each natural note on the line of fifths, counted from C (F = -1, G = 1), in order
+	 * of letter steps from C.
+	 */
+	private static final int[] FIFTHS_FROM_C = {0, 2, 4, -1, 1, 3, 5};
+	
+	/**
+	 * The size of the generating fifth in cents.
+	 */
+	private double fifth;
+	
+	/**
+	 * The size of each up or down in cents.
+	 */
+	private double up;
+	
+	/**
+	 * Creates a regular temperament from the given fifth size and up size.
+	 * @param name the name of the tuning
+	 * @param referencePitch the frequency of A4 in hertz
+	 * @param fifth the size of the generating fifth in cents
+	 * @param up the size of each up or down in cents
+	 */
+	public RegularTemperament(String name, double referencePitch, double fifth, double up) {
+		super(name, referencePitch);
+		this.fifth = fifth;
+		this.up = up;
+		
+		createTables();
+	}
+	
+	/**
+	 * Gets the size of the generating fifth.
+	 * @return the fifth size in cents
+	 */
+	public double getFifth() {
+		return fifth;
+	}
+	
+	/**
+	 * Gets the size of each up or down.
+	 * @return the up size in cents
+	 */
+	public double getUp() {
+		return up;
+	}
+	
+	/**
+	 * Calculates the size of the note above C by stacking fifths and removing octaves, then adding ups.
+	 */
+	@Override
+	protected double centsAboveC(int letterSteps, int semitones, int ups) {
+		return fifthsCents(letterSteps, semitones, fifth) + ups * up;
+	}
+	
+	/**
+	 * Calculates the size of a note above C in a temperament generated by the given fifth. Each sharp
+	 * adds 7 fifths, and each fifth moves 4 letter names up, so the number of octaves to remove follows
+	 * from the letter name.
+	 * @param letterSteps the number of letter names from C up to the note's letter name (0 to 6)
+	 * @param semitones the semitone change applied by the note's accidental
+	 * @param fifth the size of the fifth in cents
+	 * @return the size in cents
+	 */
+	static double fifthsCents(int letterSteps, int semitones, double fifth) {
+		int fifths = FIFTHS_FROM_C[letterSteps] + 7 * semitones;
+		int octaves = (4 * fifths - letterSteps) / 7;
+		return fifths * fifth - 1200 * octaves;
+	}
+}
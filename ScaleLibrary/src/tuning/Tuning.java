@@ -0,0 +1,254 @@
+package tuning;
+
+import java.util.ArrayList;
+
+import notes.Accidental;
+import notes.EqualDivision;
+import notes.Note;
+import scales.Direction;
+import scales.Scale;
+
+/**
+ * Represents a tuning system that assigns a frequency to every spelled note. Frequencies and cents
+ * deviations are precomputed into tables indexed by note ordinal and octave, so lookups are array reads.
+ * Every tuning is anchored so that A4 sounds at the reference pitch.
+ * @author Joel Gibson
+ */
+public abstract class Tuning {
+	
+	/**
+	 * The lowest octave held in the frequency table (MIDI octave -1).
+	 */
+	public static final int LOWEST_OCTAVE = -1;
+	
+	/**
+	 * The highest octave held in the frequency table.
+	 */
+	public static final int HIGHEST_OCTAVE = 9;
+	
+	/**
+	 * The number of octaves held in the frequency table.
+	 */
+	private static final int OCTAVES = HIGHEST_OCTAVE - LOWEST_OCTAVE + 1;
+	
+	/**
+	 * The position of each letter name in LETTER_NAMES counted up from C instead of A.
+	 */
+	private static final int[] LETTER_STEPS_FROM_C = {5, 6, 0, 1, 2, 3, 4};
+	
+	/**
+	 * The name of the tuning.
+	 */
+	private String name;
+	
+	/**
+	 * The frequency of A4 in hertz.
+	 */
+	private double referencePitch;
+	
+	/**
+	 * The frequency of every note in every octave, indexed by ordinal * OCTAVES + (octave - LOWEST_OCTAVE).
+	 */
+	private double[] frequencies;
+	
+	/**
+	 * The deviation of every note from 12-tone equal temperament in cents, indexed by ordinal.
+	 */
+	private double[] centsDeviations;
+	
+	/**
+	 * Creates a tuning with the given name and reference pitch. Subclasses must call createTables()
+	 * once they are fully initialised.
+	 * @param name the name of the tuning
+	 * @param referencePitch the frequency of A4 in hertz
+	 */
+	protected Tuning(String name, double referencePitch) {
+		if (referencePitch <= 0) {
+			throw new IllegalArgumentException("The reference pitch must be positive");
+		}
+		
+		this.name = name;
+		this.referencePitch = referencePitch;
+	}
+	
+	/**
+	 * Creates 12-tone equal temperament with A4 at the given frequency.
+	 * @param referencePitch the frequency of A4 in hertz
+	 * @return the tuning
+	 */
+	public static Tuning equalTemperament(double referencePitch) {
+		return equalDivision(EqualDivision.TWELVE, referencePitch);
+	}
+	
+	/**
+	 * Creates an equal division of the octave (e.g. 19-, 31- or 53-tone equal temperament) with A4 at the
+	 * given frequency. Each up or down on a note moves it by one step.
+	 * @param division the equal division of the octave
+	 * @param referencePitch the frequency of A4 in hertz
+	 * @return the tuning
+	 */
+	public static Tuning equalDivision(EqualDivision division, double referencePitch) {
+		double step = division.getStepCents();
+		return new RegularTemperament(division.toString(), referencePitch, division.getFifth() * step, step);
+	}
+	
+	/**
+	 * Creates Pythagorean tuning (pure 3:2 fifths) with A4 at the given frequency.
+	 * @param referencePitch the frequency of A4 in hertz
+	 * @return the tuning
+	 */
+	public static Tuning pythagorean(double referencePitch) {
+		return new RegularTemperament("Pythagorean", referencePitch, 1200 * Math.log(1.5) / Math.log(2),
+				JustIntonation.SYNTONIC_COMMA);
+	}
+	
+	/**
+	 * Creates quarter-comma meantone (fifths narrowed so that major thirds are pure) with A4 at the given
+	 * frequency.
+	 * @param referencePitch the frequency of A4 in hertz
+	 * @return the tuning
+	 */
+	public static Tuning meantone(double referencePitch) {
+		return new RegularTemperament("quarter-comma meantone", referencePitch, 300 * Math.log(5) / Math.log(2),
+				JustIntonation.SYNTONIC_COMMA);
+	}
+	
+	/**
+	 * Creates 5-limit just intonation on C with A4 at the given frequency.
+	 * @param referencePitch the frequency of A4 in hertz
+	 * @return the tuning
+	 */
+	public static Tuning justIntonation(double referencePitch) {
+		return new JustIntonation(referencePitch);
+	}
+	
+	/**
+	 * Gets the name of the tuning.
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the frequency of A4.
+	 * @return the reference pitch in hertz
+	 */
+	public double getReferencePitch() {
+		return referencePitch;
+	}
+	
+	/**
+	 * Calculates the size of the given note above the C with the same octave number, in cents.
+	 * @param letterSteps the number of letter names from C up to the note's letter name (0 to 6)
+	 * @param semitones the semitone change applied by the note's accidental
+	 * @param ups the number of microtonal ups (or downs, if negative) applied by the note's accidental
+	 * @return the size in cents
+	 */
+	protected abstract double centsAboveC(int letterSteps, int semitones, int ups);
+	
+	/**
+	 * Precomputes the frequency and cents deviation tables.
+	 */
+	protected final void createTables() {
+		frequencies = new double[Note.NUMBER_OF_ORDINALS * OCTAVES];
+		centsDeviations = new double[Note.NUMBER_OF_ORDINALS];
+		
+		// find C4 so that A4 sounds at the reference pitch
+		double c4 = referencePitch / Math.pow(2, centsAboveC(5, 0, 0) / 1200);
+		
+		for (int letter = 0; letter < Note.LETTER_NAMES.length; letter++) {
+			int letterSteps = LETTER_STEPS_FROM_C[letter];
+			for (int semitones = -Note.MAX_ACCIDENTAL; semitones <= Note.MAX_ACCIDENTAL; semitones++) {
+				for (int ups = -Accidental.MAX_UPS; ups <= Accidental.MAX_UPS; ups++) {
+					int ordinal = Note.toOrdinal(letter, semitones, ups);
+					double cents = centsAboveC(letterSteps, semitones, ups);
+					
+					// compare with the equal-tempered note, which is anchored to the same reference pitch
+					double equalCents = RegularTemperament.fifthsCents(letterSteps, semitones, 700);
+					centsDeviations[ordinal] = cents - equalCents;
+					
+					for (int octave = LOWEST_OCTAVE; octave <= HIGHEST_OCTAVE; octave++) {
+						frequencies[ordinal * OCTAVES + octave - LOWEST_OCTAVE] =
+								c4 * Math.pow(2, (cents + 1200 * (octave - 4)) / 1200);
+					}
+				}
+			}
+		}
+		
+		// anchoring to A4 also shifts the other notes, so measure deviations relative to A
+		double aDeviation = centsDeviations[Note.toOrdinal(0, 0)];
+		for (int ordinal = 0; ordinal < centsDeviations.length; ordinal++) {
+			centsDeviations[ordinal] -= aDeviation;
+		}
+	}
+	
+	/**
+	 * Gets the frequency of the note in the given octave.
+	 * @param note the note
+	 * @param octave the octave number of the note's letter name, between LOWEST_OCTAVE and HIGHEST_OCTAVE
+	 * @return the frequency in hertz
+	 * @throws IllegalArgumentException if the octave is outside the tuned range
+	 */
+	public double getFrequency(Note note, int octave) {
+		if (octave < LOWEST_OCTAVE || octave > HIGHEST_OCTAVE) {
+			throw new IllegalArgumentException("The octave must be between " + LOWEST_OCTAVE + " and "
+					+ HIGHEST_OCTAVE);
+		}
+		
+		return frequencies[note.getOrdinal() * OCTAVES + octave - LOWEST_OCTAVE];
+	}
+	
+	/**
+	 * Gets the deviation of the note from 12-tone equal temperament (with the same reference pitch).
+	 * @param note the note
+	 * @return the deviation in cents (positive if the note is sharper than equal temperament)
+	 */
+	public double getCentsDeviation(Note note) {
+		return centsDeviations[note.getOrdinal()];
+	}
+	
+	/**
+	 * Gets the frequency of every note in the scale, in ascending order.
+	 * @param scale the scale
+	 * @param octave the octave of the root note
+	 * @return the array of frequencies in hertz
+	 * @throws IllegalArgumentException if any note falls outside the tuned range
+	 */
+	public double[] getFrequencies(Scale scale, int octave) {
+		// the MIDI pitches give the octave of each note's letter name, even after simplification
+		ArrayList<Note> notes = scale.getNotes();
+		int[] pitches = scale.getPitchSequence(octave, Direction.ASCENDING);
+		double[] scaleFrequencies = new double[pitches.length];
+		for (int i = 0; i < pitches.length; i++) {
+			Note note = notes.get(i);
+			int noteOctave = Math.floorDiv(pitches[i] - note.getMidiNumber(-1), 12) - 1;
+			scaleFrequencies[i] = getFrequency(note, noteOctave);
+		}
+		
+		return scaleFrequencies;
+	}
+	
+	/**
+	 * Gets the deviation of every note in the scale from 12-tone equal temperament, in ascending order.
+	 * @param scale the scale
+	 * @return the array of deviations in cents
+	 */
+	public double[] getCentsDeviations(Scale scale) {
+		ArrayList<Note> notes = scale.getNotes();
+		double[] deviations = new double[notes.size()];
+		for (int i = 0; i < deviations.length; i++) {
+			deviations[i] = getCentsDeviation(notes.get(i));
+		}
+		
+		return deviations;
+	}
+	
+	/**
+	 * Returns the name of the tuning for printing.
+	 */
+	@Override
+	public String toString() {
+		return getName() + " (A4 = " + getReferencePitch() + " Hz)";
+	}
+}
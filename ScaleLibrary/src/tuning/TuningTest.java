@@ -0,0 +1,118 @@
+package tuning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import notes.*;
+import scales.*;
+
+class TuningTest {
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+	}
+
+	@Test
+	void testEqualTemperament() {
+		Tuning tuning = Tuning.equalTemperament(440);
+		
+		// test that every note matches the equal-tempered frequency
+		for (Note note : Note.getNotes().values()) {
+			assertEquals(440 * Math.pow(2, (note.getMidiNumber(3) - 69) / 12.0), tuning.getFrequency(note, 3), 1e-9);
+			assertEquals(0, tuning.getCentsDeviation(note), 1e-9);
+		}
+		
+		assertEquals(261.6256, tuning.getFrequency(Note.getNote("C"), 4), 1e-4);
+		
+		// test a different reference pitch
+		tuning = Tuning.equalTemperament(415);
+		assertEquals(415, tuning.getFrequency(Note.getNote("A"), 4), 1e-9);
+		assertEquals(830, tuning.getFrequency(Note.getNote("A"), 5), 1e-9);
+		
+		// test that octaves outside the table are rejected rather than read from the next note's row
+		Tuning bounded = tuning;
+		assertEquals(415 * Math.pow(2, (Note.getNote("C").getMidiNumber(Tuning.HIGHEST_OCTAVE) - 69) / 12.0),
+				bounded.getFrequency(Note.getNote("C"), Tuning.HIGHEST_OCTAVE), 1e-9);
+		assertThrows(IllegalArgumentException.class,
+				() -> bounded.getFrequency(Note.getNote("C"), Tuning.HIGHEST_OCTAVE + 1));
+		assertThrows(IllegalArgumentException.class,
+				() -> bounded.getFrequency(Note.getNote("C"), Tuning.LOWEST_OCTAVE - 1));
+		
+		// test that a scale reaching past the highest octave is rejected
+		String[] intervals = {"1", "2", "3", "4", "5", "6", "7", "8"};
+		Scale scale = new Scale(Note.getNote("C"), "scale", "major", intervals);
+		assertThrows(IllegalArgumentException.class, () -> bounded.getFrequencies(scale, Tuning.HIGHEST_OCTAVE));
+	}
+
+	@Test
+	void testEqualDivision() {
+		Tuning tuning = Tuning.equalDivision(new EqualDivision(19), 440);
+		assertEquals(440, tuning.getFrequency(Note.getNote("A"), 4), 1e-9);
+		
+		// test that C# and Db are one and two steps above C
+		double c = tuning.getFrequency(Note.getNote("C"), 4);
+		assertEquals(Math.pow(2, 1 / 19.0), tuning.getFrequency(Note.getNote("C#"), 4) / c, 1e-9);
+		assertEquals(Math.pow(2, 2 / 19.0), tuning.getFrequency(Note.getNote("Db"), 4) / c, 1e-9);
+	}
+
+	@Test
+	void testPythagorean() {
+		Tuning tuning = Tuning.pythagorean(440);
+		assertEquals(440, tuning.getFrequency(Note.getNote("A"), 4), 1e-9);
+		
+		// test the pure fifth and the Pythagorean major third
+		double c = tuning.getFrequency(Note.getNote("C"), 4);
+		assertEquals(1.5, tuning.getFrequency(Note.getNote("G"), 4) / c, 1e-9);
+		assertEquals(81 / 64.0, tuning.getFrequency(Note.getNote("E"), 4) / c, 1e-9);
+		
+		// test that enharmonic notes differ by a Pythagorean comma
+		double sharp = tuning.getFrequency(Note.getNote("C#"), 4);
+		double flat = tuning.getFrequency(Note.getNote("Db"), 4);
+		assertEquals(531441 / 524288.0, sharp / flat, 1e-9);
+	}
+
+	@Test
+	void testMeantone() {
+		Tuning tuning = Tuning.meantone(440);
+		
+		// test that major thirds are pure
+		double c = tuning.getFrequency(Note.getNote("C"), 4);
+		assertEquals(1.25, tuning.getFrequency(Note.getNote("E"), 4) / c, 1e-9);
+		assertEquals(0, tuning.getCentsDeviation(Note.getNote("A")), 1e-9);
+	}
+
+	@Test
+	void testJustIntonation() {
+		Tuning tuning = Tuning.justIntonation(440);
+		
+		// test the frequency ratios of a C major scale
+		String[] intervals = {"1", "2", "3", "4", "5", "6", "7", "8"};
+		Scale scale = new Scale(Note.getNote("C"), "scale", "major", intervals);
+		double[] frequencies = tuning.getFrequencies(scale, 4);
+		double[] ratios = {1, 9 / 8.0, 5 / 4.0, 4 / 3.0, 3 / 2.0, 5 / 3.0, 15 / 8.0, 2};
+		for (int i = 0; i < ratios.length; i++) {
+			assertEquals(ratios[i], frequencies[i] / frequencies[0], 1e-9);
+		}
+		
+		// test the cents deviations, where the just major third is about 14 cents flat
+		double[] deviations = tuning.getCentsDeviations(scale);
+		assertEquals(8, deviations.length);
+		assertEquals(deviations[0], deviations[7], 1e-9);
+		assertEquals(-13.686, deviations[2] - deviations[0], 1e-3);
+	}
+}
@@ -0,0 +1,150 @@
+package ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates many users of a SessionServer at once and reports how long the server takes to respond.
+ * Each simulated session logs in, searches a scale, adds a custom scale and removes it again, timing
+ * every response from the moment its input is sent until the next prompt arrives.
+ * <p>
+ * Arguments: [port] [sessions] [concurrent sessions], defaulting to 4242, 200 and 200.
+ * @author Joel Gibson
+ */
+public class SessionClient {
+	
+	/**
+	 * The input sent by each session after its user name, one line per prompt.
+	 */
+	private static final String[] SCRIPT = {
+			"1", "2", "c", "pattern", "0", "0",
+			"5", "scale", "practice", "1, 2, b3, 5, 6, 8", "n",
+			"6", "practice scale",
+			"0"};
+	
+	/**
+	 * Runs a single simulated session.
+	 * @param port the port of the server
+	 * @param user the user name of the session
+	 * @return the time taken by each response in nanoseconds
+	 * @throws IOException if the session fails
+	 */
+	static long[] runSession(int port, String user) throws IOException {
+		long[] latencies = new long[SCRIPT.length + 1];
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			InputStream in = socket.getInputStream();
+			OutputStream out = socket.getOutputStream();
+			
+			// wait for the first prompt before logging in
+			if (awaitPrompt(in) == null) {
+				throw new IOException("Session closed before login");
+			}
+			
+			for (int i = 0; i <= SCRIPT.length; i++) {
+				String line = (i == 0) ? user : SCRIPT[i - 1];
+				long start = System.nanoTime();
+				out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+				out.flush();
+				
+				// the last input ends the session rather than showing another prompt
+				String response = awaitPrompt(in);
+				latencies[i] = System.nanoTime() - start;
+				if (response == null && i < SCRIPT.length) {
+					throw new IOException("Session closed early after '" + line + "'");
+				}
+			}
+		}
+		
+		return latencies;
+	}
+	
+	/**
+	 * Reads from the server until it shows a prompt and waits for input.
+	 * @param in the stream to read from
+	 * @return the text read, or null if the session ended
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static String awaitPrompt(InputStream in) throws IOException {
+		StringBuilder text = new StringBuilder();
+		byte[] buffer = new byte[8192];
+		while (true) {
+			int read = in.read(buffer);
+			if (read < 0) {
+				return null;
+			}
+			
+			text.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+			
+			// every prompt ends with ": " or "? " and is followed by no more output
+			int length = text.length();
+			if (length >= 2 && text.charAt(length - 1) == ' ' && (text.charAt(length - 2) == ':'
+					|| text.charAt(length - 2) == '?') && in.available() == 0) {
+				return text.toString();
+			}
+		}
+	}
+	
+	/**
+	 * Gets the given percentile of the sorted latencies in milliseconds.
+	 */
+	private static double percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1e6;
+	}
+	
+	public static void main(String[] args) throws Exception {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : SessionServer.DEFAULT_PORT;
+		int sessionCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : sessionCount;
+		
+		// start every session, at most the given number at once
+		ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		long start = System.nanoTime();
+		for (int i = 0; i < sessionCount; i++) {
+			String user = "loadtest-" + i;
+			results.add(pool.submit(() -> runSession(port, user)));
+		}
+		
+		// collect the latencies of every successful session
+		long[] latencies = new long[sessionCount * (SCRIPT.length + 1)];
+		int count = 0;
+		int failed = 0;
+		for (Future<long[]> result : results) {
+			try {
+				long[] sessionLatencies = result.get();
+				System.arraycopy(sessionLatencies, 0, latencies, count, sessionLatencies.length);
+				count += sessionLatencies.length;
+			} catch (Exception e) {
+				failed++;
+				System.out.println("Session failed: " + e.getCause());
+			}
+		}
+		
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.SECONDS);
+		
+		// report the results
+		latencies = Arrays.copyOf(latencies, count);
+		Arrays.sort(latencies);
+		System.out.println((sessionCount - failed) + " sessions completed, " + failed + " failed, in "
+				+ String.format("%.2f", seconds) + " s");
+		if (count > 0) {
+			System.out.printf("%d responses (%.0f per second)%n", count, count / seconds);
+			System.out.printf("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n", percentile(latencies, 50),
+					percentile(latencies, 90), percentile(latencies, 99), percentile(latencies, 100));
+		}
+	}
+}
@@ -0,0 +1,275 @@
+package ui;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import files.CatalogWatcher;
+import scales.*;
+
+/**
+ * Serves the interactive scale library menus to many users at once over local sockets. Each connection
+ * is a session with its own input and output streams and its own thread, and every session shares one
+ * catalogue of built-in scales and one set of custom scale namespaces.
+ * @author Joel Gibson
+ */
+public class SessionServer implements Closeable {
+	
+	/**
+	 * The port used when none is given.
+	 */
+	public static final int DEFAULT_PORT = 4242;
+	
+	/**
+	 * The time a session may wait for input before it is closed.
+	 */
+	private static final int IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+	
+	/**
+	 * The catalogue of built-in scales shared by every session.
+	 */
+	private VersionedLibrary library;
+	
+	/**
+	 * The custom scales of every user.
+	 */
+	private CustomScales customScales;
+	
+	/**
+	 * Limits the number of sessions running at once.
+	 */
+	private Semaphore slots;
+	
+	/**
+	 * The socket accepting connections, or null if the server hasn't been started.
+	 */
+	private ServerSocket serverSocket;
+	
+	/**
+	 * The threads running the sessions.
+	 */
+	private ExecutorService sessions;
+	
+	/**
+	 * The sockets of the running sessions, so they can be closed with the server.
+	 */
+	private Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * Creates a server for the given library.
+	 * @param library the catalogue of built-in scales
+	 * @param customScales the custom scales of every user
+	 * @param maxSessions the largest number of sessions that can run at once
+	 */
+	public SessionServer(VersionedLibrary library, CustomScales customScales, int maxSessions) {
+		this.library = library;
+		this.customScales = customScales;
+		this.slots = new Semaphore(maxSessions);
+	}
+	
+	/**
+	 * Starts accepting connections on the loopback interface.
+	 * @param port the port to listen on, or 0 to choose any free port
+	 * @throws IOException if the port cannot be opened
+	 */
+	public void start(int port) throws IOException {
+		serverSocket = new ServerSocket(port, 256, InetAddress.getLoopbackAddress());
+		
+		// each session blocks on its own socket, so it gets its own thread
+		sessions = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "scale-session");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		Thread acceptThread = new Thread(this::accept, "scale-server");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+	
+	/**
+	 * Gets the port the server is listening on.
+	 * @return the port number
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+	
+	/**
+	 * Stops accepting connections and closes every running session.
+	 */
+	@Override
+	public void close() {
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		for (Socket socket : openSockets) {
+			closeQuietly(socket);
+		}
+		
+		if (sessions != null) {
+			sessions.shutdown();
+		}
+	}
+	
+	/**
+	 * Accepts connections until the server is closed, starting a session for each one.
+	 */
+	private void accept() {
+		while (true) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				// the server has been closed
+				return;
+			}
+			
+			// turn the connection away if too many sessions are running
+			if (!slots.tryAcquire()) {
+				try (Socket busy = socket) {
+					busy.getOutputStream().write("The server is busy, please try again later.\n".getBytes(StandardCharsets.UTF_8));
+				} catch (IOException e) {
+					// the client has already gone
+				}
+				continue;
+			}
+			
+			openSockets.add(socket);
+			sessions.execute(() -> {
+				try {
+					runSession(socket);
+				} finally {
+					// free the slot before the user sees the session end, so they can reconnect at once
+					openSockets.remove(socket);
+					slots.release();
+					closeQuietly(socket);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Asks for the user's name, then runs the library menus until the user quits or disconnects.
+	 * @param socket the connection to the user
+	 */
+	private void runSession(Socket socket) {
+		try {
+			socket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+			
+			out.println("Welcome to the scale library!\n");
+			
+			// prompt user for the name of their custom scale namespace
+			String user;
+			while (true) {
+				out.print("Enter your user name: ");
+				out.flush();
+				
+				user = readLine(in);
+				if (user == null) {
+					return;
+				}
+				
+				user = user.trim().toLowerCase();
+				if (CustomScales.isValidName(user)) {
+					break;
+				}
+				out.println("Invalid user name (use up to 32 letters, digits, '-' or '_').\n");
+			}
+			
+			out.println();
+			new ScaleLibrary(library, customScales, user, in, out, false).run();
+			out.println("Session closed.");
+			out.flush();
+			
+		} catch (SocketException e) {
+			// the user disconnected or the server was closed
+			
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Reads a single line without reading past its end, so that the rest of the input can be passed on.
+	 * @param in the stream to read from
+	 * @return the line, or null if the input ended first
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b < 0) {
+				return null;
+			}
+			
+			// ignore anything past a reasonable name length
+			if (line.size() < 256) {
+				line.write(b);
+			}
+		}
+		
+		return line.toString(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Closes a socket, ignoring any error.
+	 * @param socket the socket to close
+	 */
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing more can be done
+		}
+	}
+	
+	public static void main(String[] args) {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		
+		// load the shared catalogue once for every session
+		VersionedLibrary library = new VersionedLibrary();
+		ScaleLibrary.loadAllScales(library);
+		CatalogWatcher watcher = ScaleLibrary.watchCatalogFiles(library);
+		CustomScales customScales = ScaleLibrary.openCustomScales();
+		
+		SessionServer server = new SessionServer(library, customScales, maxSessions);
+		try {
+			server.start(port);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		
+		System.out.println("Scale library server listening on port " + server.getPort() + ".");
+		System.out.println("Press Enter to stop the server.");
+		try {
+			new BufferedReader(new InputStreamReader(System.in)).readLine();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		// close the server
+		server.close();
+		watcher.close();
+		customScales.close();
+		System.out.println("Server closed.");
+	}
+}
@@ -0,0 +1,113 @@
+package ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datamanagement.TextReader;
+import notes.*;
+import scales.*;
+
+class SessionServerTest {
+	
+	// temporary directory holding the custom scale files
+	File directory;
+	
+	// the custom scales of every session
+	CustomScales customScales;
+	
+	// the server under test
+	SessionServer server;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// create all scale components
+		Accidental.createAllAccidentals();
+		Note.createAllNotes();
+		Interval.createAllIntervals();
+		
+		// create a small catalogue shared by every session
+		ScaleCollection major = new ScaleCollection("scale", "major", new String[] {"1", "2", "3", "4", "5", "6", "7", "8"}, false);
+		ScaleCollection minor = new ScaleCollection("scale", "minor", new String[] {"1", "2", "b3", "4", "5", "b6", "b7", "8"}, false);
+		major.createAllScales();
+		minor.createAllScales();
+		Map<String, List<ScaleCollection>> allScales = new HashMap<String, List<ScaleCollection>>();
+		allScales.put("scales", List.of(major, minor));
+		VersionedLibrary library = new VersionedLibrary();
+		library.replaceAll(allScales);
+		
+		directory = Files.createTempDirectory("session-server-test").toFile();
+		customScales = new CustomScales(namespace -> new TextReader(new File(directory, namespace + ".txt")));
+		server = new SessionServer(library, customScales, 2);
+		server.start(0);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		server.close();
+		customScales.close();
+		
+		// reset each scale component
+		Interval.getIntervals().clear();
+		Accidental.getAccidentals().clear();
+		Note.getNotes().clear();
+		
+		// remove the test files
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	void testSessions() throws Exception {
+		// run several scripted sessions at once, two at a time
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		for (int i = 0; i < 6; i++) {
+			String user = "student" + i;
+			results.add(pool.submit(() -> SessionClient.runSession(server.getPort(), user)));
+		}
+		
+		for (Future<long[]> result : results) {
+			long[] latencies = result.get(30, TimeUnit.SECONDS);
+			assertTrue(latencies[latencies.length - 1] > 0);
+		}
+		pool.shutdown();
+		
+		// each session removed the scale it added to its own namespace
+		assertTrue(new File(directory, "student3.txt").exists());
+		assertTrue(customScales.getNamespace("student3").getScales().isEmpty());
+	}
+
+	@Test
+	void testBusy() throws Exception {
+		// fill both session slots with users who haven't logged in yet
+		try (Socket first = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				Socket second = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				Socket third = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+			assertTrue(first.isConnected());
+			assertTrue(second.isConnected());
+			
+			// test that the third user is turned away
+			String response = new String(third.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+			assertTrue(response.startsWith("The server is busy"));
+		}
+	}
+}
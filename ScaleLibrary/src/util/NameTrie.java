@@ -0,0 +1,251 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Represents a trie of lowercase words, each tagged with the ids of the entries that use it (e.g. the
+ * positions of the scale collections whose names contain the word). Words can be found by prefix, for
+ * autocomplete, or by edit distance, so that misspelled words (e.g. "harmnic") still find their entries.
+ * Children are kept in small sorted arrays, so large tries stay compact and are walked in word order.
+ * @author Joel Gibson
+ */
+public class NameTrie {
+
+	/**
+	 * The root node, representing the empty prefix.
+	 */
+	private final Node root = new Node();
+
+	/**
+	 * The number of distinct words.
+	 */
+	private int size;
+
+	/**
+	 * Adds a word used by the given entry. Adding the same word and id twice in a row has no effect.
+	 * @param word the word, which should be lowercase
+	 * @param id the id of the entry using the word
+	 */
+	public void add(String word, int id) {
+		Node node = root;
+		for (int i = 0; i < word.length(); i++) {
+			node = node.getOrAddChild(word.charAt(i));
+		}
+
+		if (node.idCount == 0) {
+			size++;
+		}
+		node.addId(id);
+	}
+
+	/**
+	 * Gets the number of distinct words.
+	 * @return the number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds the ids of every word starting with the given prefix to the set.
+	 * @param prefix the prefix, which should be lowercase
+	 * @param ids the set to add to
+	 */
+	public void collectPrefix(String prefix, BitSet ids) {
+		Node node = find(prefix);
+		if (node != null) {
+			node.collectIds(ids);
+		}
+	}
+
+	/**
+	 * Adds the ids of every word with a prefix within the given edit distance of the word, so that partly
+	 * typed words can be misspelled (e.g. "harmn" finds harmonic, and "minr" finds minor).
+	 * @param word the possibly misspelled word or prefix, which should be lowercase
+	 * @param maxDistance the maximum number of inserted, deleted or replaced characters
+	 * @param ids the set to add to
+	 */
+	public void collectFuzzy(String word, int maxDistance, BitSet ids) {
+		// the distances from the empty prefix to each prefix of the word
+		int[] row = new int[word.length() + 1];
+		Arrays.setAll(row, i -> i);
+		if (row[word.length()] <= maxDistance) {
+			root.collectIds(ids);
+			return;
+		}
+
+		for (int i = 0; i < root.childCount; i++) {
+			collectFuzzy(root.children[i], root.keys[i], word, row, maxDistance, ids);
+		}
+	}
+
+	/**
+	 * Continues the fuzzy search into a node, calculating the next row of the edit distance table.
+	 */
+	private static void collectFuzzy(Node node, char key, String word, int[] previous, int maxDistance, BitSet ids) {
+		int[] row = new int[previous.length];
+		row[0] = previous[0] + 1;
+		int smallest = row[0];
+		for (int j = 1; j < row.length; j++) {
+			int replace = previous[j - 1] + (word.charAt(j - 1) == key ? 0 : 1);
+			row[j] = Math.min(replace, Math.min(previous[j], row[j - 1]) + 1);
+			smallest = Math.min(smallest, row[j]);
+		}
+
+		// every word below this node starts with a prefix close enough to the word
+		if (row[row.length - 1] <= maxDistance) {
+			node.collectIds(ids);
+			return;
+		}
+
+		// stop once no longer word can come close enough
+		if (smallest > maxDistance) {
+			return;
+		}
+
+		for (int i = 0; i < node.childCount; i++) {
+			collectFuzzy(node.children[i], node.keys[i], word, row, maxDistance, ids);
+		}
+	}
+
+	/**
+	 * Finds the words starting with the given prefix, for autocomplete.
+	 * @param prefix the prefix, which should be lowercase
+	 * @param limit the maximum number of words to find
+	 * @return the words in sorted order, shortest first where one word starts another
+	 */
+	public List<String> complete(String prefix, int limit) {
+		List<String> words = new ArrayList<String>();
+		Node node = find(prefix);
+		if (node != null) {
+			node.collectWords(new StringBuilder(prefix), words, limit);
+		}
+
+		return words;
+	}
+
+	/**
+	 * Finds the node reached by following the characters of the prefix.
+	 * @return the node, or null if no word starts with the prefix
+	 */
+	private Node find(String prefix) {
+		Node node = root;
+		for (int i = 0; i < prefix.length() && node != null; i++) {
+			node = node.getChild(prefix.charAt(i));
+		}
+
+		return node;
+	}
+
+	/**
+	 * Chooses how many typing mistakes to allow in a word, so that short words don't match almost
+	 * anything.
+	 * @param length the length of the typed word
+	 * @return 0 for words of up to 2 characters, 1 for up to 5 characters, otherwise 2
+	 */
+	public static int getMaxDistance(int length) {
+		return (length <= 2) ? 0 : (length <= 5) ? 1 : 2;
+	}
+
+	/**
+	 * Calculates the edit distance between two strings: the number of inserted, deleted or replaced
+	 * characters needed to change one into the other.
+	 * @param first the first string
+	 * @param second the second string
+	 * @return the edit distance
+	 */
+	public static int editDistance(CharSequence first, CharSequence second) {
+		int[] previous = new int[second.length() + 1];
+		int[] row = new int[second.length() + 1];
+		Arrays.setAll(previous, j -> j);
+		for (int i = 1; i <= first.length(); i++) {
+			row[0] = i;
+			for (int j = 1; j <= second.length(); j++) {
+				int replace = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+				row[j] = Math.min(replace, Math.min(previous[j], row[j - 1]) + 1);
+			}
+
+			int[] swap = previous;
+			previous = row;
+			row = swap;
+		}
+
+		return previous[second.length()];
+	}
+
+	/**
+	 * Represents a node of the trie, with its children sorted by character.
+	 */
+	private static class Node {
+		char[] keys = new char[0];
+		Node[] children = new Node[0];
+		int childCount;
+
+		// the ids of the entries using the word ending at this node
+		int[] ids = new int[0];
+		int idCount;
+
+		Node getChild(char key) {
+			int index = Arrays.binarySearch(keys, 0, childCount, key);
+			return (index >= 0) ? children[index] : null;
+		}
+
+		Node getOrAddChild(char key) {
+			int index = Arrays.binarySearch(keys, 0, childCount, key);
+			if (index >= 0) {
+				return children[index];
+			}
+
+			// insert the new child in order, growing the arrays as needed
+			index = -index - 1;
+			if (childCount == keys.length) {
+				int capacity = Math.max(2, 2 * childCount);
+				keys = Arrays.copyOf(keys, capacity);
+				children = Arrays.copyOf(children, capacity);
+			}
+			System.arraycopy(keys, index, keys, index + 1, childCount - index);
+			System.arraycopy(children, index, children, index + 1, childCount - index);
+			keys[index] = key;
+			children[index] = new Node();
+			childCount++;
+			return children[index];
+		}
+
+		void addId(int id) {
+			if (idCount > 0 && ids[idCount - 1] == id) {
+				return;
+			}
+			if (idCount == ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(2, 2 * idCount));
+			}
+			ids[idCount++] = id;
+		}
+
+		void collectIds(BitSet found) {
+			for (int i = 0; i < idCount; i++) {
+				found.set(ids[i]);
+			}
+			for (int i = 0; i < childCount; i++) {
+				children[i].collectIds(found);
+			}
+		}
+
+		void collectWords(StringBuilder word, List<String> words, int limit) {
+			if (words.size() >= limit) {
+				return;
+			}
+			if (idCount > 0) {
+				words.add(word.toString());
+			}
+
+			for (int i = 0; i < childCount && words.size() < limit; i++) {
+				word.append(keys[i]);
+				children[i].collectWords(word, words, limit);
+				word.setLength(word.length() - 1);
+			}
+		}
+	}
+}
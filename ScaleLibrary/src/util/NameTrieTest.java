@@ -0,0 +1,84 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NameTrieTest {
+
+	// the trie under test
+	NameTrie trie;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		trie = new NameTrie();
+		String[] names = {"harmonic minor scale", "melodic minor scale", "major scale", "major arpeggio"};
+		for (int i = 0; i < names.length; i++) {
+			for (String word : names[i].split(" ")) {
+				trie.add(word, i);
+			}
+		}
+	}
+
+	/**
+	 * Collects the ids of the words within the given distance of the word.
+	 */
+	BitSet fuzzy(String word, int maxDistance) {
+		BitSet ids = new BitSet();
+		trie.collectFuzzy(word, maxDistance, ids);
+		return ids;
+	}
+
+	@Test
+	void testPrefix() {
+		assertEquals(6, trie.size());
+		
+		BitSet ids = new BitSet();
+		trie.collectPrefix("m", ids);
+		assertEquals("{0, 1, 2, 3}", ids.toString());
+		ids.clear();
+		trie.collectPrefix("min", ids);
+		assertEquals("{0, 1}", ids.toString());
+		ids.clear();
+		trie.collectPrefix("minors", ids);
+		assertTrue(ids.isEmpty());
+	}
+
+	@Test
+	void testFuzzy() {
+		assertEquals("{0}", fuzzy("harmnic", 1).toString());
+		assertEquals("{0, 1}", fuzzy("minr", 1).toString());
+		assertEquals("{2, 3}", fuzzy("majr", 1).toString());
+		assertEquals("{3}", fuzzy("arpegio", 1).toString());
+		assertTrue(fuzzy("harmnic", 0).isEmpty());
+		assertTrue(fuzzy("lydian", 2).isEmpty());
+		
+		// test that a short enough word matches everything
+		assertEquals("{0, 1, 2, 3}", fuzzy("x", 1).toString());
+	}
+
+	@Test
+	void testComplete() {
+		assertEquals(List.of("major", "melodic", "minor"), trie.complete("m", 10));
+		assertEquals(List.of("arpeggio"), trie.complete("arp", 10));
+		assertEquals(List.of("arpeggio"), trie.complete("", 1));
+		assertTrue(trie.complete("q", 10).isEmpty());
+	}
+
+	@Test
+	void testEditDistance() {
+		assertEquals(0, NameTrie.editDistance("minor", "minor"));
+		assertEquals(1, NameTrie.editDistance("minr", "minor"));
+		assertEquals(2, NameTrie.editDistance("hramonic", "harmonic"));
+		assertEquals(5, NameTrie.editDistance("", "major"));
+		assertEquals(3, NameTrie.editDistance("kitten", "sitting"));
+		
+		assertEquals(0, NameTrie.getMaxDistance(2));
+		assertEquals(1, NameTrie.getMaxDistance(5));
+		assertEquals(2, NameTrie.getMaxDistance(6));
+	}
+}
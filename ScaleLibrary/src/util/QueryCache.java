@@ -0,0 +1,364 @@
+package util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Represents a cache of computed query results with a bounded total weight. The cache is split into
+ * segments by key, each guarded by its own lock, so concurrent readers only contend when their keys fall
+ * in the same segment. Each segment evicts its least recently used entries once it exceeds its share of
+ * the maximum weight.
+ * @author Joel Gibson
+ */
+public class QueryCache<K, V> {
+
+	/**
+	 * Calculates the weight of a cache entry, which should be roughly proportional to its memory use.
+	 */
+	public interface Weigher<K, V> {
+
+		/**
+		 * Calculates the weight of an entry.
+		 * @param key the key of the entry
+		 * @param value the value of the entry
+		 * @return the weight, which must not be negative
+		 */
+		int weigh(K key, V value);
+	}
+
+	/**
+	 * The number of segments, which must be a power of 2.
+	 */
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * The segments holding the entries.
+	 */
+	private final Segment<K, V>[] segments;
+
+	/**
+	 * Calculates the weight of each entry.
+	 */
+	private final Weigher<? super K, ? super V> weigher;
+
+	/**
+	 * The maximum total weight of all entries.
+	 */
+	private final long maximumWeight;
+
+	/**
+	 * The number of lookups that found a value.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * The number of lookups that didn't find a value.
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * The number of entries removed to stay within the maximum weight.
+	 */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates an empty cache.
+	 * @param maximumWeight the maximum total weight of all entries
+	 * @param weigher calculates the weight of each entry
+	 */
+	@SuppressWarnings("unchecked")
+	public QueryCache(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("The maximum weight can't be negative");
+		}
+
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+
+		// share the maximum weight between the segments, rounding up so that nothing is lost
+		segments = (Segment<K, V>[]) new Segment<?, ?>[SEGMENTS];
+		long segmentWeight = (maximumWeight + SEGMENTS - 1) / SEGMENTS;
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment<K, V>(segmentWeight);
+		}
+	}
+
+	/**
+	 * Gets the maximum total weight of all entries.
+	 * @return the maximum weight
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * Looks up the value for the given key, computing and storing it if it isn't cached. The value is
+	 * computed without holding any lock, so concurrent misses on the same key may each compute it.
+	 * @param key the key to look up
+	 * @param compute calculates the value from the key, which must not return null
+	 * @return the value
+	 */
+	public V get(K key, Function<? super K, ? extends V> compute) {
+		V value = getIfPresent(key);
+		if (value == null) {
+			value = compute.apply(key);
+			put(key, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Looks up the value for the given key, marking the entry as the most recently used.
+	 * @param key the key to look up
+	 * @return the value, or null if it isn't cached
+	 */
+	public V getIfPresent(K key) {
+		Segment<K, V> segment = getSegment(key);
+		Entry<V> entry;
+		synchronized (segment) {
+			entry = segment.entries.get(key);
+		}
+
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * Stores a value, replacing any value with the same key. Values heavier than a segment's share of the
+	 * maximum weight are not stored.
+	 * @param key the key to store
+	 * @param value the value to store
+	 */
+	public void put(K key, V value) {
+		if (value == null) {
+			throw new NullPointerException("Cached values can't be null");
+		}
+
+		int weight = weigher.weigh(key, value);
+		Segment<K, V> segment = getSegment(key);
+		synchronized (segment) {
+			if (weight > segment.maximumWeight) {
+				Entry<V> removed = segment.entries.remove(key);
+				if (removed != null) {
+					segment.weight -= removed.weight;
+				}
+				return;
+			}
+
+			Entry<V> replaced = segment.entries.put(key, new Entry<V>(value, weight));
+			segment.weight += weight - (replaced == null ? 0 : replaced.weight);
+
+			// evict the least recently used entries until the segment is within its share of the weight
+			Iterator<Entry<V>> iterator = segment.entries.values().iterator();
+			while (segment.weight > segment.maximumWeight) {
+				Entry<V> eldest = iterator.next();
+				iterator.remove();
+				segment.weight -= eldest.weight;
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Removes every entry. The statistics are kept.
+	 */
+	public void invalidateAll() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.entries.clear();
+				segment.weight = 0;
+			}
+		}
+	}
+
+	/**
+	 * Counts the entries in the cache.
+	 * @return the number of entries
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.entries.size();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Adds up the weight of the entries in the cache.
+	 * @return the total weight
+	 */
+	public long getWeight() {
+		long weight = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				weight += segment.weight;
+			}
+		}
+
+		return weight;
+	}
+
+	/**
+	 * Gets the current statistics of the cache.
+	 * @return the statistics
+	 */
+	public Stats getStats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(), size(), getWeight());
+	}
+
+	/**
+	 * Finds the segment holding the given key.
+	 * @param key the key
+	 * @return the segment
+	 */
+	private Segment<K, V> getSegment(Object key) {
+		// spread the high bits of the hash so that they also choose the segment
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		return segments[hash & (SEGMENTS - 1)];
+	}
+
+	/**
+	 * Represents a cached value with its weight.
+	 */
+	private static class Entry<V> {
+		final V value;
+		final int weight;
+
+		Entry(V value, int weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Represents one segment of the cache: the entries in least recently used order and their total weight.
+	 * Every field is guarded by the segment itself.
+	 */
+	private static class Segment<K, V> {
+		final Map<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+		final long maximumWeight;
+		long weight;
+
+		Segment(long maximumWeight) {
+			this.maximumWeight = maximumWeight;
+		}
+	}
+
+	/**
+	 * Represents the statistics of a cache at one point in time.
+	 */
+	public static final class Stats {
+
+		/**
+		 * The number of lookups that found a value.
+		 */
+		private final long hits;
+
+		/**
+		 * The number of lookups that didn't find a value.
+		 */
+		private final long misses;
+
+		/**
+		 * The number of entries removed to stay within the maximum weight.
+		 */
+		private final long evictions;
+
+		/**
+		 * The number of entries in the cache.
+		 */
+		private final int size;
+
+		/**
+		 * The total weight of the entries in the cache.
+		 */
+		private final long weight;
+
+		/**
+		 * Creates a set of statistics.
+		 * @param hits the number of lookups that found a value
+		 * @param misses the number of lookups that didn't find a value
+		 * @param evictions the number of entries evicted
+		 * @param size the number of entries
+		 * @param weight the total weight of the entries
+		 */
+		public Stats(long hits, long misses, long evictions, int size, long weight) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.size = size;
+			this.weight = weight;
+		}
+
+		/**
+		 * Gets the number of lookups that found a value.
+		 * @return the number of hits
+		 */
+		public long getHits() {
+			return hits;
+		}
+
+		/**
+		 * Gets the number of lookups that didn't find a value.
+		 * @return the number of misses
+		 */
+		public long getMisses() {
+			return misses;
+		}
+
+		/**
+		 * Gets the number of entries evicted to stay within the maximum weight.
+		 * @return the number of evictions
+		 */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/**
+		 * Gets the number of entries in the cache.
+		 * @return the number of entries
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * Gets the total weight of the entries in the cache.
+		 * @return the total weight
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Gets the fraction of lookups that found a value.
+		 * @return the hit rate between 0 and 1, or 0 if there have been no lookups
+		 */
+		public double getHitRate() {
+			long lookups = hits + misses;
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+
+		/**
+		 * Returns a summary of the statistics for printing.
+		 */
+		@Override
+		public String toString() {
+			return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d entries, weight %d",
+					hits, misses, 100 * getHitRate(), evictions, size, weight);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class QueryCacheTest {
+
+	@Test
+	void testGet() {
+		QueryCache<String, Integer> cache = new QueryCache<String, Integer>(1000, (key, value) -> 1);
+		AtomicInteger computed = new AtomicInteger();
+		
+		// test that values are only computed on a miss
+		assertEquals(5, (int) cache.get("hello", key -> computed.incrementAndGet() + key.length() - 1));
+		assertEquals(5, (int) cache.get("hello", key -> computed.incrementAndGet() + key.length() - 1));
+		assertEquals(1, computed.get());
+		assertNull(cache.getIfPresent("world"));
+		
+		QueryCache.Stats stats = cache.getStats();
+		assertEquals(1, stats.getHits());
+		assertEquals(2, stats.getMisses());
+		assertEquals(1, stats.getSize());
+		assertEquals(1, stats.getWeight());
+		assertEquals(1.0 / 3, stats.getHitRate(), 1e-9);
+		
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+		assertNull(cache.getIfPresent("hello"));
+	}
+
+	@Test
+	void testEviction() {
+		// a total weight of 16 gives each of the 16 segments room for a single unit
+		QueryCache<Integer, String> cache = new QueryCache<Integer, String>(16, (key, value) -> value.length());
+		
+		// keys 0 and 16 fall in the same segment, so the second replaces the first
+		cache.put(0, "a");
+		cache.put(16, "b");
+		assertNull(cache.getIfPresent(0));
+		assertEquals("b", cache.getIfPresent(16));
+		assertEquals(1, cache.getStats().getEvictions());
+		
+		// test that values heavier than a segment aren't stored
+		cache.put(1, "too heavy");
+		assertNull(cache.getIfPresent(1));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testLeastRecentlyUsed() {
+		// each segment holds a weight of 2
+		QueryCache<Integer, String> cache = new QueryCache<Integer, String>(32, (key, value) -> 1);
+		cache.put(0, "a");
+		cache.put(16, "b");
+		
+		// test that reading an entry protects it from eviction
+		assertEquals("a", cache.getIfPresent(0));
+		cache.put(32, "c");
+		assertEquals("a", cache.getIfPresent(0));
+		assertNull(cache.getIfPresent(16));
+		assertEquals("c", cache.getIfPresent(32));
+		assertEquals(2, cache.getWeight());
+	}
+
+	@Test
+	void testConcurrentReaders() throws Exception {
+		QueryCache<QueryKey, int[]> cache = new QueryCache<QueryKey, int[]>(64, (key, value) -> key.size() + value.length);
+		List<Throwable> errors = new ArrayList<Throwable>();
+		
+		// test that every thread always sees the right value while entries are evicted under it
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					for (int i = 0; i < 20000; i++) {
+						int n = i % 50;
+						int[] value = cache.get(new QueryKey("square", new int[] {n}), key -> new int[] {key.getId(0) * key.getId(0)});
+						assertEquals(n * n, value[0]);
+					}
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		assertTrue(errors.isEmpty(), errors.toString());
+		assertTrue(cache.getWeight() <= 64);
+		assertEquals(80000, cache.getStats().getHits() + cache.getStats().getMisses());
+	}
+
+	@Test
+	void testQueryKey() {
+		QueryKey key = new QueryKey("spell", new int[] {1, 2, 3});
+		assertEquals(key, new QueryKey("spell", new int[] {1, 2, 3}));
+		assertEquals(key.hashCode(), new QueryKey("spell", new int[] {1, 2, 3}).hashCode());
+		assertNotEquals(key, new QueryKey("identify", new int[] {1, 2, 3}));
+		assertNotEquals(key, new QueryKey("spell", new int[] {1, 2}));
+		assertEquals("spell[1, 2, 3]", key.toString());
+	}
+}
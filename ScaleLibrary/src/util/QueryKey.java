@@ -0,0 +1,91 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Represents the canonical form of a musical query, used as a cache key: the name of the operation and
+ * the primitive ids it depends on (e.g. interval ids, note ordinals and flags).
+ * @author Joel Gibson
+ */
+public final class QueryKey {
+
+	/**
+	 * The name of the operation (e.g. spell, identify).
+	 */
+	private final String operation;
+
+	/**
+	 * The ids the result depends on, in a canonical order.
+	 */
+	private final int[] ids;
+
+	/**
+	 * The hash code, calculated once since keys are hashed on every lookup.
+	 */
+	private final int hash;
+
+	/**
+	 * Creates a key. The array is not copied, so it must not be changed afterwards.
+	 * @param operation the name of the operation
+	 * @param ids the ids the result depends on
+	 */
+	public QueryKey(String operation, int[] ids) {
+		this.operation = operation;
+		this.ids = ids;
+		this.hash = 31 * operation.hashCode() + Arrays.hashCode(ids);
+	}
+
+	/**
+	 * Gets the name of the operation.
+	 * @return the operation
+	 */
+	public String getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Gets the number of ids in the key.
+	 * @return the number of ids
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Gets one of the ids in the key.
+	 * @param index the position of the id
+	 * @return the id
+	 */
+	public int getId(int index) {
+		return ids[index];
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Compares the keys for equality using their operations and ids.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof QueryKey)) {
+			return false;
+		}
+
+		QueryKey otherKey = (QueryKey) other;
+		return hash == otherKey.hash && operation.equals(otherKey.operation) && Arrays.equals(ids, otherKey.ids);
+	}
+
+	/**
+	 * Returns a string representation of the key for printing.
+	 */
+	@Override
+	public String toString() {
+		return operation + Arrays.toString(ids);
+	}
+}